@@ -0,0 +1,94 @@
+package com.cepheid.cloud.skel.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.cepheid.cloud.skel.model.Item;
+import com.cepheid.cloud.skel.model.ItemState;
+import com.cepheid.cloud.skel.repository.ItemRepository;
+
+/***
+ * This is a ItemInsertBenchmark class which measures how many items, each with
+ * 3 descriptions, can be inserted per second with the IDENTITY column and with
+ * the pooled-lo EntityIdGenerator. The items are saved 100 per transaction, like
+ * a chunk of the bulk endpoints, against the in-memory H2 database. Run it with
+ * {@code gradlew jmh -Pjmh.include=ItemInsertBenchmark}.
+ * Note that the in-memory database has no round trips, which is what the
+ * batched inserts of pooled-lo save on a database server, and H2 updates the
+ * AUTO_INCREMENT sequence of the Id column for every inserted id, so this
+ * benchmark only shows the cost on the side of the application.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemInsertBenchmark {
+
+	private static final int ITEMS_PER_TRANSACTION = 100;
+
+	private static final int DESCRIPTIONS_PER_ITEM = 3;
+
+	/**
+	 * The id generator, see skel.id.generator.
+	 */
+	@Param({ "identity", "pooled-lo" })
+	public String generator;
+
+	private ConfigurableApplicationContext mContext;
+
+	private ItemRepository mItemRepository;
+
+	private JdbcTemplate mJdbcTemplate;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		mContext = SkelBenchmarks.startApplication("insert-" + generator, "--skel.id.generator=" + generator);
+		mItemRepository = mContext.getBean(ItemRepository.class);
+		mJdbcTemplate = mContext.getBean(JdbcTemplate.class);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		mContext.close();
+	}
+
+	// Keep the tables small, so every iteration inserts into tables of the same
+	// size.
+	@TearDown(Level.Iteration)
+	public void deleteItems() {
+		mJdbcTemplate.update("DELETE FROM description");
+		mJdbcTemplate.update("DELETE FROM item");
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ITEMS_PER_TRANSACTION)
+	public List<Item> insertItems() {
+		List<Item> items = new ArrayList<>(ITEMS_PER_TRANSACTION);
+		for (int i = 0; i < ITEMS_PER_TRANSACTION; i++)
+			items.add(SkelBenchmarks.newItem("Benchmark item " + i, ItemState.UNDEFINED, DESCRIPTIONS_PER_ITEM));
+		return mItemRepository.saveAll(items);
+	}
+}
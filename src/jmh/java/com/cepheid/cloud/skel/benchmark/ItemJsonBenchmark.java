@@ -0,0 +1,85 @@
+package com.cepheid.cloud.skel.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.cepheid.cloud.skel.model.Description;
+import com.cepheid.cloud.skel.model.Item;
+import com.cepheid.cloud.skel.model.ItemState;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/***
+ * This is a ItemJsonBenchmark class which measures the Jackson serialization
+ * and deserialization of an item with 0, 10 or 1000 descriptions. The
+ * ObjectMapper is built like the one of Spring Boot, no application or
+ * database is needed. Run it with
+ * {@code gradlew jmh -Pjmh.include=ItemJsonBenchmark}.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemJsonBenchmark {
+
+	/**
+	 * The number of descriptions of the item.
+	 */
+	@Param({ "0", "10", "1000" })
+	public int descriptions;
+
+	private Item mItem;
+
+	private byte[] mJson;
+
+	private ObjectWriter mItemWriter;
+
+	private ObjectReader mItemReader;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		ObjectMapper object_mapper = Jackson2ObjectMapperBuilder.json().build();
+		mItemWriter = object_mapper.writerFor(Item.class);
+		mItemReader = object_mapper.readerFor(Item.class);
+		// Give the item and its descriptions ids and versions, like a saved item.
+		mItem = SkelBenchmarks.newItem("Benchmark item", ItemState.VALID, descriptions);
+		mItem.setId(1L);
+		mItem.setVersion(0L);
+		long id = 1;
+		for (Description description : mItem.getDescriptions()) {
+			description.setId(id++);
+			description.setVersion(0L);
+		}
+		mJson = mItemWriter.writeValueAsBytes(mItem);
+	}
+
+	@Benchmark
+	public byte[] serializeItem() throws IOException {
+		return mItemWriter.writeValueAsBytes(mItem);
+	}
+
+	@Benchmark
+	public Item deserializeItem() throws IOException {
+		return mItemReader.readValue(mJson);
+	}
+}
@@ -0,0 +1,134 @@
+package com.cepheid.cloud.skel.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.cepheid.cloud.skel.model.Item;
+import com.cepheid.cloud.skel.model.ItemState;
+import com.cepheid.cloud.skel.repository.ItemRepository;
+import com.cepheid.cloud.skel.service.ItemFilter;
+import com.cepheid.cloud.skel.service.ItemService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/***
+ * This is a ItemProjectionBenchmark class which compares the read paths of the
+ * list and search endpoints which load the item entities with their
+ * descriptions against the ones which select the item summaries, every result
+ * is written as json like the endpoints do. The table has 10000 items with
+ * descriptionsPerItem descriptions each, a page is 100 items, and a search by
+ * name finds 100 items. Run it with the gc profiler to see the allocation per
+ * operation next to the latency,
+ * {@code gradlew jmh -Pjmh.include=ItemProjectionBenchmark -Pjmh.profilers=gc}.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemProjectionBenchmark {
+
+	private static final int TABLE_SIZE = 10000;
+
+	private static final int NAMES = 100;
+
+	private static final int PAGE_SIZE = 100;
+
+	private static final int ITEMS_PER_TRANSACTION = 1000;
+
+	/**
+	 * The number of descriptions of every item.
+	 */
+	@Param({ "2", "20" })
+	public int descriptionsPerItem;
+
+	private ConfigurableApplicationContext mContext;
+
+	private ItemService mItemService;
+
+	private ObjectWriter mWriter;
+
+	private final List<Long> mIds = new ArrayList<>(TABLE_SIZE);
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		mContext = SkelBenchmarks.startApplication("projection-" + descriptionsPerItem);
+		mItemService = mContext.getBean(ItemService.class);
+		mWriter = mContext.getBean(ObjectMapper.class).writer();
+		ItemRepository item_repository = mContext.getBean(ItemRepository.class);
+		List<Item> items = new ArrayList<>(ITEMS_PER_TRANSACTION);
+		for (int i = 0; i < TABLE_SIZE; i++) {
+			items.add(SkelBenchmarks.newItem(name(i), ItemState.VALID, descriptionsPerItem));
+			if (items.size() == ITEMS_PER_TRANSACTION || i == TABLE_SIZE - 1) {
+				item_repository.saveAll(items).forEach(item -> mIds.add(item.getId()));
+				items.clear();
+			}
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		mContext.close();
+	}
+
+	@Benchmark
+	public void fetchItemPage() throws IOException {
+		mWriter.writeValue(OutputStream.nullOutputStream(), mItemService.FetchItemPage(randomCursor(), PAGE_SIZE));
+	}
+
+	@Benchmark
+	public void fetchItemSummaryPage() throws IOException {
+		mWriter.writeValue(OutputStream.nullOutputStream(),
+				mItemService.FetchItemSummaryPage(randomCursor(), PAGE_SIZE));
+	}
+
+	@Benchmark
+	public void findItems() throws IOException {
+		mWriter.writeValue(OutputStream.nullOutputStream(), mItemService.FindItems(randomNameContains()));
+	}
+
+	@Benchmark
+	public void findItemSummaries() throws IOException {
+		mWriter.writeValue(OutputStream.nullOutputStream(), mItemService.FindItemSummaries(randomNameContains()));
+	}
+
+	// A cursor of a page which is always full.
+	private Long randomCursor() {
+		return mIds.get(ThreadLocalRandom.current().nextInt(mIds.size() - PAGE_SIZE));
+	}
+
+	// The name filter is not only a name, so the search does not take the cached
+	// finder of the name.
+	private static ItemFilter randomNameContains() {
+		ItemFilter filter = new ItemFilter();
+		filter.setNameContains(name(ThreadLocalRandom.current().nextInt(NAMES)) + "#");
+		return filter;
+	}
+
+	private static String name(int i) {
+		return "Benchmark item #" + i % NAMES + "#";
+	}
+}
@@ -0,0 +1,136 @@
+package com.cepheid.cloud.skel.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.cepheid.cloud.skel.model.Description;
+import com.cepheid.cloud.skel.model.Item;
+import com.cepheid.cloud.skel.model.ItemState;
+import com.cepheid.cloud.skel.model.ItemSummary;
+import com.cepheid.cloud.skel.repository.ItemRepository;
+import com.cepheid.cloud.skel.service.ItemFilter;
+import com.cepheid.cloud.skel.service.ItemSearchHit;
+import com.cepheid.cloud.skel.service.ItemSearchIndex;
+import com.cepheid.cloud.skel.service.ItemService;
+
+/***
+ * This is a ItemSearchBenchmark class which measures the full-text search of
+ * the ItemSearchIndex, by a term and by a prefix, against the search of the
+ * same term in the descriptions with the content filter of the ItemService,
+ * which scans the descriptions in the database. Every item has 10 descriptions
+ * of 8 words from a vocabulary of VOCABULARY_SIZE words, the search returns
+ * the 100 most relevant items.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemSearchBenchmark {
+
+	private static final int VOCABULARY_SIZE = 20000;
+
+	private static final int DESCRIPTIONS_PER_ITEM = 10;
+
+	private static final int WORDS_PER_DESCRIPTION = 8;
+
+	private static final int LIMIT = 100;
+
+	private static final int ITEMS_PER_TRANSACTION = 1000;
+
+	/**
+	 * The number of items in the table, there are 10 times as many descriptions.
+	 */
+	@Param({ "10000", "100000" })
+	public int tableSize;
+
+	private ConfigurableApplicationContext mContext;
+
+	private ItemService mItemService;
+
+	private ItemSearchIndex mItemSearchIndex;
+
+	@Setup(Level.Trial)
+	public void setUp() throws InterruptedException {
+		mContext = SkelBenchmarks.startApplication("search-" + tableSize);
+		mItemService = mContext.getBean(ItemService.class);
+		mItemSearchIndex = mContext.getBean(ItemSearchIndex.class);
+		ItemRepository item_repository = mContext.getBean(ItemRepository.class);
+		Random random = new Random(42);
+		List<Item> items = new ArrayList<>(ITEMS_PER_TRANSACTION);
+		for (int i = 0; i < tableSize; i++) {
+			Item item = new Item(word(random.nextInt(VOCABULARY_SIZE)) + " " + word(random.nextInt(VOCABULARY_SIZE)),
+					ItemState.VALID);
+			for (int d = 0; d < DESCRIPTIONS_PER_ITEM; d++) {
+				StringBuilder content = new StringBuilder();
+				for (int w = 0; w < WORDS_PER_DESCRIPTION; w++)
+					content.append(word(random.nextInt(VOCABULARY_SIZE))).append(' ');
+				item.addDescription(new Description(content.toString()));
+			}
+			items.add(item);
+			if (items.size() == ITEMS_PER_TRANSACTION || i == tableSize - 1) {
+				item_repository.saveAll(items);
+				items.clear();
+			}
+		}
+		// The items are saved by the repository without an ItemChangedEvent.
+		mItemSearchIndex.Rebuild();
+		if (!mItemSearchIndex.AwaitIndexed(10, TimeUnit.MINUTES))
+			throw new IllegalStateException("The search index was not built in time");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		mContext.close();
+	}
+
+	@Benchmark
+	public List<ItemSearchHit> searchTerm() {
+		return mItemSearchIndex.Search(randomWord(), null, LIMIT);
+	}
+
+	@Benchmark
+	public List<ItemSearchHit> searchPrefix() {
+		// The prefix of 5 characters matches 10 words of the vocabulary.
+		String word = randomWord();
+		return mItemSearchIndex.Search(word.substring(0, word.length() - 1) + "*", null, LIMIT);
+	}
+
+	@Benchmark
+	public List<ItemSummary> findItemSummariesByContent() {
+		ItemFilter filter = new ItemFilter();
+		filter.setDescriptionContains(randomWord());
+		return mItemService.FindItemSummaries(filter);
+	}
+
+	private static String randomWord() {
+		return word(ThreadLocalRandom.current().nextInt(VOCABULARY_SIZE));
+	}
+
+	// The words are w00000 to w19999.
+	private static String word(int i) {
+		return String.format("w%05d", i);
+	}
+}
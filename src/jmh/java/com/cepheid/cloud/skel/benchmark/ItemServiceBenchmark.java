@@ -0,0 +1,129 @@
+package com.cepheid.cloud.skel.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.cepheid.cloud.skel.model.Item;
+import com.cepheid.cloud.skel.model.ItemState;
+import com.cepheid.cloud.skel.repository.ItemRepository;
+import com.cepheid.cloud.skel.service.ItemService;
+
+/***
+ * This is a ItemServiceBenchmark class which measures the time of the most
+ * used ItemService methods against the in-memory H2 database, with a table of
+ * tableSize items which have 2 descriptions each. The items share 100 names and
+ * all the item states, so a search by name and state finds about a 300th of the
+ * table. The second-level and query caches are enabled like in the
+ * application. Run it with
+ * {@code gradlew jmh -Pjmh.include=ItemServiceBenchmark}.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemServiceBenchmark {
+
+	private static final int NAMES = 100;
+
+	private static final int DESCRIPTIONS_PER_ITEM = 2;
+
+	private static final int ITEMS_PER_TRANSACTION = 1000;
+
+	/**
+	 * The number of items in the table.
+	 */
+	@Param({ "100", "10000" })
+	public int tableSize;
+
+	private ConfigurableApplicationContext mContext;
+
+	private ItemService mItemService;
+
+	private List<Long> mIds;
+
+	private final List<Long> mAddedIds = new ArrayList<>();
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		mContext = SkelBenchmarks.startApplication("service-" + tableSize);
+		mItemService = mContext.getBean(ItemService.class);
+		ItemRepository item_repository = mContext.getBean(ItemRepository.class);
+		mIds = new ArrayList<>(tableSize);
+		List<Item> items = new ArrayList<>(ITEMS_PER_TRANSACTION);
+		for (int i = 0; i < tableSize; i++) {
+			items.add(SkelBenchmarks.newItem(name(i), state(i), DESCRIPTIONS_PER_ITEM));
+			if (items.size() == ITEMS_PER_TRANSACTION || i == tableSize - 1) {
+				item_repository.saveAll(items).forEach(item -> mIds.add(item.getId()));
+				items.clear();
+			}
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		mContext.close();
+	}
+
+	// Delete the items added by addItem, so every iteration starts with a table of
+	// tableSize items.
+	@TearDown(Level.Iteration)
+	public void deleteAddedItems() {
+		mAddedIds.forEach(mItemService::DeleteItem);
+		mAddedIds.clear();
+	}
+
+	@Benchmark
+	public Item findItemById() {
+		return mItemService.FindItemById(mIds.get(ThreadLocalRandom.current().nextInt(mIds.size())));
+	}
+
+	@Benchmark
+	public Collection<Item> fetchAllItemList() {
+		return mItemService.FetchAllItemList();
+	}
+
+	@Benchmark
+	public Collection<Item> findItemByNameAndState() {
+		int i = ThreadLocalRandom.current().nextInt(NAMES);
+		return mItemService.FindItemByNameAndState(name(i), state(i));
+	}
+
+	@Benchmark
+	public Item addItem() {
+		Item item = mItemService.AddItem(SkelBenchmarks.newItem(name(mAddedIds.size()),
+				state(mAddedIds.size()), DESCRIPTIONS_PER_ITEM));
+		mAddedIds.add(item.getId());
+		return item;
+	}
+
+	private static String name(int i) {
+		return "Benchmark item " + i % NAMES;
+	}
+
+	private static ItemState state(int i) {
+		return ItemState.values()[i % ItemState.values().length];
+	}
+}
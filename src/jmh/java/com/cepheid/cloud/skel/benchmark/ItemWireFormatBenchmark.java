@@ -0,0 +1,150 @@
+package com.cepheid.cloud.skel.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.cepheid.cloud.skel.model.Description;
+import com.cepheid.cloud.skel.model.Item;
+import com.cepheid.cloud.skel.model.ItemState;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/***
+ * This is a ItemWireFormatBenchmark class which compares the formats the item
+ * endpoints are served in, json, Smile and CBOR, by the time to serialize and
+ * deserialize an item with 0, 10 or 1000 descriptions, and by the size of the
+ * serialized item, which is reported as the payloadBytes and payloads counters
+ * of every benchmark, payloadBytes / payloads is the size of one item. The
+ * mappers are configured like the ones of ItemWireFormats, no application or
+ * database is needed. Run it with
+ * {@code gradlew jmh -Pjmh.include=ItemWireFormatBenchmark}.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemWireFormatBenchmark {
+
+	/**
+	 * The format the item is written in.
+	 */
+	@Param({ "json", "smile", "cbor" })
+	public String format;
+
+	/**
+	 * The number of descriptions of the item.
+	 */
+	@Param({ "0", "10", "1000" })
+	public int descriptions;
+
+	private Item mItem;
+
+	private byte[] mSerialized;
+
+	private ObjectWriter mItemWriter;
+
+	private ObjectReader mItemReader;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		ObjectMapper object_mapper = newMapper(format);
+		mItemWriter = object_mapper.writerFor(Item.class);
+		mItemReader = object_mapper.readerFor(Item.class);
+		// Give the item and its descriptions ids and versions, like a saved item.
+		mItem = SkelBenchmarks.newItem("Benchmark item", ItemState.VALID, descriptions);
+		mItem.setId(1L);
+		mItem.setVersion(0L);
+		long id = 1;
+		for (Description description : mItem.getDescriptions()) {
+			description.setId(id++);
+			description.setVersion(0L);
+		}
+		mSerialized = mItemWriter.writeValueAsBytes(mItem);
+	}
+
+	@Benchmark
+	public byte[] serializeItem(PayloadCounters counters) throws IOException {
+		byte[] serialized = mItemWriter.writeValueAsBytes(mItem);
+		counters.count(serialized.length);
+		return serialized;
+	}
+
+	@Benchmark
+	public Item deserializeItem(PayloadCounters counters) throws IOException {
+		counters.count(mSerialized.length);
+		return mItemReader.readValue(mSerialized);
+	}
+
+	private static ObjectMapper newMapper(String format) {
+		switch (format) {
+		case "smile":
+			return configure(new ObjectMapper(new SmileFactory()));
+		case "cbor":
+			return configure(new ObjectMapper(new CBORFactory()));
+		default:
+			return Jackson2ObjectMapperBuilder.json().build();
+		}
+	}
+
+	private static ObjectMapper configure(ObjectMapper objectMapper) {
+		Jackson2ObjectMapperBuilder.json().configure(objectMapper);
+		return objectMapper;
+	}
+
+	/***
+	 * This is a PayloadCounters class which counts the serialized items and their
+	 * bytes. JMH reports the sums of an iteration next to the timings, a counter
+	 * of a constant size would not be reported at all.
+	 * 
+	 * @author Wei Wang
+	 * @version 1.0
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class PayloadCounters {
+
+		/**
+		 * The bytes of the items serialized or deserialized in the iteration.
+		 */
+		public long payloadBytes;
+
+		/**
+		 * The items serialized or deserialized in the iteration.
+		 */
+		public long payloads;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			payloadBytes = 0;
+			payloads = 0;
+		}
+
+		void count(int size) {
+			payloadBytes += size;
+			payloads++;
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package com.cepheid.cloud.skel.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.cepheid.cloud.skel.SkelApplication;
+import com.cepheid.cloud.skel.model.Description;
+import com.cepheid.cloud.skel.model.Item;
+import com.cepheid.cloud.skel.model.ItemState;
+
+/***
+ * This is a SkelBenchmarks class which holds the helpers shared by the
+ * benchmarks, it starts the application against its own in-memory H2 database
+ * and creates the items which are used by the benchmarks.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+final class SkelBenchmarks {
+
+	private SkelBenchmarks() {
+	}
+
+	/**
+	 * Start the application on a random port with a new in-memory H2 database, the
+	 * database is migrated by Flyway like the real one.
+	 * 
+	 * @param database The name of the in-memory database, every benchmark should
+	 *                 use its own one.
+	 * @param args     The extra arguments of the application, e.g.
+	 *                 {@code --skel.id.generator=identity}.
+	 * @return The started application context.
+	 */
+	static ConfigurableApplicationContext startApplication(String database, String... args) {
+		List<String> all_args = new ArrayList<>();
+		all_args.add("--server.port=0");
+		all_args.add("--logging.level.root=WARN");
+		all_args.add("--spring.datasource.url=jdbc:h2:mem:" + database + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+		all_args.addAll(List.of(args));
+		return new SpringApplicationBuilder(SkelApplication.class).run(all_args.toArray(new String[0]));
+	}
+
+	/**
+	 * Create a new item which is not saved yet, with the given number of
+	 * descriptions.
+	 * 
+	 * @param name         Name of the item.
+	 * @param state        State of the item.
+	 * @param descriptions The number of descriptions of the item.
+	 * @return The new item.
+	 */
+	static Item newItem(String name, ItemState state, int descriptions) {
+		Item item = new Item(name, state);
+		for (int i = 0; i < descriptions; i++)
+			item.addDescription(new Description("Benchmark content " + i + " of " + name));
+		return item;
+	}
+}
@@ -0,0 +1,185 @@
+package com.cepheid.cloud.skel.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.cepheid.cloud.skel.model.ItemState;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/***
+ * This is a ItemLoadClient class which sends the requests of the load test to
+ * the ItemController. The items are created with the bulk endpoint before the
+ * load starts, GET, SEARCH and PUT use these items, DELETE only deletes the
+ * items which are added by a POST of the load test, so the seeded items are
+ * never missing.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+public class ItemLoadClient {
+
+	/**
+	 * The status of a DELETE which is not sent, since no item is left to delete.
+	 */
+	public static final int SKIPPED = 0;
+
+	private static final int NAMES = 100;
+
+	private static final int SEED_CHUNK_SIZE = 500;
+
+	private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+
+	private final HttpClient mHttpClient;
+
+	private final ObjectMapper mObjectMapper = new ObjectMapper();
+
+	private final String mItemsUrl;
+
+	private final ItemOperation[] mOperations;
+
+	private final int[] mCumulativeWeights;
+
+	private final List<Long> mSeededIds = new ArrayList<>();
+
+	private final Queue<Long> mAddedIds = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * Constructor for class ItemLoadClient with the given application url and
+	 * operation mix.
+	 * 
+	 * @param url The url of the application, e.g. http://localhost:9443.
+	 * @param mix The weight of every operation.
+	 */
+	public ItemLoadClient(String url, Map<ItemOperation, Integer> mix) {
+		mHttpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(Duration.ofSeconds(10)).build();
+		mItemsUrl = url + "/app/api/1.0/items";
+		mOperations = mix.keySet().toArray(new ItemOperation[0]);
+		mCumulativeWeights = new int[mOperations.length];
+		int total = 0;
+		for (int i = 0; i < mOperations.length; i++) {
+			total += mix.get(mOperations[i]);
+			mCumulativeWeights[i] = total;
+		}
+	}
+
+	/**
+	 * Create the given number of items with the bulk endpoint, the items share 100
+	 * names and all the item states, like in the benchmarks.
+	 * 
+	 * @param items The number of items which are going to be created.
+	 * @throws IOException          if the bulk endpoint fails.
+	 * @throws InterruptedException if the thread is interrupted.
+	 */
+	public void seedItems(int items) throws IOException, InterruptedException {
+		for (int first = 0; first < items; first += SEED_CHUNK_SIZE) {
+			StringBuilder ndjson = new StringBuilder();
+			for (int i = first; i < Math.min(items, first + SEED_CHUNK_SIZE); i++)
+				ndjson.append(itemJson(i)).append('\n');
+			HttpRequest request = HttpRequest.newBuilder(URI.create(mItemsUrl + "/bulk")).timeout(REQUEST_TIMEOUT)
+					.header("Content-Type", "application/x-ndjson").POST(BodyPublishers.ofString(ndjson.toString()))
+					.build();
+			HttpResponse<String> response = mHttpClient.send(request, BodyHandlers.ofString());
+			if (response.statusCode() != 200)
+				throw new IOException("Items could not be created, status: " + response.statusCode());
+			for (JsonNode result : mObjectMapper.readTree(response.body())) {
+				if (!"CREATED".equals(result.path("status").asText()))
+					throw new IOException("Item could not be created: " + result);
+				mSeededIds.add(result.get("id").asLong());
+			}
+		}
+	}
+
+	/**
+	 * Pick a random operation of the mix by its weight.
+	 * 
+	 * @return The picked operation.
+	 */
+	public ItemOperation nextOperation() {
+		int weight = ThreadLocalRandom.current().nextInt(mCumulativeWeights[mCumulativeWeights.length - 1]);
+		for (int i = 0; i < mCumulativeWeights.length; i++) {
+			if (weight < mCumulativeWeights[i])
+				return mOperations[i];
+		}
+		return mOperations[mOperations.length - 1];
+	}
+
+	/**
+	 * Send the request of the given operation without waiting for its response.
+	 * 
+	 * @param operation The operation which is going to be sent.
+	 * @return The HTTP status code of the response, or SKIPPED if nothing is sent.
+	 */
+	public CompletableFuture<Integer> send(ItemOperation operation) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		HttpRequest.Builder request = null;
+		switch (operation) {
+		case GET_BY_ID:
+			request = HttpRequest.newBuilder(URI.create(mItemsUrl + "/item/" + randomSeededId())).GET();
+			break;
+		case SEARCH:
+			int i = random.nextInt(NAMES);
+			request = HttpRequest.newBuilder(URI.create(mItemsUrl + "/item?name=Load+item+" + i + "&state=" + state(i)))
+					.GET();
+			break;
+		case POST:
+			request = HttpRequest.newBuilder(URI.create(mItemsUrl))
+					.POST(BodyPublishers.ofString(itemJson(random.nextInt(NAMES))));
+			break;
+		case PUT:
+			request = HttpRequest.newBuilder(URI.create(mItemsUrl + "/item/" + randomSeededId()))
+					.PUT(BodyPublishers.ofString(itemJson(random.nextInt(NAMES))));
+			break;
+		case DELETE:
+			Long id = mAddedIds.poll();
+			if (id == null)
+				return CompletableFuture.completedFuture(SKIPPED);
+			request = HttpRequest.newBuilder(URI.create(mItemsUrl + "/item/" + id)).DELETE();
+			break;
+		}
+		request.timeout(REQUEST_TIMEOUT).header("Content-Type", "application/json").header("Accept",
+				"application/json");
+		if (operation != ItemOperation.POST)
+			return mHttpClient.sendAsync(request.build(), BodyHandlers.discarding())
+					.thenApply(HttpResponse::statusCode);
+		// Keep the id of the added item, so a DELETE can remove it again.
+		return mHttpClient.sendAsync(request.build(), BodyHandlers.ofByteArray()).thenApply(response -> {
+			if (response.statusCode() == 201) {
+				try {
+					mAddedIds.add(mObjectMapper.readTree(response.body()).get("id").asLong());
+				} catch (IOException e) {
+					// The status is still recorded, the item is only not deleted.
+				}
+			}
+			return response.statusCode();
+		});
+	}
+
+	private long randomSeededId() {
+		return mSeededIds.get(ThreadLocalRandom.current().nextInt(mSeededIds.size()));
+	}
+
+	private static String itemJson(int i) {
+		return "{\"name\":\"Load item " + i % NAMES + "\",\"state\":\"" + state(i)
+				+ "\",\"descriptions\":[{\"content\":\"Load content 0 of item " + i + "\"},"
+				+ "{\"content\":\"Load content 1 of item " + i + "\"}]}";
+	}
+
+	private static ItemState state(int i) {
+		return ItemState.values()[i % NAMES % ItemState.values().length];
+	}
+}
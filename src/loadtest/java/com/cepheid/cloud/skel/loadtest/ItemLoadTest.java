@@ -0,0 +1,141 @@
+package com.cepheid.cloud.skel.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.cepheid.cloud.skel.SkelApplication;
+
+/***
+ * This is a ItemLoadTest class which runs a load test against the
+ * ItemController and reports the latency percentiles and the throughput of
+ * every operation. Unless loadtest.url is set, the application is started on a
+ * random port with an in-memory H2 database, the arguments of the load test
+ * are given to the application, e.g.
+ * {@code gradlew loadTest -Ploadtest.rate=1000 --args='--skel.id.generator=identity'}.
+ * See LoadTestSettings for all the settings.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+public class ItemLoadTest {
+
+	private final LoadTestSettings mSettings;
+
+	private final ItemLoadClient mClient;
+
+	private final LoadTestRecorder mRecorder = new LoadTestRecorder();
+
+	/**
+	 * Constructor for class ItemLoadTest with provided settings.
+	 * 
+	 * @param settings The settings of the load test.
+	 * @param url      The url of the application.
+	 */
+	public ItemLoadTest(LoadTestSettings settings, String url) {
+		mSettings = settings;
+		mClient = new ItemLoadClient(url, settings.getMix());
+	}
+
+	public static void main(String[] args) throws Exception {
+		LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+		ConfigurableApplicationContext context = null;
+		String url = settings.getUrl();
+		if (url == null) {
+			List<String> app_args = new ArrayList<>(List.of("--server.port=0", "--logging.level.root=WARN",
+					"--spring.datasource.url=jdbc:h2:mem:loadtest;MODE=MySQL;DB_CLOSE_DELAY=-1"));
+			app_args.addAll(List.of(args));
+			context = new SpringApplicationBuilder(SkelApplication.class).run(app_args.toArray(new String[0]));
+			url = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+		}
+		try {
+			new ItemLoadTest(settings, url).run();
+		} finally {
+			if (context != null)
+				context.close();
+		}
+	}
+
+	/**
+	 * Create the items, run the warmup and the recorded load, and write the
+	 * reports.
+	 * 
+	 * @throws Exception if the items can not be created or the reports can not be
+	 *                   written.
+	 */
+	public void run() throws Exception {
+		mClient.seedItems(mSettings.getItems());
+		long start = System.nanoTime();
+		long recording_start = start + mSettings.getWarmup().toNanos();
+		long end = recording_start + mSettings.getDuration().toNanos();
+		if (mSettings.getMode() == LoadTestSettings.Mode.OPEN)
+			runOpen(start, recording_start, end);
+		else
+			runClosed(recording_start, end);
+		Duration elapsed = Duration.ofNanos(System.nanoTime() - recording_start);
+		mRecorder.writeReports(mSettings, elapsed, Path.of(mSettings.getReportDir()), System.out);
+	}
+
+	/**
+	 * Send the requests at a fixed rate. The latency of a request is measured from
+	 * the time it was scheduled, not from the time it was sent, so a server which
+	 * falls behind is not hidden by requests which are sent late.
+	 */
+	private void runOpen(long start, long recordingStart, long end) throws InterruptedException {
+		long interval = TimeUnit.SECONDS.toNanos(1) / mSettings.getRate();
+		Semaphore in_flight = new Semaphore(mSettings.getMaxInFlight());
+		for (long i = 0;; i++) {
+			long intended = start + i * interval;
+			if (intended >= end)
+				break;
+			long wait = intended - System.nanoTime();
+			if (wait > 0)
+				LockSupport.parkNanos(wait);
+			in_flight.acquire();
+			ItemOperation operation = mClient.nextOperation();
+			mClient.send(operation).whenComplete((status, error) -> {
+				in_flight.release();
+				if (intended >= recordingStart)
+					mRecorder.record(operation, System.nanoTime() - intended, status);
+			});
+		}
+		// Wait for the responses of the last requests.
+		in_flight.tryAcquire(mSettings.getMaxInFlight(), 2, TimeUnit.MINUTES);
+	}
+
+	/**
+	 * Keep a fixed number of clients, every client sends its next request once
+	 * the last one is answered.
+	 */
+	private void runClosed(long recordingStart, long end) throws InterruptedException {
+		List<Thread> clients = new ArrayList<>();
+		for (int i = 0; i < mSettings.getConcurrency(); i++) {
+			Thread client = new Thread(() -> {
+				long sent;
+				while ((sent = System.nanoTime()) < end) {
+					ItemOperation operation = mClient.nextOperation();
+					Integer status = null;
+					try {
+						status = mClient.send(operation).join();
+					} catch (RuntimeException e) {
+						// The request failed without a response, it is recorded as an error.
+					}
+					if (sent >= recordingStart)
+						mRecorder.record(operation, System.nanoTime() - sent, status);
+				}
+			}, "loadtest-client-" + i);
+			client.start();
+			clients.add(client);
+		}
+		for (Thread client : clients)
+			client.join();
+	}
+}
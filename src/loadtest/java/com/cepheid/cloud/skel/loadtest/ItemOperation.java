@@ -0,0 +1,62 @@
+package com.cepheid.cloud.skel.loadtest;
+
+/***
+ * This is a enum class represent the operations of the ItemController which
+ * are sent by the load test, every operation has its own latency histogram.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+public enum ItemOperation {
+	/**
+	 * GET /item/{id} of an existing item.
+	 */
+	GET_BY_ID("get"),
+	/**
+	 * GET /item?name=&state= which finds about a 100th of the seeded items.
+	 */
+	SEARCH("search"),
+	/**
+	 * POST of a new item with 2 descriptions.
+	 */
+	POST("post"),
+	/**
+	 * PUT /item/{id} of an existing item with a new name.
+	 */
+	PUT("put"),
+	/**
+	 * DELETE /item/{id} of an item added by a POST of the load test.
+	 */
+	DELETE("delete");
+
+	private final String mKey;
+
+	private ItemOperation(String key) {
+		mKey = key;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The name of the operation in the loadtest.mix setting and in the
+	 *         reports.
+	 */
+	public String getKey() {
+		return mKey;
+	}
+
+	/**
+	 * Find the operation with the given key.
+	 * 
+	 * @param key The key of the operation, e.g. get.
+	 * @return The operation with the given key.
+	 * @throws IllegalArgumentException if there is no operation with the key.
+	 */
+	public static ItemOperation fromKey(String key) {
+		for (ItemOperation operation : values()) {
+			if (operation.mKey.equals(key))
+				return operation;
+		}
+		throw new IllegalArgumentException("Unknown load test operation: " + key);
+	}
+}
@@ -0,0 +1,178 @@
+package com.cepheid.cloud.skel.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/***
+ * This is a LoadTestRecorder class which records the latency of every
+ * operation in its own HdrHistogram, in microseconds from the time the request
+ * was meant to be sent, so a slow response also counts for the requests which
+ * had to wait for it. A response with an HTTP status of 400 or more, or no
+ * response at all, is counted as an error, and its latency is recorded too.
+ * The results are written as a text report and as a json report, the json
+ * report also holds every histogram in the compressed HdrHistogram encoding,
+ * so the histograms of two runs can be compared or plotted later.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+public class LoadTestRecorder {
+
+	private static final long HIGHEST_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(2);
+
+	private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+
+	private final Map<ItemOperation, Recorder> mRecorders = new EnumMap<>(ItemOperation.class);
+
+	private final Map<ItemOperation, LongAdder> mErrors = new EnumMap<>(ItemOperation.class);
+
+	private final Map<ItemOperation, LongAdder> mSkipped = new EnumMap<>(ItemOperation.class);
+
+	/**
+	 * Constructor for class LoadTestRecorder with a histogram for every operation.
+	 */
+	public LoadTestRecorder() {
+		for (ItemOperation operation : ItemOperation.values()) {
+			mRecorders.put(operation, new Recorder(HIGHEST_LATENCY_MICROS, 3));
+			mErrors.put(operation, new LongAdder());
+			mSkipped.put(operation, new LongAdder());
+		}
+	}
+
+	/**
+	 * Record the response of an operation, it can be called by many threads at
+	 * once.
+	 * 
+	 * @param operation    The operation of the request.
+	 * @param latencyNanos The time from the intended send time to the response.
+	 * @param status       The HTTP status of the response, or null if there was no
+	 *                     response.
+	 */
+	public void record(ItemOperation operation, long latencyNanos, Integer status) {
+		if (status != null && status == ItemLoadClient.SKIPPED) {
+			mSkipped.get(operation).increment();
+			return;
+		}
+		if (status == null || status >= 400)
+			mErrors.get(operation).increment();
+		long latency_micros = TimeUnit.NANOSECONDS.toMicros(latencyNanos);
+		mRecorders.get(operation).recordValue(Math.min(Math.max(latency_micros, 1), HIGHEST_LATENCY_MICROS));
+	}
+
+	/**
+	 * Write the text report to the given stream and to report.txt, and the json
+	 * report to report.json in the given directory.
+	 * 
+	 * @param settings  The settings of the load test.
+	 * @param elapsed   The time the recorded load took.
+	 * @param reportDir The directory of the reports, it is created if it is
+	 *                  missing.
+	 * @param out       The stream which also gets the text report.
+	 * @throws IOException if a report can not be written.
+	 */
+	public void writeReports(LoadTestSettings settings, Duration elapsed, Path reportDir, PrintStream out)
+			throws IOException {
+		Map<ItemOperation, Histogram> histograms = new EnumMap<>(ItemOperation.class);
+		Histogram total = new Histogram(HIGHEST_LATENCY_MICROS, 3);
+		mRecorders.forEach((operation, recorder) -> {
+			Histogram histogram = recorder.getIntervalHistogram();
+			histograms.put(operation, histogram);
+			total.add(histogram);
+		});
+		double seconds = elapsed.toMillis() / 1000.0;
+		Map<String, Integer> mix = new LinkedHashMap<>();
+		settings.getMix().forEach((operation, weight) -> mix.put(operation.getKey(), weight));
+
+		StringBuilder text = new StringBuilder();
+		text.append(String.format("Load test: mode=%s rate=%d concurrency=%d duration=%.1fs items=%d mix=%s%n",
+				settings.getMode().name().toLowerCase(), settings.getRate(), settings.getConcurrency(), seconds,
+				settings.getItems(), mix));
+		text.append(String.format("%-10s %9s %7s %8s %10s %10s %10s %10s %10s %10s%n", "operation", "count",
+				"errors", "req/s", "mean ms", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+		Map<String, Object> json_operations = new LinkedHashMap<>();
+		for (ItemOperation operation : ItemOperation.values()) {
+			Histogram histogram = histograms.get(operation);
+			if (histogram.getTotalCount() == 0 && mSkipped.get(operation).sum() == 0)
+				continue;
+			appendTextLine(text, operation.getKey(), histogram, mErrors.get(operation).sum(), seconds);
+			json_operations.put(operation.getKey(),
+					toJson(histogram, mErrors.get(operation).sum(), mSkipped.get(operation).sum(), seconds));
+		}
+		long total_errors = mErrors.values().stream().mapToLong(LongAdder::sum).sum();
+		appendTextLine(text, "total", total, total_errors, seconds);
+		for (ItemOperation operation : ItemOperation.values()) {
+			Histogram histogram = histograms.get(operation);
+			if (histogram.getTotalCount() == 0)
+				continue;
+			text.append(String.format("%nLatency distribution of %s in ms:%n", operation.getKey()));
+			try (var distribution = new ByteArrayOutputStream();
+					var distribution_out = new PrintStream(distribution, true, StandardCharsets.UTF_8)) {
+				histogram.outputPercentileDistribution(distribution_out, 5, 1000.0);
+				text.append(distribution.toString(StandardCharsets.UTF_8));
+			}
+		}
+
+		Map<String, Object> json = new LinkedHashMap<>();
+		json.put("mode", settings.getMode().name().toLowerCase());
+		json.put("rate", settings.getRate());
+		json.put("concurrency", settings.getConcurrency());
+		json.put("items", settings.getItems());
+		json.put("durationSeconds", seconds);
+		json.put("mix", mix);
+		json.put("operations", json_operations);
+		json.put("total", toJson(total, total_errors, 0, seconds));
+
+		Files.createDirectories(reportDir);
+		Files.writeString(reportDir.resolve("report.txt"), text);
+		new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+				.writeValue(reportDir.resolve("report.json").toFile(), json);
+		out.print(text);
+		out.println("Reports written to " + reportDir.toAbsolutePath());
+	}
+
+	private static void appendTextLine(StringBuilder text, String name, Histogram histogram, long errors,
+			double seconds) {
+		text.append(String.format("%-10s %9d %7d %8.1f %10.3f", name, histogram.getTotalCount(), errors,
+				histogram.getTotalCount() / seconds, histogram.getMean() / 1000.0));
+		for (double percentile : PERCENTILES)
+			text.append(String.format(" %10.3f", histogram.getValueAtPercentile(percentile) / 1000.0));
+		text.append(String.format(" %10.3f%n", histogram.getMaxValue() / 1000.0));
+	}
+
+	private static Map<String, Object> toJson(Histogram histogram, long errors, long skipped, double seconds) {
+		Map<String, Object> json = new LinkedHashMap<>();
+		json.put("count", histogram.getTotalCount());
+		json.put("errors", errors);
+		json.put("skipped", skipped);
+		json.put("throughput", histogram.getTotalCount() / seconds);
+		json.put("meanMillis", histogram.getMean() / 1000.0);
+		Map<String, Double> percentiles = new LinkedHashMap<>();
+		for (double percentile : PERCENTILES)
+			percentiles.put("p" + percentile, histogram.getValueAtPercentile(percentile) / 1000.0);
+		json.put("percentileMillis", percentiles);
+		json.put("maxMillis", histogram.getMaxValue() / 1000.0);
+		ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+		int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+		json.put("histogram", Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length)));
+		return json;
+	}
+}
@@ -0,0 +1,197 @@
+package com.cepheid.cloud.skel.loadtest;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/***
+ * This is a LoadTestSettings class which holds the settings of the load test,
+ * they are read from the loadtest.* system properties, e.g. given to gradle
+ * with {@code -Ploadtest.rate=500}.
+ * <ul>
+ * <li>loadtest.mode: open sends loadtest.rate requests per second, no matter
+ * how long the responses take, closed keeps loadtest.concurrency clients which
+ * send their next request once the last one is answered. Default open.</li>
+ * <li>loadtest.rate: The requests per second of the open mode. Default 200.</li>
+ * <li>loadtest.concurrency: The clients of the closed mode. Default 16.</li>
+ * <li>loadtest.max-in-flight: The maximum number of unanswered requests of the
+ * open mode, a request waits for a free slot, and its latency includes the
+ * wait. Default 512.</li>
+ * <li>loadtest.warmup / loadtest.duration: The seconds of load which are not
+ * recorded, and which are recorded. Default 10 and 30.</li>
+ * <li>loadtest.mix: The weights of the operations, e.g. the default
+ * get:60,search:20,post:10,put:5,delete:5.</li>
+ * <li>loadtest.items: The number of items created before the load starts.
+ * Default 1000.</li>
+ * <li>loadtest.url: The url of a running application, e.g.
+ * http://localhost:9443, otherwise the application is started on a random
+ * port.</li>
+ * <li>loadtest.report-dir: The directory of the text and json reports. Default
+ * build/reports/loadtest.</li>
+ * </ul>
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+public class LoadTestSettings {
+
+	/**
+	 * The load test modes.
+	 */
+	public enum Mode {
+		OPEN, CLOSED
+	}
+
+	private Mode mMode;
+
+	private int mRate;
+
+	private int mConcurrency;
+
+	private int mMaxInFlight;
+
+	private Duration mWarmup;
+
+	private Duration mDuration;
+
+	private Map<ItemOperation, Integer> mMix;
+
+	private int mItems;
+
+	private String mUrl;
+
+	private String mReportDir;
+
+	/**
+	 * Read the settings from the system properties.
+	 * 
+	 * @return The settings of the load test.
+	 * @throws IllegalArgumentException if a setting has an invalid value.
+	 */
+	public static LoadTestSettings fromSystemProperties() {
+		LoadTestSettings settings = new LoadTestSettings();
+		settings.mMode = Mode.valueOf(property("mode", "open").toUpperCase());
+		settings.mRate = Integer.parseInt(property("rate", "200"));
+		settings.mConcurrency = Integer.parseInt(property("concurrency", "16"));
+		settings.mMaxInFlight = Integer.parseInt(property("max-in-flight", "512"));
+		settings.mWarmup = Duration.ofSeconds(Long.parseLong(property("warmup", "10")));
+		settings.mDuration = Duration.ofSeconds(Long.parseLong(property("duration", "30")));
+		settings.mMix = parseMix(property("mix", "get:60,search:20,post:10,put:5,delete:5"));
+		settings.mItems = Integer.parseInt(property("items", "1000"));
+		settings.mUrl = property("url", null);
+		settings.mReportDir = property("report-dir", "build/reports/loadtest");
+		if (settings.mRate <= 0 || settings.mConcurrency <= 0 || settings.mMaxInFlight <= 0 || settings.mItems <= 0)
+			throw new IllegalArgumentException(
+					"The load test rate, concurrency, max-in-flight and items must be positive");
+		return settings;
+	}
+
+	private static String property(String name, String defaultValue) {
+		return System.getProperty("loadtest." + name, defaultValue);
+	}
+
+	private static Map<ItemOperation, Integer> parseMix(String mix) {
+		Map<ItemOperation, Integer> weights = new EnumMap<>(ItemOperation.class);
+		for (String entry : mix.split(",")) {
+			String[] key_weight = entry.trim().split(":");
+			if (key_weight.length != 2)
+				throw new IllegalArgumentException("Invalid load test mix entry: " + entry);
+			int weight = Integer.parseInt(key_weight[1].trim());
+			if (weight > 0)
+				weights.put(ItemOperation.fromKey(key_weight[0].trim()), weight);
+		}
+		if (weights.isEmpty())
+			throw new IllegalArgumentException("The load test mix has no operation: " + mix);
+		return weights;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The load test mode.
+	 */
+	public Mode getMode() {
+		return mMode;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The requests per second of the open mode.
+	 */
+	public int getRate() {
+		return mRate;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The number of clients of the closed mode.
+	 */
+	public int getConcurrency() {
+		return mConcurrency;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The maximum number of unanswered requests of the open mode.
+	 */
+	public int getMaxInFlight() {
+		return mMaxInFlight;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The time of load which is not recorded.
+	 */
+	public Duration getWarmup() {
+		return mWarmup;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The time of load which is recorded.
+	 */
+	public Duration getDuration() {
+		return mDuration;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The weight of every operation of the mix.
+	 */
+	public Map<ItemOperation, Integer> getMix() {
+		return mMix;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The number of items created before the load starts.
+	 */
+	public int getItems() {
+		return mItems;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The url of a running application, or null to start one.
+	 */
+	public String getUrl() {
+		return mUrl;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The directory of the reports.
+	 */
+	public String getReportDir() {
+		return mReportDir;
+	}
+}
@@ -0,0 +1,96 @@
+package com.cepheid.cloud.skel;
+
+import java.net.URI;
+import java.util.OptionalLong;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.cepheid.cloud.skel.model.Description;
+import com.cepheid.cloud.skel.model.Item;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+
+/***
+ * This is a HibernateCacheConfig class which creates the Caffeine caches behind
+ * the Hibernate second-level cache and query cache, every cache region is
+ * bounded except the update timestamps, and the hit/miss statistics of every
+ * region are published as cache metrics through Actuator.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+	@Value("${skel.cache.entity-max-size:10000}")
+	private long mEntityMaxSize;
+
+	@Value("${skel.cache.query-max-size:1000}")
+	private long mQueryMaxSize;
+
+	/**
+	 * Create the cache manager which holds a cache for every Hibernate cache
+	 * region.
+	 * 
+	 * @return The cache manager of the Hibernate caches.
+	 */
+	@Bean(destroyMethod = "close")
+	public CacheManager hibernateCacheManager() {
+		// Every application context gets its own cache manager, so the regions of
+		// two contexts in one JVM never clash.
+		CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+				.getCacheManager(URI.create("hibernate-" + System.identityHashCode(this)), getClass().getClassLoader());
+		createRegion(cacheManager, Item.class.getName(), mEntityMaxSize);
+		createRegion(cacheManager, Item.class.getName() + ".mDescriptions", mEntityMaxSize);
+		createRegion(cacheManager, Description.class.getName(), mEntityMaxSize);
+		createRegion(cacheManager, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, mQueryMaxSize);
+		// An evicted update timestamp could let a stale query result be used, so this
+		// region is not bounded, it only holds one entry per table.
+		createRegion(cacheManager, RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, null);
+		return cacheManager;
+	}
+
+	/**
+	 * Hand the cache manager to Hibernate.
+	 * 
+	 * @param hibernateCacheManager The cache manager of the Hibernate caches.
+	 * @return The customizer of the Hibernate properties.
+	 */
+	@Bean
+	public HibernatePropertiesCustomizer hibernateCacheCustomizer(CacheManager hibernateCacheManager) {
+		return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+	}
+
+	/**
+	 * Publish the statistics of every Hibernate cache region, e.g. the
+	 * cache.gets{result=hit|miss} metrics.
+	 * 
+	 * @param hibernateCacheManager The cache manager of the Hibernate caches.
+	 * @return The binder of the cache metrics.
+	 */
+	@Bean
+	public MeterBinder hibernateCacheMetrics(CacheManager hibernateCacheManager) {
+		return registry -> hibernateCacheManager.getCacheNames().forEach(name -> JCacheMetrics.monitor(registry,
+				hibernateCacheManager.getCache(name), Tags.of("cacheManager", "hibernate")));
+	}
+
+	private void createRegion(CacheManager cacheManager, String name, Long maximumSize) {
+		CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+		configuration.setStatisticsEnabled(true);
+		if (maximumSize != null)
+			configuration.setMaximumSize(OptionalLong.of(maximumSize));
+		cacheManager.createCache(name, configuration);
+	}
+}
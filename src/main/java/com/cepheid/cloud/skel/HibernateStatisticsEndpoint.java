@@ -0,0 +1,209 @@
+package com.cepheid.cloud.skel;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.CollectionStatistics;
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/***
+ * This is a HibernateStatisticsEndpoint class which publishes the statistics of
+ * the Hibernate SessionFactory as the hibernate Actuator endpoint: the query
+ * executions and their times, the loads and fetches of every entity and
+ * collection, the hits and misses of every second-level cache region, and the
+ * slowest SQL statements of the SlowQueryLog.
+ * <ul>
+ * <li>GET /actuator/hibernate: The statistics.</li>
+ * <li>POST /actuator/hibernate: Switch the statistics and the slow query log on
+ * or off at runtime, e.g.
+ * {@code {"statistics": true, "slowQueries": true, "slowQueryThreshold": 50}},
+ * the threshold is in milliseconds, every property is optional.</li>
+ * <li>DELETE /actuator/hibernate: Reset the statistics and the slow query
+ * log.</li>
+ * </ul>
+ * Both are off by default, with hibernate.generate_statistics and
+ * skel.slow-query.enabled, since the statistics cost every session some
+ * bookkeeping, and the slow query log times every statement. The endpoint is
+ * not exposed over http by default, since the application permits every
+ * request, it is added to management.endpoints.web.exposure.include only where
+ * the actuator is behind an authentication.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+@Component
+@Endpoint(id = "hibernate")
+public class HibernateStatisticsEndpoint {
+
+	private final Statistics mStatistics;
+
+	private final SlowQueryLog mSlowQueryLog;
+
+	/**
+	 * Constructor for class HibernateStatisticsEndpoint with provided entity
+	 * manager factory and slow query log.
+	 * 
+	 * @param entityManagerFactory EntityManagerFactory of the Hibernate
+	 *                             SessionFactory.
+	 * @param slowQueryLog         SlowQueryLog which keeps the slow statements.
+	 */
+	@Autowired
+	public HibernateStatisticsEndpoint(EntityManagerFactory entityManagerFactory, SlowQueryLog slowQueryLog) {
+		mStatistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		mSlowQueryLog = slowQueryLog;
+	}
+
+	/**
+	 * Read the statistics.
+	 * 
+	 * @return The statistics, and the slowest statements.
+	 */
+	@ReadOperation
+	public Map<String, Object> statistics() {
+		Map<String, Object> statistics = new LinkedHashMap<>();
+		statistics.put("enabled", mStatistics.isStatisticsEnabled());
+		statistics.put("startTime", mStatistics.getStartTime());
+		statistics.put("sessions", sessions());
+		statistics.put("queries", queries());
+		statistics.put("entities", entities());
+		statistics.put("collections", collections());
+		statistics.put("secondLevelCache", secondLevelCache());
+		statistics.put("slowQueries", slowQueries());
+		return statistics;
+	}
+
+	/**
+	 * Switch the statistics and the slow query log on or off.
+	 * 
+	 * @param statistics         Whether the statistics are collected, or null to
+	 *                           keep the setting.
+	 * @param slowQueries        Whether the statements are timed, or null to keep
+	 *                           the setting.
+	 * @param slowQueryThreshold The minimum duration of a kept statement in
+	 *                           milliseconds, or null to keep the setting.
+	 * @return The statistics.
+	 */
+	@WriteOperation
+	public Map<String, Object> configure(@Nullable Boolean statistics, @Nullable Boolean slowQueries,
+			@Nullable Long slowQueryThreshold) {
+		if (statistics != null)
+			mStatistics.setStatisticsEnabled(statistics);
+		if (slowQueryThreshold != null)
+			mSlowQueryLog.setThresholdMillis(slowQueryThreshold);
+		if (slowQueries != null)
+			mSlowQueryLog.setEnabled(slowQueries);
+		return statistics();
+	}
+
+	/**
+	 * Reset the statistics and the slow query log.
+	 */
+	@DeleteOperation
+	public void reset() {
+		mStatistics.clear();
+		mSlowQueryLog.clear();
+	}
+
+	private Map<String, Object> sessions() {
+		Map<String, Object> sessions = new LinkedHashMap<>();
+		sessions.put("opened", mStatistics.getSessionOpenCount());
+		sessions.put("closed", mStatistics.getSessionCloseCount());
+		sessions.put("transactions", mStatistics.getTransactionCount());
+		sessions.put("connections", mStatistics.getConnectCount());
+		sessions.put("preparedStatements", mStatistics.getPrepareStatementCount());
+		sessions.put("flushes", mStatistics.getFlushCount());
+		return sessions;
+	}
+
+	private Map<String, Object> queries() {
+		Map<String, Object> queries = new LinkedHashMap<>();
+		queries.put("executionCount", mStatistics.getQueryExecutionCount());
+		queries.put("executionMaxTime", mStatistics.getQueryExecutionMaxTime());
+		queries.put("executionMaxTimeQuery", mStatistics.getQueryExecutionMaxTimeQueryString());
+		queries.put("cacheHitCount", mStatistics.getQueryCacheHitCount());
+		queries.put("cacheMissCount", mStatistics.getQueryCacheMissCount());
+		Map<String, Object> per_query = new LinkedHashMap<>();
+		for (String query : mStatistics.getQueries()) {
+			QueryStatistics query_statistics = mStatistics.getQueryStatistics(query);
+			Map<String, Object> values = new LinkedHashMap<>();
+			values.put("executionCount", query_statistics.getExecutionCount());
+			values.put("executionRowCount", query_statistics.getExecutionRowCount());
+			values.put("executionAvgTime", query_statistics.getExecutionAvgTime());
+			values.put("executionMaxTime", query_statistics.getExecutionMaxTime());
+			values.put("cacheHitCount", query_statistics.getCacheHitCount());
+			values.put("cacheMissCount", query_statistics.getCacheMissCount());
+			per_query.put(query, values);
+		}
+		queries.put("queries", per_query);
+		return queries;
+	}
+
+	private Map<String, Object> entities() {
+		Map<String, Object> entities = new LinkedHashMap<>();
+		for (String entity : mStatistics.getEntityNames()) {
+			EntityStatistics entity_statistics = mStatistics.getEntityStatistics(entity);
+			Map<String, Object> values = new LinkedHashMap<>();
+			values.put("loadCount", entity_statistics.getLoadCount());
+			values.put("fetchCount", entity_statistics.getFetchCount());
+			values.put("insertCount", entity_statistics.getInsertCount());
+			values.put("updateCount", entity_statistics.getUpdateCount());
+			values.put("deleteCount", entity_statistics.getDeleteCount());
+			values.put("optimisticFailureCount", entity_statistics.getOptimisticFailureCount());
+			entities.put(entity, values);
+		}
+		return entities;
+	}
+
+	private Map<String, Object> collections() {
+		Map<String, Object> collections = new LinkedHashMap<>();
+		for (String role : mStatistics.getCollectionRoleNames()) {
+			CollectionStatistics collection_statistics = mStatistics.getCollectionStatistics(role);
+			Map<String, Object> values = new LinkedHashMap<>();
+			values.put("loadCount", collection_statistics.getLoadCount());
+			values.put("fetchCount", collection_statistics.getFetchCount());
+			values.put("recreateCount", collection_statistics.getRecreateCount());
+			values.put("updateCount", collection_statistics.getUpdateCount());
+			values.put("removeCount", collection_statistics.getRemoveCount());
+			collections.put(role, values);
+		}
+		return collections;
+	}
+
+	private Map<String, Object> secondLevelCache() {
+		Map<String, Object> regions = new LinkedHashMap<>();
+		for (String region : mStatistics.getSecondLevelCacheRegionNames()) {
+			CacheRegionStatistics region_statistics = mStatistics.getCacheRegionStatistics(region);
+			if (region_statistics == null)
+				continue;
+			Map<String, Object> values = new LinkedHashMap<>();
+			values.put("hitCount", region_statistics.getHitCount());
+			values.put("missCount", region_statistics.getMissCount());
+			values.put("putCount", region_statistics.getPutCount());
+			values.put("elementCountInMemory", region_statistics.getElementCountInMemory());
+			regions.put(region, values);
+		}
+		return regions;
+	}
+
+	private Map<String, Object> slowQueries() {
+		Map<String, Object> slow_queries = new LinkedHashMap<>();
+		slow_queries.put("enabled", mSlowQueryLog.isEnabled());
+		slow_queries.put("threshold", mSlowQueryLog.getThresholdMillis());
+		slow_queries.put("size", mSlowQueryLog.getSize());
+		slow_queries.put("statements", mSlowQueryLog.getStatements());
+		return slow_queries;
+	}
+}
@@ -0,0 +1,74 @@
+package com.cepheid.cloud.skel;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.id.IdentityGenerator;
+import org.hibernate.jpa.spi.IdentifierGeneratorStrategyProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.cepheid.cloud.skel.model.EntityIdGenerator;
+
+/***
+ * This is a IdGeneratorConfig class which chooses how the ids of the entities
+ * are generated. With skel.id.generator=identity, every entity gets its id from
+ * the IDENTITY column, which costs one INSERT round trip per entity, since
+ * Hibernate can not batch such inserts. Every other value is the optimizer of
+ * the EntityIdGenerator, which fetches skel.id.increment-size ids from the
+ * sequence of the entity at once:
+ * <ul>
+ * <li>none: one sequence call per id.</li>
+ * <li>hilo: the sequence value times the increment size is the first id of a
+ * block.</li>
+ * <li>pooled-lo: the sequence value is the first id of a block, it is the
+ * default.</li>
+ * </ul>
+ * The pooled optimizer is not offered, since it takes the sequence value as the
+ * last id of a block, which the sequences created by the migrations do not
+ * allow for.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+@Configuration
+public class IdGeneratorConfig {
+
+	/**
+	 * The id generation with the IDENTITY column.
+	 */
+	public static final String IDENTITY = "identity";
+
+	private static final List<String> OPTIMIZERS = Arrays.asList("none", "hilo", "pooled-lo");
+
+	@Value("${skel.id.generator:pooled-lo}")
+	private String mGenerator;
+
+	@Value("${skel.id.increment-size:50}")
+	private int mIncrementSize;
+
+	/**
+	 * Register the configured id generator under the strategy name used by
+	 * AbstractEntity.
+	 * 
+	 * @return The customizer of the Hibernate properties.
+	 */
+	@Bean
+	public HibernatePropertiesCustomizer idGeneratorCustomizer() {
+		if (!IDENTITY.equals(mGenerator) && !OPTIMIZERS.contains(mGenerator))
+			throw new IllegalArgumentException("skel.id.generator must be " + IDENTITY + " or one of " + OPTIMIZERS
+					+ ", but it is: " + mGenerator);
+		Class<?> generator = IDENTITY.equals(mGenerator) ? IdentityGenerator.class : EntityIdGenerator.class;
+		IdentifierGeneratorStrategyProvider strategies = () -> Collections.singletonMap(EntityIdGenerator.STRATEGY,
+				generator);
+		return properties -> {
+			properties.put(AvailableSettings.IDENTIFIER_GENERATOR_STRATEGY_PROVIDER, strategies);
+			properties.put(EntityIdGenerator.OPTIMIZER_SETTING, mGenerator);
+			properties.put(EntityIdGenerator.INCREMENT_SIZE_SETTING, String.valueOf(mIncrementSize));
+		};
+	}
+}
@@ -0,0 +1,143 @@
+package com.cepheid.cloud.skel;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/***
+ * This is a ItemMetricsAspect class which times every public ItemService method
+ * and every repository method. The timers are named skel.item.service and
+ * skel.item.repository, tagged with the class and the method, and with the
+ * simple name of the exception which was thrown, or none. Their percentiles
+ * are configured with the management.metrics.distribution properties. An
+ * ItemService method which finds nothing, so it returns null or false, also
+ * increments the skel.item.not.found counter of the method, these are the
+ * calls which end with a ResourceNotFoundException in the controllers.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+@Aspect
+@Component
+public class ItemMetricsAspect {
+
+	/**
+	 * The name of the ItemService timers.
+	 */
+	public static final String SERVICE_TIMER = "skel.item.service";
+
+	/**
+	 * The name of the repository timers.
+	 */
+	public static final String REPOSITORY_TIMER = "skel.item.repository";
+
+	/**
+	 * The name of the not found counters.
+	 */
+	public static final String NOT_FOUND_COUNTER = "skel.item.not.found";
+
+	private static final String NO_EXCEPTION = "none";
+
+	private final MeterRegistry mMeterRegistry;
+
+	// The timers of the calls without an exception, and the not found counters,
+	// so a call does not build and look up its meters again.
+	private final Map<Method, Timer> mServiceTimers = new ConcurrentHashMap<>();
+
+	private final Map<Method, Timer> mItemRepositoryTimers = new ConcurrentHashMap<>();
+
+	private final Map<Method, Timer> mDescriptionRepositoryTimers = new ConcurrentHashMap<>();
+
+	private final Map<Method, Counter> mNotFoundCounters = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructor for class ItemMetricsAspect with provided meter registry.
+	 * 
+	 * @param meterRegistry MeterRegistry which holds the timers and counters.
+	 */
+	@Autowired
+	public ItemMetricsAspect(MeterRegistry meterRegistry) {
+		mMeterRegistry = meterRegistry;
+	}
+
+	/**
+	 * Time a public ItemService method, and count it as not found if it returns
+	 * null or false.
+	 * 
+	 * @param joinPoint The called ItemService method.
+	 * @return The result of the method.
+	 * @throws Throwable The exception thrown by the method.
+	 */
+	@Around("execution(public * com.cepheid.cloud.skel.service.ItemService.*(..))")
+	public Object timeItemService(ProceedingJoinPoint joinPoint) throws Throwable {
+		Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+		Object result = time(joinPoint, SERVICE_TIMER, "ItemService", mServiceTimers);
+		if ((result == null && method.getReturnType() != void.class) || Boolean.FALSE.equals(result)) {
+			mNotFoundCounters.computeIfAbsent(method, m -> Counter.builder(NOT_FOUND_COUNTER)
+					.tag("class", "ItemService").tag("method", m.getName())
+					.description("The ItemService calls which found nothing").register(mMeterRegistry)).increment();
+		}
+		return result;
+	}
+
+	/**
+	 * Time a method of the ItemRepository, the finders and the inherited
+	 * JpaRepository methods alike.
+	 * 
+	 * @param joinPoint The called repository method.
+	 * @return The result of the method.
+	 * @throws Throwable The exception thrown by the method.
+	 */
+	@Around("execution(* com.cepheid.cloud.skel.repository.ItemRepository+.*(..))")
+	public Object timeItemRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+		return time(joinPoint, REPOSITORY_TIMER, "ItemRepository", mItemRepositoryTimers);
+	}
+
+	/**
+	 * Time a method of the DescriptionRepository, the finders and the inherited
+	 * JpaRepository methods alike.
+	 * 
+	 * @param joinPoint The called repository method.
+	 * @return The result of the method.
+	 * @throws Throwable The exception thrown by the method.
+	 */
+	@Around("execution(* com.cepheid.cloud.skel.repository.DescriptionRepository+.*(..))")
+	public Object timeDescriptionRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+		return time(joinPoint, REPOSITORY_TIMER, "DescriptionRepository", mDescriptionRepositoryTimers);
+	}
+
+	// The class name is given, since an inherited repository method is declared by
+	// a Spring Data interface, and the repository itself is a proxy.
+	private Object time(ProceedingJoinPoint joinPoint, String name, String className, Map<Method, Timer> timers)
+			throws Throwable {
+		Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+		long start = mMeterRegistry.config().clock().monotonicTime();
+		try {
+			Object result = joinPoint.proceed();
+			timers.computeIfAbsent(method, m -> timer(name, className, m, NO_EXCEPTION))
+					.record(mMeterRegistry.config().clock().monotonicTime() - start, TimeUnit.NANOSECONDS);
+			return result;
+		} catch (Throwable e) {
+			timer(name, className, method, e.getClass().getSimpleName())
+					.record(mMeterRegistry.config().clock().monotonicTime() - start, TimeUnit.NANOSECONDS);
+			throw e;
+		}
+	}
+
+	private Timer timer(String name, String className, Method method, String exception) {
+		return Timer.builder(name).tag("class", className).tag("method", method.getName()).tag("exception", exception)
+				.register(mMeterRegistry);
+	}
+}
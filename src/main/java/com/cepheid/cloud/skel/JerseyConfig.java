@@ -7,6 +7,11 @@ import org.glassfish.jersey.server.filter.RolesAllowedDynamicFeature;
 import org.springframework.stereotype.Component;
 
 import com.cepheid.cloud.skel.controller.ItemController;
+import com.cepheid.cloud.skel.controller.ItemWireFormats;
+import com.cepheid.cloud.skel.tracing.TracingFilter;
+
+import com.fasterxml.jackson.jaxrs.cbor.JacksonCBORProvider;
+import com.fasterxml.jackson.jaxrs.smile.JacksonSmileProvider;
 
 import io.swagger.jaxrs.config.BeanConfig;
 import io.swagger.jaxrs.listing.ApiListingResource;
@@ -14,8 +19,9 @@ import io.swagger.jaxrs.listing.SwaggerSerializers;
 
 @Component
 public class JerseyConfig extends ResourceConfig {
-	public JerseyConfig() {
+	public JerseyConfig(TracingFilter tracingFilter, ItemWireFormats wireFormats) {
 		packages(ItemController.class.getPackage().getName());
+		register(tracingFilter);
 
 		property(ServerProperties.BV_SEND_ERROR_IN_RESPONSE, true);
 		register(RolesAllowedDynamicFeature.class);
@@ -23,6 +29,10 @@ public class JerseyConfig extends ResourceConfig {
 		packages("org.glassfish.jersey.examples.multipart");
 		register(MultiPartFeature.class);
 
+		// The binary formats are chosen by the Accept and the Content-Type headers.
+		register(new JacksonSmileProvider(wireFormats.getSmileMapper()));
+		register(new JacksonCBORProvider(wireFormats.getCborMapper()));
+
 		configureSwagger();
 
 	}
@@ -0,0 +1,52 @@
+package com.cepheid.cloud.skel;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.CrudRepository;
+
+import com.cepheid.cloud.skel.repository.DescriptionRepository;
+import com.cepheid.cloud.skel.repository.ItemRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/***
+ * This is a MetricsConfig class which publishes the number of items and
+ * descriptions in the database as the skel.items and skel.descriptions gauges.
+ * The gauges count the rows whenever they are read, e.g. on every scrape of the
+ * Prometheus endpoint. The timers of the ItemService and the repositories are
+ * published by ItemMetricsAspect.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+@Configuration
+public class MetricsConfig {
+
+	/**
+	 * Publish the number of items and descriptions.
+	 * 
+	 * @param itemRepository        ItemRepository which counts the items.
+	 * @param descriptionRepository DescriptionRepository which counts the
+	 *                              descriptions.
+	 * @return The binder of the gauges.
+	 */
+	@Bean
+	public MeterBinder itemCountMetrics(ItemRepository itemRepository, DescriptionRepository descriptionRepository) {
+		return registry -> {
+			Gauge.builder("skel.items", itemRepository, MetricsConfig::count)
+					.description("The number of items in the database").register(registry);
+			Gauge.builder("skel.descriptions", descriptionRepository, MetricsConfig::count)
+					.description("The number of descriptions in the database").register(registry);
+		};
+	}
+
+	// A gauge which can not be read must not fail the whole scrape.
+	private static double count(CrudRepository<?, ?> repository) {
+		try {
+			return repository.count();
+		} catch (RuntimeException e) {
+			return Double.NaN;
+		}
+	}
+}
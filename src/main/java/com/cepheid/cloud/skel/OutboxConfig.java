@@ -0,0 +1,78 @@
+package com.cepheid.cloud.skel;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.cepheid.cloud.skel.outbox.FileOutboxSink;
+import com.cepheid.cloud.skel.outbox.LoggingOutboxSink;
+import com.cepheid.cloud.skel.outbox.OutboxDispatcher;
+import com.cepheid.cloud.skel.outbox.OutboxSink;
+import com.cepheid.cloud.skel.repository.ItemOutboxRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/***
+ * This is a OutboxConfig class which creates the OutboxDispatcher of the item
+ * outbox, every change of an item is written to the outbox by the ItemService
+ * in the transaction of the change, and delivered by the dispatcher. With
+ * skel.outbox.enabled false nothing is written and nothing is delivered. With
+ * skel.outbox.dispatcher.enabled false the entries are written, but delivered
+ * and deleted by the dispatcher of another instance on the same database, the
+ * entries pile up if no instance runs one. The entries are sent by the
+ * skel.outbox.sink:
+ * <ul>
+ * <li>file: the entries are appended to skel.outbox.file as json lines, it is
+ * the default.</li>
+ * <li>log: the entries are written to the log.</li>
+ * </ul>
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+@Configuration
+public class OutboxConfig {
+
+	@Value("${skel.outbox.sink:file}")
+	private String mSink;
+
+	@Value("${skel.outbox.file:build/outbox/item-changes.json}")
+	private String mFile;
+
+	@Value("${skel.outbox.batch-size:500}")
+	private int mBatchSize;
+
+	@Value("${skel.outbox.poll-interval-ms:1000}")
+	private long mPollIntervalMillis;
+
+	@Value("${skel.outbox.retention-minutes:60}")
+	private long mRetentionMinutes;
+
+	/**
+	 * Create the dispatcher with the configured sink.
+	 * 
+	 * @param itemOutboxRepository The repository of the outbox entries.
+	 * @param objectMapper         ObjectMapper which writes the entries.
+	 * @return The dispatcher of the item outbox.
+	 */
+	@Bean(destroyMethod = "shutdown")
+	@ConditionalOnProperty(name = { "skel.outbox.enabled", "skel.outbox.dispatcher.enabled" }, matchIfMissing = true)
+	public OutboxDispatcher outboxDispatcher(ItemOutboxRepository itemOutboxRepository, ObjectMapper objectMapper) {
+		OutboxSink sink;
+		switch (mSink) {
+		case "file":
+			sink = new FileOutboxSink(Paths.get(mFile), objectMapper);
+			break;
+		case "log":
+			sink = new LoggingOutboxSink();
+			break;
+		default:
+			throw new IllegalArgumentException("skel.outbox.sink must be one of file or log, but it is: " + mSink);
+		}
+		return new OutboxDispatcher(itemOutboxRepository, sink, mBatchSize, Duration.ofMillis(mPollIntervalMillis),
+				Duration.ofMinutes(mRetentionMinutes));
+	}
+}
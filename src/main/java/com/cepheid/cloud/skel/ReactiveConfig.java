@@ -0,0 +1,146 @@
+package com.cepheid.cloud.skel;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.cepheid.cloud.skel.controller.ItemReactiveController;
+import com.cepheid.cloud.skel.repository.ItemReactiveRepository;
+import com.cepheid.cloud.skel.repository.ItemRepository;
+import com.cepheid.cloud.skel.service.ItemChangeFeed;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+
+/***
+ * This is a ReactiveConfig class which starts the non-blocking item API of
+ * the ItemReactiveController on its own Reactor Netty server, next to the
+ * Tomcat of the Jersey API, together with the change feed of the
+ * ItemChangeFeed. The items are read through a pool of R2DBC
+ * connections to the database of spring.datasource.url. The server is not
+ * behind the WebSecurity of the Jersey API, so it is only started when
+ * skel.reactive.enabled is true, e.g. with the reactive profile, and
+ * spring.datasource.url is an H2 database, since there is only an R2DBC driver
+ * of H2 on the classpath, with any other database the application runs
+ * without the reactive API:
+ * <ul>
+ * <li>skel.reactive.port: The port of the server.</li>
+ * <li>skel.reactive.threads: The number of event loop threads, which serve all
+ * the connections of the clients.</li>
+ * <li>skel.reactive.pool-size: The maximum number of R2DBC connections, and of
+ * the threads which run the queries, since the H2 driver runs them on the
+ * subscribing thread.</li>
+ * <li>skel.reactive.page-size: The number of items read by one query of a
+ * list.</li>
+ * </ul>
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+@Configuration
+@ConditionalOnProperty("skel.reactive.enabled")
+@ConditionalOnExpression("'${spring.datasource.url:}'.startsWith('" + ReactiveConfig.H2_URL_PREFIX + "')")
+public class ReactiveConfig {
+
+	static final String H2_URL_PREFIX = "jdbc:h2:";
+
+	@Value("${spring.datasource.url}")
+	private String mUrl;
+
+	@Value("${spring.datasource.username:}")
+	private String mUsername;
+
+	@Value("${spring.datasource.password:}")
+	private String mPassword;
+
+	@Value("${skel.reactive.port:9444}")
+	private int mPort;
+
+	@Value("${skel.reactive.threads:2}")
+	private int mThreads;
+
+	@Value("${skel.reactive.pool-size:10}")
+	private int mPoolSize;
+
+	@Value("${skel.reactive.page-size:" + ItemRepository.STREAM_FETCH_SIZE + "}")
+	private int mPageSize;
+
+	/**
+	 * Create the pool of the R2DBC connections to the H2 database.
+	 * 
+	 * @return The pool of the connections.
+	 */
+	@Bean(destroyMethod = "dispose")
+	public ConnectionPool reactiveConnectionPool() {
+		// The rows of a query are only computed when they are fetched, so a page
+		// is not materialized before its first row is published.
+		H2ConnectionConfiguration configuration = H2ConnectionConfiguration.builder()
+				.url(mUrl.substring(H2_URL_PREFIX.length()).trim()).property("LAZY_QUERY_EXECUTION", "1")
+				.username(mUsername).password(mPassword).build();
+		return new ConnectionPool(ConnectionPoolConfiguration.builder(new H2ConnectionFactory(configuration))
+				.name("item-r2dbc").maxSize(mPoolSize).maxIdleTime(Duration.ofMinutes(30)).build());
+	}
+
+	/**
+	 * Create the scheduler which runs the queries of the R2DBC connections.
+	 * 
+	 * @return The scheduler of the queries.
+	 */
+	@Bean(destroyMethod = "dispose")
+	public Scheduler reactiveQueryScheduler() {
+		return Schedulers.newBoundedElastic(mPoolSize, Integer.MAX_VALUE, "item-r2dbc");
+	}
+
+	/**
+	 * Create the event loops of the server.
+	 * 
+	 * @return The event loops.
+	 */
+	@Bean(destroyMethod = "dispose")
+	public LoopResources reactiveLoopResources() {
+		return LoopResources.create("item-reactive", mThreads, true);
+	}
+
+	/**
+	 * Create the repository of the non-blocking item API.
+	 * 
+	 * @param reactiveConnectionPool The pool of the R2DBC connections.
+	 * @param reactiveQueryScheduler The scheduler of the queries.
+	 * @return The repository.
+	 */
+	@Bean
+	public ItemReactiveRepository itemReactiveRepository(ConnectionPool reactiveConnectionPool,
+			Scheduler reactiveQueryScheduler) {
+		return new ItemReactiveRepository(reactiveConnectionPool, reactiveQueryScheduler, mPageSize);
+	}
+
+	/**
+	 * Start the server of the non-blocking item API.
+	 * 
+	 * @param itemReactiveRepository The repository which reads the items.
+	 * @param itemChangeFeed         The feed of the changes of the items.
+	 * @param objectMapper           ObjectMapper which serializes the items.
+	 * @param reactiveLoopResources  The event loops of the server.
+	 * @return The started server.
+	 */
+	@Bean(destroyMethod = "disposeNow")
+	public DisposableServer itemReactiveServer(ItemReactiveRepository itemReactiveRepository,
+			ItemChangeFeed itemChangeFeed, ObjectMapper objectMapper, LoopResources reactiveLoopResources) {
+		ItemReactiveController controller = new ItemReactiveController(itemReactiveRepository, itemChangeFeed,
+				objectMapper);
+		return HttpServer.create().tcpConfiguration(tcp -> tcp.runOn(reactiveLoopResources)).port(mPort).compress(true)
+				.route(controller::routes).bindNow();
+	}
+}
@@ -38,7 +38,7 @@ public class SkelApplication {
 						// Save the new created item.
 						repository.save(item);
 					});
-			repository.findAll().forEach(System.out::println);
+			repository.findAllWithDescriptions().forEach(System.out::println);
 		};
 	}
 
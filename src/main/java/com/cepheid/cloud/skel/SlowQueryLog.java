@@ -0,0 +1,289 @@
+package com.cepheid.cloud.skel;
+
+import java.time.Instant;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/***
+ * This is a SlowQueryLog class which keeps the slowest SQL statements, with
+ * their bind parameters and the ItemService method which sent them. The bind
+ * parameters are masked by their type, since they hold the data of the users,
+ * unless skel.slow-query.show-parameters is true. Only the statements which
+ * take at least skel.slow-query.threshold-ms are kept, and of these only the
+ * skel.slow-query.size slowest ones. The statements are timed by the
+ * StatementTimingDataSource, which also feeds the JDBC spans of the tracing,
+ * and only while the log is enabled, which is set with skel.slow-query.enabled,
+ * or at runtime through the hibernate endpoint.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+@Component
+public class SlowQueryLog implements StatementListener {
+
+	private static final String ITEM_SERVICE = "com.cepheid.cloud.skel.service.ItemService";
+
+	private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+
+	private volatile boolean mEnabled;
+
+	private volatile long mThresholdNanos;
+
+	private final int mSize;
+
+	private final boolean mShowParameters;
+
+	// The slowest statement is the last one of the queue, so a faster statement can
+	// be replaced by a slower one once the queue is full.
+	private final PriorityQueue<SlowStatement> mStatements = new PriorityQueue<>(
+			Comparator.comparingLong(SlowStatement::getDurationNanos));
+
+	// The duration a statement must exceed to be kept, it is raised to the fastest
+	// kept statement once the queue is full, so most statements are dismissed
+	// without a lock.
+	private volatile long mMinimumNanos;
+
+	/**
+	 * Constructor for class SlowQueryLog with provided settings.
+	 * 
+	 * @param enabled         Whether the statements are timed from the start.
+	 * @param thresholdMillis The minimum duration of a kept statement.
+	 * @param size            The maximum number of kept statements.
+	 * @param showParameters  Whether the values of the bind parameters are kept,
+	 *                        or only their types.
+	 */
+	public SlowQueryLog(@Value("${skel.slow-query.enabled:false}") boolean enabled,
+			@Value("${skel.slow-query.threshold-ms:100}") long thresholdMillis,
+			@Value("${skel.slow-query.size:20}") int size,
+			@Value("${skel.slow-query.show-parameters:false}") boolean showParameters) {
+		if (size <= 0)
+			throw new IllegalArgumentException("skel.slow-query.size must be positive, but it is: " + size);
+		mEnabled = enabled;
+		mSize = size;
+		mShowParameters = showParameters;
+		setThresholdMillis(thresholdMillis);
+	}
+
+	@Override
+	public void statementExecuted(String sql, List<Object> parameters, int batchSize, long startNanos,
+			long durationNanos) {
+		if (durationNanos < mMinimumNanos)
+			return;
+		List<Object> values = new ArrayList<>(parameters.size());
+		for (Object parameter : parameters)
+			values.add(mShowParameters ? describe(parameter) : mask(parameter));
+		// The caller is only looked up for a slow statement, walking the stack is
+		// too expensive for every statement.
+		SlowStatement statement = new SlowStatement(sql, values, batchSize, durationNanos, findCaller());
+		synchronized (mStatements) {
+			if (durationNanos < mMinimumNanos)
+				return;
+			mStatements.add(statement);
+			if (mStatements.size() > mSize)
+				mStatements.poll();
+			if (mStatements.size() == mSize)
+				mMinimumNanos = Math.max(mThresholdNanos, mStatements.peek().getDurationNanos());
+		}
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The kept statements, the slowest first.
+	 */
+	public List<SlowStatement> getStatements() {
+		List<SlowStatement> statements;
+		synchronized (mStatements) {
+			statements = new ArrayList<>(mStatements);
+		}
+		statements.sort(Comparator.comparingLong(SlowStatement::getDurationNanos).reversed());
+		return statements;
+	}
+
+	/**
+	 * Forget all kept statements.
+	 */
+	public void clear() {
+		synchronized (mStatements) {
+			mStatements.clear();
+			mMinimumNanos = mThresholdNanos;
+		}
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return mEnabled;
+	}
+
+	/**
+	 * Setter, a change only applies to the connections which are taken from the
+	 * pool afterwards.
+	 * 
+	 * @param enabled Whether the statements are timed.
+	 */
+	public void setEnabled(boolean enabled) {
+		mEnabled = enabled;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The minimum duration of a kept statement in milliseconds.
+	 */
+	public long getThresholdMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(mThresholdNanos);
+	}
+
+	/**
+	 * Setter, the kept statements are cleared, since some of them may be faster
+	 * than the new threshold.
+	 * 
+	 * @param thresholdMillis The minimum duration of a kept statement in
+	 *                        milliseconds.
+	 */
+	public void setThresholdMillis(long thresholdMillis) {
+		if (thresholdMillis < 0)
+			throw new IllegalArgumentException("The slow query threshold must not be negative: " + thresholdMillis);
+		mThresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+		clear();
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The maximum number of kept statements.
+	 */
+	public int getSize() {
+		return mSize;
+	}
+
+	// A parameter which is not a plain value, e.g. a byte array or a stream, is only
+	// shown by its type.
+	private static Object describe(Object parameter) {
+		if (parameter == null || parameter instanceof Number || parameter instanceof Boolean)
+			return parameter;
+		if (parameter instanceof CharSequence || parameter instanceof Enum || parameter instanceof Date
+				|| parameter instanceof TemporalAccessor)
+			return parameter.toString();
+		return "<" + parameter.getClass().getSimpleName() + ">";
+	}
+
+	// A masked parameter only shows its type, or null.
+	private static Object mask(Object parameter) {
+		return parameter == null ? null : "<" + parameter.getClass().getSimpleName() + ">";
+	}
+
+	// The innermost ItemService method on the stack. A statement flushed on commit
+	// is sent after the method returned, it is found through the transactional
+	// proxy of the ItemService, whose class name starts with the same name.
+	private static String findCaller() {
+		Optional<String> caller = STACK_WALKER.walk(frames -> frames
+				.filter(frame -> frame.getClassName().startsWith(ITEM_SERVICE)).findFirst()
+				.map(frame -> "ItemService." + frame.getMethodName()));
+		return caller.orElse(null);
+	}
+
+	/***
+	 * This is a SlowStatement class which holds a kept statement.
+	 * 
+	 * @author Wei Wang
+	 * @version 1.0
+	 */
+	public static class SlowStatement {
+
+		private final String mSql;
+
+		private final List<Object> mParameters;
+
+		private final int mBatchSize;
+
+		private final long mDurationNanos;
+
+		private final String mCaller;
+
+		private final Instant mTimestamp = Instant.now();
+
+		SlowStatement(String sql, List<Object> parameters, int batchSize, long durationNanos, String caller) {
+			mSql = sql;
+			mParameters = parameters;
+			mBatchSize = batchSize;
+			mDurationNanos = durationNanos;
+			mCaller = caller;
+		}
+
+		/**
+		 * Getter
+		 * 
+		 * @return The SQL of the statement.
+		 */
+		public String getSql() {
+			return mSql;
+		}
+
+		/**
+		 * Getter
+		 * 
+		 * @return The bind parameters of the statement, of the last batched set if
+		 *         the statement was batched.
+		 */
+		public List<Object> getParameters() {
+			return mParameters;
+		}
+
+		/**
+		 * Getter
+		 * 
+		 * @return The number of batched parameter sets, or 0 if the statement was
+		 *         not batched.
+		 */
+		public int getBatchSize() {
+			return mBatchSize;
+		}
+
+		/**
+		 * Getter
+		 * 
+		 * @return The time the statement took in nanoseconds.
+		 */
+		public long getDurationNanos() {
+			return mDurationNanos;
+		}
+
+		/**
+		 * Getter
+		 * 
+		 * @return The time the statement took in milliseconds.
+		 */
+		public double getDurationMillis() {
+			return mDurationNanos / 1e6;
+		}
+
+		/**
+		 * Getter
+		 * 
+		 * @return The ItemService method which sent the statement, or null if it was
+		 *         not sent by the ItemService.
+		 */
+		public String getCaller() {
+			return mCaller;
+		}
+
+		/**
+		 * Getter
+		 * 
+		 * @return The time the statement finished.
+		 */
+		public Instant getTimestamp() {
+			return mTimestamp;
+		}
+	}
+}
@@ -0,0 +1,36 @@
+package com.cepheid.cloud.skel;
+
+import java.util.List;
+
+/***
+ * This is a StatementListener interface which is told about the executions of
+ * the SQL statements by the StatementTimingDataSource, e.g. the SlowQueryLog.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+public interface StatementListener {
+
+	/**
+	 * Whether the listener wants to be told about the statements of the current
+	 * thread. A connection is only wrapped if a listener is enabled when it is
+	 * taken from the pool, and a statement is only handed to the enabled
+	 * listeners.
+	 * 
+	 * @return Whether the listener is enabled.
+	 */
+	boolean isEnabled();
+
+	/**
+	 * Handle the execution of a statement.
+	 * 
+	 * @param sql           The SQL of the statement.
+	 * @param parameters    The bind parameters of the statement, in their order,
+	 *                      the list is reused by the statement.
+	 * @param batchSize     The number of batched parameter sets, or 0 if the
+	 *                      statement was not batched.
+	 * @param startNanos    The System.nanoTime() at which the statement started.
+	 * @param durationNanos The time the statement took.
+	 */
+	void statementExecuted(String sql, List<Object> parameters, int batchSize, long startNanos, long durationNanos);
+}
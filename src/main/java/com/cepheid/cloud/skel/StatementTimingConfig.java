@@ -0,0 +1,46 @@
+package com.cepheid.cloud.skel;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/***
+ * This is a StatementTimingConfig class which wraps the DataSource in a
+ * StatementTimingDataSource, so the statements of the application, Hibernate
+ * and Flyway alike, can be timed for the StatementListeners, the SlowQueryLog
+ * and the JDBC spans of the tracing. The pool metrics and health check still
+ * find the pool behind it, since the wrapper unwraps to the pool.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+@Configuration
+public class StatementTimingConfig {
+
+	/**
+	 * Wrap every DataSource in a StatementTimingDataSource.
+	 * 
+	 * @param listeners The StatementListeners, they are looked up once a
+	 *                  DataSource is created, since a post processor is created
+	 *                  before the other beans.
+	 * @return The post processor of the data sources.
+	 */
+	@Bean
+	public static BeanPostProcessor statementTimingPostProcessor(ObjectProvider<StatementListener> listeners) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (!(bean instanceof DataSource) || bean instanceof StatementTimingDataSource)
+					return bean;
+				List<StatementListener> listener_list = listeners.orderedStream().collect(Collectors.toList());
+				return new StatementTimingDataSource((DataSource) bean, listener_list);
+			}
+		};
+	}
+}
@@ -0,0 +1,154 @@
+package com.cepheid.cloud.skel;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/***
+ * This is a StatementTimingDataSource class which times the statements of its
+ * connections for the StatementListeners, e.g. the SlowQueryLog and the JDBC
+ * spans of the tracing. A connection is only wrapped if a listener is enabled
+ * when the connection is taken from the pool, otherwise the connection of the
+ * pool is returned as it is, so disabled listeners cost nothing per statement.
+ * The wrapped statements remember their SQL and bind parameters, and hand every
+ * execution to the enabled listeners.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+public class StatementTimingDataSource extends DelegatingDataSource {
+
+	private final List<StatementListener> mListeners;
+
+	/**
+	 * Constructor for class StatementTimingDataSource with provided data source
+	 * and listeners.
+	 * 
+	 * @param targetDataSource DataSource which provides the connections.
+	 * @param listeners        The listeners of the statements.
+	 */
+	public StatementTimingDataSource(DataSource targetDataSource, List<StatementListener> listeners) {
+		super(targetDataSource);
+		mListeners = listeners;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return wrap(super.getConnection());
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return wrap(super.getConnection(username, password));
+	}
+
+	private Connection wrap(Connection connection) {
+		if (!isEnabled())
+			return connection;
+		return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+				new ConnectionHandler(connection));
+	}
+
+	private boolean isEnabled() {
+		for (StatementListener listener : mListeners) {
+			if (listener.isEnabled())
+				return true;
+		}
+		return false;
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	// Wraps the statements which are created by the connection.
+	private class ConnectionHandler implements InvocationHandler {
+
+		private final Connection mConnection;
+
+		ConnectionHandler(Connection connection) {
+			mConnection = connection;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			Object result = StatementTimingDataSource.invoke(mConnection, method, args);
+			if (!(result instanceof Statement))
+				return result;
+			// prepareStatement and prepareCall are given the SQL, createStatement is
+			// given it on execution.
+			String sql = method.getName().startsWith("prepare") ? (String) args[0] : null;
+			return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { method.getReturnType() },
+					new StatementHandler((Statement) result, sql));
+		}
+	}
+
+	// Records the bind parameters of the statement and times its executions.
+	private class StatementHandler implements InvocationHandler {
+
+		private final Statement mStatement;
+
+		private final List<Object> mParameters = new ArrayList<>();
+
+		private String mSql;
+
+		private int mBatchSize;
+
+		StatementHandler(Statement statement, String sql) {
+			mStatement = statement;
+			mSql = sql;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if (name.startsWith("execute")) {
+				if (args != null && args.length > 0 && args[0] instanceof String)
+					mSql = (String) args[0];
+				long start = System.nanoTime();
+				try {
+					return StatementTimingDataSource.invoke(mStatement, method, args);
+				} finally {
+					long duration = System.nanoTime() - start;
+					for (StatementListener listener : mListeners) {
+						if (listener.isEnabled())
+							listener.statementExecuted(mSql, mParameters, mBatchSize, start, duration);
+					}
+					if (name.endsWith("Batch"))
+						mBatchSize = 0;
+				}
+			}
+			// The setters of the bind parameters, e.g. setLong(1, id) or
+			// setNull(2, Types.VARCHAR).
+			if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+				int index = (Integer) args[0] - 1;
+				while (mParameters.size() <= index)
+					mParameters.add(null);
+				mParameters.set(index, "setNull".equals(name) ? null : args[1]);
+			} else if ("clearParameters".equals(name)) {
+				mParameters.clear();
+			} else if ("addBatch".equals(name)) {
+				mBatchSize++;
+				if (args != null)
+					mSql = (String) args[0];
+			} else if ("clearBatch".equals(name)) {
+				mBatchSize = 0;
+			}
+			return StatementTimingDataSource.invoke(mStatement, method, args);
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package com.cepheid.cloud.skel;
+
+import java.net.URI;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.cepheid.cloud.skel.tracing.BatchSpanProcessor;
+import com.cepheid.cloud.skel.tracing.FileSpanExporter;
+import com.cepheid.cloud.skel.tracing.OtlpHttpSpanExporter;
+import com.cepheid.cloud.skel.tracing.OtlpJson;
+import com.cepheid.cloud.skel.tracing.SpanExporter;
+import com.cepheid.cloud.skel.tracing.Tracer;
+import com.cepheid.cloud.skel.tracing.TracingStatementListener;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/***
+ * This is a TracingConfig class which creates the Tracer of the requests. With
+ * skel.tracing.enabled every Jersey request is traced, through the ItemService
+ * down to the SQL statements, and answered with a Server-Timing header. The
+ * spans are exported by the skel.tracing.exporter:
+ * <ul>
+ * <li>none: the spans are not exported, it is the default.</li>
+ * <li>file: the spans are appended to skel.tracing.file as OTLP JSON
+ * lines.</li>
+ * <li>otlp: the spans are posted as OTLP JSON to skel.tracing.otlp-endpoint,
+ * e.g. an OpenTelemetry collector.</li>
+ * </ul>
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+@Configuration
+public class TracingConfig {
+
+	@Value("${skel.tracing.enabled:true}")
+	private boolean mEnabled;
+
+	@Value("${skel.tracing.exporter:none}")
+	private String mExporter;
+
+	@Value("${skel.tracing.file:build/traces/spans.json}")
+	private String mFile;
+
+	@Value("${skel.tracing.otlp-endpoint:http://localhost:4318/v1/traces}")
+	private String mOtlpEndpoint;
+
+	@Value("${skel.tracing.service-name:skel}")
+	private String mServiceName;
+
+	@Value("${skel.tracing.queue-size:2048}")
+	private int mQueueSize;
+
+	@Value("${skel.tracing.export-interval-ms:1000}")
+	private long mExportIntervalMillis;
+
+	/**
+	 * Create the tracer with the configured exporter.
+	 * 
+	 * @param objectMapper ObjectMapper which writes the exported spans.
+	 * @return The tracer of the requests.
+	 */
+	@Bean(destroyMethod = "close")
+	public Tracer tracer(ObjectMapper objectMapper) {
+		SpanExporter exporter;
+		OtlpJson otlp_json = new OtlpJson(objectMapper, mServiceName);
+		switch (mExporter) {
+		case "none":
+			exporter = null;
+			break;
+		case "file":
+			exporter = new FileSpanExporter(Paths.get(mFile), otlp_json);
+			break;
+		case "otlp":
+			exporter = new OtlpHttpSpanExporter(URI.create(mOtlpEndpoint), otlp_json);
+			break;
+		default:
+			throw new IllegalArgumentException(
+					"skel.tracing.exporter must be one of none, file or otlp, but it is: " + mExporter);
+		}
+		BatchSpanProcessor processor = mEnabled && exporter != null
+				? new BatchSpanProcessor(exporter, mQueueSize, Duration.ofMillis(mExportIntervalMillis))
+				: null;
+		return new Tracer(mEnabled, processor);
+	}
+
+	/**
+	 * Record the SQL statements of the traced requests as spans.
+	 * 
+	 * @param tracer Tracer which records the spans.
+	 * @return The listener of the statements.
+	 */
+	@Bean
+	public StatementListener tracingStatementListener(Tracer tracer) {
+		return new TracingStatementListener(tracer);
+	}
+}
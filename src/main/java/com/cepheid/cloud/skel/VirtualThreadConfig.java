@@ -0,0 +1,49 @@
+package com.cepheid.cloud.skel;
+
+import org.apache.coyote.AbstractProtocol;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/***
+ * This is a VirtualThreadConfig class which runs every Tomcat request on its
+ * own virtual thread when skel.threads.virtual is set and the JDK is Java 21 or
+ * newer, so a request which waits on the database holds no platform thread and
+ * the number of requests in progress is not limited by server.tomcat.max-threads
+ * any more. The database work is throttled by the connections instead, see
+ * ItemRequestExecutor. On an older JDK the setting is ignored with a warning.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+@Configuration
+@ConditionalOnProperty("skel.threads.virtual")
+public class VirtualThreadConfig {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+	/**
+	 * Replace the thread pool of the Tomcat connector with virtual threads.
+	 * 
+	 * @return The customizer of the Tomcat factory.
+	 */
+	@Bean
+	public WebServerFactoryCustomizer<TomcatServletWebServerFactory> virtualThreadTomcatCustomizer() {
+		return factory -> {
+			if (!VirtualThreads.isSupported()) {
+				LOGGER.warn("skel.threads.virtual is set, but Java {} has no virtual threads, "
+						+ "the requests are run by the Tomcat thread pool", System.getProperty("java.version"));
+				return;
+			}
+			factory.addConnectorCustomizers(connector -> {
+				if (connector.getProtocolHandler() instanceof AbstractProtocol)
+					((AbstractProtocol<?>) connector.getProtocolHandler())
+							.setExecutor(VirtualThreads.executor("http-virtual-"));
+			});
+		};
+	}
+}
@@ -0,0 +1,73 @@
+package com.cepheid.cloud.skel;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+
+/***
+ * This is a VirtualThreads class which creates the virtual threads of the
+ * skel.threads.virtual mode. The application is compiled for Java 11, so the
+ * virtual threads of Java 21 are created by reflection, and on an older JDK
+ * isSupported() is false and the platform threads are used instead.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+public final class VirtualThreads {
+
+	private static final Method OF_VIRTUAL = method(Thread.class, "ofVirtual");
+
+	private VirtualThreads() {
+	}
+
+	/**
+	 * Tell whether the JDK has virtual threads.
+	 * 
+	 * @return true if the JDK has virtual threads.
+	 */
+	public static boolean isSupported() {
+		return OF_VIRTUAL != null;
+	}
+
+	/**
+	 * Create a factory of virtual threads.
+	 * 
+	 * @param prefix The prefix of the names of the threads, which are numbered
+	 *               from 1.
+	 * @return The factory of the virtual threads.
+	 * @throws UnsupportedOperationException if the JDK has no virtual threads.
+	 */
+	public static ThreadFactory factory(String prefix) {
+		if (!isSupported())
+			throw new UnsupportedOperationException("Virtual threads need Java 21 or newer");
+		try {
+			Class<?> builder_class = Class.forName("java.lang.Thread$Builder");
+			Object builder = OF_VIRTUAL.invoke(null);
+			builder = builder_class.getMethod("name", String.class, long.class).invoke(builder, prefix, 1L);
+			return (ThreadFactory) builder_class.getMethod("factory").invoke(builder);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("The virtual threads could not be created", e);
+		}
+	}
+
+	/**
+	 * Create an executor which runs every task on a new virtual thread, there is
+	 * no pool and no queue, the tasks have to be throttled by the caller.
+	 * 
+	 * @param prefix The prefix of the names of the threads.
+	 * @return The executor of the tasks.
+	 * @throws UnsupportedOperationException if the JDK has no virtual threads.
+	 */
+	public static Executor executor(String prefix) {
+		ThreadFactory factory = factory(prefix);
+		return task -> factory.newThread(task).start();
+	}
+
+	private static Method method(Class<?> type, String name) {
+		try {
+			return type.getMethod(name);
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+}
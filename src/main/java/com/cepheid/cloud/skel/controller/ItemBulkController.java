@@ -0,0 +1,119 @@
+package com.cepheid.cloud.skel.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.POST;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.cepheid.cloud.skel.service.ItemBulkService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import io.swagger.annotations.Api;
+
+/***
+ * This is a ItemBulkController class which provides the REST API to add,
+ * update and delete many items in one request. The items are sent either as
+ * one json array or as newline delimited json (one item per line), and they
+ * are read while they are saved, so a request can hold a large number of items.
+ * The response holds one result for every item, in the order of the request.
+ * To add items, a request can be done like this:
+ * {@code curl -X POST -H "Content-Type: application/x-ndjson" --data-binary @items.ndjson http:/localhost:9443/app/api/1.0/items/bulk}
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+@Component
+@Path("/api/1.0/items/bulk")
+@Api()
+public class ItemBulkController {
+
+	/**
+	 * The media type of newline delimited json.
+	 */
+	public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+	private final ItemBulkService mItemBulkService;
+
+	private final ObjectReader mItemReader;
+
+	/**
+	 * Constructor for class ItemBulkController with provided services.
+	 * 
+	 * @param itemBulkService ItemBulkService which saves the items in chunks.
+	 * @param objectMapper    ObjectMapper which reads the items one by one.
+	 */
+	@Autowired
+	public ItemBulkController(ItemBulkService itemBulkService, ObjectMapper objectMapper) {
+		mItemBulkService = itemBulkService;
+		mItemReader = objectMapper.readerFor(JsonNode.class);
+	}
+
+	/**
+	 * Add all the given items to the database server, an item with the id of an
+	 * existing item replaces the existing item instead.
+	 * 
+	 * @param items The json array or the newline delimited json of the new items.
+	 * @return The result of every item, with HTTP status code OK.
+	 * @throws IOException if the request can not be read.
+	 */
+	@POST
+	@Consumes({ MediaType.APPLICATION_JSON, APPLICATION_NDJSON })
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response addItems(InputStream items) throws IOException {
+		try (MappingIterator<JsonNode> item_iterator = mItemReader.readValues(items)) {
+			return Response.status(Status.OK).entity(mItemBulkService.AddItems(item_iterator)).build();
+		}
+	}
+
+	/**
+	 * Update all the given existing items in the database server, an item which
+	 * has a version is only updated if it has not been changed since.
+	 * 
+	 * @param items The json array or the newline delimited json of the updated
+	 *              items.
+	 * @return The result of every item, with HTTP status code OK.
+	 * @throws IOException if the request can not be read.
+	 */
+	@PUT
+	@Consumes({ MediaType.APPLICATION_JSON, APPLICATION_NDJSON })
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response updateItems(InputStream items) throws IOException {
+		try (MappingIterator<JsonNode> item_iterator = mItemReader.readValues(items)) {
+			return Response.status(Status.OK).entity(mItemBulkService.UpdateItems(item_iterator)).build();
+		}
+	}
+
+	/**
+	 * Delete all the given existing items from the database server, only the id
+	 * and the version of the given items are used, an item which has a version is
+	 * only deleted if it has not been changed since. It is a POST, since the body
+	 * of a DELETE request is not supported by every client.
+	 * 
+	 * @param items The json array or the newline delimited json of the items, e.g.
+	 *              {@code [{"id":1},{"id":2,"version":0}]}.
+	 * @return The result of every item, with HTTP status code OK.
+	 * @throws IOException if the request can not be read.
+	 */
+	@POST
+	@Path("/delete")
+	@Consumes({ MediaType.APPLICATION_JSON, APPLICATION_NDJSON })
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response deleteItems(InputStream items) throws IOException {
+		try (MappingIterator<JsonNode> item_iterator = mItemReader.readValues(items)) {
+			return Response.status(Status.OK).entity(mItemBulkService.DeleteItems(item_iterator)).build();
+		}
+	}
+}
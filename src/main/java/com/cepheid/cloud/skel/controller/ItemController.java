@@ -1,30 +1,60 @@
 package com.cepheid.cloud.skel.controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
 
 import javax.ws.rs.PathParam;
+import javax.ws.rs.BadRequestException;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.PATCH;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.core.UriInfo;
 
 import org.springframework.stereotype.Component;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
 
+import com.cepheid.cloud.skel.exception.PreconditionFailedException;
 import com.cepheid.cloud.skel.exception.ResourceNotFoundException;
 import com.cepheid.cloud.skel.model.Description;
 import com.cepheid.cloud.skel.model.Item;
 import com.cepheid.cloud.skel.model.ItemState;
+import com.cepheid.cloud.skel.model.Versioned;
+import com.cepheid.cloud.skel.service.ItemFilter;
+import com.cepheid.cloud.skel.service.ItemJson;
+import com.cepheid.cloud.skel.service.ItemJsonCache;
+import com.cepheid.cloud.skel.service.ItemSearchHit;
+import com.cepheid.cloud.skel.service.ItemSearchIndex;
 import com.cepheid.cloud.skel.service.ItemService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 import io.swagger.annotations.Api;
 
@@ -32,6 +62,19 @@ import io.swagger.annotations.Api;
  * This is a ItemController class which provides the REST API to the user to a
  * one-to-many item->description CRUD operation. To List all the items, a query
  * can be done like this: {@code curl http:/localhost:9443/app/api/1.0/items}
+ * The item and the item lists are returned with a strong ETag, a request with a
+ * matching If-None-Match header is answered with 304 Not Modified. The writes
+ * to an existing item accept an If-Match header, and are answered with 412
+ * Precondition Failed when the item has been changed in the meantime. The
+ * requests which read or write the database are suspended, and their work is
+ * run by the ItemRequestExecutor, so they are answered with 503 Service
+ * Unavailable when it is overloaded. The items are written and read as json,
+ * or in one of the binary formats of ItemWireFormats, Smile or CBOR, chosen by
+ * the Accept and the Content-Type headers of the request. The patches are
+ * always json. An ETag is given by the version of the items and the format
+ * they are written in, see ItemETags, so If-Match accepts the ETag of any
+ * format. The responses which are written in the selected format vary by the
+ * Accept header.
  * 
  * @author Wei Wang
  * @version 1.0
@@ -42,73 +85,292 @@ import io.swagger.annotations.Api;
 @Api()
 public class ItemController {
 
+	/**
+	 * The page size of the item list when the client does not give a limit.
+	 */
+	public static final int DEFAULT_PAGE_SIZE = 100;
+
+	/**
+	 * The largest page size of the item list a client can ask for.
+	 */
+	public static final int MAX_PAGE_SIZE = 1000;
+
+	/**
+	 * The response header which holds the cursor of the next item page.
+	 */
+	public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
 	private final ItemService mItemService;
 
+	private final ItemJsonCache mItemJsonCache;
+
+	private final ItemSearchIndex mItemSearchIndex;
+
+	private final ItemRequestExecutor mRequestExecutor;
+
+	private final ObjectMapper mObjectMapper;
+
+	private final ItemWireFormats mWireFormats;
+
+	// The mappers of the selected fields of every format.
+	private final Map<MediaType, ObjectMapper> mFieldsMappers = new HashMap<>();
+
 	/**
 	 * Constructor for class ItemController with provided services.
 	 * 
-	 * @param ItemService ItemService which provides a number of useful service to
-	 *                    manipulate the item objects.
+	 * @param ItemService     ItemService which provides a number of useful
+	 *                        service to manipulate the item objects.
+	 * @param itemJsonCache   ItemJsonCache which provides the serialized json of
+	 *                        the items.
+	 * @param itemSearchIndex ItemSearchIndex which searches the items by the terms
+	 *                        of their names and descriptions.
+	 * @param requestExecutor ItemRequestExecutor which runs the database work of
+	 *                        the requests.
+	 * @param objectMapper    ObjectMapper which is used to patch the items.
+	 * @param wireFormats     ItemWireFormats whose mappers are used to write the
+	 *                        item lists with the selected fields in every format.
 	 */
 	@Autowired
-	public ItemController(ItemService itemService) {
+	public ItemController(ItemService itemService, ItemJsonCache itemJsonCache, ItemSearchIndex itemSearchIndex,
+			ItemRequestExecutor requestExecutor, ObjectMapper objectMapper, ItemWireFormats wireFormats) {
 		mItemService = itemService;
+		mItemJsonCache = itemJsonCache;
+		mItemSearchIndex = itemSearchIndex;
+		mRequestExecutor = requestExecutor;
+		mObjectMapper = objectMapper;
+		mWireFormats = wireFormats;
+		for (MediaType media_type : ItemWireFormats.MEDIA_TYPES)
+			mFieldsMappers.put(media_type, ItemFields.filteringMapper(wireFormats.mapper(media_type)));
 	}
 
 	/**
-	 * Get a collection of all the Item objects from the database server, the given
-	 * format will be in application/json.
+	 * Get a page of the Item objects ordered by item id from the database server,
+	 * the given format will be in application/json. If there are more items after
+	 * the page, the id of the last item is returned in the X-Next-Cursor header
+	 * and a Link header with rel="next" points to the next page. To get all the
+	 * items in one response, the stream parameter can be set, then all the items
+	 * are written directly from a database cursor to the response. A page is not
+	 * written if it still matches the If-None-Match header of the request. The
+	 * items are written without their descriptions, as summaries selected straight
+	 * from the item table, unless the descriptions are asked for with
+	 * {@code expand=descriptions} or in the fields, the descriptions of one item
+	 * can be paged through with getDescriptions as well.
 	 * 
-	 * @return A collection of all the item objects from the database.
+	 * @param after         The cursor from the previous page, the page starts after
+	 *                      the item with this id, can be null for the first page.
+	 * @param limit         The maximum number of items in the page, it is capped by
+	 *                      MAX_PAGE_SIZE.
+	 * @param stream        Stream all the items instead of a page of them.
+	 * @param fields        The comma separated fields of the items to write, can be
+	 *                      null to write the id, version, name and state.
+	 * @param expand        The comma separated fields to write in addition, only
+	 *                      descriptions can be expanded, can be null.
+	 * @param uriInfo       The uri of the request which the next page link is built
+	 *                      from.
+	 * @param request       The request whose preconditions are evaluated.
+	 * @param asyncResponse The suspended request, it is resumed with a page of the
+	 *                      item objects from the database.
 	 */
 	@GET
-	@Produces(MediaType.APPLICATION_JSON)
-	@Transactional(readOnly = true, propagation = Propagation.REQUIRED)
-	public Response getItems() {
-		Collection<Item> all_item_list = mItemService.FetchAllItemList();
-		return Response.status(Status.OK).entity(all_item_list).build();
+	@Produces({ MediaType.APPLICATION_JSON, ItemWireFormats.APPLICATION_SMILE, ItemWireFormats.APPLICATION_CBOR })
+	public void getItems(@QueryParam("after") Long after,
+			@QueryParam("limit") @DefaultValue("" + DEFAULT_PAGE_SIZE) int limit, @QueryParam("stream") boolean stream,
+			@QueryParam("fields") String fields, @QueryParam("expand") String expand, @Context UriInfo uriInfo,
+			@Context Request request, @Suspended AsyncResponse asyncResponse) {
+		mRequestExecutor.submit(asyncResponse, "getItems", () -> {
+			ItemFields item_fields = ItemFields.parse(fields, expand);
+			MediaType media_type = ItemWireFormats.select(request);
+			ObjectWriter item_writer = item_fields.writer(mFieldsMappers.get(media_type));
+			if (stream)
+				return Response.status(Status.OK).entity(streamAllItems(item_fields, item_writer)).type(media_type)
+						.build();
+
+			int page_size = pageSize(limit);
+			// Fetch one more item than asked for, to know if there is a next page.
+			List<? extends Versioned> item_page = item_fields.includesDescriptions()
+					? mItemService.FetchItemPage(after, page_size + 1)
+					: mItemService.FetchItemSummaryPage(after, page_size + 1);
+			return pageResponse(item_page, page_size, item_fields.toString(), item_writer, media_type, uriInfo,
+					request);
+		});
+	}
+
+	/**
+	 * Create the streaming output which writes all the items in the database as
+	 * one array, an item is written as soon as it is read from the database.
+	 * 
+	 * @param fields The fields of the items to write.
+	 * @param writer The writer of the fields.
+	 * @return The streaming output of all the items.
+	 */
+	private StreamingOutput streamAllItems(ItemFields fields, ObjectWriter writer) {
+		return output -> {
+			try (JsonGenerator generator = writer.getFactory().createGenerator(output)) {
+				generator.writeStartArray();
+				Consumer<Object> write_item = item -> {
+					try {
+						writer.writeValue(generator, item);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				};
+				if (fields.includesDescriptions())
+					mItemService.StreamAllItems(write_item::accept);
+				else
+					mItemService.StreamAllItemSummaries(write_item::accept);
+				generator.writeEndArray();
+			}
+		};
 	}
 
 	/**
 	 * Get a specific Item object with a given item id from the database server, the
 	 * given format will be in application/json, it will generate an
-	 * ResourceNotFoundException if there is no item with the given id.
+	 * ResourceNotFoundException if there is no item with the given id. The json of
+	 * the item is served from the ItemJsonCache, and written as it is, or copied
+	 * into Smile or CBOR when the client accepts one of them instead. If the
+	 * If-None-Match header of the request matches the version of the item, 304 Not
+	 * Modified is returned without the json.
 	 * 
-	 * @param id The id of the searched item
-	 * @return A item object from the database with the given item id.
-	 * @exception ResourceNotFoundException
+	 * @param id            The id of the searched item
+	 * @param request       The request whose preconditions are evaluated.
+	 * @param asyncResponse The suspended request, it is resumed with a item object
+	 *                      from the database with the given item id.
 	 */
 	@GET
 	@Path("/item/{id}")
-	@Produces(MediaType.APPLICATION_JSON)
-	public Response getItem(@PathParam(value = "id") Long id) throws ResourceNotFoundException {
-		Item item = mItemService.FindItemById(id);
-		if (item == null)
-			throw new ResourceNotFoundException("Item was not found with id: " + id);
-		// Return the find Item information, with HTTP status code OK.
-		return Response.status(Status.OK).entity(item).build();
+	@Produces({ MediaType.APPLICATION_JSON, ItemWireFormats.APPLICATION_SMILE, ItemWireFormats.APPLICATION_CBOR })
+	public void getItem(@PathParam(value = "id") Long id, @Context Request request,
+			@Suspended AsyncResponse asyncResponse) {
+		mRequestExecutor.submit(asyncResponse, "getItem", () -> {
+			ItemJson item_json = mItemJsonCache.FindItemJsonById(id);
+			if (item_json == null)
+				throw new ResourceNotFoundException("Item was not found with id: " + id);
+			MediaType media_type = ItemWireFormats.select(request);
+			EntityTag etag = ItemETags.forVersion(item_json.getVersion(), media_type);
+			ResponseBuilder not_modified = request.evaluatePreconditions(etag);
+			if (not_modified != null)
+				return not_modified.tag(etag).build();
+			Object entity = MediaType.APPLICATION_JSON_TYPE.equals(media_type) ? item_json.getJson()
+					: mWireFormats.transcode(item_json.getJson(), media_type);
+			// Return the find Item information, with HTTP status code OK.
+			return Response.status(Status.OK).entity(entity).type(media_type).tag(etag).build();
+		});
+	}
+
+	/**
+	 * Get a page of the descriptions of a specific Item object ordered by
+	 * description id from the database server, the given format will be in
+	 * application/json, it will generate an ResourceNotFoundException if there is
+	 * no item with the given id. The page is paged like the item list, with the
+	 * X-Next-Cursor header and the Link header with rel="next", and it is not
+	 * written if it still matches the If-None-Match header of the request.
+	 * 
+	 * @param id            The id of the item which owns the descriptions.
+	 * @param after         The cursor from the previous page, the page starts after
+	 *                      the description with this id, can be null for the first
+	 *                      page.
+	 * @param limit         The maximum number of descriptions in the page, it is
+	 *                      capped by MAX_PAGE_SIZE.
+	 * @param uriInfo       The uri of the request which the next page link is built
+	 *                      from.
+	 * @param request       The request whose preconditions are evaluated.
+	 * @param asyncResponse The suspended request, it is resumed with a page of the
+	 *                      descriptions of the item from the database.
+	 */
+	@GET
+	@Path("/item/{id}/descriptions")
+	@Produces({ MediaType.APPLICATION_JSON, ItemWireFormats.APPLICATION_SMILE, ItemWireFormats.APPLICATION_CBOR })
+	public void getDescriptions(@PathParam("id") Long id, @QueryParam("after") Long after,
+			@QueryParam("limit") @DefaultValue("" + DEFAULT_PAGE_SIZE) int limit, @Context UriInfo uriInfo,
+			@Context Request request, @Suspended AsyncResponse asyncResponse) {
+		mRequestExecutor.submit(asyncResponse, "getDescriptions", () -> {
+			int page_size = pageSize(limit);
+			List<Description> description_page = mItemService.fetchDescriptionPage(id, after, page_size + 1);
+			if (description_page == null)
+				throw new ResourceNotFoundException("Item was not found with id: " + id);
+			MediaType media_type = ItemWireFormats.select(request);
+			return pageResponse(description_page, page_size, null, mWireFormats.mapper(media_type).writer(),
+					media_type, uriInfo, request);
+		});
 	}
 
 	/**
 	 * Get a collection of Item objects with a given item name from the database
 	 * server, the given format will be in application/json, it will generate an
-	 * ResourceNotFoundException if there is no item with the given name.
+	 * ResourceNotFoundException if there is no item with the given name. All the
+	 * given search parameters are combined with AND, and matched by one query.
+	 * The found items are not written if they still match the If-None-Match
+	 * header of the request. Like the item list, the items are written as
+	 * summaries without their descriptions, unless the descriptions are asked for
+	 * with {@code expand=descriptions} or in the fields.
 	 * 
-	 * @param name  The name information of the searched item, can be null.
-	 * @param state The state information of the searched item, can be null, but if
-	 *              name is null at the same time, an exception will be thrown.
-	 * @return A collection of item objects from the database with the given item
-	 *         name.
-	 * @exception ResourceNotFoundException
+	 * @param name          The name information of the searched item, can be null.
+	 * @param state         The state information of the searched item, can be null,
+	 *                      but if all the other parameters are null at the same
+	 *                      time, an exception will be thrown.
+	 * @param nameContains  A text the name of the searched item contains, ignoring
+	 *                      case, can be null.
+	 * @param content       A text one of the descriptions of the searched item
+	 *                      contains, ignoring case, can be null.
+	 * @param fields        The comma separated fields of the items to write, can be
+	 *                      null to write the fields of the item summaries.
+	 * @param expand        The comma separated fields to write in addition, only
+	 *                      descriptions can be expanded, can be null.
+	 * @param request       The request whose preconditions are evaluated.
+	 * @param asyncResponse The suspended request, it is resumed with a collection of
+	 *                      item objects from the database with the given item name.
 	 */
 	@GET
 	@Path("/item")
-	@Produces(MediaType.APPLICATION_JSON)
-	public Response getItem(@QueryParam("name") String name, @QueryParam("state") ItemState state)
-			throws ResourceNotFoundException {
-		var found_list = mItemService.FindItemByNameAndState(name, state);
-		if (found_list == null)
-			throw new ResourceNotFoundException("Item was not found with given information");
+	@Produces({ MediaType.APPLICATION_JSON, ItemWireFormats.APPLICATION_SMILE, ItemWireFormats.APPLICATION_CBOR })
+	public void getItem(@QueryParam("name") String name, @QueryParam("state") ItemState state,
+			@QueryParam("nameContains") String nameContains, @QueryParam("content") String content,
+			@QueryParam("fields") String fields, @QueryParam("expand") String expand, @Context Request request,
+			@Suspended AsyncResponse asyncResponse) {
+		mRequestExecutor.submit(asyncResponse, "getItemByQuery", () -> {
+			ItemFields item_fields = ItemFields.parse(fields, expand);
+			ItemFilter filter = new ItemFilter();
+			filter.setName(name);
+			filter.setState(state);
+			filter.setNameContains(nameContains);
+			filter.setDescriptionContains(content);
+			Collection<? extends Versioned> found_list = item_fields.includesDescriptions()
+					? mItemService.FindItems(filter)
+					: mItemService.FindItemSummaries(filter);
+			if (found_list.isEmpty())
+				throw new ResourceNotFoundException("Item was not found with given information");
+			MediaType media_type = ItemWireFormats.select(request);
+			return listResponse(found_list, null, item_fields.toString(),
+					item_fields.writer(mFieldsMappers.get(media_type)), media_type, request).build();
+		});
+	}
+
+	/**
+	 * Search the Item objects whose name or descriptions contain the terms of the
+	 * given text in the full-text index of the items, the given format will be in
+	 * application/json. Unlike the content parameter of getItem, the text is not
+	 * matched as a substring by scanning the descriptions, it is matched term by
+	 * term, a term ending with * matches every term it starts, e.g.
+	 * {@code q=ring*} finds "Lord of the rings". The found items are written as
+	 * summaries with their score, the most relevant first. They have no ETag, the
+	 * scores change with every indexed item. A change of an item is searchable
+	 * shortly after it is committed.
+	 * 
+	 * @param text  The searched text, in the syntax of ItemSearchIndex.Search.
+	 * @param state The state of the searched items, can be null for any state.
+	 * @param limit The maximum number of found items, it is capped by
+	 *              MAX_PAGE_SIZE.
+	 * @return The found items, it is an empty list if no match is found.
+	 */
+	@GET
+	@Path("/search")
+	@Produces({ MediaType.APPLICATION_JSON, ItemWireFormats.APPLICATION_SMILE, ItemWireFormats.APPLICATION_CBOR })
+	public Response searchItems(@QueryParam("q") String text, @QueryParam("state") ItemState state,
+			@QueryParam("limit") @DefaultValue("" + DEFAULT_PAGE_SIZE) int limit) {
+		if (text == null || text.isBlank())
+			throw new BadRequestException("The searched text is empty");
+		List<ItemSearchHit> found_list = mItemSearchIndex.Search(text, state, pageSize(limit));
 		return Response.status(Status.OK).entity(found_list).build();
 	}
 
@@ -118,58 +380,127 @@ public class ItemController {
 	 * has a ID which is already exist in the database, it will update the exiting
 	 * item instead.
 	 * 
-	 * @param item The new item which is going to be added.
-	 * @return The new added item object information from database.
+	 * @param item          The new item which is going to be added.
+	 * @param request       The request whose Accept header selects the format.
+	 * @param asyncResponse The suspended request, it is resumed with the new added
+	 *                      item object information from database.
 	 */
 	@POST
-	@Consumes(MediaType.APPLICATION_JSON)
-	@Produces(MediaType.APPLICATION_JSON)
-	public Response addItem(Item item) {
-		Item m_item = mItemService.AddItem(item);
-		// Return the new added Item information, with HTTP status code Created.
-		return Response.status(Status.CREATED).entity(m_item).build();
+	@Consumes({ MediaType.APPLICATION_JSON, ItemWireFormats.APPLICATION_SMILE, ItemWireFormats.APPLICATION_CBOR })
+	@Produces({ MediaType.APPLICATION_JSON, ItemWireFormats.APPLICATION_SMILE, ItemWireFormats.APPLICATION_CBOR })
+	public void addItem(Item item, @Context Request request, @Suspended AsyncResponse asyncResponse) {
+		mRequestExecutor.submit(asyncResponse, "addItem", () -> {
+			Item m_item = mItemService.AddItem(item);
+			// Return the new added Item information, with HTTP status code Created.
+			return itemResponse(Status.CREATED, m_item, request);
+		});
 	}
 
 	/**
 	 * Update an existing Item object in the database server, return the updated
 	 * item information, the given format will be in application/json, it will
 	 * generate an ResourceNotFoundException if there is no item with the given id.
+	 * If an If-Match header is given, the item is only updated while it matches.
 	 * 
-	 * @param id   Id of the item to be deleted from the database.
-	 * @param item the updated item information.
-	 * @return The updated item object information from database.
-	 * @exception ResourceNotFoundException
+	 * @param id            Id of the item to be deleted from the database.
+	 * @param item          the updated item information.
+	 * @param ifMatch       The If-Match header, can be null.
+	 * @param request       The request whose preconditions are evaluated.
+	 * @param asyncResponse The suspended request, it is resumed with the updated
+	 *                      item object information from database.
 	 */
 	@PUT
 	@Path("/item/{id}")
-	@Consumes(MediaType.APPLICATION_JSON)
-	@Produces(MediaType.APPLICATION_JSON)
-	public Response updateItem(@PathParam("id") Long id, Item item) throws ResourceNotFoundException {
-		item.setId(id);
-		Item m_item = mItemService.UpdateItem(item);
-		if (m_item == null)
-			throw new ResourceNotFoundException("Item was not found with id: " + id);
-		// Return the update Item information, with HTTP status code Accepted.
-		return Response.status(Status.ACCEPTED).entity(m_item).build();
+	@Consumes({ MediaType.APPLICATION_JSON, ItemWireFormats.APPLICATION_SMILE, ItemWireFormats.APPLICATION_CBOR })
+	@Produces({ MediaType.APPLICATION_JSON, ItemWireFormats.APPLICATION_SMILE, ItemWireFormats.APPLICATION_CBOR })
+	public void updateItem(@PathParam("id") Long id, Item item, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch,
+			@Context Request request, @Suspended AsyncResponse asyncResponse) {
+		mRequestExecutor.submit(asyncResponse, "updateItem", () -> {
+			item.setId(id);
+			Item m_item = mItemService.UpdateItem(item, evaluateIfMatch(id, ifMatch, request));
+			if (m_item == null)
+				throw new ResourceNotFoundException("Item was not found with id: " + id);
+			// Return the update Item information, with HTTP status code Accepted.
+			return itemResponse(Status.ACCEPTED, m_item, request);
+		});
+	}
+
+	/**
+	 * Patch an existing Item object in the database server with a JSON Merge Patch
+	 * (RFC 7396), return the patched item information, it will generate an
+	 * ResourceNotFoundException if there is no item with the given id. Only the
+	 * changed fields and descriptions are written, the descriptions are matched by
+	 * their id. If an If-Match header is given, the item is only patched while it
+	 * matches.
+	 * 
+	 * @param id            Id of the item to be patched.
+	 * @param patch         The merge patch of the item.
+	 * @param ifMatch       The If-Match header, can be null.
+	 * @param request       The request whose preconditions are evaluated.
+	 * @param asyncResponse The suspended request, it is resumed with the patched
+	 *                      item object information from database.
+	 */
+	@PATCH
+	@Path("/item/{id}")
+	@Consumes(JsonPatches.MERGE_PATCH_JSON)
+	@Produces({ MediaType.APPLICATION_JSON, ItemWireFormats.APPLICATION_SMILE, ItemWireFormats.APPLICATION_CBOR })
+	public void mergePatchItem(@PathParam("id") Long id, JsonNode patch,
+			@HeaderParam(HttpHeaders.IF_MATCH) String ifMatch, @Context Request request,
+			@Suspended AsyncResponse asyncResponse) {
+		mRequestExecutor.submit(asyncResponse, "mergePatchItem",
+				() -> patchItem(id, patch, JsonPatches::applyMergePatch, ifMatch, request));
+	}
+
+	/**
+	 * Patch an existing Item object in the database server with a JSON Patch (RFC
+	 * 6902), return the patched item information, it will generate an
+	 * ResourceNotFoundException if there is no item with the given id, and a 409
+	 * Conflict if an operation can not be applied, e.g. a failed test. Only the
+	 * changed fields and descriptions are written, the descriptions are matched by
+	 * their id. If an If-Match header is given, the item is only patched while it
+	 * matches.
+	 * 
+	 * @param id            Id of the item to be patched.
+	 * @param patch         The operations of the JSON Patch.
+	 * @param ifMatch       The If-Match header, can be null.
+	 * @param request       The request whose preconditions are evaluated.
+	 * @param asyncResponse The suspended request, it is resumed with the patched
+	 *                      item object information from database.
+	 */
+	@PATCH
+	@Path("/item/{id}")
+	@Consumes(JsonPatches.JSON_PATCH_JSON)
+	@Produces({ MediaType.APPLICATION_JSON, ItemWireFormats.APPLICATION_SMILE, ItemWireFormats.APPLICATION_CBOR })
+	public void jsonPatchItem(@PathParam("id") Long id, JsonNode patch,
+			@HeaderParam(HttpHeaders.IF_MATCH) String ifMatch, @Context Request request,
+			@Suspended AsyncResponse asyncResponse) {
+		mRequestExecutor.submit(asyncResponse, "jsonPatchItem",
+				() -> patchItem(id, patch, JsonPatches::applyJsonPatch, ifMatch, request));
 	}
 
 	/**
 	 * Delete an existing Item object from the database server, return the HTTP
 	 * status 202 which shows the delete operation is OK, it will generate an
-	 * ResourceNotFoundException if there is no item with the given id.
+	 * ResourceNotFoundException if there is no item with the given id. If an
+	 * If-Match header is given, the item is only deleted while it matches.
 	 * 
-	 * @param id Id of the item to be deleted from the database.
-	 * @return HTTP status Status.ACCEPTED(code: 202), and a message shows the
-	 *         deletion is successful.
-	 * @exception ResourceNotFoundException
+	 * @param id            Id of the item to be deleted from the database.
+	 * @param ifMatch       The If-Match header, can be null.
+	 * @param request       The request whose preconditions are evaluated.
+	 * @param asyncResponse The suspended request, it is resumed with hTTP status
+	 *                      Status.ACCEPTED(code: 202), and a message shows the
+	 *                      deletion is successful.
 	 */
 	@DELETE
 	@Path("/item/{id}")
-	public Response deleteItem(@PathParam("id") Long id) throws ResourceNotFoundException {
-		if (!mItemService.DeleteItem(id))
-			throw new ResourceNotFoundException("Item was not found with id: " + id);
-		// Return with HTTP status code Accepted.
-		return Response.status(Status.ACCEPTED).entity("Item deleted successfully!").build();
+	public void deleteItem(@PathParam("id") Long id, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch,
+			@Context Request request, @Suspended AsyncResponse asyncResponse) {
+		mRequestExecutor.submit(asyncResponse, "deleteItem", () -> {
+			if (!mItemService.DeleteItem(id, evaluateIfMatch(id, ifMatch, request)))
+				throw new ResourceNotFoundException("Item was not found with id: " + id);
+			// Return with HTTP status code Accepted.
+			return Response.status(Status.ACCEPTED).entity("Item deleted successfully!").build();
+		});
 	}
 
 	/**
@@ -178,22 +509,25 @@ public class ItemController {
 	 * it will be ignored. return the item object with new added information, the
 	 * given format will be in application/json.
 	 * 
-	 * @param id          Id of the item to be added.
-	 * @param description New description which is going to be added to the item.
-	 * @return The new added information of the item from database.
-	 * @exception ResourceNotFoundException
+	 * @param id            Id of the item to be added.
+	 * @param description   New description which is going to be added to the item.
+	 * @param request       The request whose Accept header selects the format.
+	 * @param asyncResponse The suspended request, it is resumed with the new added
+	 *                      information of the item from database.
 	 */
 	@POST
 	@Path("/item/{id}/description")
-	@Consumes(MediaType.APPLICATION_JSON)
-	@Produces(MediaType.APPLICATION_JSON)
-	public Response addDescriptionToItem(@PathParam("id") Long id, Description description)
-			throws ResourceNotFoundException {
-		Item m_item = mItemService.addDescriptionToItem(id, description);
-		if (m_item == null)
-			throw new ResourceNotFoundException("Item was not found with id: " + id);
-		// Return the new added Item information, with HTTP status code Created.
-		return Response.status(Status.CREATED).entity(m_item).build();
+	@Consumes({ MediaType.APPLICATION_JSON, ItemWireFormats.APPLICATION_SMILE, ItemWireFormats.APPLICATION_CBOR })
+	@Produces({ MediaType.APPLICATION_JSON, ItemWireFormats.APPLICATION_SMILE, ItemWireFormats.APPLICATION_CBOR })
+	public void addDescriptionToItem(@PathParam("id") Long id, Description description, @Context Request request,
+			@Suspended AsyncResponse asyncResponse) {
+		mRequestExecutor.submit(asyncResponse, "addDescriptionToItem", () -> {
+			Item m_item = mItemService.addDescriptionToItem(id, description);
+			if (m_item == null)
+				throw new ResourceNotFoundException("Item was not found with id: " + id);
+			// Return the new added Item information, with HTTP status code Created.
+			return itemResponse(Status.CREATED, m_item, request);
+		});
 	}
 
 	/**
@@ -201,54 +535,202 @@ public class ItemController {
 	 * uploaded description needs to contain a valid description id information, the
 	 * description id needs to be included in the item already, otherwise, the
 	 * update will fail. return the item object with new added information, the
-	 * given format will be in application/json.
+	 * given format will be in application/json. If an If-Match header is given,
+	 * the description is only updated while the item matches.
 	 * 
-	 * @param id          The exiting item id which the description update needs to
-	 *                    operate on.
-	 * @param description The new description information, and it has to have a
-	 *                    valid description id information, and it needs to belong
-	 *                    to this item already.
-	 * @return The new updated information of the item from database.
-	 * @exception ResourceNotFoundException
+	 * @param id            The exiting item id which the description update needs to
+	 *                      operate on.
+	 * @param description   The new description information, and it has to have a
+	 *                      valid description id information, and it needs to belong
+	 *                      to this item already.
+	 * @param ifMatch       The If-Match header, can be null.
+	 * @param request       The request whose preconditions are evaluated.
+	 * @param asyncResponse The suspended request, it is resumed with the new updated
+	 *                      information of the item from database.
 	 */
 	@PUT
 	@Path("/item/{id}/description")
-	@Consumes(MediaType.APPLICATION_JSON)
-	@Produces(MediaType.APPLICATION_JSON)
-	public Response UpdateDescriptionInItem(@PathParam("id") Long id, Description description)
-			throws ResourceNotFoundException {
-		Item m_item = mItemService.updateDescriptionInItem(id, description);
-		if (m_item == null)
-			throw new ResourceNotFoundException(
-					"Either the Item id: " + id + " or the description id: " + description.getId() + " is invalid.");
-		// Return the new added Item information, with HTTP status code Created.
-		return Response.status(Status.ACCEPTED).entity(m_item).build();
+	@Consumes({ MediaType.APPLICATION_JSON, ItemWireFormats.APPLICATION_SMILE, ItemWireFormats.APPLICATION_CBOR })
+	@Produces({ MediaType.APPLICATION_JSON, ItemWireFormats.APPLICATION_SMILE, ItemWireFormats.APPLICATION_CBOR })
+	public void UpdateDescriptionInItem(@PathParam("id") Long id, Description description,
+			@HeaderParam(HttpHeaders.IF_MATCH) String ifMatch, @Context Request request,
+			@Suspended AsyncResponse asyncResponse) {
+		mRequestExecutor.submit(asyncResponse, "UpdateDescriptionInItem", () -> {
+			Item m_item = mItemService.updateDescriptionInItem(id, description, evaluateIfMatch(id, ifMatch, request));
+			if (m_item == null)
+				throw new ResourceNotFoundException("Either the Item id: " + id + " or the description id: "
+						+ description.getId() + " is invalid.");
+			// Return the new added Item information, with HTTP status code Created.
+			return itemResponse(Status.ACCEPTED, m_item, request);
+		});
 	}
 
 	/**
 	 * Delete an existing description object from the existing item in the database
 	 * server, return the HTTP status 202 which shows the delete operation is OK, it
 	 * will generate an ResourceNotFoundException if there is no item with the given
-	 * id or no valid descriptionId in the existing item object.
+	 * id or no valid descriptionId in the existing item object. If an If-Match
+	 * header is given, the description is only deleted while the item matches.
 	 * 
-	 * @param id            The exiting item id which the deletion intends to be
-	 *                      done on.
+	 * @param id            The exiting item id which the deletion intends to be done
+	 *                      on.
 	 * @param descriptionId The description id which should be valid and already in
 	 *                      the item object.
-	 * @return HTTP status Status.ACCEPTED(code: 202), and a message shows the
-	 *         deletion is successful.
-	 * @exception ResourceNotFoundException
+	 * @param ifMatch       The If-Match header, can be null.
+	 * @param request       The request whose preconditions are evaluated.
+	 * @param asyncResponse The suspended request, it is resumed with hTTP status
+	 *                      Status.ACCEPTED(code: 202), and a message shows the
+	 *                      deletion is successful.
 	 */
 	@DELETE
 	@Path("/item/{id}/description")
-	public Response deleteDescriptionFromItem(@PathParam("id") Long id, @QueryParam("descriptionId") Long descriptionId)
-			throws ResourceNotFoundException {
-		if (!mItemService.deleteDescriptionFromItem(id, descriptionId))
-			throw new ResourceNotFoundException(
-					"Either the Item id: " + id + " or the description id: " + descriptionId + " is invalid.");
-
-		// Return with HTTP status code Accepted.
-		return Response.status(Status.ACCEPTED).entity("Description has been successfully deleted from the item!")
-				.build();
+	public void deleteDescriptionFromItem(@PathParam("id") Long id, @QueryParam("descriptionId") Long descriptionId,
+			@HeaderParam(HttpHeaders.IF_MATCH) String ifMatch, @Context Request request,
+			@Suspended AsyncResponse asyncResponse) {
+		mRequestExecutor.submit(asyncResponse, "deleteDescriptionFromItem", () -> {
+			if (!mItemService.deleteDescriptionFromItem(id, descriptionId, evaluateIfMatch(id, ifMatch, request)))
+				throw new ResourceNotFoundException(
+						"Either the Item id: " + id + " or the description id: " + descriptionId + " is invalid.");
+
+			// Return with HTTP status code Accepted.
+			return Response.status(Status.ACCEPTED).entity("Description has been successfully deleted from the item!")
+					.build();
+		});
+	}
+
+	/**
+	 * Patch an item by applying the patch to its json inside the transaction of
+	 * the write, so the patch is always applied to the current item.
+	 * 
+	 * @param id      The id of the item to be patched.
+	 * @param patch   The patch of the item.
+	 * @param patcher The function which applies the patch to the json of the item.
+	 * @param ifMatch The If-Match header, can be null.
+	 * @param request The request whose preconditions are evaluated.
+	 * @return The patched item object information from database.
+	 * @exception ResourceNotFoundException
+	 */
+	private Response patchItem(Long id, JsonNode patch, BinaryOperator<JsonNode> patcher, String ifMatch,
+			Request request) throws ResourceNotFoundException {
+		if (patch == null)
+			throw new BadRequestException("The patch of item " + id + " is empty");
+		Item m_item = mItemService.PatchItem(id, item -> {
+			try {
+				return mObjectMapper.treeToValue(patcher.apply(mObjectMapper.valueToTree(item), patch), Item.class);
+			} catch (JsonProcessingException | IllegalArgumentException e) {
+				throw new BadRequestException("The patched item " + id + " is not valid: " + e.getMessage());
+			}
+		}, evaluateIfMatch(id, ifMatch, request));
+		if (m_item == null)
+			throw new ResourceNotFoundException("Item was not found with id: " + id);
+		return itemResponse(Status.ACCEPTED, m_item, request);
+	}
+
+	/**
+	 * Build the response of a written item, in the format the client accepts,
+	 * with the ETag of the item in that format.
+	 * 
+	 * @param status  The status of the response.
+	 * @param item    The written item.
+	 * @param request The request whose Accept header selects the format.
+	 * @return The response of the item.
+	 */
+	private static Response itemResponse(Status status, Item item, Request request) {
+		MediaType media_type = ItemWireFormats.select(request);
+		return Response.status(status).entity(item).type(media_type)
+				.tag(ItemETags.forVersion(item.getVersion(), media_type)).build();
+	}
+
+	/**
+	 * Cap the page size the client asks for.
+	 * 
+	 * @param limit The page size the client asks for.
+	 * @return The page size between 1 and MAX_PAGE_SIZE.
+	 */
+	private static int pageSize(int limit) {
+		return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+	}
+
+	/**
+	 * Build the response of a page which was fetched with one more entry than the
+	 * page size, the extra entry tells there is a next page. The next page is
+	 * given by the id of the last entry in the X-Next-Cursor header and in a Link
+	 * header with rel="next". The page is not written if it still matches the
+	 * If-None-Match header of the request.
+	 * 
+	 * @param page      The entries of the page, with the extra entry if there is a
+	 *                  next page.
+	 * @param page_size The size of the page.
+	 * @param fields    The fields the entries are written with, can be null.
+	 * @param writer    The writer of the entries.
+	 * @param mediaType The media type the writer writes.
+	 * @param uriInfo   The uri of the request which the next page link is built
+	 *                  from.
+	 * @param request   The request whose preconditions are evaluated.
+	 * @return The response of the page.
+	 */
+	private Response pageResponse(List<? extends Versioned> page, int page_size, String fields, ObjectWriter writer,
+			MediaType mediaType, UriInfo uriInfo, Request request) {
+		Long next_cursor = null;
+		if (page.size() > page_size) {
+			page = page.subList(0, page_size);
+			next_cursor = page.get(page_size - 1).getId();
+		}
+		ResponseBuilder builder = listResponse(page, next_cursor, fields, writer, mediaType, request);
+		if (next_cursor != null) {
+			builder.header(NEXT_CURSOR_HEADER, next_cursor);
+			builder.link(uriInfo.getRequestUriBuilder().replaceQueryParam("after", next_cursor)
+					.replaceQueryParam("limit", page_size).build(), "next");
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Build the response of a list, the list is not written if it still matches
+	 * the If-None-Match header of the request.
+	 * 
+	 * @param list        The entries of the list.
+	 * @param next_cursor The cursor of the next page, can be null.
+	 * @param fields      The fields the entries are written with, can be null.
+	 * @param writer      The writer of the entries.
+	 * @param mediaType   The media type the writer writes.
+	 * @param request     The request whose preconditions are evaluated.
+	 * @return The response builder of the list, with its ETag.
+	 */
+	private ResponseBuilder listResponse(Collection<? extends Versioned> list, Long next_cursor, String fields,
+			ObjectWriter writer, MediaType mediaType, Request request) {
+		EntityTag etag = ItemETags.forItems(list, next_cursor, fields, mediaType);
+		ResponseBuilder builder = request.evaluatePreconditions(etag);
+		if (builder == null) {
+			StreamingOutput entity = output -> writer.writeValue(output, list);
+			builder = Response.status(Status.OK).entity(entity).type(mediaType);
+		}
+		return builder.tag(etag);
+	}
+
+	/**
+	 * Evaluate the If-Match header of a write against the current version of the
+	 * item, it matches the ETag of the version in any format. The returned version
+	 * is checked again inside the transaction of the write, so a change committed
+	 * in between is detected as well.
+	 * 
+	 * @param id      The id of the item which is going to be changed.
+	 * @param ifMatch The If-Match header, can be null.
+	 * @param request The request whose preconditions are evaluated.
+	 * @return The version the write is based on, or null if the write is not
+	 *         conditional.
+	 * @exception ResourceNotFoundException
+	 */
+	private Long evaluateIfMatch(Long id, String ifMatch, Request request) throws ResourceNotFoundException {
+		if (ifMatch == null)
+			return null;
+		Long version = mItemService.FindItemVersion(id);
+		if (version == null)
+			throw new ResourceNotFoundException("Item was not found with id: " + id);
+		for (MediaType media_type : ItemWireFormats.MEDIA_TYPES)
+			if (request.evaluatePreconditions(ItemETags.forVersion(version, media_type)) == null)
+				return version;
+		throw new PreconditionFailedException(
+				"Item with id: " + id + " does not match " + ifMatch + ", its current version is: " + version);
 	}
 }
@@ -0,0 +1,72 @@
+package com.cepheid.cloud.skel.controller;
+
+import java.util.Collection;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.MediaType;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+import com.cepheid.cloud.skel.model.Versioned;
+
+/***
+ * This is a ItemETags class which builds the strong ETags of the item
+ * resources. The ETag of an item is its version, which is incremented by every
+ * change of the item or of one of its descriptions. The ETag of a list of items,
+ * item summaries or descriptions is a hash of the ids and versions of the
+ * listed entries and of the fields they are written with, so it can be
+ * computed without serializing the list. A strong ETag tells the bytes of the
+ * representation, so the same items written in Smile or CBOR get the name of
+ * their format in the ETag, only json is tagged by the version alone.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+final class ItemETags {
+
+	private ItemETags() {
+	}
+
+	/**
+	 * Build the ETag of an item with the given version, written in the given media
+	 * type.
+	 * 
+	 * @param version   The version of the item.
+	 * @param mediaType One of the ItemWireFormats.MEDIA_TYPES.
+	 * @return The strong ETag of the item.
+	 */
+	static EntityTag forVersion(Long version, MediaType mediaType) {
+		return new EntityTag(version + format(mediaType));
+	}
+
+	/**
+	 * Build the ETag of a list of items which are written with the given fields,
+	 * the same items written with other fields are another representation.
+	 * 
+	 * @param items      The listed items in the order they are written.
+	 * @param nextCursor The cursor of the next page, can be null.
+	 * @param fields     The fields the items are written with, can be null.
+	 * @param mediaType  One of the ItemWireFormats.MEDIA_TYPES.
+	 * @return The strong ETag of the item list.
+	 */
+	static EntityTag forItems(Collection<? extends Versioned> items, Long nextCursor, String fields,
+			MediaType mediaType) {
+		StringBuilder versions = new StringBuilder(items.size() * 16);
+		for (Versioned item : items)
+			versions.append(item.getId()).append(':').append(item.getVersion()).append(',');
+		versions.append(nextCursor);
+		if (fields != null)
+			versions.append(';').append(fields);
+		return new EntityTag(DigestUtils.sha1Hex(versions.toString()) + format(mediaType));
+	}
+
+	/**
+	 * Get the suffix of the ETags of a media type.
+	 * 
+	 * @param mediaType One of the ItemWireFormats.MEDIA_TYPES.
+	 * @return Nothing for json, else the subtype of the media type.
+	 */
+	private static String format(MediaType mediaType) {
+		return MediaType.APPLICATION_JSON_TYPE.equals(mediaType) ? "" : "-" + mediaType.getSubtype();
+	}
+}
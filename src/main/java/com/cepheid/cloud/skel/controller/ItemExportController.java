@@ -0,0 +1,124 @@
+package com.cepheid.cloud.skel.controller;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.cepheid.cloud.skel.model.Item;
+import com.cepheid.cloud.skel.service.ItemCsv;
+import com.cepheid.cloud.skel.service.ItemService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+
+import io.swagger.annotations.Api;
+
+/***
+ * This is a ItemExportController class which provides the REST API to export
+ * all the items with their descriptions, as newline delimited json (one item
+ * per line, the format of the bulk requests and of the imports) or as csv (see
+ * ItemCsv). The items are written one by one as they are read from a database
+ * cursor, so the memory usage does not grow with the number of items. The
+ * response is compressed by the server when the client accepts gzip, to export
+ * the items, a request can be done like this:
+ * {@code curl --compressed -o items.csv http:/localhost:9443/app/api/1.0/items/export?format=csv}
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+@Component
+@Path("/api/1.0/items/export")
+@Api()
+public class ItemExportController {
+
+	private final ItemService mItemService;
+
+	private final ObjectWriter mItemWriter;
+
+	private final ItemCsv mItemCsv;
+
+	/**
+	 * Constructor for class ItemExportController with provided services.
+	 * 
+	 * @param itemService  ItemService which streams the items from the database.
+	 * @param objectMapper ObjectMapper which writes the items.
+	 */
+	@Autowired
+	public ItemExportController(ItemService itemService, ObjectMapper objectMapper) {
+		mItemService = itemService;
+		mItemWriter = objectMapper.writerFor(Item.class);
+		mItemCsv = new ItemCsv(objectMapper);
+	}
+
+	/**
+	 * Export all the items in the database ordered by item id, the response is
+	 * sent as an attachment. The database work is not run by the
+	 * ItemRequestExecutor, since an export holds its thread and its connection
+	 * until the last item is written.
+	 * 
+	 * @param format The format of the export, ndjson or csv.
+	 * @return The streaming output of all the items, with HTTP status code OK.
+	 */
+	@GET
+	@Produces({ ItemBulkController.APPLICATION_NDJSON, ItemCsv.TEXT_CSV })
+	public Response exportItems(@QueryParam("format") @DefaultValue("ndjson") String format) {
+		switch (format) {
+		case "ndjson":
+			return exportResponse(exportNdjson(), ItemBulkController.APPLICATION_NDJSON, "items.ndjson");
+		case "csv":
+			return exportResponse(exportCsv(), ItemCsv.TEXT_CSV, "items.csv");
+		default:
+			throw new BadRequestException("The format must be one of ndjson or csv, but it is: " + format);
+		}
+	}
+
+	private Response exportResponse(StreamingOutput output, String mediaType, String fileName) {
+		return Response.status(Status.OK).entity(output).type(mediaType)
+				.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"").build();
+	}
+
+	private StreamingOutput exportNdjson() {
+		return output -> {
+			try (JsonGenerator generator = mItemWriter.getFactory().createGenerator(output)) {
+				// Every item ends its own line, instead of being separated by a space.
+				generator.setRootValueSeparator(null);
+				mItemService.StreamAllItems(item -> {
+					try {
+						mItemWriter.writeValue(generator, item);
+						generator.writeRaw('\n');
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			}
+		};
+	}
+
+	private StreamingOutput exportCsv() {
+		return output -> {
+			try (SequenceWriter rows = mItemCsv.writer(output)) {
+				mItemService.StreamAllItems(item -> {
+					try {
+						rows.write(mItemCsv.toRow(item));
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			}
+		};
+	}
+}
@@ -0,0 +1,127 @@
+package com.cepheid.cloud.skel.controller;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.ws.rs.BadRequestException;
+
+import com.cepheid.cloud.skel.model.Item;
+import com.cepheid.cloud.skel.model.ItemSummary;
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+
+/***
+ * This is a ItemFields class which holds the fields an item list is written
+ * with, they are selected by the fields and the expand query parameters, e.g.
+ * {@code ?fields=name} or {@code ?expand=descriptions}. Without them an item is
+ * written without its descriptions, so the list can be read as item summaries
+ * straight from the database. The id of an item is always written, it is the
+ * cursor of the next page. The descriptionCount is only written by the item
+ * summaries, an item which is written with its descriptions does not need it.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+final class ItemFields {
+
+	/**
+	 * The field which holds the descriptions of an item.
+	 */
+	static final String DESCRIPTIONS = "descriptions";
+
+	private static final String ID = "id";
+
+	private static final String DESCRIPTION_COUNT = "descriptionCount";
+
+	private static final Set<String> SUMMARY_FIELDS = Set.of(ID, "version", "name", "state", DESCRIPTION_COUNT);
+
+	private static final Set<String> ALL_FIELDS = Set.of(ID, "version", "name", "state", DESCRIPTION_COUNT,
+			DESCRIPTIONS);
+
+	private static final String FILTER = "itemFields";
+
+	private final Set<String> mFields;
+
+	private ItemFields(Set<String> fields) {
+		mFields = fields;
+	}
+
+	/**
+	 * Parse the fields and the expand query parameters.
+	 * 
+	 * @param fields The comma separated fields to write, can be null to write all
+	 *               the fields of an item summary.
+	 * @param expand The comma separated fields to write in addition, only
+	 *               descriptions can be expanded, can be null.
+	 * @return The fields to write.
+	 */
+	static ItemFields parse(String fields, String expand) {
+		Set<String> selected = new TreeSet<>();
+		if (fields == null)
+			selected.addAll(SUMMARY_FIELDS);
+		else
+			addFields(selected, fields, ALL_FIELDS, "fields");
+		selected.add(ID);
+		if (expand != null)
+			addFields(selected, expand, Set.of(DESCRIPTIONS), "expand");
+		return new ItemFields(selected);
+	}
+
+	/**
+	 * Copy the given mapper into a mapper which writes the items and the item
+	 * summaries with the filter of the selected fields.
+	 * 
+	 * @param objectMapper The mapper of the application.
+	 * @return The mapper which the writers of the fields are created from.
+	 */
+	static ObjectMapper filteringMapper(ObjectMapper objectMapper) {
+		return objectMapper.copy().addMixIn(Item.class, FieldsFilter.class).addMixIn(ItemSummary.class,
+				FieldsFilter.class);
+	}
+
+	/**
+	 * @return true if the descriptions are written, then the items have to be
+	 *         loaded with their descriptions instead of as item summaries.
+	 */
+	boolean includesDescriptions() {
+		return mFields.contains(DESCRIPTIONS);
+	}
+
+	/**
+	 * Create the writer which only writes the selected fields of the items.
+	 * 
+	 * @param filteringMapper The mapper created by filteringMapper.
+	 * @return The writer of the items.
+	 */
+	ObjectWriter writer(ObjectMapper filteringMapper) {
+		// Flushing after every item would turn each item into a socket write.
+		return filteringMapper.writer(new SimpleFilterProvider().addFilter(FILTER,
+				SimpleBeanPropertyFilter.filterOutAllExcept(mFields)))
+				.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+	}
+
+	@Override
+	public String toString() {
+		return String.join(",", mFields);
+	}
+
+	private static void addFields(Set<String> selected, String fields, Set<String> allowed, String parameter) {
+		for (String field : fields.split(",")) {
+			String name = field.trim();
+			if (name.isEmpty())
+				continue;
+			if (!allowed.contains(name))
+				throw new BadRequestException("Unknown field in " + parameter + ": " + name + ", the fields are: "
+						+ new TreeSet<>(allowed));
+			selected.add(name);
+		}
+	}
+
+	@JsonFilter(FILTER)
+	private interface FieldsFilter {
+	}
+}
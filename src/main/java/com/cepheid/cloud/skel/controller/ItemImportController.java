@@ -0,0 +1,169 @@
+package com.cepheid.cloud.skel.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.text.ParseException;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import org.glassfish.jersey.media.multipart.FormDataContentDisposition;
+import org.jvnet.mimepull.MIMEConfig;
+import org.jvnet.mimepull.MIMEMessage;
+import org.jvnet.mimepull.MIMEParsingException;
+import org.jvnet.mimepull.MIMEPart;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.cepheid.cloud.skel.service.ItemBulkService;
+import com.cepheid.cloud.skel.service.ItemCsv;
+import com.cepheid.cloud.skel.service.ItemImport;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import io.swagger.annotations.Api;
+
+/***
+ * This is a ItemImportController class which provides the REST API to import
+ * the items of an uploaded file, in one of the formats of the export, into the
+ * database. The file is the part named file of a multipart/form-data request,
+ * it may be compressed with gzip. The items are read while the file is
+ * uploaded, and saved in chunks like the items of the bulk requests, so a file
+ * of any size can be imported. The progress of the running imports is found
+ * with a GET. To import items, a request can be done like this:
+ * {@code curl -F file=@items.csv.gz http:/localhost:9443/app/api/1.0/items/import?format=csv}
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+@Component
+@Path("/api/1.0/items/import")
+@Api()
+public class ItemImportController {
+
+	/**
+	 * The name of the part which holds the imported file.
+	 */
+	public static final String FILE_PART = "file";
+
+	private final ItemBulkService mItemBulkService;
+
+	private final ObjectReader mItemReader;
+
+	private final ItemCsv mItemCsv;
+
+	/**
+	 * Constructor for class ItemImportController with provided services.
+	 * 
+	 * @param itemBulkService ItemBulkService which saves the items in chunks.
+	 * @param objectMapper    ObjectMapper which reads the items one by one.
+	 */
+	@Autowired
+	public ItemImportController(ItemBulkService itemBulkService, ObjectMapper objectMapper) {
+		mItemBulkService = itemBulkService;
+		mItemReader = objectMapper.readerFor(JsonNode.class);
+		mItemCsv = new ItemCsv(objectMapper);
+	}
+
+	/**
+	 * Import all the items of the uploaded file, an item with the id of an
+	 * existing item replaces the existing item whatever its version, the other
+	 * items are added with new ids. The request body is parsed with the MIME
+	 * parser of the MultiPartFeature as it arrives, instead of being read as a
+	 * FormDataMultiPart, which would store the whole file before the import
+	 * starts.
+	 * 
+	 * @param format  The format of the file, ndjson or csv.
+	 * @param headers The headers of the request, which hold the boundary of the
+	 *                parts.
+	 * @param body    The multipart/form-data request body.
+	 * @return The counts of the results of the imported items and the first
+	 *         errors, with HTTP status code OK.
+	 * @throws IOException if the request can not be read.
+	 */
+	@POST
+	@Consumes(MediaType.MULTIPART_FORM_DATA)
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response importItems(@QueryParam("format") @DefaultValue("ndjson") String format,
+			@Context HttpHeaders headers, InputStream body) throws IOException {
+		if (!"ndjson".equals(format) && !"csv".equals(format))
+			throw new BadRequestException("The format must be one of ndjson or csv, but it is: " + format);
+		String boundary = headers.getMediaType().getParameters().get("boundary");
+		if (boundary == null)
+			throw new BadRequestException("The multipart request has no boundary");
+
+		try (MIMEMessage message = new MIMEMessage(body, boundary, new MIMEConfig());
+				InputStream file = uncompressed(findFilePart(message).readOnce())) {
+			if ("csv".equals(format))
+				return importResponse(mItemBulkService.ImportItems(mItemCsv.read(file), format));
+			try (MappingIterator<JsonNode> items = mItemReader.readValues(file)) {
+				return importResponse(mItemBulkService.ImportItems(items, format));
+			}
+		}
+	}
+
+	/**
+	 * Get the progress of the imports which are running.
+	 * 
+	 * @return The counts of the results of the items imported so far by every
+	 *         running import, with HTTP status code OK.
+	 */
+	@GET
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response getRunningImports() {
+		return Response.status(Status.OK).entity(mItemBulkService.FindRunningImports()).build();
+	}
+
+	private Response importResponse(ItemImport itemImport) {
+		return Response.status(Status.OK).entity(itemImport).build();
+	}
+
+	/**
+	 * Find the file part, the parts before it are small form fields, the parser
+	 * only reads ahead as far as the headers of the part.
+	 */
+	private MIMEPart findFilePart(MIMEMessage message) {
+		try {
+			for (int i = 0;; i++) {
+				MIMEPart part = message.getPart(i);
+				List<String> disposition = part.getHeader(HttpHeaders.CONTENT_DISPOSITION);
+				if (disposition != null && !disposition.isEmpty()
+						&& FILE_PART.equals(new FormDataContentDisposition(disposition.get(0)).getName()))
+					return part;
+				part.close();
+			}
+		} catch (MIMEParsingException | IllegalStateException | ParseException e) {
+			// The message ended before the file part.
+			throw new BadRequestException("The multipart request has no " + FILE_PART + " part");
+		}
+	}
+
+	/**
+	 * Wrap the file in a GZIPInputStream if it starts with the magic number of
+	 * gzip.
+	 */
+	private static InputStream uncompressed(InputStream file) throws IOException {
+		PushbackInputStream input = new PushbackInputStream(file, 2);
+		byte[] magic = input.readNBytes(2);
+		input.unread(magic);
+		if (magic.length == 2 && (magic[0] & 0xff) == 0x1f && (magic[1] & 0xff) == 0x8b)
+			return new GZIPInputStream(input);
+		return input;
+	}
+}
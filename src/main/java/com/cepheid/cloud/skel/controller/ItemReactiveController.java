@@ -0,0 +1,183 @@
+package com.cepheid.cloud.skel.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.core.MediaType;
+
+import org.reactivestreams.Publisher;
+
+import com.cepheid.cloud.skel.model.ItemState;
+import com.cepheid.cloud.skel.model.ItemSummary;
+import com.cepheid.cloud.skel.repository.ItemReactiveRepository;
+import com.cepheid.cloud.skel.service.ItemChangeFeed;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.NettyOutbound;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+import reactor.netty.http.server.HttpServerRoutes;
+
+/***
+ * This is a ItemReactiveController class which provides the non-blocking read
+ * API of the items, next to the ItemController. It is served by Reactor Netty
+ * on skel.reactive.port with a handful of event loop threads, and the items are
+ * read through R2DBC by the ItemReactiveRepository, so a request holds neither
+ * a thread nor a connection while it waits for the database or for a slow
+ * client. The item lists are streamed with back-pressure, one json per item as
+ * NDJSON, or as Server-Sent Events with the id of the item as the event id if
+ * text/event-stream is accepted. The next items are only read once the client
+ * has taken the previous ones. The committed changes of the items are followed
+ * through the ItemChangeFeed as Server-Sent Events, from the sequence of the
+ * after parameter or of the Last-Event-ID header of a reconnecting EventSource,
+ * so a client reads the items once and then only gets their changes.
+ * <ul>
+ * <li>GET /api/1.0/items: The summaries of all the items.</li>
+ * <li>GET /api/1.0/items/item?name={name}&amp;state={state}: The summaries of
+ * the items with the name and/or the state.</li>
+ * <li>GET /api/1.0/items/item/{id}: The item with its descriptions as
+ * json.</li>
+ * <li>GET /api/1.0/items/changes?after={sequence}: The changes of the items
+ * after the sequence, or from now on without a sequence, as "change" events, or
+ * a "reset" event when the changes are not known any more and the items have to
+ * be read again.</li>
+ * </ul>
+ * e.g. {@code curl -N http://localhost:9444/api/1.0/items}
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+public class ItemReactiveController {
+
+	/**
+	 * The media type of a stream of newline delimited json.
+	 */
+	public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+	// A comment is sent when there has been no change for a while, so the idle
+	// connection of a subscriber is not closed by a proxy.
+	private static final Duration HEARTBEAT_INTERVAL = Duration.ofSeconds(15);
+
+	private static final String LAST_EVENT_ID = "Last-Event-ID";
+
+	private final ItemReactiveRepository mItemRepository;
+
+	private final ItemChangeFeed mChangeFeed;
+
+	private final ObjectMapper mObjectMapper;
+
+	/**
+	 * Constructor for class ItemReactiveController with provided services.
+	 * 
+	 * @param itemRepository ItemReactiveRepository which reads the items.
+	 * @param changeFeed     ItemChangeFeed which publishes the changes of the
+	 *                       items.
+	 * @param objectMapper   ObjectMapper which serializes the items.
+	 */
+	public ItemReactiveController(ItemReactiveRepository itemRepository, ItemChangeFeed changeFeed,
+			ObjectMapper objectMapper) {
+		mItemRepository = itemRepository;
+		mChangeFeed = changeFeed;
+		mObjectMapper = objectMapper;
+	}
+
+	/**
+	 * Add the routes of the item API.
+	 * 
+	 * @param routes The routes of the server.
+	 */
+	public void routes(HttpServerRoutes routes) {
+		routes.get("/api/1.0/items", this::getItems).get("/api/1.0/items/item", this::getItemsByQuery)
+				.get("/api/1.0/items/item/{id}", this::getItem).get("/api/1.0/items/changes", this::getChanges);
+	}
+
+	private Publisher<Void> getItems(HttpServerRequest request, HttpServerResponse response) {
+		return sendItems(request, response, mItemRepository.findAllSummaries());
+	}
+
+	private Publisher<Void> getItemsByQuery(HttpServerRequest request, HttpServerResponse response) {
+		Map<String, List<String>> parameters = new QueryStringDecoder(request.uri()).parameters();
+		String name = parameter(parameters, "name");
+		String state = parameter(parameters, "state");
+		if (name == null && state == null)
+			return sendError(response, HttpResponseStatus.BAD_REQUEST, "A name or a state is required");
+		ItemState item_state = null;
+		try {
+			if (state != null)
+				item_state = ItemState.valueOf(state);
+		} catch (IllegalArgumentException e) {
+			return sendError(response, HttpResponseStatus.BAD_REQUEST, "Unknown state: " + state);
+		}
+		return sendItems(request, response, mItemRepository.findSummaries(name, item_state));
+	}
+
+	private Publisher<Void> getItem(HttpServerRequest request, HttpServerResponse response) {
+		Long id;
+		try {
+			id = Long.valueOf(request.param("id"));
+		} catch (NumberFormatException e) {
+			return sendError(response, HttpResponseStatus.NOT_FOUND, "Unknown item: " + request.param("id"));
+		}
+		return mItemRepository.findWithDescriptionsById(id).map(this::toJson)
+				.flatMap(json -> response.header(HttpHeaderNames.CONTENT_TYPE, MediaType.APPLICATION_JSON)
+						.sendString(Flux.just(json), StandardCharsets.UTF_8).then())
+				.switchIfEmpty(Mono.defer(
+						() -> sendError(response, HttpResponseStatus.NOT_FOUND, "Unknown item: " + id).then()));
+	}
+
+	private Publisher<Void> getChanges(HttpServerRequest request, HttpServerResponse response) {
+		String after = parameter(new QueryStringDecoder(request.uri()).parameters(), "after");
+		if (after == null)
+			after = request.requestHeaders().get(LAST_EVENT_ID);
+		Long after_sequence = null;
+		try {
+			if (after != null)
+				after_sequence = Long.valueOf(after);
+		} catch (NumberFormatException e) {
+			return sendError(response, HttpResponseStatus.BAD_REQUEST, "Unknown sequence: " + after);
+		}
+		Flux<String> changes = mChangeFeed.Subscribe(after_sequence).map(change -> "id: " + change.getSequence()
+				+ "\nevent: " + (change.isReset() ? "reset" : "change") + "\ndata: " + toJson(change) + "\n\n");
+		Flux<String> heartbeats = Flux.interval(HEARTBEAT_INTERVAL).onBackpressureDrop().map(tick -> ":\n\n");
+		return response.sse().sendString(Flux.merge(changes, heartbeats), StandardCharsets.UTF_8);
+	}
+
+	private Publisher<Void> sendItems(HttpServerRequest request, HttpServerResponse response,
+			Flux<ItemSummary> items) {
+		String accept = request.requestHeaders().get(HttpHeaderNames.ACCEPT, "");
+		if (accept.contains(MediaType.SERVER_SENT_EVENTS)) {
+			return response.sse().sendString(
+					items.map(item -> "id: " + item.getId() + "\nevent: item\ndata: " + toJson(item) + "\n\n"),
+					StandardCharsets.UTF_8);
+		}
+		return response.header(HttpHeaderNames.CONTENT_TYPE, APPLICATION_NDJSON)
+				.sendString(items.map(item -> toJson(item) + "\n"), StandardCharsets.UTF_8);
+	}
+
+	private static NettyOutbound sendError(HttpServerResponse response, HttpResponseStatus status,
+			String message) {
+		return response.status(status).header(HttpHeaderNames.CONTENT_TYPE, MediaType.TEXT_PLAIN)
+				.sendString(Flux.just(message), StandardCharsets.UTF_8);
+	}
+
+	private String toJson(Object value) {
+		try {
+			return mObjectMapper.writeValueAsString(value);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("The item could not be serialized", e);
+		}
+	}
+
+	private static String parameter(Map<String, List<String>> parameters, String name) {
+		List<String> values = parameters.get(name);
+		return values == null || values.isEmpty() ? null : values.get(0);
+	}
+}
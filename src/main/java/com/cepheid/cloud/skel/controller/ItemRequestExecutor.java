@@ -0,0 +1,243 @@
+package com.cepheid.cloud.skel.controller;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import com.cepheid.cloud.skel.VirtualThreads;
+import com.cepheid.cloud.skel.tracing.Tracer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/***
+ * This is a ItemRequestExecutor class which runs the database work of the
+ * suspended item requests on a bounded pool of threads, so the Tomcat threads
+ * are not blocked on JDBC, and a slow query holds one of the pool threads
+ * instead of one of the connector threads. When all the threads are busy and
+ * the queue is full, a request is answered at once with 503 Service
+ * Unavailable and a Retry-After header, as is a request which is not done
+ * within the timeout of its endpoint. The timeout of an endpoint is
+ * skel.async.timeout-ms.{endpoint}, e.g. skel.async.timeout-ms.getItems, or
+ * skel.async.timeout-ms if it is not set. A request which times out while it is
+ * still queued is not run at all.
+ * <p>
+ * With skel.threads.virtual on Java 21 or newer, every request is run on its
+ * own virtual thread instead, and the pool is replaced by a semaphore of
+ * skel.async.max-concurrency permits, by default the size of the Hikari pool,
+ * so a request waits for a permit on its virtual thread rather than for a pool
+ * thread, and the connections are the only throttle. At most
+ * skel.async.max-concurrency plus skel.async.queue-size requests are admitted,
+ * the rest are rejected like a full queue.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+@Component
+public class ItemRequestExecutor implements MeterBinder {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ItemRequestExecutor.class);
+
+	private static final String TIMEOUT_PROPERTY = "skel.async.timeout-ms";
+
+	private final Executor mExecutor;
+
+	// The pool of the platform threads, null with virtual threads.
+	private final ThreadPoolExecutor mPool;
+
+	// The admitted requests and the connection permits of the virtual threads,
+	// null with the pool.
+	private final Semaphore mAdmitted;
+
+	private final Semaphore mConnections;
+
+	private final int mMaxConcurrency;
+
+	private final Tracer mTracer;
+
+	private final Environment mEnvironment;
+
+	private final long mDefaultTimeoutMillis;
+
+	private final long mRetryAfterSeconds;
+
+	private final Map<String, Long> mTimeouts = new ConcurrentHashMap<>();
+
+	private MeterRegistry mRegistry;
+
+	/**
+	 * Constructor for class ItemRequestExecutor with provided services and
+	 * settings.
+	 * 
+	 * @param tracer            Tracer whose current span is handed to the pool
+	 *                          threads, so the work is part of the trace of the
+	 *                          request.
+	 * @param environment       Environment which holds the timeouts of the
+	 *                          endpoints.
+	 * @param threads           The number of pool threads, there is no point in
+	 *                          more threads than database connections.
+	 * @param queueSize         The maximum number of requests waiting for a pool
+	 *                          thread, or for a permit with virtual threads.
+	 * @param virtual           Whether every request is run on a virtual thread,
+	 *                          it is ignored before Java 21.
+	 * @param maxConcurrency    The number of requests which run at the same time
+	 *                          on virtual threads, there is no point in more than
+	 *                          the database connections.
+	 * @param defaultTimeout    The timeout in milliseconds of the endpoints
+	 *                          without their own timeout.
+	 * @param retryAfterSeconds The Retry-After of a rejected request in seconds.
+	 */
+	@Autowired
+	public ItemRequestExecutor(Tracer tracer, Environment environment,
+			@Value("${skel.async.threads:10}") int threads, @Value("${skel.async.queue-size:100}") int queueSize,
+			@Value("${skel.threads.virtual:false}") boolean virtual,
+			@Value("${skel.async.max-concurrency:${spring.datasource.hikari.maximum-pool-size:10}}") int maxConcurrency,
+			@Value("${" + TIMEOUT_PROPERTY + ":30000}") long defaultTimeout,
+			@Value("${skel.async.retry-after-seconds:1}") long retryAfterSeconds) {
+		mTracer = tracer;
+		mEnvironment = environment;
+		mDefaultTimeoutMillis = defaultTimeout;
+		mRetryAfterSeconds = retryAfterSeconds;
+		mMaxConcurrency = maxConcurrency;
+		if (virtual && !VirtualThreads.isSupported())
+			LOGGER.warn("skel.threads.virtual is set, but Java {} has no virtual threads, "
+					+ "the item requests are run by {} pool threads", System.getProperty("java.version"), threads);
+		if (virtual && VirtualThreads.isSupported()) {
+			mPool = null;
+			mExecutor = VirtualThreads.executor("item-request-");
+			mAdmitted = new Semaphore(maxConcurrency + queueSize);
+			mConnections = new Semaphore(maxConcurrency, true);
+		} else {
+			AtomicInteger thread_count = new AtomicInteger();
+			mPool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+					new ArrayBlockingQueue<>(queueSize), runnable -> {
+						Thread thread = new Thread(runnable, "item-request-" + thread_count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					});
+			mExecutor = mPool;
+			mAdmitted = null;
+			mConnections = null;
+		}
+	}
+
+	/**
+	 * Run the work of a suspended request on a pool thread, and resume the
+	 * request with the response of the work, or with the exception it throws, so
+	 * the exception is mapped like the one of a synchronous request.
+	 * 
+	 * @param asyncResponse The suspended request.
+	 * @param endpoint      The name of the endpoint, which selects its timeout.
+	 * @param work          The work which builds the response.
+	 */
+	public void submit(AsyncResponse asyncResponse, String endpoint, Callable<Response> work) {
+		asyncResponse.setTimeoutHandler(timed_out -> {
+			count("skel.async.timeouts", endpoint);
+			timed_out.resume(unavailable("The request to " + endpoint + " timed out"));
+		});
+		asyncResponse.setTimeout(timeout(endpoint), TimeUnit.MILLISECONDS);
+		Runnable task = mTracer.wrap(() -> {
+			// The request timed out while it was queued.
+			if (asyncResponse.isDone())
+				return;
+			try {
+				asyncResponse.resume(work.call());
+			} catch (Throwable e) {
+				asyncResponse.resume(e);
+			}
+		});
+		try {
+			mExecutor.execute(mConnections == null ? task : throttled(task));
+		} catch (RejectedExecutionException e) {
+			count("skel.async.rejected", endpoint);
+			asyncResponse.resume(unavailable("Too many requests are waiting for the database"));
+		}
+		// The request is finished by the pool thread, so its span must not stay the
+		// current span of this thread.
+		mTracer.detach();
+	}
+
+	/**
+	 * Stop the pool threads when the application is closed.
+	 */
+	@PreDestroy
+	public void shutdown() {
+		if (mPool != null)
+			mPool.shutdown();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		mRegistry = registry;
+		if (mPool != null) {
+			new ExecutorServiceMetrics(mPool, "item-request", Tags.empty()).bindTo(registry);
+		} else {
+			Gauge.builder("skel.async.active", mConnections,
+					connections -> mMaxConcurrency - connections.availablePermits())
+					.description("The number of item requests which hold a connection permit").register(registry);
+			Gauge.builder("skel.async.waiting", mConnections, Semaphore::getQueueLength)
+					.description("The number of item requests waiting for a connection permit").register(registry);
+		}
+	}
+
+	// Admit the task of a virtual thread only if there is room, and run it once it
+	// has a connection permit.
+	private Runnable throttled(Runnable task) {
+		if (!mAdmitted.tryAcquire())
+			throw new RejectedExecutionException();
+		return () -> {
+			try {
+				mConnections.acquire();
+				try {
+					task.run();
+				} finally {
+					mConnections.release();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				mAdmitted.release();
+			}
+		};
+	}
+
+	private long timeout(String endpoint) {
+		return mTimeouts.computeIfAbsent(endpoint,
+				name -> mEnvironment.getProperty(TIMEOUT_PROPERTY + "." + name, Long.class, mDefaultTimeoutMillis));
+	}
+
+	private Response unavailable(String message) {
+		return Response.status(Status.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, mRetryAfterSeconds)
+				.entity(message).type(MediaType.TEXT_PLAIN_TYPE).build();
+	}
+
+	private void count(String name, String endpoint) {
+		if (mRegistry != null)
+			Counter.builder(name).tag("endpoint", endpoint).register(mRegistry).increment();
+	}
+}
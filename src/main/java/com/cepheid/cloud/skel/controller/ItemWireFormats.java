@@ -0,0 +1,145 @@
+package com.cepheid.cloud.skel.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.core.Variant;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.jaxrs.cbor.CBORMediaTypes;
+import com.fasterxml.jackson.jaxrs.smile.SmileMediaTypes;
+
+/***
+ * This is a ItemWireFormats class which holds the formats the item endpoints
+ * are served in besides json, the binary formats Smile and CBOR. They are
+ * chosen by the Accept and the Content-Type headers of a request, e.g.
+ * {@code curl -H "Accept: application/cbor" http:/localhost:9443/app/api/1.0/items}
+ * Both write the same tree of fields as json, so the items need no schema, but
+ * the field names and the numbers are encoded in binary, and Smile writes a
+ * field name which was seen before as a back reference. The mappers are
+ * configured by the ObjectMapper builder of Spring Boot, like the json mapper
+ * of the application.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+@Component
+public class ItemWireFormats {
+
+	/**
+	 * The media type of Smile.
+	 */
+	public static final String APPLICATION_SMILE = SmileMediaTypes.APPLICATION_JACKSON_SMILE;
+
+	/**
+	 * The media type of CBOR.
+	 */
+	public static final String APPLICATION_CBOR = CBORMediaTypes.APPLICATION_JACKSON_CBOR;
+
+	/**
+	 * The media types the items are written in, json first, it is written when
+	 * the client accepts any of them.
+	 */
+	public static final List<MediaType> MEDIA_TYPES = List.of(MediaType.APPLICATION_JSON_TYPE,
+			SmileMediaTypes.APPLICATION_JACKSON_SMILE_TYPE, CBORMediaTypes.APPLICATION_JACKSON_CBOR_TYPE);
+
+	private static final List<Variant> VARIANTS = Variant
+			.mediaTypes(MEDIA_TYPES.toArray(new MediaType[MEDIA_TYPES.size()])).build();
+
+	private final ObjectMapper mObjectMapper;
+
+	private final ObjectMapper mSmileMapper;
+
+	private final ObjectMapper mCborMapper;
+
+	private final Map<MediaType, ObjectMapper> mMappers;
+
+	/**
+	 * Constructor for class ItemWireFormats with the mappers of the application.
+	 * 
+	 * @param objectMapper  ObjectMapper of the application, which writes json.
+	 * @param mapperBuilder The ObjectMapper builder of Spring Boot, it configures
+	 *                      the binary mappers, it is shared, so its factory is not
+	 *                      changed.
+	 */
+	@Autowired
+	public ItemWireFormats(ObjectMapper objectMapper, Jackson2ObjectMapperBuilder mapperBuilder) {
+		mObjectMapper = objectMapper;
+		mSmileMapper = new ObjectMapper(new SmileFactory());
+		mapperBuilder.configure(mSmileMapper);
+		mCborMapper = new ObjectMapper(new CBORFactory());
+		mapperBuilder.configure(mCborMapper);
+		mMappers = Map.of(MEDIA_TYPES.get(0), mObjectMapper, MEDIA_TYPES.get(1), mSmileMapper, MEDIA_TYPES.get(2),
+				mCborMapper);
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The mapper which writes and reads Smile.
+	 */
+	public ObjectMapper getSmileMapper() {
+		return mSmileMapper;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The mapper which writes and reads CBOR.
+	 */
+	public ObjectMapper getCborMapper() {
+		return mCborMapper;
+	}
+
+	/**
+	 * Get the mapper of a media type.
+	 * 
+	 * @param mediaType One of the MEDIA_TYPES.
+	 * @return The mapper which writes the media type.
+	 */
+	public ObjectMapper mapper(MediaType mediaType) {
+		return mMappers.get(mediaType);
+	}
+
+	/**
+	 * Select the media type a response is written in by the Accept header of the
+	 * request, the response is marked to vary by the Accept header.
+	 * 
+	 * @param request The request whose Accept header is evaluated.
+	 * @return One of the MEDIA_TYPES, json if the request has no Accept header.
+	 */
+	static MediaType select(Request request) {
+		Variant variant = request.selectVariant(VARIANTS);
+		return variant == null ? MediaType.APPLICATION_JSON_TYPE : variant.getMediaType();
+	}
+
+	/**
+	 * Create the streaming output which writes json in the given media type, the
+	 * tokens of the json are copied one by one, it is not bound to objects.
+	 * 
+	 * @param json      The json to write.
+	 * @param mediaType One of the MEDIA_TYPES.
+	 * @return The streaming output of the json in the media type.
+	 */
+	StreamingOutput transcode(byte[] json, MediaType mediaType) {
+		ObjectMapper mapper = mapper(mediaType);
+		return output -> {
+			try (JsonParser parser = mObjectMapper.getFactory().createParser(json);
+					JsonGenerator generator = mapper.getFactory().createGenerator(output)) {
+				parser.nextToken();
+				generator.copyCurrentStructure(parser);
+			}
+		};
+	}
+}
@@ -0,0 +1,184 @@
+package com.cepheid.cloud.skel.controller;
+
+import java.util.Iterator;
+import java.util.Map;
+
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.ClientErrorException;
+import javax.ws.rs.core.Response.Status;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/***
+ * This is a JsonPatches class which applies the patches of the PATCH requests
+ * to the json of a resource, a JSON Merge Patch (RFC 7396) or a JSON Patch (RFC
+ * 6902). The given json is not changed, the patch is applied to a copy. A patch
+ * which is not valid is answered with 400 Bad Request, a JSON Patch whose
+ * operation can not be applied to the json, e.g. a failed test or a path which
+ * does not exist, is answered with 409 Conflict.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+final class JsonPatches {
+
+	/**
+	 * The media type of a JSON Merge Patch.
+	 */
+	static final String MERGE_PATCH_JSON = "application/merge-patch+json";
+
+	/**
+	 * The media type of a JSON Patch.
+	 */
+	static final String JSON_PATCH_JSON = "application/json-patch+json";
+
+	private JsonPatches() {
+	}
+
+	/**
+	 * Apply a JSON Merge Patch, the members of the patch replace the members of
+	 * the json, a null member removes the member, and an object member is merged
+	 * into the object member of the json. An array is replaced as a whole.
+	 * 
+	 * @param json  The json of the resource.
+	 * @param patch The merge patch.
+	 * @return The patched json.
+	 */
+	static JsonNode applyMergePatch(JsonNode json, JsonNode patch) {
+		return merge(json.deepCopy(), patch);
+	}
+
+	/**
+	 * Apply a JSON Patch, its operations are applied in their order, and either
+	 * all or none of them are applied.
+	 * 
+	 * @param json  The json of the resource.
+	 * @param patch The array of the add, remove, replace, move, copy and test
+	 *              operations.
+	 * @return The patched json.
+	 */
+	static JsonNode applyJsonPatch(JsonNode json, JsonNode patch) {
+		if (!patch.isArray())
+			throw new BadRequestException("A JSON Patch must be an array of operations");
+		JsonNode patched = json.deepCopy();
+		for (JsonNode operation : patch) {
+			String op = member(operation, "op").asText();
+			JsonPointer path = pointer(operation, "path");
+			switch (op) {
+			case "add":
+				patched = add(patched, path, member(operation, "value").deepCopy());
+				break;
+			case "remove":
+				patched = remove(patched, path);
+				break;
+			case "replace":
+				get(patched, path);
+				patched = add(remove(patched, path), path, member(operation, "value").deepCopy());
+				break;
+			case "move":
+				JsonPointer from = pointer(operation, "from");
+				if (path.toString().startsWith(from.toString() + "/"))
+					throw new BadRequestException("A value can not be moved into itself: " + operation);
+				JsonNode moved = get(patched, from);
+				patched = add(remove(patched, from), path, moved);
+				break;
+			case "copy":
+				patched = add(patched, path, get(patched, pointer(operation, "from")).deepCopy());
+				break;
+			case "test":
+				if (!get(patched, path).equals(member(operation, "value")))
+					throw conflict("The test failed: " + operation);
+				break;
+			default:
+				throw new BadRequestException("Unknown JSON Patch operation: " + operation);
+			}
+		}
+		return patched;
+	}
+
+	private static JsonNode merge(JsonNode json, JsonNode patch) {
+		if (!patch.isObject())
+			return patch;
+		ObjectNode merged = json != null && json.isObject() ? (ObjectNode) json : ((ObjectNode) patch).objectNode();
+		Iterator<Map.Entry<String, JsonNode>> members = patch.fields();
+		while (members.hasNext()) {
+			Map.Entry<String, JsonNode> member = members.next();
+			if (member.getValue().isNull())
+				merged.remove(member.getKey());
+			else
+				merged.set(member.getKey(), merge(merged.get(member.getKey()), member.getValue()));
+		}
+		return merged;
+	}
+
+	private static JsonNode add(JsonNode json, JsonPointer path, JsonNode value) {
+		if (path.matches())
+			return value;
+		JsonNode parent = get(json, path.head());
+		String name = path.last().getMatchingProperty();
+		if (parent.isObject()) {
+			((ObjectNode) parent).set(name, value);
+		} else if (parent.isArray()) {
+			ArrayNode array = (ArrayNode) parent;
+			if ("-".equals(name))
+				array.add(value);
+			else
+				array.insert(index(array, path, array.size()), value);
+		} else {
+			throw conflict("The parent of " + path + " is neither an object nor an array");
+		}
+		return json;
+	}
+
+	private static JsonNode remove(JsonNode json, JsonPointer path) {
+		if (path.matches())
+			throw new BadRequestException("The whole document can not be removed");
+		JsonNode parent = get(json, path.head());
+		if (parent.isObject()) {
+			if (((ObjectNode) parent).remove(path.last().getMatchingProperty()) == null)
+				throw conflict("There is no value at " + path);
+		} else if (parent.isArray()) {
+			ArrayNode array = (ArrayNode) parent;
+			array.remove(index(array, path, array.size() - 1));
+		} else {
+			throw conflict("The parent of " + path + " is neither an object nor an array");
+		}
+		return json;
+	}
+
+	private static JsonNode get(JsonNode json, JsonPointer path) {
+		JsonNode value = json.at(path);
+		if (value.isMissingNode())
+			throw conflict("There is no value at " + path);
+		return value;
+	}
+
+	private static int index(ArrayNode array, JsonPointer path, int maxIndex) {
+		int index = path.last().getMatchingIndex();
+		if (index < 0 || index > maxIndex)
+			throw conflict("The index of " + path + " is not in the array of size " + array.size());
+		return index;
+	}
+
+	private static JsonNode member(JsonNode operation, String name) {
+		JsonNode member = operation.get(name);
+		if (member == null)
+			throw new BadRequestException("The JSON Patch operation has no " + name + ": " + operation);
+		return member;
+	}
+
+	private static JsonPointer pointer(JsonNode operation, String name) {
+		try {
+			return JsonPointer.compile(member(operation, name).asText());
+		} catch (IllegalArgumentException e) {
+			throw new BadRequestException("Invalid JSON Pointer in " + operation + ": " + e.getMessage());
+		}
+	}
+
+	private static ClientErrorException conflict(String message) {
+		return new ClientErrorException(message, Status.CONFLICT);
+	}
+}
@@ -0,0 +1,32 @@
+package com.cepheid.cloud.skel.controller;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.Provider;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import com.cepheid.cloud.skel.exception.PreconditionFailedException;
+
+/***
+ * This is a OptimisticLockingFailureMapper class which answers a write based
+ * on an outdated version of the item. The HTTP status is 412 when the If-Match
+ * header of the write does not match anymore, a PreconditionFailedException,
+ * and 409 when another write has committed a new version of the item in the
+ * meantime, since the client has not set a precondition which could fail.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+@Provider
+public class OptimisticLockingFailureMapper implements ExceptionMapper<OptimisticLockingFailureException> {
+
+	@Override
+	public Response toResponse(OptimisticLockingFailureException exception) {
+		Status status = exception instanceof PreconditionFailedException ? Status.PRECONDITION_FAILED
+				: Status.CONFLICT;
+		return Response.status(status).entity(exception.getMessage()).type(MediaType.TEXT_PLAIN_TYPE).build();
+	}
+}
@@ -0,0 +1,108 @@
+package com.cepheid.cloud.skel.event;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+/***
+ * This is a ItemChange class which is one entry of the change feed of the
+ * items, a committed change of an item numbered by its sequence in the feed. A
+ * reset is not a change of an item, it tells a subscriber that the changes
+ * before its sequence are not known any more, so the subscriber has to read the
+ * items again, and it only has an item id and a type when it is a change.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+@JsonInclude(Include.NON_NULL)
+public class ItemChange {
+
+	private final long mSequence;
+
+	private final Long mItemId;
+
+	private final ItemChangeType mType;
+
+	private final long mTimestamp;
+
+	/**
+	 * Constructor for class ItemChange with a given sequence, item id and change
+	 * type.
+	 * 
+	 * @param sequence  The sequence of the change in the feed.
+	 * @param itemId    Id of the changed item, or null for a reset.
+	 * @param type      The kind of change done to the item, or null for a reset.
+	 * @param timestamp The time of the change in milliseconds since the epoch.
+	 */
+	public ItemChange(long sequence, Long itemId, ItemChangeType type, long timestamp) {
+		mSequence = sequence;
+		mItemId = itemId;
+		mType = type;
+		mTimestamp = timestamp;
+	}
+
+	/**
+	 * Create a reset of the feed at a given sequence.
+	 * 
+	 * @param sequence The sequence of the last change in the feed.
+	 * @return The reset.
+	 */
+	public static ItemChange reset(long sequence) {
+		return new ItemChange(sequence, null, null, System.currentTimeMillis());
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The sequence of the change in the feed.
+	 */
+	public long getSequence() {
+		return mSequence;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return Id of the changed item, or null for a reset.
+	 */
+	public Long getItemId() {
+		return mItemId;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The kind of change done to the item, or null for a reset.
+	 */
+	public ItemChangeType getType() {
+		return mType;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The time of the change in milliseconds since the epoch.
+	 */
+	public long getTimestamp() {
+		return mTimestamp;
+	}
+
+	/**
+	 * Tell whether this is a reset of the feed instead of a change of an item.
+	 * 
+	 * @return true if this is a reset.
+	 */
+	@JsonIgnore
+	public boolean isReset() {
+		return mType == null;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("Sequence : ").append(getSequence()).append("\n");
+		sb.append("Item Id : ").append(getItemId()).append("\n");
+		sb.append("Type : ").append(getType()).append("\n");
+		return sb.toString();
+	}
+}
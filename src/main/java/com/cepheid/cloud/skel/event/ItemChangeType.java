@@ -0,0 +1,9 @@
+package com.cepheid.cloud.skel.event;
+
+/*** This is a enum class for the kinds of changes done to an Item.
+* @author Wei Wang
+* @version 1.0
+*/
+public enum ItemChangeType {
+	ITEM_CREATED, ITEM_UPDATED, ITEM_DELETED, DESCRIPTION_ADDED, DESCRIPTION_UPDATED, DESCRIPTION_DELETED;
+}
@@ -0,0 +1,54 @@
+package com.cepheid.cloud.skel.event;
+
+/***
+ * This is a ItemChangedEvent class which is published by the ItemService every
+ * time an item or one of its descriptions is changed. The event is published
+ * inside the transaction of the change, listeners which must only see committed
+ * changes shall listen with @TransactionalEventListener.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+public class ItemChangedEvent {
+
+	private final Long mItemId;
+
+	private final ItemChangeType mType;
+
+	/**
+	 * Constructor for class ItemChangedEvent with a given item id and change type.
+	 * 
+	 * @param itemId Id of the changed item.
+	 * @param type   The kind of change done to the item.
+	 */
+	public ItemChangedEvent(Long itemId, ItemChangeType type) {
+		mItemId = itemId;
+		mType = type;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return Id of the changed item.
+	 */
+	public Long getItemId() {
+		return mItemId;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The kind of change done to the item.
+	 */
+	public ItemChangeType getType() {
+		return mType;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("Item Id : ").append(getItemId()).append("\n");
+		sb.append("Type : ").append(getType()).append("\n");
+		return sb.toString();
+	}
+}
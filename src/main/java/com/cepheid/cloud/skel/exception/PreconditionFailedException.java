@@ -0,0 +1,29 @@
+package com.cepheid.cloud.skel.exception;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/***
+ * This is a PreconditionFailedException class which extends from
+ * OptimisticLockingFailureException, it shall be used when a conditional write
+ * is based on a version of the item which is not the current version anymore.
+ * It is unchecked, so the transaction of the write is rolled back.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+@ResponseStatus(value = HttpStatus.PRECONDITION_FAILED)
+public class PreconditionFailedException extends OptimisticLockingFailureException {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Default constructor for PreconditionFailedException with a given message.
+	 * 
+	 * @param message Message to be generated for the exception.
+	 */
+	public PreconditionFailedException(String message) {
+		super(message);
+	}
+}
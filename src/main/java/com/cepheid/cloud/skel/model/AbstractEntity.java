@@ -2,23 +2,34 @@ package com.cepheid.cloud.skel.model;
 
 import javax.persistence.Column;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.MappedSuperclass;
+import javax.persistence.Version;
 
-/*** This is a abstract entity class which has a ID for database entity.
+import org.hibernate.annotations.GenericGenerator;
+
+/*** This is a abstract entity class which has a ID and a version for database entity.
 * @author Wei Wang
 * @version 1.0
 */
 
 @MappedSuperclass
-public abstract class AbstractEntity {
+public abstract class AbstractEntity implements Versioned {
 
+	// The ids are generated by the strategy configured with skel.id.generator,
+	// either the IDENTITY column or the EntityIdGenerator, see IdGeneratorConfig.
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(generator = EntityIdGenerator.STRATEGY)
+	@GenericGenerator(name = EntityIdGenerator.STRATEGY, strategy = EntityIdGenerator.STRATEGY)
 	@Column(name = "Id")
 	protected Long mId;
 
+	// Incremented by every update of the entity, it is used for the optimistic
+	// locking and as the ETag of the entity.
+	@Version
+	@Column(name = "Version")
+	protected Long mVersion;
+
 	/**
 	 * @return ID of the entity.
 	 */
@@ -34,6 +45,21 @@ public abstract class AbstractEntity {
 		mId = id;
 	}
 
+	/**
+	 * @return Version of the entity, or null if the entity is not saved yet.
+	 */
+	public Long getVersion() {
+		return mVersion;
+	}
+
+	/**
+	 * 
+	 * @param version Entity version to be set.
+	 */
+	public void setVersion(Long version) {
+		mVersion = version;
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
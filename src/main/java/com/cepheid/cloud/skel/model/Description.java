@@ -1,11 +1,18 @@
 package com.cepheid.cloud.skel.model;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 /***
@@ -16,15 +23,19 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
  */
 
 @Entity
-@Table(name = "description")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@DynamicUpdate
+@Table(name = "description", indexes = { @Index(name = "IDX_Description_Item_Id", columnList = "Item_Id") })
 public class Description extends AbstractEntity {
 
 	@Column(name = "Content")
 	private String mContent;
 
 	// Json generate the name for getter/setter methods, we have to match the field
-	// name with the getter/setter methods.
-	@ManyToOne
+	// name with the getter/setter methods. The item is not loaded together with
+	// its descriptions, a page of them does not need it.
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "Item_Id")
 	@JsonIgnore
 	private Item item;
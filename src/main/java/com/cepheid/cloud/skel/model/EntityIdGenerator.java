@@ -0,0 +1,54 @@
+package com.cepheid.cloud.skel.model;
+
+import java.util.Map;
+import java.util.Properties;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.PersistentIdentifierGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+/***
+ * This is a EntityIdGenerator class which generates the ids of an entity from
+ * its own sequence, named after the table of the entity with a "_seq" suffix.
+ * On a database without sequences, like MySQL, the sequence is a table with a
+ * single next_val row. The optimizer and the increment size are taken from the
+ * Hibernate settings, so a block of ids can be handed out in memory, and the
+ * inserts of many entities can be sent as one JDBC batch.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+public class EntityIdGenerator extends SequenceStyleGenerator {
+
+	/**
+	 * The name the generator is registered with in Hibernate.
+	 */
+	public static final String STRATEGY = "skel-id";
+
+	/**
+	 * The Hibernate setting of the optimizer, e.g. none, hilo or pooled-lo.
+	 */
+	public static final String OPTIMIZER_SETTING = "skel.id.optimizer";
+
+	/**
+	 * The Hibernate setting of the number of ids fetched from the sequence at
+	 * once.
+	 */
+	public static final String INCREMENT_SIZE_SETTING = "skel.id.increment-size";
+
+	@Override
+	public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+		Map<?, ?> settings = serviceRegistry.getService(ConfigurationService.class).getSettings();
+		Properties sequence_params = new Properties();
+		sequence_params.putAll(params);
+		sequence_params.setProperty(SEQUENCE_PARAM, params.getProperty(PersistentIdentifierGenerator.TABLE) + "_seq");
+		if (settings.get(OPTIMIZER_SETTING) != null)
+			sequence_params.setProperty(OPT_PARAM, settings.get(OPTIMIZER_SETTING).toString());
+		if (settings.get(INCREMENT_SIZE_SETTING) != null)
+			sequence_params.setProperty(INCREMENT_PARAM, settings.get(INCREMENT_SIZE_SETTING).toString());
+		super.configure(type, sequence_params, serviceRegistry);
+	}
+}
@@ -3,15 +3,24 @@ package com.cepheid.cloud.skel.model;
 import java.util.ArrayList;
 import java.util.List;
 
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.FetchType;
+import javax.persistence.Index;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
 /***
  * This is a entity class represent a Item entity.
  * 
@@ -19,8 +28,14 @@ import javax.persistence.Table;
  * @version 1.0
  */
 
+// The descriptionCount of an ItemSummary is ignored when it is read as an Item.
+@JsonIgnoreProperties("descriptionCount")
 @Entity
-@Table(name = "item")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@DynamicUpdate
+@Table(name = "item", indexes = { @Index(name = "IDX_Item_Name", columnList = "Name"),
+		@Index(name = "IDX_Item_State", columnList = "State") })
 public class Item extends AbstractEntity {
 
 	@Column(name = "Name")
@@ -30,7 +45,13 @@ public class Item extends AbstractEntity {
 	@Enumerated(EnumType.STRING)
 	private ItemState mState;
 
-	@OneToMany(mappedBy = "item", cascade = CascadeType.ALL, fetch = FetchType.EAGER, orphanRemoval = true)
+	// The descriptions are only loaded when they are used, the finders which
+	// return them fetch them in the same query. The descriptions of the items
+	// which are loaded without a fetch join are loaded with one IN query for up
+	// to 100 items, instead of one query per item.
+	@OneToMany(mappedBy = "item", cascade = CascadeType.ALL, fetch = FetchType.LAZY, orphanRemoval = true)
+	@BatchSize(size = 100)
+	@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 	@Column(name = "Descriptions")
 	private List<Description> mDescriptions;
 
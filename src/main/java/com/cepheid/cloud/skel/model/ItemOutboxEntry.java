@@ -0,0 +1,128 @@
+package com.cepheid.cloud.skel.model;
+
+import java.time.Instant;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import org.hibernate.annotations.GenericGenerator;
+
+import com.cepheid.cloud.skel.event.ItemChangeType;
+
+/***
+ * This is a entity class represent a row of the item outbox, a change of an
+ * item which is written in the transaction of the change, and delivered to the
+ * downstream consumers after the commit. It is only inserted once and then
+ * marked as delivered by a bulk update, so it has no version, and it has no
+ * foreign key to its item, since the change can be the deletion of the item.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+@Entity
+@Table(name = "item_outbox", indexes = {
+		@Index(name = "IDX_Item_Outbox_Delivered_At", columnList = "Delivered_At,Id") })
+public class ItemOutboxEntry {
+
+	// The ids come from the same generator as the ids of the items, so the rows of
+	// a bulk change are inserted by one JDBC batch.
+	@Id
+	@GeneratedValue(generator = EntityIdGenerator.STRATEGY)
+	@GenericGenerator(name = EntityIdGenerator.STRATEGY, strategy = EntityIdGenerator.STRATEGY)
+	@Column(name = "Id")
+	private Long mId;
+
+	@Column(name = "Item_Id", nullable = false)
+	private Long mItemId;
+
+	@Column(name = "Type", nullable = false)
+	@Enumerated(EnumType.STRING)
+	private ItemChangeType mType;
+
+	@Column(name = "Created_At", nullable = false)
+	private Instant mCreatedAt;
+
+	@Column(name = "Delivered_At")
+	private Instant mDeliveredAt;
+
+	/**
+	 * Default constructor for ItemOutboxEntry
+	 */
+	protected ItemOutboxEntry() {
+	}
+
+	/**
+	 * Constructor for class ItemOutboxEntry with a given change of an item.
+	 * 
+	 * @param itemId    Id of the changed item.
+	 * @param type      The kind of change done to the item.
+	 * @param createdAt The time of the change.
+	 */
+	public ItemOutboxEntry(Long itemId, ItemChangeType type, Instant createdAt) {
+		mItemId = itemId;
+		mType = type;
+		mCreatedAt = createdAt;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return ID of the entry, it orders the entries by the time they were
+	 *         written.
+	 */
+	public Long getId() {
+		return mId;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return Id of the changed item.
+	 */
+	public Long getItemId() {
+		return mItemId;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The kind of change done to the item.
+	 */
+	public ItemChangeType getType() {
+		return mType;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The time of the change.
+	 */
+	public Instant getCreatedAt() {
+		return mCreatedAt;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The time the entry was delivered, or null if it is not delivered
+	 *         yet.
+	 */
+	public Instant getDeliveredAt() {
+		return mDeliveredAt;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("Id : ").append(getId()).append("\n");
+		sb.append("Item Id : ").append(getItemId()).append("\n");
+		sb.append("Type : ").append(getType()).append("\n");
+		return sb.toString();
+	}
+}
@@ -0,0 +1,79 @@
+package com.cepheid.cloud.skel.model;
+
+/***
+ * This is a ItemSummary class which is a read only projection of an Item
+ * without its descriptions, only the number of its descriptions is counted. It
+ * is selected straight from the database with a constructor expression, so
+ * neither the item entities nor their descriptions are loaded, tracked by the
+ * persistence context and walked by Jackson for a list which does not show the
+ * descriptions.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+public class ItemSummary implements Versioned {
+
+	private final Long mId;
+
+	private final Long mVersion;
+
+	private final String mName;
+
+	private final ItemState mState;
+
+	private final long mDescriptionCount;
+
+	/**
+	 * Constructor for class ItemSummary, it is called by the projection queries.
+	 * 
+	 * @param id               ID of the item.
+	 * @param version          Version of the item.
+	 * @param name             Name of the item.
+	 * @param state            State of the item.
+	 * @param descriptionCount The number of descriptions of the item.
+	 */
+	public ItemSummary(Long id, Long version, String name, ItemState state, long descriptionCount) {
+		mId = id;
+		mVersion = version;
+		mName = name;
+		mState = state;
+		mDescriptionCount = descriptionCount;
+	}
+
+	@Override
+	public Long getId() {
+		return mId;
+	}
+
+	@Override
+	public Long getVersion() {
+		return mVersion;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return Name of the item.
+	 */
+	public String getName() {
+		return mName;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return State of the item.
+	 */
+	public ItemState getState() {
+		return mState;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The number of descriptions of the item.
+	 */
+	public long getDescriptionCount() {
+		return mDescriptionCount;
+	}
+}
@@ -0,0 +1,22 @@
+package com.cepheid.cloud.skel.model;
+
+/***
+ * This is a Versioned interface which is implemented by everything which is
+ * written to the clients with an id and a version, the entities as well as the
+ * projections of them, so their lists can be paged and tagged the same way.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+public interface Versioned {
+
+	/**
+	 * @return ID of the entity.
+	 */
+	Long getId();
+
+	/**
+	 * @return Version of the entity, or null if the entity is not saved yet.
+	 */
+	Long getVersion();
+}
@@ -0,0 +1,68 @@
+package com.cepheid.cloud.skel.outbox;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.cepheid.cloud.skel.model.ItemOutboxEntry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/***
+ * This is a FileOutboxSink class which appends every outbox entry to a file as
+ * one line of json, a stand-in for a message broker which a consumer can tail.
+ * The file is forced to the disk before a batch counts as sent, so a delivered
+ * entry is not lost with a crash.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+public class FileOutboxSink implements OutboxSink {
+
+	private final Path mFile;
+
+	private final ObjectWriter mWriter;
+
+	/**
+	 * Constructor for class FileOutboxSink with provided file and mapper.
+	 * 
+	 * @param file         The file the entries are appended to, it is created
+	 *                     with its directories if it does not exist.
+	 * @param objectMapper ObjectMapper which writes the entries.
+	 */
+	public FileOutboxSink(Path file, ObjectMapper objectMapper) {
+		mFile = file;
+		mWriter = objectMapper.writer();
+	}
+
+	@Override
+	public void send(List<ItemOutboxEntry> entries) throws IOException {
+		ByteArrayOutputStream lines = new ByteArrayOutputStream();
+		for (ItemOutboxEntry entry : entries) {
+			Map<String, Object> line = new LinkedHashMap<>();
+			line.put("id", entry.getId());
+			line.put("itemId", entry.getItemId());
+			line.put("type", entry.getType());
+			line.put("createdAt", entry.getCreatedAt().toString());
+			lines.write(mWriter.writeValueAsBytes(line));
+			lines.write('\n');
+		}
+		Path directory = mFile.toAbsolutePath().getParent();
+		if (directory != null)
+			Files.createDirectories(directory);
+		try (FileChannel channel = FileChannel.open(mFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND)) {
+			ByteBuffer buffer = ByteBuffer.wrap(lines.toByteArray());
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+			channel.force(false);
+		}
+	}
+}
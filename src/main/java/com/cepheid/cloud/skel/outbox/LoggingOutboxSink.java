@@ -0,0 +1,27 @@
+package com.cepheid.cloud.skel.outbox;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.cepheid.cloud.skel.model.ItemOutboxEntry;
+
+/***
+ * This is a LoggingOutboxSink class which writes every outbox entry to the log,
+ * a stand-in for a message broker while the consumers are developed.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+public class LoggingOutboxSink implements OutboxSink {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(LoggingOutboxSink.class);
+
+	@Override
+	public void send(List<ItemOutboxEntry> entries) {
+		for (ItemOutboxEntry entry : entries)
+			LOGGER.info("Item change {}: item {} {} at {}", entry.getId(), entry.getItemId(), entry.getType(),
+					entry.getCreatedAt());
+	}
+}
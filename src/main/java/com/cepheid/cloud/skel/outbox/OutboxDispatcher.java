@@ -0,0 +1,172 @@
+package com.cepheid.cloud.skel.outbox;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.cepheid.cloud.skel.event.ItemChangedEvent;
+import com.cepheid.cloud.skel.model.ItemOutboxEntry;
+import com.cepheid.cloud.skel.repository.ItemOutboxRepository;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/***
+ * This is a OutboxDispatcher class which delivers the entries of the item
+ * outbox from a daemon thread, so a write only inserts its entry and never
+ * waits for the delivery. The undelivered entries are read in batches of up to
+ * batchSize, handed to the OutboxSink, and marked as delivered by one update
+ * per batch. A full batch is followed by the next one right away, otherwise
+ * the dispatcher waits for the poll interval, or until a change is committed.
+ * A batch which can not be sent stays in the outbox and is sent again after the
+ * poll interval, so every committed change is delivered at least once, also
+ * after a restart. The delivered entries are deleted once they are older than
+ * the retention. Only one dispatcher shall run against a database, the
+ * dispatchers of several instances would send the same entries.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+public class OutboxDispatcher implements MeterBinder {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+	private static final long PURGE_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+	private final ItemOutboxRepository mRepository;
+
+	private final OutboxSink mSink;
+
+	private final int mBatchSize;
+
+	private final long mPollIntervalNanos;
+
+	private final Duration mRetention;
+
+	private final AtomicLong mDelivered = new AtomicLong();
+
+	private final AtomicLong mFailures = new AtomicLong();
+
+	private final Thread mThread;
+
+	private volatile Timer mLag;
+
+	private volatile boolean mShutdown;
+
+	private long mLastPurge = System.nanoTime();
+
+	/**
+	 * Constructor for class OutboxDispatcher with provided sink and settings, the
+	 * dispatcher thread is started at once.
+	 * 
+	 * @param repository   ItemOutboxRepository which reads and marks the entries.
+	 * @param sink         OutboxSink which sends the entries.
+	 * @param batchSize    The maximum number of entries sent at once.
+	 * @param pollInterval The time the dispatcher waits at most for new entries.
+	 * @param retention    The time the delivered entries are kept.
+	 */
+	public OutboxDispatcher(ItemOutboxRepository repository, OutboxSink sink, int batchSize, Duration pollInterval,
+			Duration retention) {
+		mRepository = repository;
+		mSink = sink;
+		mBatchSize = batchSize;
+		mPollIntervalNanos = pollInterval.toNanos();
+		mRetention = retention;
+		mThread = new Thread(this::run, "item-outbox-dispatcher");
+		mThread.setDaemon(true);
+		mThread.start();
+	}
+
+	/**
+	 * Wake the dispatcher up once a change is committed, so the change is
+	 * delivered without waiting for the poll interval.
+	 * 
+	 * @param event The change of the item.
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onItemChanged(ItemChangedEvent event) {
+		LockSupport.unpark(mThread);
+	}
+
+	/**
+	 * Finish the running batch, and stop the dispatcher thread, the entries which
+	 * are left are delivered after the next start.
+	 */
+	public void shutdown() {
+		mShutdown = true;
+		LockSupport.unpark(mThread);
+		try {
+			mThread.join(TimeUnit.SECONDS.toMillis(10));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter.builder("skel.outbox.delivered", mDelivered, AtomicLong::get)
+				.description("The number of item outbox entries delivered to the sink").register(registry);
+		FunctionCounter.builder("skel.outbox.failures", mFailures, AtomicLong::get)
+				.description("The number of item outbox batches which could not be delivered").register(registry);
+		mLag = Timer.builder("skel.outbox.lag")
+				.description("The time from the change of an item until its outbox entry is delivered")
+				.register(registry);
+	}
+
+	private void run() {
+		while (!mShutdown) {
+			try {
+				int delivered = dispatch();
+				purge();
+				// The entries which were committed during the batch unpark the thread, so
+				// they are not left waiting for the poll interval.
+				if (delivered < mBatchSize && !mShutdown)
+					LockSupport.parkNanos(this, mPollIntervalNanos);
+			} catch (IOException | RuntimeException e) {
+				mFailures.incrementAndGet();
+				LOGGER.warn("The item outbox could not be delivered: {}", e.toString());
+				// The commits do not cut the wait short, a failing sink is not retried
+				// more often than the poll interval.
+				try {
+					TimeUnit.NANOSECONDS.sleep(mPollIntervalNanos);
+				} catch (InterruptedException ie) {
+					return;
+				}
+			}
+		}
+	}
+
+	private int dispatch() throws IOException {
+		List<ItemOutboxEntry> batch = mRepository.findUndelivered(PageRequest.of(0, mBatchSize));
+		if (batch.isEmpty())
+			return 0;
+		mSink.send(batch);
+		Instant delivered_at = Instant.now();
+		mRepository.markDelivered(batch.stream().map(ItemOutboxEntry::getId).collect(Collectors.toList()),
+				delivered_at);
+		mDelivered.addAndGet(batch.size());
+		Timer lag = mLag;
+		if (lag != null)
+			batch.forEach(entry -> lag.record(Duration.between(entry.getCreatedAt(), delivered_at)));
+		return batch.size();
+	}
+
+	private void purge() {
+		if (System.nanoTime() - mLastPurge < PURGE_INTERVAL_NANOS)
+			return;
+		mLastPurge = System.nanoTime();
+		mRepository.deleteDeliveredBefore(Instant.now().minus(mRetention));
+	}
+}
@@ -0,0 +1,28 @@
+package com.cepheid.cloud.skel.outbox;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.cepheid.cloud.skel.model.ItemOutboxEntry;
+
+/***
+ * This is a OutboxSink interface which hands the committed changes of the items
+ * to the downstream consumers, it is called by the OutboxDispatcher with a
+ * batch of outbox entries at a time, from a single thread. An entry can be sent
+ * more than once, when a batch fails or the application stops before the batch
+ * is marked as delivered, so the consumers shall ignore the ids they have seen.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+public interface OutboxSink {
+
+	/**
+	 * Send a batch of outbox entries.
+	 * 
+	 * @param entries The undelivered entries in the order of their ids.
+	 * @throws IOException if the entries can not be sent, they are sent again
+	 *                     with the next batch.
+	 */
+	void send(List<ItemOutboxEntry> entries) throws IOException;
+}
@@ -2,7 +2,11 @@ package com.cepheid.cloud.skel.repository;
 
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 import com.cepheid.cloud.skel.model.Description;
 
 /***
@@ -22,4 +26,18 @@ public interface DescriptionRepository extends JpaRepository<Description, Long>
 	 *         content.
 	 */
 	List<Description> findAllBymContent(String mContent);
+
+	/**
+	 * Find a page of the Descriptions of an Item whose ids are greater than the
+	 * given id, the keyset (seek) pagination on the primary key, the descriptions
+	 * are found by the index of their item id.
+	 * 
+	 * @param itemId   Id of the item which owns the descriptions.
+	 * @param after    The id of the last description of the previous page.
+	 * @param pageable The page size, the offset of it shall always be 0.
+	 * @return A list of the Descriptions of the item which come after the given id
+	 *         in ascending order.
+	 */
+	@Query("select d from Description d where d.item.mId = :itemId and d.mId > :after order by d.mId")
+	List<Description> findPageByItemId(@Param("itemId") Long itemId, @Param("after") Long after, Pageable pageable);
 }
@@ -0,0 +1,66 @@
+package com.cepheid.cloud.skel.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.cepheid.cloud.skel.model.ItemOutboxEntry;
+
+/***
+ * This is a ItemOutboxRepository class which extends from JpaRepository, and
+ * provides the operations of the OutboxDispatcher on the item outbox.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+public interface ItemOutboxRepository extends JpaRepository<ItemOutboxEntry, Long> {
+
+	/**
+	 * Find the oldest entries which are not delivered yet, they are found by the
+	 * index on the delivery time.
+	 * 
+	 * @param pageable The batch size, the offset of it shall always be 0.
+	 * @return A list of the undelivered entries in the order they were written.
+	 */
+	@Query("select e from ItemOutboxEntry e where e.mDeliveredAt is null order by e.mId")
+	List<ItemOutboxEntry> findUndelivered(Pageable pageable);
+
+	/**
+	 * Find all the entries of an item.
+	 * 
+	 * @param itemId Id of the changed item.
+	 * @return A list of the entries of the item in the order they were written.
+	 */
+	@Query("select e from ItemOutboxEntry e where e.mItemId = :itemId order by e.mId")
+	List<ItemOutboxEntry> findAllByItemId(@Param("itemId") Long itemId);
+
+	/**
+	 * Mark the entries with the given ids as delivered by one update.
+	 * 
+	 * @param ids         Ids of the delivered entries.
+	 * @param deliveredAt The time of the delivery.
+	 * @return The number of the marked entries.
+	 */
+	@Transactional
+	@Modifying
+	@Query("update ItemOutboxEntry e set e.mDeliveredAt = :deliveredAt where e.mId in :ids")
+	int markDelivered(@Param("ids") Collection<Long> ids, @Param("deliveredAt") Instant deliveredAt);
+
+	/**
+	 * Delete the entries which were delivered before the given time.
+	 * 
+	 * @param before The time before which the entries were delivered.
+	 * @return The number of the deleted entries.
+	 */
+	@Transactional
+	@Modifying
+	@Query("delete from ItemOutboxEntry e where e.mDeliveredAt < :before")
+	int deleteDeliveredBefore(@Param("before") Instant before);
+}
@@ -0,0 +1,162 @@
+package com.cepheid.cloud.skel.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+import com.cepheid.cloud.skel.model.Description;
+import com.cepheid.cloud.skel.model.Item;
+import com.cepheid.cloud.skel.model.ItemState;
+import com.cepheid.cloud.skel.model.ItemSummary;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Statement;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/***
+ * This is a ItemReactiveRepository class which reads the items through R2DBC
+ * without blocking the calling thread, for the non-blocking item API. The item
+ * lists are read with the same keyset pagination as
+ * ItemRepository.findSummariesAfter, one page of up to pageSize summaries at a
+ * time, and the next page is only read once the previous one has been requested
+ * by the subscriber. So the first items are published as soon as the first
+ * page is read, a slow subscriber slows down the reading instead of filling the
+ * memory, and a connection is only held while a page is read, not for as long
+ * as the subscriber takes to consume the whole list. The H2 driver runs the
+ * queries on the subscribing thread, so they are run on the given scheduler
+ * instead of the threads of the caller.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+public class ItemReactiveRepository {
+
+	private static final String SELECT_SUMMARY = "SELECT i.Id, i.Version, i.Name, i.State,"
+			+ " (SELECT COUNT(d.Id) FROM description d WHERE d.Item_Id = i.Id) FROM item i";
+
+	private static final String SELECT_ITEM = "SELECT i.Id, i.Version, i.Name, i.State, d.Id, d.Version, d.Content"
+			+ " FROM item i LEFT JOIN description d ON d.Item_Id = i.Id WHERE i.Id = $1 ORDER BY d.Id";
+
+	private final ConnectionFactory mConnectionFactory;
+
+	private final Scheduler mScheduler;
+
+	private final int mPageSize;
+
+	/**
+	 * Constructor for class ItemReactiveRepository with provided connections.
+	 * 
+	 * @param connectionFactory ConnectionFactory of the R2DBC connections.
+	 * @param scheduler         Scheduler which runs the queries.
+	 * @param pageSize          The maximum number of items read by one query.
+	 */
+	public ItemReactiveRepository(ConnectionFactory connectionFactory, Scheduler scheduler, int pageSize) {
+		mConnectionFactory = connectionFactory;
+		mScheduler = scheduler;
+		mPageSize = pageSize;
+	}
+
+	/**
+	 * Find the summaries of all the Items ordered by id.
+	 * 
+	 * @return The summaries of all the items, read page by page on demand.
+	 */
+	public Flux<ItemSummary> findAllSummaries() {
+		return findSummaries(null, null);
+	}
+
+	/**
+	 * Find the summaries of all the Items with a given name and/or a given state
+	 * ordered by id.
+	 * 
+	 * @param name  Name of the items, can be null for any name.
+	 * @param state State of the items, can be null for any state.
+	 * @return The summaries of the matching items, read page by page on demand.
+	 */
+	public Flux<ItemSummary> findSummaries(String name, ItemState state) {
+		StringBuilder sql = new StringBuilder(SELECT_SUMMARY).append(" WHERE i.Id > $1");
+		List<Object> parameters = new ArrayList<>();
+		parameters.add(null);
+		if (name != null) {
+			parameters.add(name);
+			sql.append(" AND i.Name = $").append(parameters.size());
+		}
+		if (state != null) {
+			parameters.add(state.name());
+			sql.append(" AND i.State = $").append(parameters.size());
+		}
+		sql.append(" ORDER BY i.Id LIMIT ").append(mPageSize);
+		return Flux.defer(() -> {
+			AtomicLong after = new AtomicLong();
+			AtomicBoolean last_page = new AtomicBoolean();
+			// Every page is read by its own query once the previous page is consumed.
+			return Mono.defer(() -> {
+				Object[] page_parameters = parameters.toArray();
+				page_parameters[0] = after.get();
+				return select(sql.toString(), ItemReactiveRepository::toSummary, page_parameters).collectList();
+			}).repeat(() -> !last_page.get()).takeWhile(page -> !page.isEmpty()).doOnNext(page -> {
+				after.set(page.get(page.size() - 1).getId());
+				last_page.set(page.size() < mPageSize);
+			}).concatMapIterable(page -> page);
+		});
+	}
+
+	/**
+	 * Find the Item with the given id together with its descriptions in one
+	 * query.
+	 * 
+	 * @param id Id of the item object.
+	 * @return The found Item object, or empty if there is no such item.
+	 */
+	public Mono<Item> findWithDescriptionsById(Long id) {
+		return select(SELECT_ITEM, ItemReactiveRepository::toValues, id).collectList().flatMap(rows -> {
+			if (rows.isEmpty())
+				return Mono.empty();
+			Object[] first = rows.get(0);
+			Item item = new Item((String) first[2], toState((String) first[3]));
+			item.setId((Long) first[0]);
+			item.setVersion((Long) first[1]);
+			for (Object[] row : rows) {
+				// An item without descriptions is joined with a row of nulls.
+				if (row[4] == null)
+					continue;
+				Description description = new Description((String) row[6]);
+				description.setId((Long) row[4]);
+				description.setVersion((Long) row[5]);
+				item.addDescription(description);
+			}
+			return Mono.just(item);
+		});
+	}
+
+	private <T> Flux<T> select(String sql, BiFunction<Row, RowMetadata, T> mapper, Object... parameters) {
+		return Flux.usingWhen(mConnectionFactory.create(), connection -> {
+			Statement statement = connection.createStatement(sql);
+			for (int i = 0; i < parameters.length; i++)
+				statement.bind(i, parameters[i]);
+			return Flux.from(statement.execute()).flatMap(result -> result.map(mapper));
+		}, Connection::close).subscribeOn(mScheduler);
+	}
+
+	private static ItemSummary toSummary(Row row, RowMetadata metadata) {
+		return new ItemSummary(row.get(0, Long.class), row.get(1, Long.class), row.get(2, String.class),
+				toState(row.get(3, String.class)), row.get(4, Long.class));
+	}
+
+	// A row is only valid while it is mapped, so its values are copied.
+	private static Object[] toValues(Row row, RowMetadata metadata) {
+		return new Object[] { row.get(0, Long.class), row.get(1, Long.class), row.get(2, String.class),
+				row.get(3, String.class), row.get(4, Long.class), row.get(5, Long.class), row.get(6, String.class) };
+	}
+
+	private static ItemState toState(String state) {
+		return state == null ? null : ItemState.valueOf(state);
+	}
+}
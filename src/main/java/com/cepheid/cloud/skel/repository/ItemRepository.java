@@ -1,12 +1,24 @@
 package com.cepheid.cloud.skel.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.lang.Nullable;
 
 import com.cepheid.cloud.skel.model.Item;
 import com.cepheid.cloud.skel.model.ItemState;
+import com.cepheid.cloud.skel.model.ItemSummary;
 
 /***
  * This is a ItemRepository class which extends from JpaRepository, and provides
@@ -15,20 +27,157 @@ import com.cepheid.cloud.skel.model.ItemState;
  * @author Wei Wang
  * @version 1.0
  */
-public interface ItemRepository extends JpaRepository<Item, Long> {
+public interface ItemRepository
+		extends JpaRepository<Item, Long>, JpaSpecificationExecutor<Item>, ItemSummaryRepository {
+	/**
+	 * The number of rows the JDBC driver fetches per round trip when streaming
+	 * the item table.
+	 */
+	String STREAM_FETCH_SIZE = "500";
+
+	/**
+	 * The select of the item summaries, the descriptions of an item are counted by
+	 * the index of their item id without being loaded.
+	 */
+	String SELECT_SUMMARY = "select new com.cepheid.cloud.skel.model.ItemSummary(i.mId, i.mVersion, i.mName, i.mState,"
+			+ " (select count(d.mId) from Description d where d.item = i)) from Item i";
+
 	/**
-	 * Find all the Items with a given name.
+	 * Find all the Items with a given name, the descriptions of the items are
+	 * fetched in the same query, and the result is kept in the query cache.
 	 * 
 	 * @param mName Name of the item object to search.
 	 * @return A collection of Item objects which has the given search name.
 	 */
-	Optional<List<Item>> findAllBymName(String mName);
+	@QueryHints(value = { @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_PASS_DISTINCT_THROUGH, value = "false"),
+			@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true") })
+	@Query("select distinct i from Item i left join fetch i.mDescriptions where i.mName = :name")
+	Optional<List<Item>> findAllBymName(@Param("name") String mName);
 	
 	/**
-	 * Find all the Items with the given ItemState.
+	 * Find all the Items with the given ItemState, the descriptions of the items
+	 * are fetched in the same query, and the result is kept in the query cache.
 	 * 
 	 * @param mState State of the item object to search.
 	 * @return A collection of Item objects which has the given item state.
 	 */
-	Optional<List<Item>> findAllBymState(ItemState mState);
-}
+	@QueryHints(value = { @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_PASS_DISTINCT_THROUGH, value = "false"),
+			@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true") })
+	@Query("select distinct i from Item i left join fetch i.mDescriptions where i.mState = :state")
+	Optional<List<Item>> findAllBymState(@Param("state") ItemState mState);
+
+	/**
+	 * Find all the Items with the given name and the given ItemState, the
+	 * descriptions of the items are fetched in the same query, and the result is
+	 * kept in the query cache.
+	 * 
+	 * @param mName  Name of the item object to search.
+	 * @param mState State of the item object to search.
+	 * @return A collection of Item objects which has both the given name and the
+	 *         given item state.
+	 */
+	@QueryHints(value = { @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_PASS_DISTINCT_THROUGH, value = "false"),
+			@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true") })
+	@Query("select distinct i from Item i left join fetch i.mDescriptions where i.mName = :name and i.mState = :state")
+	Optional<List<Item>> findAllBymNameAndmState(@Param("name") String mName, @Param("state") ItemState mState);
+
+	/**
+	 * Find all the Items which match the given specification, e.g. of an
+	 * ItemFilter. The distinct of ItemSpecifications.withDescriptions only removes
+	 * the items which are repeated by the fetch join of their descriptions, so it
+	 * is not passed to the SQL.
+	 * 
+	 * @param spec The specification of the items, can be null to find all.
+	 * @return A list of the Item objects which match the specification.
+	 */
+	@Override
+	@QueryHints(value = @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_PASS_DISTINCT_THROUGH, value = "false"))
+	List<Item> findAll(@Nullable Specification<Item> spec);
+
+	/**
+	 * Find all the Items together with their descriptions in one query.
+	 * 
+	 * @return A list of all the Item objects in the database.
+	 */
+	@QueryHints(value = @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_PASS_DISTINCT_THROUGH, value = "false"))
+	@Query("select distinct i from Item i left join fetch i.mDescriptions")
+	List<Item> findAllWithDescriptions();
+
+	/**
+	 * Find the Items with the given ids together with their descriptions in one
+	 * query, this is the batch-fetch path for a known set of items.
+	 * 
+	 * @param ids Ids of the item objects to fetch.
+	 * @return A list of the found Item objects ordered by id.
+	 */
+	@QueryHints(value = @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_PASS_DISTINCT_THROUGH, value = "false"))
+	@Query("select distinct i from Item i left join fetch i.mDescriptions where i.mId in :ids order by i.mId")
+	List<Item> findAllWithDescriptionsBymIdIn(@Param("ids") Collection<Long> ids);
+
+	/**
+	 * Find the Item with the given id together with its descriptions in one
+	 * query.
+	 * 
+	 * @param mId Id of the item object.
+	 * @return The found Item object, or empty if there is no such item.
+	 */
+	@Query("select i from Item i left join fetch i.mDescriptions where i.mId = :id")
+	Optional<Item> findWithDescriptionsBymId(@Param("id") Long mId);
+
+	/**
+	 * Find a page of Item summaries whose ids are greater than the given id, with
+	 * the same keyset (seek) pagination as findIdsAfter. The summaries are
+	 * selected without the descriptions, so the page limit is applied by the
+	 * database and the page is a single query.
+	 * 
+	 * @param after    The id of the last item of the previous page.
+	 * @param pageable The page size, the offset of it shall always be 0.
+	 * @return A list of Item summaries which comes after the given id in ascending
+	 *         order.
+	 */
+	@Query(SELECT_SUMMARY + " where i.mId > :after order by i.mId")
+	List<ItemSummary> findSummariesAfter(@Param("after") Long after, Pageable pageable);
+
+	/**
+	 * Find a page of Item ids which are greater than the given id, this is the
+	 * keyset (seek) pagination on the primary key, so the database never has to
+	 * skip over the rows of the previous pages. Only the ids are selected, since a
+	 * page limit can not be applied to a query which joins the descriptions.
+	 * 
+	 * @param after    The id of the last item of the previous page.
+	 * @param pageable The page size, the offset of it shall always be 0.
+	 * @return A list of Item ids which comes after the given id in ascending order.
+	 */
+	@Query("select i.mId from Item i where i.mId > :after order by i.mId")
+	List<Long> findIdsAfter(@Param("after") Long after, Pageable pageable);
+
+	/**
+	 * Find the version of the Item with the given id, without loading the item.
+	 * 
+	 * @param mId Id of the item object.
+	 * @return The current version of the item, or empty if there is no such item.
+	 */
+	@Query("select i.mVersion from Item i where i.mId = :id")
+	Optional<Long> findVersionBymId(@Param("id") Long mId);
+
+	/**
+	 * Stream all the Items together with their descriptions ordered by id from a
+	 * database cursor, the stream must be consumed inside a transaction and closed
+	 * afterwards.
+	 * 
+	 * @return A stream of all the Item objects in the database.
+	 */
+	@QueryHints(value = @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+	@Query("select i from Item i left join fetch i.mDescriptions order by i.mId")
+	Stream<Item> streamAll();
+
+	/**
+	 * Stream the summaries of all the Items ordered by id from a database cursor,
+	 * the stream must be consumed inside a transaction and closed afterwards.
+	 * 
+	 * @return A stream of the summaries of all the Item objects in the database.
+	 */
+	@QueryHints(value = @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+	@Query(SELECT_SUMMARY + " order by i.mId")
+	Stream<ItemSummary> streamAllSummaries();
+}
\ No newline at end of file
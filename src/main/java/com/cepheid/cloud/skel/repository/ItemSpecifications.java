@@ -0,0 +1,111 @@
+package com.cepheid.cloud.skel.repository;
+
+import java.util.Locale;
+
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.cepheid.cloud.skel.model.Description;
+import com.cepheid.cloud.skel.model.Item;
+import com.cepheid.cloud.skel.model.ItemState;
+
+/***
+ * This is a ItemSpecifications class which provides the building blocks of the
+ * dynamic item queries. Every specification returns null when its value is
+ * null, so the specifications of the given filters can be combined with
+ * Specification.where(...).and(...) into one query without any null checks.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+public final class ItemSpecifications {
+
+	private static final char LIKE_ESCAPE = '\\';
+
+	private ItemSpecifications() {
+	}
+
+	/**
+	 * Match the items with the given name.
+	 * 
+	 * @param name Name of the items, can be null.
+	 * @return The specification, or null if the name is null.
+	 */
+	public static Specification<Item> hasName(String name) {
+		if (name == null)
+			return null;
+		return (root, query, builder) -> builder.equal(root.get("mName"), name);
+	}
+
+	/**
+	 * Match the items with the given state.
+	 * 
+	 * @param state State of the items, can be null.
+	 * @return The specification, or null if the state is null.
+	 */
+	public static Specification<Item> hasState(ItemState state) {
+		if (state == null)
+			return null;
+		return (root, query, builder) -> builder.equal(root.get("mState"), state);
+	}
+
+	/**
+	 * Match the items whose name contains the given text, ignoring case.
+	 * 
+	 * @param text Text to search in the item names, can be null.
+	 * @return The specification, or null if the text is null.
+	 */
+	public static Specification<Item> nameContains(String text) {
+		if (text == null)
+			return null;
+		return (root, query, builder) -> builder.like(builder.lower(root.get("mName")), containsPattern(text),
+				LIKE_ESCAPE);
+	}
+
+	/**
+	 * Match the items which have at least one description containing the given
+	 * text, ignoring case. The descriptions are matched in a subquery, so the
+	 * items are not multiplied by their descriptions.
+	 * 
+	 * @param text Text to search in the description contents, can be null.
+	 * @return The specification, or null if the text is null.
+	 */
+	public static Specification<Item> hasDescriptionContaining(String text) {
+		if (text == null)
+			return null;
+		return (root, query, builder) -> {
+			Subquery<Long> descriptions = query.subquery(Long.class);
+			Root<Description> description = descriptions.from(Description.class);
+			descriptions.select(description.get("mId")).where(builder.equal(description.get("item"), root),
+					builder.like(builder.lower(description.get("mContent")), containsPattern(text), LIKE_ESCAPE));
+			return builder.exists(descriptions);
+		};
+	}
+
+	/**
+	 * Fetch the descriptions of the matched items in the same query, the items
+	 * are made distinct again in memory, ItemRepository.findAll(Specification)
+	 * keeps the distinct out of the SQL.
+	 * 
+	 * @return The specification which adds the fetch join.
+	 */
+	public static Specification<Item> withDescriptions() {
+		return (root, query, builder) -> {
+			// A count query can not fetch the descriptions.
+			if (!Long.class.equals(query.getResultType())) {
+				root.fetch("mDescriptions", JoinType.LEFT);
+				query.distinct(true);
+			}
+			return null;
+		};
+	}
+
+	// Build a lower case LIKE pattern which matches the given text anywhere.
+	private static String containsPattern(String text) {
+		String escaped = text.toLowerCase(Locale.ROOT).replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+		return "%" + escaped + "%";
+	}
+}
@@ -0,0 +1,29 @@
+package com.cepheid.cloud.skel.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.cepheid.cloud.skel.model.Item;
+import com.cepheid.cloud.skel.model.ItemSummary;
+
+/***
+ * This is a ItemSummaryRepository interface which is a fragment of the
+ * ItemRepository, it selects the item summaries of a dynamic item query, which
+ * JpaSpecificationExecutor can only select as item entities.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+public interface ItemSummaryRepository {
+
+	/**
+	 * Find the summaries of all the Items which match the given specification
+	 * ordered by id, they are selected in one query without loading the items.
+	 * 
+	 * @param specification The specification the items have to match, it must not
+	 *                      fetch the descriptions.
+	 * @return A list of the summaries of the matching items.
+	 */
+	List<ItemSummary> findSummaries(Specification<Item> specification);
+}
@@ -0,0 +1,47 @@
+package com.cepheid.cloud.skel.repository;
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Root;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.cepheid.cloud.skel.model.Description;
+import com.cepheid.cloud.skel.model.Item;
+import com.cepheid.cloud.skel.model.ItemSummary;
+
+/***
+ * This is a ItemSummaryRepositoryImpl class which implements the
+ * ItemSummaryRepository fragment with a criteria query, it selects the same
+ * summaries as ItemRepository.SELECT_SUMMARY. A criteria query can not select a
+ * subquery, so the descriptions are counted with a join grouped by the item.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+public class ItemSummaryRepositoryImpl implements ItemSummaryRepository {
+
+	@PersistenceContext
+	private EntityManager mEntityManager;
+
+	@Override
+	public List<ItemSummary> findSummaries(Specification<Item> specification) {
+		CriteriaBuilder builder = mEntityManager.getCriteriaBuilder();
+		CriteriaQuery<ItemSummary> query = builder.createQuery(ItemSummary.class);
+		Root<Item> item = query.from(Item.class);
+		Join<Item, Description> description = item.join("mDescriptions", JoinType.LEFT);
+		query.select(builder.construct(ItemSummary.class, item.get("mId"), item.get("mVersion"), item.get("mName"),
+				item.get("mState"), builder.count(description.get("mId"))));
+		if (specification != null)
+			query.where(specification.toPredicate(item, query, builder));
+		query.groupBy(item.get("mId"), item.get("mVersion"), item.get("mName"), item.get("mState"));
+		query.orderBy(builder.asc(item.get("mId")));
+		return mEntityManager.createQuery(query).getResultList();
+	}
+}
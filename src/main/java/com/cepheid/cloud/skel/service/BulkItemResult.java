@@ -0,0 +1,133 @@
+package com.cepheid.cloud.skel.service;
+
+/***
+ * This is a BulkItemResult class which holds the outcome of one element of a
+ * bulk item operation, the elements are identified by their position in the
+ * request.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+public class BulkItemResult {
+
+	private int mIndex;
+
+	private Long mId;
+
+	private Long mVersion;
+
+	private BulkItemStatus mStatus;
+
+	private String mMessage;
+
+	/**
+	 * Default constructor for BulkItemResult.
+	 */
+	public BulkItemResult() {
+	}
+
+	/**
+	 * Constructor for class BulkItemResult with the position of the element.
+	 * 
+	 * @param index The position of the element in the request, starting at 0.
+	 */
+	public BulkItemResult(int index) {
+		mIndex = index;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The position of the element in the request, starting at 0.
+	 */
+	public int getIndex() {
+		return mIndex;
+	}
+
+	/**
+	 * Setter
+	 * 
+	 * @param index The position of the element in the request.
+	 */
+	public void setIndex(int index) {
+		mIndex = index;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The id of the item, or null if the item has no id.
+	 */
+	public Long getId() {
+		return mId;
+	}
+
+	/**
+	 * Setter
+	 * 
+	 * @param id The id of the item.
+	 */
+	public void setId(Long id) {
+		mId = id;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The version of the saved item, or null if the item is not saved.
+	 */
+	public Long getVersion() {
+		return mVersion;
+	}
+
+	/**
+	 * Setter
+	 * 
+	 * @param version The version of the saved item.
+	 */
+	public void setVersion(Long version) {
+		mVersion = version;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The outcome of the element.
+	 */
+	public BulkItemStatus getStatus() {
+		return mStatus;
+	}
+
+	/**
+	 * Setter
+	 * 
+	 * @param status The outcome of the element.
+	 */
+	public void setStatus(BulkItemStatus status) {
+		mStatus = status;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The reason why the element is not saved, or null if it is saved.
+	 */
+	public String getMessage() {
+		return mMessage;
+	}
+
+	/**
+	 * Setter
+	 * 
+	 * @param message The reason why the element is not saved.
+	 */
+	public void setMessage(String message) {
+		mMessage = message;
+	}
+
+	@Override
+	public String toString() {
+		return "Index : " + mIndex + ", Id : " + mId + ", Version : " + mVersion + ", Status : " + mStatus
+				+ (mMessage == null ? "" : ", Message : " + mMessage);
+	}
+}
@@ -0,0 +1,12 @@
+package com.cepheid.cloud.skel.service;
+
+/***
+ * This is a enum type which represents the outcome of one element of a bulk
+ * item operation.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+public enum BulkItemStatus {
+	CREATED, UPDATED, DELETED, NOT_FOUND, CONFLICT, INVALID, FAILED
+}
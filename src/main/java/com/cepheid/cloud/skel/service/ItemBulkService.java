@@ -0,0 +1,331 @@
+package com.cepheid.cloud.skel.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.cepheid.cloud.skel.model.Item;
+import com.cepheid.cloud.skel.repository.ItemRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/***
+ * This is a ItemBulkService class which adds, updates and deletes a large
+ * number of items at once. The items are read one by one and saved in chunks,
+ * every chunk in its own transaction, so Hibernate can send the statements of a
+ * chunk as JDBC batches. The existing items of a chunk are loaded with one
+ * query before the chunk is saved. If a chunk fails, its items are saved again
+ * one by one, so only the failing items are reported as failed. An import
+ * saves the items the same way, but keeps only the counts of the results, so it
+ * can read any number of items.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+@Component
+public class ItemBulkService {
+
+	private final ItemService mItemService;
+
+	private final ItemRepository mItemRepository;
+
+	private final ObjectMapper mObjectMapper;
+
+	private final TransactionTemplate mTransactionTemplate;
+
+	private final int mChunkSize;
+
+	private final Map<String, ItemImport> mRunningImports = new ConcurrentHashMap<>();
+
+	@PersistenceContext
+	private EntityManager mEntityManager;
+
+	/**
+	 * Constructor for class ItemBulkService with provided services.
+	 * 
+	 * @param itemService        ItemService which saves every single item.
+	 * @param itemRepository     ItemRepository which loads the existing items of a
+	 *                           chunk.
+	 * @param objectMapper       ObjectMapper which reads the items.
+	 * @param transactionManager The transaction manager of the chunk transactions.
+	 * @param chunkSize          The number of items saved in one transaction.
+	 */
+	@Autowired
+	public ItemBulkService(ItemService itemService, ItemRepository itemRepository, ObjectMapper objectMapper,
+			PlatformTransactionManager transactionManager, @Value("${skel.bulk.chunk-size:500}") int chunkSize) {
+		mItemService = itemService;
+		mItemRepository = itemRepository;
+		mObjectMapper = objectMapper;
+		mTransactionTemplate = new TransactionTemplate(transactionManager);
+		mChunkSize = chunkSize;
+	}
+
+	/**
+	 * Add all the given items to the database, an item with the id of an existing
+	 * item replaces the existing item instead, like ItemService.AddItem.
+	 * 
+	 * @param items The json of the items which are going to be added.
+	 * @return The result of every item in the order of the given items.
+	 */
+	public List<BulkItemResult> AddItems(Iterator<JsonNode> items) {
+		return collect(items, this::addItem);
+	}
+
+	/**
+	 * Update all the given existing items in the database. An item which has a
+	 * version is only updated if the existing item still has the same version.
+	 * 
+	 * @param items The json of the items which are going to be updated.
+	 * @return The result of every item in the order of the given items.
+	 */
+	public List<BulkItemResult> UpdateItems(Iterator<JsonNode> items) {
+		return collect(items, this::updateItem);
+	}
+
+	/**
+	 * Delete all the given existing items from the database, only the id and the
+	 * version of the given items are used. An item which has a version is only
+	 * deleted if the existing item still has the same version.
+	 * 
+	 * @param items The json of the items which are going to be deleted.
+	 * @return The result of every item in the order of the given items.
+	 */
+	public List<BulkItemResult> DeleteItems(Iterator<JsonNode> items) {
+		return collect(items, this::deleteItem);
+	}
+
+	/**
+	 * Import all the given items into the database, like AddItems, but the
+	 * versions of the items are ignored, an imported item replaces the existing
+	 * item with its id whatever its version. Only the counts of the results and
+	 * the first errors are kept, the progress of the import is found by
+	 * FindRunningImports while it runs.
+	 * 
+	 * @param items  The json of the items which are going to be imported.
+	 * @param format The format the items are read from, ndjson or csv.
+	 * @return The finished import.
+	 */
+	public ItemImport ImportItems(Iterator<JsonNode> items, String format) {
+		ItemImport item_import = new ItemImport(format);
+		mRunningImports.put(item_import.getId(), item_import);
+		try {
+			process(items, this::importItem, item_import::add);
+		} finally {
+			item_import.finish();
+			mRunningImports.remove(item_import.getId());
+		}
+		return item_import;
+	}
+
+	/**
+	 * Find the imports which are running.
+	 * 
+	 * @return The progress of the running imports.
+	 */
+	public Collection<ItemImport> FindRunningImports() {
+		return new ArrayList<>(mRunningImports.values());
+	}
+
+	/**
+	 * Save one item of a chunk. The operation sets the status of the result, and
+	 * returns the saved item, or null if nothing is saved.
+	 */
+	@FunctionalInterface
+	private interface BulkOperation {
+		Item apply(Item item, Map<Long, Item> existingItems, BulkItemResult result);
+	}
+
+	private List<BulkItemResult> collect(Iterator<JsonNode> items, BulkOperation operation) {
+		List<BulkItemResult> results = new ArrayList<>();
+		process(items, operation, results::add);
+		return results;
+	}
+
+	/**
+	 * Save the given items chunk by chunk, the results of a chunk are handed to
+	 * the consumer once the chunk is saved, so only one chunk is held at a time.
+	 */
+	private void process(Iterator<JsonNode> items, BulkOperation operation, Consumer<BulkItemResult> results) {
+		List<JsonNode> chunk = new ArrayList<>(mChunkSize);
+		int count = 0;
+		while (true) {
+			String read_error = readChunk(items, chunk);
+			List<BulkItemResult> chunk_results = processChunk(chunk, count, operation);
+			chunk_results.forEach(results);
+			count += chunk_results.size();
+			// The items after an unreadable item can not be found anymore.
+			if (read_error != null) {
+				BulkItemResult result = new BulkItemResult(count);
+				result.setStatus(BulkItemStatus.INVALID);
+				result.setMessage(read_error);
+				results.accept(result);
+				break;
+			}
+			if (chunk.size() < mChunkSize)
+				break;
+			chunk.clear();
+		}
+	}
+
+	private String readChunk(Iterator<JsonNode> items, List<JsonNode> chunk) {
+		try {
+			while (chunk.size() < mChunkSize && items.hasNext())
+				chunk.add(items.next());
+			return null;
+		} catch (RuntimeException e) {
+			return "Item could not be read: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+		}
+	}
+
+	private List<BulkItemResult> processChunk(List<JsonNode> chunk, int firstIndex, BulkOperation operation) {
+		if (chunk.isEmpty())
+			return Collections.emptyList();
+		try {
+			return saveChunk(chunk, firstIndex, operation);
+		} catch (RuntimeException e) {
+			// The whole chunk is rolled back, save every item on its own to find the
+			// failing ones.
+			List<BulkItemResult> results = new ArrayList<>(chunk.size());
+			for (int i = 0; i < chunk.size(); i++) {
+				try {
+					results.addAll(saveChunk(chunk.subList(i, i + 1), firstIndex + i, operation));
+				} catch (RuntimeException item_error) {
+					BulkItemResult result = new BulkItemResult(firstIndex + i);
+					result.setId(readId(chunk.get(i)));
+					result.setStatus(BulkItemStatus.FAILED);
+					result.setMessage(NestedExceptionUtils.getMostSpecificCause(item_error).getMessage());
+					results.add(result);
+				}
+			}
+			return results;
+		}
+	}
+
+	private List<BulkItemResult> saveChunk(List<JsonNode> chunk, int firstIndex, BulkOperation operation) {
+		return mTransactionTemplate.execute(status -> {
+			// Load the existing items of the chunk with one query, the single item
+			// operations of the ItemService find them in the persistence context then.
+			List<Long> ids = chunk.stream().map(this::readId).filter(id -> id != null).collect(Collectors.toList());
+			Map<Long, Item> existing_items = ids.isEmpty() ? Collections.emptyMap()
+					: mItemRepository.findAllWithDescriptionsBymIdIn(ids).stream()
+							.collect(Collectors.toMap(Item::getId, Function.identity()));
+
+			List<BulkItemResult> results = new ArrayList<>(chunk.size());
+			List<Item> saved_items = new ArrayList<>(chunk.size());
+			for (int i = 0; i < chunk.size(); i++) {
+				BulkItemResult result = new BulkItemResult(firstIndex + i);
+				Item item = readItem(chunk.get(i), result);
+				saved_items.add(item == null ? null : operation.apply(item, existing_items, result));
+				results.add(result);
+			}
+			// Send the batched statements now, so the results get the new versions.
+			mEntityManager.flush();
+			for (int i = 0; i < results.size(); i++) {
+				Item saved_item = saved_items.get(i);
+				if (saved_item != null) {
+					results.get(i).setId(saved_item.getId());
+					results.get(i).setVersion(saved_item.getVersion());
+				}
+			}
+			return results;
+		});
+	}
+
+	private Item addItem(Item item, Map<Long, Item> existingItems, BulkItemResult result) {
+		if (item.getId() != null && existingItems.containsKey(item.getId())) {
+			result.setStatus(BulkItemStatus.UPDATED);
+		} else {
+			// An unknown id is replaced by a generated one, like in ItemService.AddItem.
+			item.setId(null);
+			result.setStatus(BulkItemStatus.CREATED);
+		}
+		return mItemService.AddItem(item);
+	}
+
+	private Item importItem(Item item, Map<Long, Item> existingItems, BulkItemResult result) {
+		item.setVersion(null);
+		return addItem(item, existingItems, result);
+	}
+
+	private Item updateItem(Item item, Map<Long, Item> existingItems, BulkItemResult result) {
+		if (!checkExisting(item, existingItems, result))
+			return null;
+		result.setStatus(BulkItemStatus.UPDATED);
+		return mItemService.UpdateItem(item);
+	}
+
+	private Item deleteItem(Item item, Map<Long, Item> existingItems, BulkItemResult result) {
+		if (!checkExisting(item, existingItems, result))
+			return null;
+		mItemService.DeleteItem(item.getId());
+		result.setStatus(BulkItemStatus.DELETED);
+		return null;
+	}
+
+	/**
+	 * Check that the given item exists and still has the version of the given
+	 * item. It is checked before the ItemService is called, since an exception
+	 * thrown by the ItemService would roll back the whole chunk.
+	 */
+	private boolean checkExisting(Item item, Map<Long, Item> existingItems, BulkItemResult result) {
+		if (item.getId() == null) {
+			result.setStatus(BulkItemStatus.INVALID);
+			result.setMessage("Item has no id");
+			return false;
+		}
+		Item existing_item = existingItems.get(item.getId());
+		if (existing_item == null) {
+			result.setStatus(BulkItemStatus.NOT_FOUND);
+			result.setMessage("Item was not found with id: " + item.getId());
+			return false;
+		}
+		if (item.getVersion() != null && !item.getVersion().equals(existing_item.getVersion())) {
+			result.setStatus(BulkItemStatus.CONFLICT);
+			result.setMessage("Item with id: " + item.getId() + " has been changed, its current version is: "
+					+ existing_item.getVersion());
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Map the json of an item to a new Item object. The json is mapped again for
+	 * every attempt to save it, so a failed attempt leaves nothing behind.
+	 */
+	private Item readItem(JsonNode node, BulkItemResult result) {
+		result.setId(readId(node));
+		try {
+			Item item = mObjectMapper.treeToValue(node, Item.class);
+			if (item != null)
+				return item;
+			result.setMessage("Item is empty");
+		} catch (JsonProcessingException e) {
+			result.setMessage("Item could not be read: " + e.getOriginalMessage());
+		}
+		result.setStatus(BulkItemStatus.INVALID);
+		return null;
+	}
+
+	private Long readId(JsonNode node) {
+		JsonNode id = node == null ? null : node.get("id");
+		return id != null && id.canConvertToLong() ? id.asLong() : null;
+	}
+}
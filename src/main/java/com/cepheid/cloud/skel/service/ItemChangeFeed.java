@@ -0,0 +1,264 @@
+package com.cepheid.cloud.skel.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.cepheid.cloud.skel.event.ItemChange;
+import com.cepheid.cloud.skel.event.ItemChangeType;
+import com.cepheid.cloud.skel.event.ItemChangedEvent;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+/***
+ * This is a ItemChangeFeed class which keeps the last committed changes of the
+ * items in a ring buffer of a fixed capacity, numbered by a sequence, so a
+ * client can follow the changes from a given sequence instead of reading all
+ * the items again. A committed change only takes its slot in the ring, the
+ * subscribers are served by a single notifier thread, and a subscriber is only
+ * handed as many changes as it has requested, so a slow subscriber never holds
+ * up a write. The changes which are waiting for a subscriber are coalesced,
+ * one change per item, and a subscriber which falls behind by more than the
+ * capacity, or asks for an unknown sequence, gets a reset instead of the
+ * changes it has missed. The sequence starts from the time of the start in
+ * microseconds, so the sequence of an earlier run is not taken for a sequence
+ * of this one. The writers only hold the lock of the feed to take the next
+ * slot, the changes are read without it, a change is published by the
+ * volatile last sequence, and a slot which is overwritten while it is read is
+ * told by the sequence of its change.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+@Component
+public class ItemChangeFeed implements MeterBinder {
+
+	// The maximum number of changes handed to a subscriber at a time.
+	private static final int MAX_DRAIN_SIZE = 256;
+
+	private final ItemChange[] mRing;
+
+	private final long mFirstSequence;
+
+	private volatile long mLastSequence;
+
+	private final Set<Subscription> mSubscriptions = ConcurrentHashMap.newKeySet();
+
+	private final ExecutorService mNotifier;
+
+	private final AtomicBoolean mNotifyScheduled = new AtomicBoolean();
+
+	private final AtomicLong mCoalesced = new AtomicLong();
+
+	private final AtomicLong mResets = new AtomicLong();
+
+	/**
+	 * Constructor for class ItemChangeFeed with a given capacity.
+	 * 
+	 * @param capacity The number of the last changes which are kept.
+	 */
+	@Autowired
+	public ItemChangeFeed(@Value("${skel.changes.capacity:4096}") int capacity) {
+		mRing = new ItemChange[capacity];
+		mFirstSequence = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+		mLastSequence = mFirstSequence;
+		mNotifier = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "item-change-feed");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Add a change of an item to the feed once the change is committed, when
+	 * the change is made without a transaction, it is added right away.
+	 * 
+	 * @param event The change of the item.
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onItemChanged(ItemChangedEvent event) {
+		synchronized (this) {
+			long sequence = mLastSequence + 1;
+			mRing[index(sequence)] = new ItemChange(sequence, event.getItemId(), event.getType(),
+					System.currentTimeMillis());
+			// The change is visible to every reader of the new sequence.
+			mLastSequence = sequence;
+		}
+		if (mNotifyScheduled.compareAndSet(false, true))
+			mNotifier.execute(this::notifySubscriptions);
+	}
+
+	/**
+	 * Get the sequence of the last change in the feed.
+	 * 
+	 * @return The sequence of the last change.
+	 */
+	public long CurrentSequence() {
+		return mLastSequence;
+	}
+
+	/**
+	 * Follow the changes which come after a given sequence. The changes are
+	 * published in the order of their sequence as they are requested, a
+	 * subscriber which falls behind gets the last change of every item it has
+	 * missed, or a reset if the changes are not kept any more.
+	 * 
+	 * @param after The sequence of the last change the subscriber knows, or null
+	 *              to follow the changes from the current sequence.
+	 * @return The changes after the sequence, it only completes when the feed is
+	 *         closed.
+	 */
+	public Flux<ItemChange> Subscribe(Long after) {
+		return Flux.create(sink -> {
+			Subscription subscription = new Subscription(sink, after == null ? CurrentSequence() : after);
+			mSubscriptions.add(subscription);
+			sink.onDispose(() -> mSubscriptions.remove(subscription));
+			sink.onRequest(requested -> subscription.drain());
+		});
+	}
+
+	/**
+	 * Complete the subscriptions and stop the notifier thread when the
+	 * application is closed.
+	 */
+	@PreDestroy
+	public void shutdown() {
+		mNotifier.shutdownNow();
+		mSubscriptions.forEach(subscription -> subscription.mSink.complete());
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("skel.changes.subscribers", mSubscriptions, Set::size)
+				.description("The number of subscribers of the item change feed").register(registry);
+		FunctionCounter.builder("skel.changes.coalesced", mCoalesced, AtomicLong::get)
+				.description("The number of item changes folded into a later change of the same item")
+				.register(registry);
+		FunctionCounter.builder("skel.changes.resets", mResets, AtomicLong::get)
+				.description("The number of resets sent to the subscribers of the item change feed")
+				.register(registry);
+	}
+
+	private void notifySubscriptions() {
+		// A change added from now on schedules another run.
+		mNotifyScheduled.set(false);
+		mSubscriptions.forEach(Subscription::drain);
+	}
+
+	/**
+	 * Read the changes after a given sequence, one change per item, the last
+	 * change of the item with the sequence of it, so a change which is left out
+	 * is always followed by one which is read. The changes are read without the
+	 * lock of the feed, up to the last sequence at the start of the read.
+	 * 
+	 * @param after The sequence of the last change the subscriber knows.
+	 * @param limit The maximum number of changes.
+	 * @return The changes ordered by sequence, or a reset if the changes after
+	 *         the sequence are not kept.
+	 */
+	private List<ItemChange> read(long after, int limit) {
+		long last_sequence = mLastSequence;
+		if (after > last_sequence || after < Math.max(mFirstSequence, last_sequence - mRing.length))
+			return reset(last_sequence);
+		Map<Long, ItemChange> last_changes = new LinkedHashMap<>();
+		Map<Long, ItemChange> first_changes = new HashMap<>();
+		for (long sequence = after + 1; sequence <= last_sequence; sequence++) {
+			ItemChange change = mRing[index(sequence)];
+			// The slot has been taken by a later change since the read started.
+			if (change.getSequence() != sequence)
+				return reset(mLastSequence);
+			// An item keeps the place of its last change.
+			last_changes.remove(change.getItemId());
+			last_changes.put(change.getItemId(), change);
+			first_changes.putIfAbsent(change.getItemId(), change);
+		}
+		List<ItemChange> changes = new ArrayList<>(Math.min(limit, last_changes.size()));
+		for (ItemChange change : last_changes.values()) {
+			if (changes.size() == limit)
+				break;
+			changes.add(coalesce(first_changes.get(change.getItemId()), change));
+		}
+		if (!changes.isEmpty())
+			mCoalesced.addAndGet(changes.get(changes.size() - 1).getSequence() - after - changes.size());
+		return changes;
+	}
+
+	private List<ItemChange> reset(long last_sequence) {
+		mResets.incrementAndGet();
+		return List.of(ItemChange.reset(last_sequence));
+	}
+
+	private int index(long sequence) {
+		return (int) Math.floorMod(sequence, (long) mRing.length);
+	}
+
+	// An item which is created among the coalesced changes is still new to the
+	// subscriber, unless it is deleted again.
+	private static ItemChange coalesce(ItemChange first, ItemChange last) {
+		if (first != last && first.getType() == ItemChangeType.ITEM_CREATED
+				&& last.getType() != ItemChangeType.ITEM_DELETED)
+			return new ItemChange(last.getSequence(), last.getItemId(), ItemChangeType.ITEM_CREATED,
+					last.getTimestamp());
+		return last;
+	}
+
+	/**
+	 * A subscriber of the feed with the sequence of the last change it got.
+	 */
+	private final class Subscription {
+
+		private final FluxSink<ItemChange> mSink;
+
+		private final AtomicInteger mDrains = new AtomicInteger();
+
+		private long mAfter;
+
+		private Subscription(FluxSink<ItemChange> sink, long after) {
+			mSink = sink;
+			mAfter = after;
+		}
+
+		// Hand the subscriber the changes it has requested, a drain which is asked
+		// for while another one runs is done by the running one.
+		private void drain() {
+			if (mDrains.getAndIncrement() != 0)
+				return;
+			int missed = 1;
+			do {
+				long requested;
+				while ((requested = mSink.requestedFromDownstream()) > 0 && !mSink.isCancelled()) {
+					List<ItemChange> changes = read(mAfter, (int) Math.min(requested, MAX_DRAIN_SIZE));
+					if (changes.isEmpty())
+						break;
+					for (ItemChange change : changes) {
+						mAfter = change.getSequence();
+						mSink.next(change);
+					}
+				}
+				missed = mDrains.addAndGet(-missed);
+			} while (missed != 0);
+		}
+	}
+}
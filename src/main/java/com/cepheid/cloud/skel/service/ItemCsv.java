@@ -0,0 +1,158 @@
+package com.cepheid.cloud.skel.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import com.cepheid.cloud.skel.model.Description;
+import com.cepheid.cloud.skel.model.Item;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+
+/***
+ * This is a ItemCsv class which writes the items as csv rows and reads them
+ * back, one row per item with the columns id, version, name, state and
+ * descriptions. The descriptions column holds the contents of the descriptions
+ * as a json array of strings, e.g. {@code ["first","second"]}, so a content can
+ * hold any character. The rows are written and read one by one, so a csv file
+ * of any size can be streamed.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+public class ItemCsv {
+
+	/**
+	 * The media type of csv.
+	 */
+	public static final String TEXT_CSV = "text/csv";
+
+	/**
+	 * The columns of the csv, the first row is the header with the column names.
+	 */
+	public static final CsvSchema SCHEMA = CsvSchema.builder().addColumn("id").addColumn("version").addColumn("name")
+			.addColumn("state").addColumn("descriptions").build().withHeader();
+
+	private final ObjectMapper mObjectMapper;
+
+	private final ObjectWriter mRowWriter;
+
+	private final ObjectReader mRowReader;
+
+	/**
+	 * Constructor for class ItemCsv with the ObjectMapper of the application.
+	 * 
+	 * @param objectMapper ObjectMapper which writes and reads the descriptions
+	 *                     column, and creates the json of the read items.
+	 */
+	public ItemCsv(ObjectMapper objectMapper) {
+		mObjectMapper = objectMapper;
+		CsvMapper csv_mapper = new CsvMapper();
+		mRowWriter = csv_mapper.writer(SCHEMA);
+		// The columns are read by the names in the header, so they can be in any
+		// order, and the version column can be left out.
+		mRowReader = csv_mapper.readerFor(ObjectNode.class).with(CsvSchema.emptySchema().withHeader());
+	}
+
+	/**
+	 * Open a writer of the rows on the given output, the header is written with
+	 * the first row.
+	 * 
+	 * @param output The output stream of the csv.
+	 * @return The writer of the rows, write every row with write(toRow(item)).
+	 * @throws IOException if the output can not be written.
+	 */
+	public SequenceWriter writer(OutputStream output) throws IOException {
+		return mRowWriter.writeValues(output);
+	}
+
+	/**
+	 * Create the csv row of an item.
+	 * 
+	 * @param item The item to write.
+	 * @return The values of the columns of the item.
+	 * @throws JsonProcessingException if the descriptions can not be written.
+	 */
+	public Object[] toRow(Item item) throws JsonProcessingException {
+		List<String> contents = new ArrayList<>(item.getDescriptions().size());
+		for (Description description : item.getDescriptions())
+			contents.add(description.getContent());
+		return new Object[] { item.getId(), item.getVersion(), item.getName(), item.getState(),
+				mObjectMapper.writeValueAsString(contents) };
+	}
+
+	/**
+	 * Read the items from csv, every row is read when the next item is asked for,
+	 * and turned into the json of an item, like the items of the bulk requests.
+	 * An empty column is taken as a missing value.
+	 * 
+	 * @param input The input stream of the csv, starting with the header.
+	 * @return The json of the items of the csv rows.
+	 * @throws IOException if the header can not be read.
+	 */
+	public Iterator<JsonNode> read(InputStream input) throws IOException {
+		MappingIterator<ObjectNode> rows = mRowReader.readValues(input);
+		return new Iterator<JsonNode>() {
+			@Override
+			public boolean hasNext() {
+				return rows.hasNext();
+			}
+
+			@Override
+			public JsonNode next() {
+				return toItem(rows.next());
+			}
+		};
+	}
+
+	private JsonNode toItem(ObjectNode row) {
+		ObjectNode item = mObjectMapper.createObjectNode();
+		String id = column(row, "id");
+		if (id != null) {
+			try {
+				item.put("id", Long.parseLong(id));
+			} catch (NumberFormatException e) {
+				// It is reported as an invalid item.
+				item.put("id", id);
+			}
+		}
+		item.put("name", column(row, "name"));
+		String state = column(row, "state");
+		if (state != null)
+			item.put("state", state);
+		String descriptions = column(row, "descriptions");
+		if (descriptions != null)
+			item.set("descriptions", toDescriptions(descriptions));
+		return item;
+	}
+
+	private JsonNode toDescriptions(String column) {
+		try {
+			List<String> contents = mObjectMapper.readValue(column,
+					mObjectMapper.getTypeFactory().constructCollectionType(List.class, String.class));
+			ArrayNode descriptions = mObjectMapper.createArrayNode();
+			contents.forEach(content -> descriptions.addObject().put("content", content));
+			return descriptions;
+		} catch (IOException e) {
+			// The item is reported as invalid, since the descriptions are not an array.
+			return mObjectMapper.getNodeFactory().textNode(column);
+		}
+	}
+
+	private String column(ObjectNode row, String name) {
+		JsonNode value = row.get(name);
+		return value == null || value.asText().isEmpty() ? null : value.asText();
+	}
+}
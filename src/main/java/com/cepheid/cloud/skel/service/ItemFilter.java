@@ -0,0 +1,128 @@
+package com.cepheid.cloud.skel.service;
+
+import static com.cepheid.cloud.skel.repository.ItemSpecifications.hasDescriptionContaining;
+import static com.cepheid.cloud.skel.repository.ItemSpecifications.hasName;
+import static com.cepheid.cloud.skel.repository.ItemSpecifications.hasState;
+import static com.cepheid.cloud.skel.repository.ItemSpecifications.nameContains;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.cepheid.cloud.skel.model.Item;
+import com.cepheid.cloud.skel.model.ItemState;
+
+/***
+ * This is a ItemFilter class which holds the attributes an item search can be
+ * filtered with. Every attribute is optional, the attributes which are set are
+ * combined with AND into one query. A new filter only needs a new attribute
+ * here, and a new specification in ItemSpecifications.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+public class ItemFilter {
+
+	private String mName;
+
+	private ItemState mState;
+
+	private String mNameContains;
+
+	private String mDescriptionContains;
+
+	/**
+	 * Getter
+	 * 
+	 * @return The exact name of the items to search for.
+	 */
+	public String getName() {
+		return mName;
+	}
+
+	/**
+	 * Setter
+	 * 
+	 * @param name The exact name of the items to search for, can be null.
+	 */
+	public void setName(String name) {
+		mName = name;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The state of the items to search for.
+	 */
+	public ItemState getState() {
+		return mState;
+	}
+
+	/**
+	 * Setter
+	 * 
+	 * @param state The state of the items to search for, can be null.
+	 */
+	public void setState(ItemState state) {
+		mState = state;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The text the names of the items contain.
+	 */
+	public String getNameContains() {
+		return mNameContains;
+	}
+
+	/**
+	 * Setter
+	 * 
+	 * @param text The text the names of the items contain, can be null.
+	 */
+	public void setNameContains(String text) {
+		mNameContains = text;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The text one of the descriptions of the items contains.
+	 */
+	public String getDescriptionContains() {
+		return mDescriptionContains;
+	}
+
+	/**
+	 * Setter
+	 * 
+	 * @param text The text one of the descriptions of the items contains, can be
+	 *             null.
+	 */
+	public void setDescriptionContains(String text) {
+		mDescriptionContains = text;
+	}
+
+	/**
+	 * @return true if no attribute of the filter is set.
+	 */
+	public boolean isEmpty() {
+		return mName == null && mState == null && mNameContains == null && mDescriptionContains == null;
+	}
+
+	/**
+	 * @return true if no other attribute than the name and the state is set.
+	 */
+	public boolean isNameAndStateOnly() {
+		return mNameContains == null && mDescriptionContains == null;
+	}
+
+	/**
+	 * Combine the set attributes of the filter into one specification.
+	 * 
+	 * @return The specification which matches all the set attributes.
+	 */
+	public Specification<Item> toSpecification() {
+		return Specification.where(hasName(mName)).and(hasState(mState)).and(nameContains(mNameContains))
+				.and(hasDescriptionContaining(mDescriptionContains));
+	}
+}
@@ -0,0 +1,147 @@
+package com.cepheid.cloud.skel.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/***
+ * This is a ItemImport class which holds the progress of one import of items,
+ * the number of items of every outcome is updated after every chunk, so the
+ * progress can be read while the import runs. Only the first MAX_ERRORS items
+ * which are not saved are kept, so an import of any size holds a fixed amount
+ * of memory.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+public class ItemImport {
+
+	/**
+	 * The largest number of unsaved items whose results are kept.
+	 */
+	public static final int MAX_ERRORS = 100;
+
+	private final String mId = UUID.randomUUID().toString();
+
+	private final String mFormat;
+
+	private final Instant mStartedAt = Instant.now();
+
+	private volatile Instant mFinishedAt;
+
+	// Every status has its counter from the start, so the map is only read after
+	// the construction.
+	private final Map<BulkItemStatus, LongAdder> mCounts = new EnumMap<>(BulkItemStatus.class);
+
+	private final List<BulkItemResult> mErrors = Collections.synchronizedList(new ArrayList<>());
+
+	/**
+	 * Constructor for class ItemImport with the format of the imported items.
+	 * 
+	 * @param format The format of the imported items, ndjson or csv.
+	 */
+	public ItemImport(String format) {
+		mFormat = format;
+		for (BulkItemStatus status : BulkItemStatus.values())
+			mCounts.put(status, new LongAdder());
+	}
+
+	/**
+	 * Count the result of an imported item.
+	 * 
+	 * @param result The result of the item.
+	 */
+	void add(BulkItemResult result) {
+		mCounts.get(result.getStatus()).increment();
+		if (result.getStatus() != BulkItemStatus.CREATED && result.getStatus() != BulkItemStatus.UPDATED
+				&& mErrors.size() < MAX_ERRORS)
+			mErrors.add(result);
+	}
+
+	/**
+	 * Mark the import as finished.
+	 */
+	void finish() {
+		mFinishedAt = Instant.now();
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The id of the import.
+	 */
+	public String getId() {
+		return mId;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The format of the imported items, ndjson or csv.
+	 */
+	public String getFormat() {
+		return mFormat;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The time the import was started.
+	 */
+	public Instant getStartedAt() {
+		return mStartedAt;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The time the import was finished, or null if it still runs.
+	 */
+	public Instant getFinishedAt() {
+		return mFinishedAt;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The number of the items which are read so far.
+	 */
+	public long getItems() {
+		return mCounts.values().stream().mapToLong(LongAdder::sum).sum();
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The number of the items of every outcome which are read so far.
+	 */
+	public Map<BulkItemStatus, Long> getCounts() {
+		Map<BulkItemStatus, Long> counts = new EnumMap<>(BulkItemStatus.class);
+		mCounts.forEach((status, count) -> {
+			if (count.sum() > 0)
+				counts.put(status, count.sum());
+		});
+		return counts;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The results of the first MAX_ERRORS items which are not saved.
+	 */
+	public List<BulkItemResult> getErrors() {
+		synchronized (mErrors) {
+			return new ArrayList<>(mErrors);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "Id : " + mId + ", Format : " + mFormat + ", Items : " + getItems() + ", Counts : " + getCounts();
+	}
+}
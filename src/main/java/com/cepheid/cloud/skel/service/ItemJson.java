@@ -0,0 +1,44 @@
+package com.cepheid.cloud.skel.service;
+
+/***
+ * This is a ItemJson class which holds the serialized json of an item together
+ * with the version of the item it was serialized from.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+public class ItemJson {
+
+	private final byte[] mJson;
+
+	private final Long mVersion;
+
+	/**
+	 * Constructor for class ItemJson.
+	 * 
+	 * @param json    The serialized json of the item.
+	 * @param version The version of the serialized item.
+	 */
+	public ItemJson(byte[] json, Long version) {
+		mJson = json;
+		mVersion = version;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The serialized json of the item.
+	 */
+	public byte[] getJson() {
+		return mJson;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The version of the serialized item.
+	 */
+	public Long getVersion() {
+		return mVersion;
+	}
+}
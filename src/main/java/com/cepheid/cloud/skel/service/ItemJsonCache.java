@@ -0,0 +1,162 @@
+package com.cepheid.cloud.skel.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.cepheid.cloud.skel.event.ItemChangedEvent;
+import com.cepheid.cloud.skel.model.Item;
+import com.cepheid.cloud.skel.tracing.Tracer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/***
+ * This is a ItemJsonCache class which keeps the serialized json of the most
+ * used items in front of the ItemService, so a cached item is neither read from
+ * the database nor mapped by Jackson again. The cache is bounded by the total
+ * size of the cached json, and Caffeine evicts with W-TinyLFU. An entry is
+ * invalidated after every committed change of its item. The version of the
+ * item is kept with its json, so the ETag of a cached item is known without
+ * reading the json. The items are loaded by a loader thread outside of the
+ * lock of the cache entry, a request thread waiting for a database connection
+ * while it holds the lock of an entry would block the invalidation of a
+ * committed change, which still holds its own connection, so under load the
+ * connection pool could run dry for good. An invalidated entry which is still
+ * loading is not cached. The loader threads are bounded by
+ * skel.cache.item-json-loader-threads, and the waiting loads by
+ * skel.cache.item-json-loader-queue-size. When both are full, the item is
+ * loaded by the requesting thread without being cached, since it does not hold
+ * the lock of the entry then.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+@Component
+public class ItemJsonCache implements MeterBinder {
+
+	private final ItemService mItemService;
+
+	private final ObjectWriter mItemWriter;
+
+	private final ThreadPoolExecutor mLoader;
+
+	private final AsyncLoadingCache<Long, ItemJson> mCache;
+
+	/**
+	 * Constructor for class ItemJsonCache with provided services.
+	 * 
+	 * @param itemService  ItemService which loads the items which are not cached.
+	 * @param objectMapper ObjectMapper which serializes the items.
+	 * @param tracer       Tracer whose current span is handed to the loader
+	 *                     threads, so a load is part of the trace of the request.
+	 * @param maxBytes     The maximum total size of the cached json in bytes.
+	 * @param loaderThreads The number of loader threads, there is no point in
+	 *                      more threads than database connections.
+	 * @param loaderQueueSize The maximum number of loads waiting for a loader
+	 *                      thread.
+	 */
+	@Autowired
+	public ItemJsonCache(ItemService itemService, ObjectMapper objectMapper, Tracer tracer,
+			@Value("${skel.cache.item-json-max-bytes:67108864}") long maxBytes,
+			@Value("${skel.cache.item-json-loader-threads:${spring.datasource.hikari.maximum-pool-size:10}}") int loaderThreads,
+			@Value("${skel.cache.item-json-loader-queue-size:1000}") int loaderQueueSize) {
+		mItemService = itemService;
+		mItemWriter = objectMapper.writerFor(Item.class);
+		AtomicInteger thread_count = new AtomicInteger();
+		mLoader = new ThreadPoolExecutor(loaderThreads, loaderThreads, 60L, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(loaderQueueSize), runnable -> {
+					Thread thread = new Thread(runnable, "item-json-loader-" + thread_count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		// The threads are only kept while items are loaded.
+		mLoader.allowCoreThreadTimeOut(true);
+		mCache = Caffeine.newBuilder().maximumWeight(maxBytes)
+				.weigher((Long id, ItemJson json) -> json.getJson().length)
+				.executor(task -> mLoader.execute(tracer.wrap(task))).recordStats().buildAsync(this::loadItemJson);
+	}
+
+	/**
+	 * Find the json of a specific item with a given item id, the item is loaded
+	 * and serialized only if it is not cached yet. If there is no item found with
+	 * the given item id, a null will be returned and nothing is cached.
+	 * 
+	 * @param id id of the item which is going to search for.
+	 * @return The json and version of the found item or null if no match is
+	 *         found.
+	 */
+	public ItemJson FindItemJsonById(Long id) {
+		try {
+			return mCache.get(id).join();
+		} catch (RejectedExecutionException e) {
+			// The load was not started, so no lock of the entry is held any more.
+			return loadItemJson(id);
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw e;
+		}
+	}
+
+	/**
+	 * Remove the json of a changed item from the cache once the change is
+	 * committed, when the change is made without a transaction, it is removed
+	 * right away.
+	 * 
+	 * @param event The change of the item.
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onItemChanged(ItemChangedEvent event) {
+		mCache.synchronous().invalidate(event.getItemId());
+	}
+
+	/**
+	 * Remove the json of all the items from the cache.
+	 */
+	public void InvalidateAll() {
+		mCache.synchronous().invalidateAll();
+	}
+
+	/**
+	 * Stop the loader threads when the application is closed.
+	 */
+	@PreDestroy
+	public void shutdown() {
+		mLoader.shutdown();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		// The same tag keys as the metrics of the Hibernate caches, which Prometheus
+		// requires for meters of the same name.
+		CaffeineCacheMetrics.monitor(registry, mCache.synchronous(), "item.json", "cacheManager", "skel");
+	}
+
+	private ItemJson loadItemJson(Long id) {
+		Item item = mItemService.FindItemById(id);
+		if (item == null)
+			return null;
+		try {
+			return new ItemJson(mItemWriter.writeValueAsBytes(item), item.getVersion());
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Item could not be serialized with id: " + id, e);
+		}
+	}
+}
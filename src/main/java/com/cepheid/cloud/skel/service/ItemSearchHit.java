@@ -0,0 +1,42 @@
+package com.cepheid.cloud.skel.service;
+
+import com.cepheid.cloud.skel.model.ItemState;
+import com.cepheid.cloud.skel.model.ItemSummary;
+
+/***
+ * This is a ItemSearchHit class which is the summary of an item found by the
+ * full-text search together with its relevance score, the hits of a search are
+ * ordered by their score. The summary is read from the search index, not from
+ * the database.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+public class ItemSearchHit extends ItemSummary {
+
+	private final float mScore;
+
+	/**
+	 * Constructor for class ItemSearchHit with the indexed summary of the item.
+	 * 
+	 * @param id               ID of the item.
+	 * @param version          Version of the item.
+	 * @param name             Name of the item.
+	 * @param state            State of the item.
+	 * @param descriptionCount The number of descriptions of the item.
+	 * @param score            The relevance of the item to the search.
+	 */
+	public ItemSearchHit(Long id, Long version, String name, ItemState state, long descriptionCount, float score) {
+		super(id, version, name, state, descriptionCount);
+		mScore = score;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The relevance of the item to the search, the higher the better.
+	 */
+	public float getScore() {
+		return mScore;
+	}
+}
@@ -0,0 +1,325 @@
+package com.cepheid.cloud.skel.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PreDestroy;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.cepheid.cloud.skel.event.ItemChangedEvent;
+import com.cepheid.cloud.skel.model.Description;
+import com.cepheid.cloud.skel.model.Item;
+import com.cepheid.cloud.skel.model.ItemState;
+import com.cepheid.cloud.skel.repository.ItemRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/***
+ * This is a ItemSearchIndex class which keeps an embedded Lucene index of the
+ * names of the items and the contents of their descriptions, so the items can
+ * be searched by their terms, ranked by relevance, without scanning the item
+ * and description tables. Every item is one document, which stores its summary
+ * as well, so a search does not read the database at all. The index is built
+ * from the database once the application is ready, and then every committed
+ * change of an item is indexed by a single indexer thread, the changed items
+ * are reloaded in batches of up to INDEX_BATCH_SIZE, so a bulk change costs a
+ * few queries. A change is searchable as soon as its batch is indexed, the
+ * writes never wait for the index.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+@Component
+public class ItemSearchIndex implements MeterBinder {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ItemSearchIndex.class);
+
+	/**
+	 * The maximum number of changed items which are reloaded by one query.
+	 */
+	public static final int INDEX_BATCH_SIZE = 500;
+
+	private static final String ID = "id";
+
+	private static final String VERSION = "version";
+
+	private static final String NAME = "name";
+
+	private static final String STATE = "state";
+
+	private static final String CONTENT = "content";
+
+	private static final String DESCRIPTION_COUNT = "descriptionCount";
+
+	// A term of the name weighs more than the same term in a description.
+	private static final Map<String, Float> SEARCHED_FIELDS = Map.of(NAME, 2f, CONTENT, 1f);
+
+	private final ItemService mItemService;
+
+	private final ItemRepository mItemRepository;
+
+	private final Analyzer mAnalyzer = new StandardAnalyzer();
+
+	private final Directory mDirectory;
+
+	private final IndexWriter mWriter;
+
+	private final SearcherManager mSearcherManager;
+
+	private final ExecutorService mIndexer;
+
+	private final Set<Long> mPendingIds = ConcurrentHashMap.newKeySet();
+
+	private final AtomicBoolean mIndexScheduled = new AtomicBoolean();
+
+	/**
+	 * Constructor for class ItemSearchIndex with provided services.
+	 * 
+	 * @param itemService    ItemService which streams all the items to build the
+	 *                       index.
+	 * @param itemRepository ItemRepository which reloads the changed items.
+	 * @param indexDir       The directory of the index, or empty to keep the
+	 *                       index in memory. The index is built again at every
+	 *                       start either way.
+	 * @throws IOException if the index can not be opened.
+	 */
+	@Autowired
+	public ItemSearchIndex(ItemService itemService, ItemRepository itemRepository,
+			@Value("${skel.search.index-dir:}") String indexDir) throws IOException {
+		mItemService = itemService;
+		mItemRepository = itemRepository;
+		mDirectory = indexDir.isEmpty() ? new ByteBuffersDirectory() : FSDirectory.open(Paths.get(indexDir));
+		mWriter = new IndexWriter(mDirectory,
+				new IndexWriterConfig(mAnalyzer).setOpenMode(IndexWriterConfig.OpenMode.CREATE));
+		mSearcherManager = new SearcherManager(mWriter, null);
+		mIndexer = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "item-search-indexer");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Search the items whose name or descriptions contain the terms of the given
+	 * text. The text is matched term by term ignoring case, all the terms have to
+	 * match, a term ending with * matches every term it is a prefix of, a quoted
+	 * text matches a phrase, a term after | is optional and a term after - must
+	 * not match. The items are ordered by their relevance, a term in the name
+	 * counts twice as much as in a description.
+	 * 
+	 * @param text  The text which is going to search for.
+	 * @param state The state of the searched items, can be null for any state.
+	 * @param limit The maximum number of found items.
+	 * @return The found items with the most relevant first, it is empty if no
+	 *         match is found.
+	 */
+	public List<ItemSearchHit> Search(String text, ItemState state, int limit) {
+		SimpleQueryParser parser = new SimpleQueryParser(mAnalyzer, SEARCHED_FIELDS);
+		parser.setDefaultOperator(Occur.MUST);
+		Query query = parser.parse(text);
+		List<ItemSearchHit> hits = new ArrayList<>();
+		// A text without any term does not match anything.
+		if (query == null)
+			return hits;
+		if (state != null)
+			query = new BooleanQuery.Builder().add(query, Occur.MUST)
+					.add(new TermQuery(new Term(STATE, state.name())), Occur.FILTER).build();
+		try {
+			IndexSearcher searcher = mSearcherManager.acquire();
+			try {
+				for (ScoreDoc score_doc : searcher.search(query, limit).scoreDocs)
+					hits.add(toHit(searcher.doc(score_doc.doc), score_doc.score));
+			} finally {
+				mSearcherManager.release(searcher);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Items could not be searched for: " + text, e);
+		}
+		return hits;
+	}
+
+	/**
+	 * Queue a changed item to be indexed again once the change is committed, when
+	 * the change is made without a transaction, it is queued right away. A deleted
+	 * item is removed from the index.
+	 * 
+	 * @param event The change of the item.
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onItemChanged(ItemChangedEvent event) {
+		mPendingIds.add(event.getItemId());
+		if (mIndexScheduled.compareAndSet(false, true))
+			mIndexer.execute(this::indexPendingItems);
+	}
+
+	/**
+	 * Build the index from all the items in the database once the application is
+	 * ready, the items which are changed in the meantime are indexed again after
+	 * it.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void Rebuild() {
+		mIndexer.execute(this::rebuild);
+	}
+
+	/**
+	 * Wait until all the changes which were queued before are searchable.
+	 * 
+	 * @param timeout The maximum time to wait.
+	 * @param unit    The unit of the timeout.
+	 * @return true if the changes are searchable, or false if the time ran out.
+	 * @throws InterruptedException if the waiting thread is interrupted.
+	 */
+	public boolean AwaitIndexed(long timeout, TimeUnit unit) throws InterruptedException {
+		try {
+			// The indexer thread runs its tasks in order.
+			mIndexer.submit(() -> {
+			}).get(timeout, unit);
+			return true;
+		} catch (TimeoutException e) {
+			return false;
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	/**
+	 * Stop the indexer thread and close the index when the application is
+	 * closed.
+	 * 
+	 * @throws IOException if the index can not be closed.
+	 */
+	@PreDestroy
+	public void shutdown() throws IOException {
+		mIndexer.shutdownNow();
+		mSearcherManager.close();
+		mWriter.close();
+		mDirectory.close();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("skel.search.documents", mWriter, writer -> writer.getDocStats().numDocs)
+				.description("The number of items in the search index").register(registry);
+		Gauge.builder("skel.search.pending", mPendingIds, Set::size)
+				.description("The number of changed items which are not indexed yet").register(registry);
+	}
+
+	private void rebuild() {
+		try {
+			mWriter.deleteAll();
+			mItemService.StreamAllItems(item -> {
+				try {
+					mWriter.addDocument(toDocument(item));
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+			mSearcherManager.maybeRefreshBlocking();
+		} catch (IOException | RuntimeException e) {
+			LOGGER.error("The search index could not be built", e);
+		}
+	}
+
+	private void indexPendingItems() {
+		// A change queued from now on schedules another run, the ones queued before
+		// are taken by this one.
+		mIndexScheduled.set(false);
+		Iterator<Long> pending_ids = mPendingIds.iterator();
+		while (pending_ids.hasNext()) {
+			Set<Long> batch_ids = new HashSet<>();
+			while (batch_ids.size() < INDEX_BATCH_SIZE && pending_ids.hasNext()) {
+				batch_ids.add(pending_ids.next());
+				// The id is removed before the item is read, so a later change queues it
+				// again.
+				pending_ids.remove();
+			}
+			try {
+				indexItems(batch_ids);
+			} catch (IOException | RuntimeException e) {
+				LOGGER.error("The items could not be indexed: " + batch_ids, e);
+			}
+		}
+	}
+
+	private void indexItems(Set<Long> ids) throws IOException {
+		for (Item item : mItemRepository.findAllWithDescriptionsBymIdIn(ids)) {
+			mWriter.updateDocument(new Term(ID, item.getId().toString()), toDocument(item));
+			ids.remove(item.getId());
+		}
+		// The items which are not found any more are deleted.
+		for (Long id : ids)
+			mWriter.deleteDocuments(new Term(ID, id.toString()));
+		mSearcherManager.maybeRefreshBlocking();
+	}
+
+	private static Document toDocument(Item item) {
+		Document document = new Document();
+		document.add(new StringField(ID, item.getId().toString(), Store.YES));
+		document.add(new StoredField(VERSION, item.getVersion()));
+		if (item.getName() != null)
+			document.add(new TextField(NAME, item.getName(), Store.YES));
+		if (item.getState() != null)
+			document.add(new StringField(STATE, item.getState().name(), Store.YES));
+		int description_count = 0;
+		for (Description description : item.getDescriptions()) {
+			if (description.getContent() != null)
+				document.add(new TextField(CONTENT, description.getContent(), Store.NO));
+			description_count++;
+		}
+		document.add(new StoredField(DESCRIPTION_COUNT, description_count));
+		return document;
+	}
+
+	private static ItemSearchHit toHit(Document document, float score) {
+		String state = document.get(STATE);
+		return new ItemSearchHit(Long.valueOf(document.get(ID)), document.getField(VERSION).numericValue().longValue(),
+				document.get(NAME), state == null ? null : ItemState.valueOf(state),
+				document.getField(DESCRIPTION_COUNT).numericValue().longValue(), score);
+	}
+}
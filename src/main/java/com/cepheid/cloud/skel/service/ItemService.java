@@ -1,14 +1,40 @@
 package com.cepheid.cloud.skel.service;
 
+import static com.cepheid.cloud.skel.repository.ItemSpecifications.withDescriptions;
+
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.stream.Collectors;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.cepheid.cloud.skel.event.ItemChangeType;
+import com.cepheid.cloud.skel.event.ItemChangedEvent;
+import com.cepheid.cloud.skel.exception.PreconditionFailedException;
 import com.cepheid.cloud.skel.model.Description;
 import com.cepheid.cloud.skel.model.Item;
+import com.cepheid.cloud.skel.model.ItemOutboxEntry;
 import com.cepheid.cloud.skel.model.ItemState;
+import com.cepheid.cloud.skel.model.ItemSummary;
+import com.cepheid.cloud.skel.repository.DescriptionRepository;
+import com.cepheid.cloud.skel.repository.ItemOutboxRepository;
 import com.cepheid.cloud.skel.repository.ItemRepository;
 
 /***
@@ -23,14 +49,41 @@ public class ItemService {
 
 	private final ItemRepository mItemRepository;
 
+	private final DescriptionRepository mDescriptionRepository;
+
+	private final ItemOutboxRepository mOutboxRepository;
+
+	private final ApplicationEventPublisher mEventPublisher;
+
+	private final boolean mOutboxEnabled;
+
+	@PersistenceContext
+	private EntityManager mEntityManager;
+
 	/**
 	 * Constructor for class ItemService with provided services.
 	 * 
-	 * @param itemRepository ItemRepository object to manipulate the item objects.
+	 * @param itemRepository        ItemRepository object to manipulate the item
+	 *                              objects.
+	 * @param descriptionRepository DescriptionRepository object to page through
+	 *                              the descriptions of an item.
+	 * @param outboxRepository      ItemOutboxRepository object to write an outbox
+	 *                              entry for every change of an item.
+	 * @param eventPublisher        ApplicationEventPublisher object to publish an
+	 *                              ItemChangedEvent for every change of an item.
+	 * @param outboxEnabled         Whether the outbox entries are written, an
+	 *                              entry which is never delivered is never
+	 *                              deleted either.
 	 */
 	@Autowired
-	public ItemService(ItemRepository itemRepository) {
+	public ItemService(ItemRepository itemRepository, DescriptionRepository descriptionRepository,
+			ItemOutboxRepository outboxRepository, ApplicationEventPublisher eventPublisher,
+			@Value("${skel.outbox.enabled:true}") boolean outboxEnabled) {
 		mItemRepository = itemRepository;
+		mDescriptionRepository = descriptionRepository;
+		mOutboxRepository = outboxRepository;
+		mEventPublisher = eventPublisher;
+		mOutboxEnabled = outboxEnabled;
 	}
 
 	/**
@@ -39,18 +92,99 @@ public class ItemService {
 	 * @return All the item list in the database.
 	 */
 	public Collection<Item> FetchAllItemList() {
-		return mItemRepository.findAll();
+		return mItemRepository.findAllWithDescriptions();
+	}
+
+	/**
+	 * Fetch a page of items ordered by item id from the database, the page starts
+	 * right after the given item id, so the next page can be fetched with the id of
+	 * the last item in the current page.
+	 * 
+	 * @param after The id of the last item of the previous page, or null to fetch
+	 *              the first page.
+	 * @param limit The maximum number of items in the page.
+	 * @return The item list of the page, it is empty if there is no more items.
+	 */
+	@Transactional(readOnly = true)
+	public List<Item> FetchItemPage(Long after, int limit) {
+		// Select the ids of the page first, and then fetch the items with all their
+		// descriptions in one query, so a page always costs two statements.
+		var page_ids = mItemRepository.findIdsAfter(after == null ? 0L : after, PageRequest.of(0, limit));
+		if (page_ids.isEmpty())
+			return Collections.emptyList();
+		return mItemRepository.findAllWithDescriptionsBymIdIn(page_ids);
+	}
+
+	/**
+	 * Fetch a page of item summaries ordered by item id from the database, the
+	 * same page as FetchItemPage but without the descriptions, the summaries are
+	 * selected in one query without loading the items.
+	 * 
+	 * @param after The id of the last item of the previous page, or null to fetch
+	 *              the first page.
+	 * @param limit The maximum number of items in the page.
+	 * @return The item summary list of the page, it is empty if there is no more
+	 *         items.
+	 */
+	public List<ItemSummary> FetchItemSummaryPage(Long after, int limit) {
+		return mItemRepository.findSummariesAfter(after == null ? 0L : after, PageRequest.of(0, limit));
+	}
+
+	/**
+	 * Hand all the items in the database to the given consumer one by one ordered
+	 * by item id. The items are read from a database cursor and detached once they
+	 * are consumed, so the memory usage does not grow with the size of the table.
+	 * 
+	 * @param consumer The consumer which gets every item in the database.
+	 */
+	@Transactional(readOnly = true)
+	public void StreamAllItems(Consumer<Item> consumer) {
+		try (Stream<Item> items = mItemRepository.streamAll()) {
+			items.forEach(item -> {
+				consumer.accept(item);
+				// Evict the consumed item from the persistence context.
+				mEntityManager.detach(item);
+			});
+		}
+	}
+
+	/**
+	 * Hand the summaries of all the items in the database to the given consumer
+	 * one by one ordered by item id, they are read from a database cursor, and
+	 * they are not managed by the persistence context, so nothing has to be
+	 * detached.
+	 * 
+	 * @param consumer The consumer which gets the summary of every item in the
+	 *                 database.
+	 */
+	@Transactional(readOnly = true)
+	public void StreamAllItemSummaries(Consumer<ItemSummary> consumer) {
+		try (Stream<ItemSummary> summaries = mItemRepository.streamAllSummaries()) {
+			summaries.forEach(consumer);
+		}
 	}
 
 	/**
 	 * Find a specific item from the database with a given item id, if there is no
-	 * item found with the given item id, a null will be returned.
+	 * item found with the given item id, a null will be returned. The descriptions
+	 * of the item are fetched in the same query.
 	 * 
 	 * @param id id of the item which is going to search for.
 	 * @return The found item with the given item id or null if no match is found.
 	 */
 	public Item FindItemById(Long id) {
-		return mItemRepository.findById(id).orElse(null);
+		return mItemRepository.findWithDescriptionsBymId(id).orElse(null);
+	}
+
+	/**
+	 * Find the current version of a specific item with a given item id, if there
+	 * is no item found with the given item id, a null will be returned.
+	 * 
+	 * @param id id of the item which is going to search for.
+	 * @return The version of the found item or null if no match is found.
+	 */
+	public Long FindItemVersion(Long id) {
+		return mItemRepository.findVersionBymId(id).orElse(null);
 	}
 
 	/**
@@ -103,34 +237,71 @@ public class ItemService {
 			if (found_state_items != null)
 				return found_state_items;
 		} else if (name != null && state != null) {
-			final var found_name_items = FindItemByName(name);
-			final var found_state_items = FindItemByState(state);
-			if (found_name_items != null && found_state_items != null) {
-				var final_list = found_state_items.stream().filter(found_name_items::contains)
-						.collect(Collectors.toList());
-				if (final_list != null)
-					return final_list;
-			}
+			// Let the database match both the name and the state in one query.
+			var found_items = mItemRepository.findAllBymNameAndmState(name, state).orElse(null);
+			if (found_items != null)
+				return found_items;
 		}
 		return null;
 	}
 
+	/**
+	 * Find a collection of specific item list from the database which matches all
+	 * the attributes set in the given filter, all the attributes are matched by
+	 * one query. If there is no any item found, or no attribute is set in the
+	 * filter, an empty list will be returned.
+	 * 
+	 * @param filter The attributes of the items which is going to search for.
+	 * @return The found items which match the filter, never null.
+	 */
+	public Collection<Item> FindItems(ItemFilter filter) {
+		if (filter.isEmpty())
+			return List.of();
+		// The name and the state alone have their own finders.
+		if (filter.isNameAndStateOnly()) {
+			Collection<Item> found_items = FindItemByNameAndState(filter.getName(), filter.getState());
+			return found_items == null ? List.of() : found_items;
+		}
+		return mItemRepository.findAll(filter.toSpecification().and(withDescriptions()));
+	}
+
+	/**
+	 * Find the summaries of the items in the database which match all the
+	 * attributes set in the given filter, they are selected by one query without
+	 * loading the items or their descriptions. If there is no any item found, or
+	 * no attribute is set in the filter, an empty list will be returned, like
+	 * FindItems.
+	 * 
+	 * @param filter The attributes of the items which is going to search for.
+	 * @return The summaries of the found items ordered by id, never null.
+	 */
+	public List<ItemSummary> FindItemSummaries(ItemFilter filter) {
+		if (filter.isEmpty())
+			return List.of();
+		return mItemRepository.findSummaries(filter.toSpecification());
+	}
+
 	/**
 	 * Add a new item to the database, if the item is found with the item id, it
-	 * will replace the existing item instead.
+	 * will replace the existing item instead. The descriptions of a new item are
+	 * always new, their ids are ignored, like the ids of the descriptions of
+	 * another item in an update.
 	 * 
 	 * @param item New item which is going to be added to the database.
 	 * @return The added item information.
 	 */
+	@Transactional
 	public Item AddItem(Item item) {
 		Item m_item = null;
 		// If the given item does not have a id, we can save to add the new item.
 		if (item.getId() == null) {
-			m_item = mItemRepository.save(item);
+			m_item = saveNewItem(item);
 		} else {
 			m_item = mItemRepository.findById(item.getId()).orElse(null);
 			if (m_item == null) {
-				m_item = mItemRepository.save(item);
+				// The unknown id is replaced by a generated one.
+				item.setId(null);
+				m_item = saveNewItem(item);
 			} else {
 				m_item = UpdateItem(item);
 			}
@@ -138,6 +309,21 @@ public class ItemService {
 		return m_item;
 	}
 
+	private Item saveNewItem(Item item) {
+		// A new item starts at the first version, whatever version the client sent,
+		// with a version it would be merged as a stale or detached item.
+		item.setVersion(null);
+		// An exported item holds the ids of its descriptions, they would be taken
+		// from the item which owns them.
+		item.getDescriptions().forEach(d -> {
+			d.setId(null);
+			d.setVersion(null);
+		});
+		Item m_item = mItemRepository.save(item);
+		publishChange(m_item.getId(), ItemChangeType.ITEM_CREATED);
+		return m_item;
+	}
+
 	/**
 	 * Update an existing item with the new item information, the given item must
 	 * have a valid item id information and there must be an item with the same item
@@ -149,20 +335,64 @@ public class ItemService {
 	 * @return The updated item information, or null if the given item does not have
 	 *         a valid item id.
 	 */
+	@Transactional
 	public Item UpdateItem(Item item) {
+		return UpdateItem(item, null);
+	}
+
+	/**
+	 * Update an existing item with the new item information only if the item is
+	 * still at the expected version, otherwise a PreconditionFailedException is
+	 * thrown and nothing is changed.
+	 * 
+	 * @param item            New item which is going to be update the old item into
+	 *                        the database.
+	 * @param expectedVersion The version the update is based on, or null to update
+	 *                        any version.
+	 * @return The updated item information, or null if the given item does not have
+	 *         a valid item id.
+	 */
+	@Transactional
+	public Item UpdateItem(Item item, Long expectedVersion) {
 		// If the given item does not have a id, we can skip the update, and return
 		// null.
 		if (item.getId() == null) {
 			return null;
 		}
-		Item m_item = mItemRepository.findById(item.getId()).orElse(null);
+		Item m_item = mItemRepository.findWithDescriptionsBymId(item.getId()).orElse(null);
 		if (m_item == null) {
 			return null;
 		} else {
-			m_item.setName(item.getName());
-			m_item.setState(item.getState());
-			m_item.setDescriptions(item.getDescriptions());
+			checkVersion(m_item, expectedVersion);
+			mergeItem(m_item, item);
 			m_item = mItemRepository.save(m_item);
+			publishChange(m_item.getId(), ItemChangeType.ITEM_UPDATED);
+		}
+		return m_item;
+	}
+
+	/**
+	 * Patch an existing item only if the item is still at the expected version,
+	 * otherwise a PreconditionFailedException is thrown and nothing is changed. The
+	 * patch gets the item and returns the patched item without changing the given
+	 * one, only the changed columns and descriptions are written to the database.
+	 * 
+	 * @param id              The id of the item which is going to be patched.
+	 * @param patch           The patch which creates the patched item from the
+	 *                        item.
+	 * @param expectedVersion The version the patch is based on, or null to patch
+	 *                        any version.
+	 * @return The patched item information, or null if the item is not found.
+	 */
+	@Transactional
+	public Item PatchItem(Long id, UnaryOperator<Item> patch, Long expectedVersion) {
+		Item m_item = mItemRepository.findWithDescriptionsBymId(id).orElse(null);
+		if (m_item == null)
+			return null;
+		checkVersion(m_item, expectedVersion);
+		if (mergeItem(m_item, patch.apply(m_item))) {
+			m_item = mItemRepository.save(m_item);
+			publishChange(id, ItemChangeType.ITEM_UPDATED);
 		}
 		return m_item;
 	}
@@ -176,12 +406,32 @@ public class ItemService {
 	 * @return true if the deletion is successful, or false if the id information is
 	 *         not found in the database.
 	 */
+	@Transactional
 	public boolean DeleteItem(Long id) {
+		return DeleteItem(id, null);
+	}
+
+	/**
+	 * Delete an existing item with the given item id only if the item is still at
+	 * the expected version, otherwise a PreconditionFailedException is thrown and
+	 * nothing is deleted.
+	 * 
+	 * @param id              item id which the item is going to be deleted in the
+	 *                        database.
+	 * @param expectedVersion The version the deletion is based on, or null to
+	 *                        delete any version.
+	 * @return true if the deletion is successful, or false if the id information is
+	 *         not found in the database.
+	 */
+	@Transactional
+	public boolean DeleteItem(Long id, Long expectedVersion) {
 		Item m_item = mItemRepository.findById(id).orElse(null);
 		// Return false if the given id is not a valid item id information.
 		if (m_item == null)
 			return false;
+		checkVersion(m_item, expectedVersion);
 		mItemRepository.delete(m_item);
+		publishChange(id, ItemChangeType.ITEM_DELETED);
 		return true;
 	}
 
@@ -195,14 +445,17 @@ public class ItemService {
 	 *                    item.
 	 * @return The new updated item information.
 	 */
+	@Transactional
 	public Item addDescriptionToItem(Long id, Description description) {
-		Item m_item = mItemRepository.findById(id).orElse(null);
+		Item m_item = mItemRepository.findWithDescriptionsBymId(id).orElse(null);
 		if (m_item == null)
 			return null;
 		// The id information will be ignored.
 		description.setId(null);
 		m_item.addDescription(description);
+		incrementVersion(m_item);
 		m_item = mItemRepository.save(m_item);
+		publishChange(id, ItemChangeType.DESCRIPTION_ADDED);
 		return m_item;
 	}
 
@@ -218,17 +471,39 @@ public class ItemService {
 	 *                    which is already belong to this item.
 	 * @return The new updated item information.
 	 */
+	@Transactional
 	public Item updateDescriptionInItem(Long id, Description description) {
-		Item m_item = mItemRepository.findById(id).orElse(null);
+		return updateDescriptionInItem(id, description, null);
+	}
+
+	/**
+	 * Update a description in the existing item only if the item is still at the
+	 * expected version, otherwise a PreconditionFailedException is thrown and
+	 * nothing is changed.
+	 * 
+	 * @param id              The exiting item id which the new description will be
+	 *                        inserted into.
+	 * @param description     New description which is going to be updated in the
+	 *                        existing item.
+	 * @param expectedVersion The version of the item the update is based on, or
+	 *                        null to update any version.
+	 * @return The new updated item information.
+	 */
+	@Transactional
+	public Item updateDescriptionInItem(Long id, Description description, Long expectedVersion) {
+		Item m_item = mItemRepository.findWithDescriptionsBymId(id).orElse(null);
 		if (m_item == null || description.getId() == null)
 			return null;
-		var old_d = m_item.getDescriptions().stream().filter(d -> d.getId() == description.getId()).findFirst()
+		checkVersion(m_item, expectedVersion);
+		var old_d = m_item.getDescriptions().stream().filter(d -> description.getId().equals(d.getId())).findFirst()
 				.orElse(null);
 		if (old_d == null)
 			return null;
 		// Update the description information when all the information is valid.
 		old_d.setContent(description.getContent());
+		incrementVersion(m_item);
 		m_item = mItemRepository.save(m_item);
+		publishChange(id, ItemChangeType.DESCRIPTION_UPDATED);
 		return m_item;
 	}
 
@@ -243,17 +518,155 @@ public class ItemService {
 	 *                      item object.
 	 * @return true if the deletion is successful, otherwise, return false.
 	 */
+	@Transactional
 	public boolean deleteDescriptionFromItem(Long id, Long descriptionId) {
-		Item m_item = mItemRepository.findById(id).orElse(null);
+		return deleteDescriptionFromItem(id, descriptionId, null);
+	}
+
+	/**
+	 * Delete a description from the existing item only if the item is still at the
+	 * expected version, otherwise a PreconditionFailedException is thrown and
+	 * nothing is deleted.
+	 * 
+	 * @param id              The exiting item id which the new description will be
+	 *                        inserted into.
+	 * @param descriptionId   The description Id which intends to be deleted from
+	 *                        the item object.
+	 * @param expectedVersion The version of the item the deletion is based on, or
+	 *                        null to delete from any version.
+	 * @return true if the deletion is successful, otherwise, return false.
+	 */
+	@Transactional
+	public boolean deleteDescriptionFromItem(Long id, Long descriptionId, Long expectedVersion) {
+		Item m_item = mItemRepository.findWithDescriptionsBymId(id).orElse(null);
 		if (m_item == null || descriptionId == null)
 			return false;
-		var old_d = m_item.getDescriptions().stream().filter(d -> d.getId() == descriptionId).findFirst().orElse(null);
+		checkVersion(m_item, expectedVersion);
+		var old_d = m_item.getDescriptions().stream().filter(d -> descriptionId.equals(d.getId())).findFirst().orElse(null);
 		if (old_d == null)
 			return false;
 		// Remove the description from the current item.
 		m_item.removeDescription(old_d);
+		incrementVersion(m_item);
 		m_item = mItemRepository.save(m_item);
+		publishChange(id, ItemChangeType.DESCRIPTION_DELETED);
 		return true;
 	}
 
+	/**
+	 * Merge the new item information into the existing item, only the changed
+	 * fields are set. The descriptions are matched by their id, a description with
+	 * an id of the item is updated if its content is changed, a description
+	 * without such an id is added, and a description of the item which is not
+	 * given any more is removed, so the unchanged descriptions are not written
+	 * again.
+	 * 
+	 * @param m_item The existing item.
+	 * @param item   The new item information.
+	 * @return true if the existing item is changed.
+	 */
+	private boolean mergeItem(Item m_item, Item item) {
+		boolean changed = false;
+		if (!Objects.equals(m_item.getName(), item.getName())) {
+			m_item.setName(item.getName());
+			changed = true;
+		}
+		if (!Objects.equals(m_item.getState(), item.getState())) {
+			m_item.setState(item.getState());
+			changed = true;
+		}
+		boolean descriptions_changed = false;
+		Map<Long, Description> old_descriptions = new HashMap<>();
+		m_item.getDescriptions().forEach(d -> old_descriptions.put(d.getId(), d));
+		List<Description> new_descriptions = new ArrayList<>();
+		if (item.getDescriptions() != null) {
+			for (Description description : item.getDescriptions()) {
+				if (description == null)
+					continue;
+				Description old_d = description.getId() == null ? null : old_descriptions.remove(description.getId());
+				if (old_d == null) {
+					// The id of another item is ignored, the description is a new one.
+					description.setId(null);
+					description.setVersion(null);
+					new_descriptions.add(description);
+				} else if (!Objects.equals(old_d.getContent(), description.getContent())) {
+					old_d.setContent(description.getContent());
+					descriptions_changed = true;
+				}
+			}
+		}
+		for (Description old_d : old_descriptions.values()) {
+			m_item.removeDescription(old_d);
+			descriptions_changed = true;
+		}
+		for (Description description : new_descriptions) {
+			m_item.addDescription(description);
+			descriptions_changed = true;
+		}
+		if (descriptions_changed && !changed)
+			incrementVersion(m_item);
+		return changed || descriptions_changed;
+	}
+
+	/**
+	 * Fetch a page of the descriptions of an item ordered by description id, the
+	 * page starts right after the given description id, so the next page can be
+	 * fetched with the id of the last description in the current page. Only the
+	 * descriptions of the page are loaded, not the item.
+	 * 
+	 * @param id    The id of the item which owns the descriptions.
+	 * @param after The id of the last description of the previous page, or null
+	 *              to fetch the first page.
+	 * @param limit The maximum number of descriptions in the page.
+	 * @return The description list of the page, it is empty if there is no more
+	 *         descriptions, or null if there is no item with the given id.
+	 */
+	@Transactional(readOnly = true)
+	public List<Description> fetchDescriptionPage(Long id, Long after, int limit) {
+		var description_page = mDescriptionRepository.findPageByItemId(id, after == null ? 0L : after,
+				PageRequest.of(0, limit));
+		// Only an empty page has to tell an item without more descriptions from an
+		// item which does not exist.
+		if (description_page.isEmpty() && !mItemRepository.existsById(id))
+			return null;
+		return description_page;
+	}
+
+	/**
+	 * Make sure the item is still at the expected version.
+	 * 
+	 * @param item            The item which is going to be changed.
+	 * @param expectedVersion The version the change is based on, or null if the
+	 *                        change is not conditional.
+	 */
+	private void checkVersion(Item item, Long expectedVersion) {
+		if (expectedVersion != null && !expectedVersion.equals(item.getVersion()))
+			throw new PreconditionFailedException(
+					"Item with id: " + item.getId() + " has been changed, its current version is: " + item.getVersion());
+	}
+
+	/**
+	 * Increment the version of the item when only one of its descriptions is
+	 * changed, so the ETag of the item changes together with its descriptions.
+	 * 
+	 * @param item The item whose description is changed.
+	 */
+	private void incrementVersion(Item item) {
+		mEntityManager.lock(item, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
+	}
+
+	/**
+	 * Publish the change of an item inside the current transaction, and write it
+	 * to the outbox unless the outbox is disabled, the entry is inserted together
+	 * with the change, so it is delivered if and only if the change is committed.
+	 * 
+	 * @param id   The id of the changed item.
+	 * @param type The kind of change done to the item.
+	 */
+	private void publishChange(Long id, ItemChangeType type) {
+		if (mOutboxEnabled)
+			mOutboxRepository.save(new ItemOutboxEntry(id, type, Instant.now()));
+		mEventPublisher.publishEvent(new ItemChangedEvent(id, type));
+	}
+
 }
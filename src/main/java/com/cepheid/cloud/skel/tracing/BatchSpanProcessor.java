@@ -0,0 +1,126 @@
+package com.cepheid.cloud.skel.tracing;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/***
+ * This is a BatchSpanProcessor class which queues the finished spans, and
+ * exports them in batches from a daemon thread, so a request never waits for
+ * the export. A span which does not fit into the full queue is dropped, and
+ * counted, rather than slowing the requests down.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+public class BatchSpanProcessor {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(BatchSpanProcessor.class);
+
+	private static final int MAX_BATCH_SIZE = 512;
+
+	private final SpanExporter mExporter;
+
+	private final BlockingQueue<Span> mQueue;
+
+	private final long mIntervalNanos;
+
+	private final AtomicLong mDropped = new AtomicLong();
+
+	private final Thread mThread;
+
+	private volatile boolean mShutdown;
+
+	/**
+	 * Constructor for class BatchSpanProcessor with provided exporter and
+	 * settings, the export thread is started at once.
+	 * 
+	 * @param exporter  SpanExporter which exports the batches.
+	 * @param queueSize The maximum number of queued spans.
+	 * @param interval  The time a span waits at most before it is exported.
+	 */
+	public BatchSpanProcessor(SpanExporter exporter, int queueSize, Duration interval) {
+		mExporter = exporter;
+		mQueue = new ArrayBlockingQueue<>(queueSize);
+		mIntervalNanos = interval.toNanos();
+		mThread = new Thread(this::run, "span-exporter");
+		mThread.setDaemon(true);
+		mThread.start();
+	}
+
+	/**
+	 * Queue a finished span for the export.
+	 * 
+	 * @param span The finished span.
+	 */
+	public void add(Span span) {
+		if (mShutdown || !mQueue.offer(span))
+			mDropped.incrementAndGet();
+	}
+
+	/**
+	 * Export the queued spans, and stop the export thread.
+	 */
+	public void shutdown() {
+		mShutdown = true;
+		mThread.interrupt();
+		try {
+			mThread.join(TimeUnit.SECONDS.toMillis(10));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The number of spans which were dropped since the queue was full.
+	 */
+	public long getDropped() {
+		return mDropped.get();
+	}
+
+	private void run() {
+		List<Span> batch = new ArrayList<>(MAX_BATCH_SIZE);
+		while (!mShutdown) {
+			long deadline = System.nanoTime() + mIntervalNanos;
+			try {
+				// Wait until a batch is full or the interval is over.
+				while (batch.size() < MAX_BATCH_SIZE) {
+					Span span = mQueue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+					if (span == null)
+						break;
+					batch.add(span);
+				}
+			} catch (InterruptedException e) {
+				// The processor is shut down.
+			}
+			export(batch);
+		}
+		// Export the remaining spans, an interrupt of a running export must not stop
+		// these exports as well.
+		Thread.interrupted();
+		mQueue.drainTo(batch);
+		while (!batch.isEmpty())
+			export(batch.subList(0, Math.min(batch.size(), MAX_BATCH_SIZE)));
+	}
+
+	private void export(List<Span> batch) {
+		if (batch.isEmpty())
+			return;
+		try {
+			mExporter.export(batch);
+		} catch (IOException | RuntimeException e) {
+			LOGGER.warn("{} spans could not be exported: {}", batch.size(), e.toString());
+		}
+		batch.clear();
+	}
+}
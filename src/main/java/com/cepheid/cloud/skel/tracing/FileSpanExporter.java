@@ -0,0 +1,48 @@
+package com.cepheid.cloud.skel.tracing;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/***
+ * This is a FileSpanExporter class which appends every batch of spans to a
+ * file as one line of OTLP JSON, the format of the file exporter of the
+ * OpenTelemetry collector, so the file can be replayed into a collector or read
+ * with jq.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+public class FileSpanExporter implements SpanExporter {
+
+	private final Path mFile;
+
+	private final OtlpJson mOtlpJson;
+
+	/**
+	 * Constructor for class FileSpanExporter with provided file and encoder.
+	 * 
+	 * @param file     The file the spans are appended to, it is created with its
+	 *                 directories if it does not exist.
+	 * @param otlpJson OtlpJson which encodes the spans.
+	 */
+	public FileSpanExporter(Path file, OtlpJson otlpJson) {
+		mFile = file;
+		mOtlpJson = otlpJson;
+	}
+
+	@Override
+	public void export(List<Span> spans) throws IOException {
+		byte[] json = mOtlpJson.encode(spans);
+		Path directory = mFile.toAbsolutePath().getParent();
+		if (directory != null)
+			Files.createDirectories(directory);
+		try (OutputStream out = Files.newOutputStream(mFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+			out.write(json);
+			out.write('\n');
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package com.cepheid.cloud.skel.tracing;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+
+/***
+ * This is a OtlpHttpSpanExporter class which posts every batch of spans as OTLP
+ * JSON to a collector, e.g. http://localhost:4318/v1/traces of an OpenTelemetry
+ * collector, or of Jaeger, which accepts OTLP as well.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+public class OtlpHttpSpanExporter implements SpanExporter {
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+	private final URI mEndpoint;
+
+	private final OtlpJson mOtlpJson;
+
+	private final HttpClient mClient = HttpClient.newBuilder().connectTimeout(TIMEOUT).build();
+
+	/**
+	 * Constructor for class OtlpHttpSpanExporter with provided endpoint and
+	 * encoder.
+	 * 
+	 * @param endpoint The traces endpoint of the collector.
+	 * @param otlpJson OtlpJson which encodes the spans.
+	 */
+	public OtlpHttpSpanExporter(URI endpoint, OtlpJson otlpJson) {
+		mEndpoint = endpoint;
+		mOtlpJson = otlpJson;
+	}
+
+	@Override
+	public void export(List<Span> spans) throws IOException {
+		HttpRequest request = HttpRequest.newBuilder(mEndpoint).timeout(TIMEOUT)
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofByteArray(mOtlpJson.encode(spans))).build();
+		HttpResponse<String> response;
+		try {
+			response = mClient.send(request, HttpResponse.BodyHandlers.ofString());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("The export of the spans was interrupted", e);
+		}
+		if (response.statusCode() / 100 != 2)
+			throw new IOException("The collector " + mEndpoint + " answered " + response.statusCode() + ": "
+					+ response.body());
+	}
+}
@@ -0,0 +1,97 @@
+package com.cepheid.cloud.skel.tracing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/***
+ * This is a OtlpJson class which encodes spans as the JSON of an OTLP
+ * ExportTraceServiceRequest, which an OpenTelemetry collector accepts on
+ * /v1/traces, and which its file exporter writes one per line.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+public class OtlpJson {
+
+	private static final int STATUS_ERROR = 2;
+
+	private final ObjectMapper mObjectMapper;
+
+	private final List<Map<String, Object>> mResourceAttributes;
+
+	/**
+	 * Constructor for class OtlpJson with provided object mapper and service name.
+	 * 
+	 * @param objectMapper ObjectMapper which writes the JSON.
+	 * @param serviceName  The service.name of the spans.
+	 */
+	public OtlpJson(ObjectMapper objectMapper, String serviceName) {
+		mObjectMapper = objectMapper;
+		mResourceAttributes = Collections.singletonList(attribute("service.name", serviceName));
+	}
+
+	/**
+	 * Encode a batch of spans.
+	 * 
+	 * @param spans The finished spans.
+	 * @return The JSON of the spans, in one line.
+	 * @throws JsonProcessingException if the spans can not be written.
+	 */
+	public byte[] encode(List<Span> spans) throws JsonProcessingException {
+		List<Map<String, Object>> otlp_spans = new ArrayList<>(spans.size());
+		for (Span span : spans)
+			otlp_spans.add(encode(span));
+		Map<String, Object> scope_spans = new LinkedHashMap<>();
+		scope_spans.put("scope", Collections.singletonMap("name", "com.cepheid.cloud.skel"));
+		scope_spans.put("spans", otlp_spans);
+		Map<String, Object> resource_spans = new LinkedHashMap<>();
+		resource_spans.put("resource", Collections.singletonMap("attributes", mResourceAttributes));
+		resource_spans.put("scopeSpans", Collections.singletonList(scope_spans));
+		return mObjectMapper.writeValueAsBytes(
+				Collections.singletonMap("resourceSpans", Collections.singletonList(resource_spans)));
+	}
+
+	private Map<String, Object> encode(Span span) {
+		Map<String, Object> otlp_span = new LinkedHashMap<>();
+		otlp_span.put("traceId", span.getTraceId());
+		otlp_span.put("spanId", span.getSpanId());
+		if (span.getParentSpanId() != null)
+			otlp_span.put("parentSpanId", span.getParentSpanId());
+		otlp_span.put("name", span.getName());
+		otlp_span.put("kind", span.getKind().getOtlpValue());
+		// The 64 bit integers are strings in the JSON of OTLP.
+		otlp_span.put("startTimeUnixNano", String.valueOf(span.getStartEpochNanos()));
+		otlp_span.put("endTimeUnixNano", String.valueOf(span.getStartEpochNanos() + span.getDurationNanos()));
+		List<Map<String, Object>> attributes = new ArrayList<>();
+		attributes.add(attribute("skel.layer", span.getLayer()));
+		span.getAttributes().forEach((key, value) -> attributes.add(attribute(key, value)));
+		otlp_span.put("attributes", attributes);
+		if (span.getError() != null) {
+			Map<String, Object> status = new LinkedHashMap<>();
+			status.put("code", STATUS_ERROR);
+			status.put("message", span.getError());
+			otlp_span.put("status", status);
+		}
+		return otlp_span;
+	}
+
+	private static Map<String, Object> attribute(String key, Object value) {
+		Map<String, Object> attribute = new LinkedHashMap<>();
+		attribute.put("key", key);
+		if (value instanceof Boolean)
+			attribute.put("value", Collections.singletonMap("boolValue", value));
+		else if (value instanceof Double || value instanceof Float)
+			attribute.put("value", Collections.singletonMap("doubleValue", value));
+		else if (value instanceof Number)
+			attribute.put("value", Collections.singletonMap("intValue", value.toString()));
+		else
+			attribute.put("value", Collections.singletonMap("stringValue", String.valueOf(value)));
+		return attribute;
+	}
+}
@@ -0,0 +1,302 @@
+package com.cepheid.cloud.skel.tracing;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/***
+ * This is a Span class which holds a timed operation of a trace, e.g. a
+ * request, an ItemService call or a SQL statement. Every span belongs to a
+ * layer, and its own time, its duration without the time of its child spans,
+ * is added to the layer time of the root span, so the root span knows how the
+ * time of the request was spent per layer. Spans are created and finished by
+ * the Tracer.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+public class Span {
+
+	/**
+	 * The layer of the request spans, Jersey and Jackson.
+	 */
+	public static final String LAYER_HTTP = "http";
+
+	/**
+	 * The layer of the ItemService spans.
+	 */
+	public static final String LAYER_SERVICE = "service";
+
+	/**
+	 * The layer of the SQL statement spans.
+	 */
+	public static final String LAYER_DB = "db";
+
+	private final String mTraceId;
+
+	private final String mSpanId;
+
+	private final String mParentSpanId;
+
+	private final Span mParent;
+
+	private final Span mRoot;
+
+	private final String mName;
+
+	private final SpanKind mKind;
+
+	private final String mLayer;
+
+	private final boolean mSampled;
+
+	private final long mStartNanos;
+
+	private final long mStartEpochNanos;
+
+	private final Map<String, Object> mAttributes = Collections.synchronizedMap(new LinkedHashMap<>());
+
+	private final AtomicLong mChildNanos = new AtomicLong();
+
+	private volatile long mDurationNanos = -1;
+
+	private volatile String mError;
+
+	// Only used by the root span.
+	private final Map<String, LongAdder> mLayerNanos;
+
+	private final AtomicInteger mStatementCount;
+
+	Span(String traceId, String spanId, String parentSpanId, Span parent, String name, SpanKind kind, String layer,
+			boolean sampled, long startNanos, long startEpochNanos) {
+		mTraceId = traceId;
+		mSpanId = spanId;
+		mParentSpanId = parentSpanId;
+		mParent = parent;
+		mRoot = parent == null ? this : parent.mRoot;
+		mName = name;
+		mKind = kind;
+		mLayer = layer;
+		mSampled = sampled;
+		mStartNanos = startNanos;
+		mStartEpochNanos = startEpochNanos;
+		mLayerNanos = parent == null ? new ConcurrentHashMap<>() : null;
+		mStatementCount = parent == null ? new AtomicInteger() : null;
+	}
+
+	/**
+	 * End the span, its duration is added to the child time of its parent, and
+	 * its own time to the layer time of the root span.
+	 * 
+	 * @param endNanos The System.nanoTime() at which the span ended.
+	 * @return false if the span was already ended.
+	 */
+	boolean end(long endNanos) {
+		synchronized (this) {
+			if (mDurationNanos >= 0)
+				return false;
+			mDurationNanos = endNanos - mStartNanos;
+		}
+		if (mParent != null)
+			mParent.mChildNanos.addAndGet(mDurationNanos);
+		mRoot.mLayerNanos.computeIfAbsent(mLayer, layer -> new LongAdder()).add(mDurationNanos - mChildNanos.get());
+		if (LAYER_DB.equals(mLayer))
+			mRoot.mStatementCount.incrementAndGet();
+		return true;
+	}
+
+	/**
+	 * Set an attribute of the span.
+	 * 
+	 * @param key   The key of the attribute.
+	 * @param value The value of the attribute, a String, a Number or a Boolean.
+	 * @return The span.
+	 */
+	public Span setAttribute(String key, Object value) {
+		if (value != null)
+			mAttributes.put(key, value);
+		return this;
+	}
+
+	/**
+	 * Mark the span as failed.
+	 * 
+	 * @param error The error of the span.
+	 */
+	public void setError(Throwable error) {
+		mError = error.getClass().getSimpleName() + (error.getMessage() == null ? "" : ": " + error.getMessage());
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The value of the W3C traceparent header of the span.
+	 */
+	public String getTraceparent() {
+		return "00-" + mTraceId + "-" + mSpanId + (mSampled ? "-01" : "-00");
+	}
+
+	/**
+	 * The own time of a layer so far, which is spent by the spans of the layer
+	 * without the time of their child spans.
+	 * 
+	 * @param layer The layer.
+	 * @return The own time of the layer in nanoseconds, only the root span knows
+	 *         it.
+	 */
+	public long getLayerNanos(String layer) {
+		LongAdder nanos = mRoot.mLayerNanos.get(layer);
+		return nanos == null ? 0 : nanos.sum();
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The number of SQL statements of the trace so far.
+	 */
+	public int getStatementCount() {
+		return mRoot.mStatementCount.get();
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The time of the finished child spans in nanoseconds.
+	 */
+	public long getChildNanos() {
+		return mChildNanos.get();
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The trace id, 32 hex digits.
+	 */
+	public String getTraceId() {
+		return mTraceId;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The span id, 16 hex digits.
+	 */
+	public String getSpanId() {
+		return mSpanId;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The span id of the parent, which may be the span of the caller of
+	 *         the request, or null for the first span of a trace.
+	 */
+	public String getParentSpanId() {
+		return mParentSpanId;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The parent span of this application, or null for a root span.
+	 */
+	public Span getParent() {
+		return mParent;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The root span of the trace in this application.
+	 */
+	public Span getRoot() {
+		return mRoot;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The name of the span.
+	 */
+	public String getName() {
+		return mName;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The kind of the span.
+	 */
+	public SpanKind getKind() {
+		return mKind;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The layer of the span.
+	 */
+	public String getLayer() {
+		return mLayer;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return Whether the span is exported.
+	 */
+	public boolean isSampled() {
+		return mSampled;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The System.nanoTime() at which the span started.
+	 */
+	public long getStartNanos() {
+		return mStartNanos;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The time at which the span started, in nanoseconds since the epoch.
+	 */
+	public long getStartEpochNanos() {
+		return mStartEpochNanos;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The duration of the span in nanoseconds, or -1 if it has not ended.
+	 */
+	public long getDurationNanos() {
+		return mDurationNanos;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return A copy of the attributes of the span.
+	 */
+	public Map<String, Object> getAttributes() {
+		synchronized (mAttributes) {
+			return new LinkedHashMap<>(mAttributes);
+		}
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The error of the span, or null if it did not fail.
+	 */
+	public String getError() {
+		return mError;
+	}
+}
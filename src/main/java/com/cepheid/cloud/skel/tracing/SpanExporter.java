@@ -0,0 +1,23 @@
+package com.cepheid.cloud.skel.tracing;
+
+import java.io.IOException;
+import java.util.List;
+
+/***
+ * This is a SpanExporter interface which sends the finished spans to where they
+ * are kept, it is called by the BatchSpanProcessor with a batch of spans at a
+ * time, from a single thread.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+public interface SpanExporter {
+
+	/**
+	 * Export a batch of spans.
+	 * 
+	 * @param spans The finished spans.
+	 * @throws IOException if the spans can not be exported, they are dropped.
+	 */
+	void export(List<Span> spans) throws IOException;
+}
@@ -0,0 +1,27 @@
+package com.cepheid.cloud.skel.tracing;
+
+/***
+ * This is a SpanKind enum which tells the role of a span, the values are the
+ * span kinds of OTLP.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+public enum SpanKind {
+	INTERNAL(1), SERVER(2), CLIENT(3);
+
+	private final int mOtlpValue;
+
+	SpanKind(int otlpValue) {
+		mOtlpValue = otlpValue;
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The value of the span kind in OTLP.
+	 */
+	public int getOtlpValue() {
+		return mOtlpValue;
+	}
+}
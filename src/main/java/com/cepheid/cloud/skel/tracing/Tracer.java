@@ -0,0 +1,210 @@
+package com.cepheid.cloud.skel.tracing;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/***
+ * This is a Tracer class which creates the spans of the requests, and keeps the
+ * current span of every thread, so the ItemService calls and the SQL statements
+ * of a request become child spans of the request. The trace of a request
+ * continues the trace of its W3C traceparent header, if it has a valid one.
+ * Only the spans of a request are recorded, a thread without a current span
+ * creates no spans at all. The finished spans which are sampled are handed to
+ * the BatchSpanProcessor, if there is one.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+public class Tracer implements AutoCloseable {
+
+	// version-traceid-parentid-flags, the version ff is invalid.
+	private static final Pattern TRACEPARENT = Pattern
+			.compile("(?!ff)[0-9a-f]{2}-(?!0{32})([0-9a-f]{32})-(?!0{16})([0-9a-f]{16})-([0-9a-f]{2})(-.*)?");
+
+	private final boolean mEnabled;
+
+	private final BatchSpanProcessor mProcessor;
+
+	private final ThreadLocal<Span> mCurrent = new ThreadLocal<>();
+
+	// Converts System.nanoTime() into nanoseconds since the epoch.
+	private final long mEpochOffsetNanos = System.currentTimeMillis() * 1_000_000 - System.nanoTime();
+
+	/**
+	 * Constructor for class Tracer with provided settings.
+	 * 
+	 * @param enabled   Whether spans are created.
+	 * @param processor BatchSpanProcessor which exports the finished spans, or
+	 *                  null if they are not exported.
+	 */
+	public Tracer(boolean enabled, BatchSpanProcessor processor) {
+		mEnabled = enabled;
+		mProcessor = processor;
+	}
+
+	/**
+	 * Start the root span of a request, and make it the current span of the
+	 * thread.
+	 * 
+	 * @param name        The name of the span.
+	 * @param traceparent The traceparent header of the request, or null.
+	 * @return The root span, or null if the tracer is disabled.
+	 */
+	public Span startRootSpan(String name, String traceparent) {
+		if (!mEnabled)
+			return null;
+		long start = System.nanoTime();
+		Matcher matcher = traceparent == null ? null : TRACEPARENT.matcher(traceparent.trim());
+		Span span;
+		if (matcher != null && matcher.matches()) {
+			boolean sampled = (Integer.parseInt(matcher.group(3), 16) & 1) == 1;
+			span = new Span(matcher.group(1), newId(), matcher.group(2), null, name, SpanKind.SERVER, Span.LAYER_HTTP,
+					sampled, start, mEpochOffsetNanos + start);
+		} else {
+			span = new Span(newId() + newId(), newId(), null, null, name, SpanKind.SERVER, Span.LAYER_HTTP, true, start,
+					mEpochOffsetNanos + start);
+		}
+		mCurrent.set(span);
+		return span;
+	}
+
+	/**
+	 * Start a child span of the current span, and make it the current span of the
+	 * thread.
+	 * 
+	 * @param name  The name of the span.
+	 * @param kind  The kind of the span.
+	 * @param layer The layer of the span.
+	 * @return The child span, or null if the thread has no current span.
+	 */
+	public Span startSpan(String name, SpanKind kind, String layer) {
+		Span parent = mCurrent.get();
+		if (parent == null)
+			return null;
+		long start = System.nanoTime();
+		Span span = new Span(parent.getTraceId(), newId(), parent.getSpanId(), parent, name, kind, layer,
+				parent.isSampled(), start, mEpochOffsetNanos + start);
+		mCurrent.set(span);
+		return span;
+	}
+
+	/**
+	 * Record a child span of the current span which has already ended, e.g. a SQL
+	 * statement.
+	 * 
+	 * @param name          The name of the span.
+	 * @param kind          The kind of the span.
+	 * @param layer         The layer of the span.
+	 * @param startNanos    The System.nanoTime() at which the span started.
+	 * @param durationNanos The duration of the span.
+	 * @param attributes    The attributes of the span.
+	 */
+	public void recordSpan(String name, SpanKind kind, String layer, long startNanos, long durationNanos,
+			Map<String, Object> attributes) {
+		Span parent = mCurrent.get();
+		if (parent == null)
+			return;
+		Span span = new Span(parent.getTraceId(), newId(), parent.getSpanId(), parent, name, kind, layer,
+				parent.isSampled(), startNanos, mEpochOffsetNanos + startNanos);
+		attributes.forEach(span::setAttribute);
+		if (span.end(startNanos + durationNanos))
+			export(span);
+	}
+
+	/**
+	 * Finish a span, its parent becomes the current span of the thread again. A
+	 * root span may be finished by another thread than the one which started it,
+	 * it is only removed from the current thread.
+	 * 
+	 * @param span The span, null is ignored.
+	 */
+	public void finish(Span span) {
+		if (span == null)
+			return;
+		if (mCurrent.get() == span) {
+			if (span.getParent() == null)
+				mCurrent.remove();
+			else
+				mCurrent.set(span.getParent());
+		}
+		if (span.end(System.nanoTime()))
+			export(span);
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return The current span of the thread, or null.
+	 */
+	public Span current() {
+		return mCurrent.get();
+	}
+
+	/**
+	 * Getter
+	 * 
+	 * @return Whether spans are created.
+	 */
+	public boolean isEnabled() {
+		return mEnabled;
+	}
+
+	/**
+	 * Run a task with the current span of the calling thread, e.g. a task of an
+	 * executor, so the spans of the task belong to the trace which submitted it.
+	 * 
+	 * @param task The task.
+	 * @return The task which runs with the current span.
+	 */
+	public Runnable wrap(Runnable task) {
+		Span span = mCurrent.get();
+		if (span == null)
+			return task;
+		return () -> {
+			Span previous = mCurrent.get();
+			mCurrent.set(span);
+			try {
+				task.run();
+			} finally {
+				if (previous == null)
+					mCurrent.remove();
+				else
+					mCurrent.set(previous);
+			}
+		};
+	}
+
+	/**
+	 * Remove the current span from the calling thread, once the thread has handed
+	 * the rest of its request to another thread, e.g. a suspended request which
+	 * is resumed by a task of an executor.
+	 */
+	public void detach() {
+		mCurrent.remove();
+	}
+
+	/**
+	 * Export the remaining spans, and stop the export.
+	 */
+	@Override
+	public void close() {
+		if (mProcessor != null)
+			mProcessor.shutdown();
+	}
+
+	private void export(Span span) {
+		if (mProcessor != null && span.isSampled())
+			mProcessor.add(span);
+	}
+
+	private static String newId() {
+		long id;
+		do {
+			id = ThreadLocalRandom.current().nextLong();
+		} while (id == 0);
+		String hex = Long.toHexString(id);
+		return "0000000000000000".substring(hex.length()) + hex;
+	}
+}
@@ -0,0 +1,55 @@
+package com.cepheid.cloud.skel.tracing;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/***
+ * This is a TracingAspect class which wraps every public ItemService call of a
+ * traced request in a span of the service layer, named after the method, e.g.
+ * ItemService.FindItemById. A call outside of a request creates no span.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+@Aspect
+@Component
+public class TracingAspect {
+
+	private final Tracer mTracer;
+
+	/**
+	 * Constructor for class TracingAspect with provided tracer.
+	 * 
+	 * @param tracer Tracer which creates the spans.
+	 */
+	@Autowired
+	public TracingAspect(Tracer tracer) {
+		mTracer = tracer;
+	}
+
+	/**
+	 * Trace a public ItemService method.
+	 * 
+	 * @param joinPoint The called ItemService method.
+	 * @return The result of the method.
+	 * @throws Throwable The exception thrown by the method.
+	 */
+	@Around("execution(public * com.cepheid.cloud.skel.service.ItemService.*(..))")
+	public Object traceItemService(ProceedingJoinPoint joinPoint) throws Throwable {
+		if (mTracer.current() == null)
+			return joinPoint.proceed();
+		Span span = mTracer.startSpan("ItemService." + joinPoint.getSignature().getName(), SpanKind.INTERNAL,
+				Span.LAYER_SERVICE);
+		try {
+			return joinPoint.proceed();
+		} catch (Throwable e) {
+			span.setError(e);
+			throw e;
+		} finally {
+			mTracer.finish(span);
+		}
+	}
+}
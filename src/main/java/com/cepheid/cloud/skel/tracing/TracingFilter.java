@@ -0,0 +1,142 @@
+package com.cepheid.cloud.skel.tracing;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Priority;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+
+import org.glassfish.jersey.server.ExtendedUriInfo;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+import org.glassfish.jersey.uri.UriTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/***
+ * This is a TracingFilter class which starts the root span of every Jersey
+ * request, named after the method and the matched resource template, e.g.
+ * {@code GET /app/api/1.0/items/item/{id}}. The span continues the trace of
+ * the W3C traceparent header of the request. The response gets a
+ * traceresponse header with the trace and the span of the request, and a
+ * Server-Timing header with the own time of every layer, e.g.
+ * {@code http;dur=1.2, service;dur=0.4, db;dur=3.1;desc="2 statements", total;dur=4.7},
+ * the times are in milliseconds. The entity is written after the headers, so
+ * the Jackson serialization is not part of the Server-Timing header, it is part
+ * of the root span though, which ends once the request is finished.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+@Component
+@Priority(0)
+public class TracingFilter
+		implements ContainerRequestFilter, ContainerResponseFilter, ApplicationEventListener, RequestEventListener {
+
+	/**
+	 * The header of the trace of the caller.
+	 */
+	public static final String TRACEPARENT = "traceparent";
+
+	/**
+	 * The header of the trace of the response.
+	 */
+	public static final String TRACERESPONSE = "traceresponse";
+
+	/**
+	 * The header of the time spent per layer.
+	 */
+	public static final String SERVER_TIMING = "Server-Timing";
+
+	private static final String SPAN_PROPERTY = Span.class.getName();
+
+	private final Tracer mTracer;
+
+	/**
+	 * Constructor for class TracingFilter with provided tracer.
+	 * 
+	 * @param tracer Tracer which creates the spans.
+	 */
+	@Autowired
+	public TracingFilter(Tracer tracer) {
+		mTracer = tracer;
+	}
+
+	@Override
+	public void filter(ContainerRequestContext requestContext) {
+		String route = route(requestContext);
+		Span span = mTracer.startRootSpan(requestContext.getMethod() + " " + route,
+				requestContext.getHeaderString(TRACEPARENT));
+		if (span == null)
+			return;
+		span.setAttribute("http.method", requestContext.getMethod());
+		span.setAttribute("http.route", route);
+		span.setAttribute("http.target", requestContext.getUriInfo().getRequestUri().getRawPath());
+		requestContext.setProperty(SPAN_PROPERTY, span);
+	}
+
+	@Override
+	public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+		Span span = (Span) requestContext.getProperty(SPAN_PROPERTY);
+		if (span == null)
+			return;
+		span.setAttribute("http.status_code", responseContext.getStatus());
+		responseContext.getHeaders().add(TRACERESPONSE, span.getTraceparent());
+		responseContext.getHeaders().add(SERVER_TIMING, serverTiming(span));
+	}
+
+	@Override
+	public void onEvent(ApplicationEvent event) {
+	}
+
+	@Override
+	public RequestEventListener onRequest(RequestEvent requestEvent) {
+		return mTracer.isEnabled() ? this : null;
+	}
+
+	// The root span ends once the response is written, or the request failed.
+	@Override
+	public void onEvent(RequestEvent event) {
+		if (event.getType() != RequestEvent.Type.ON_EXCEPTION && event.getType() != RequestEvent.Type.FINISHED)
+			return;
+		Span span = (Span) event.getContainerRequest().getProperty(SPAN_PROPERTY);
+		if (span == null)
+			return;
+		if (event.getType() == RequestEvent.Type.ON_EXCEPTION)
+			span.setError(event.getException());
+		else
+			mTracer.finish(span);
+	}
+
+	// The matched templates are listed from the resource method to the resource
+	// class.
+	private static String route(ContainerRequestContext requestContext) {
+		StringBuilder route = new StringBuilder(requestContext.getUriInfo().getBaseUri().getPath());
+		List<UriTemplate> templates = ((ExtendedUriInfo) requestContext.getUriInfo()).getMatchedTemplates();
+		for (int i = templates.size() - 1; i >= 0; i--) {
+			String template = templates.get(i).getTemplate();
+			if (route.length() > 0 && route.charAt(route.length() - 1) == '/' && template.startsWith("/"))
+				route.setLength(route.length() - 1);
+			route.append(template);
+		}
+		return route.toString();
+	}
+
+	private static String serverTiming(Span root) {
+		long total = System.nanoTime() - root.getStartNanos();
+		return "http;dur=" + millis(total - root.getChildNanos()) + ", service;dur="
+				+ millis(root.getLayerNanos(Span.LAYER_SERVICE)) + ", db;dur="
+				+ millis(root.getLayerNanos(Span.LAYER_DB)) + ";desc=\"" + root.getStatementCount()
+				+ " statements\", total;dur=" + millis(total);
+	}
+
+	private static String millis(long nanos) {
+		return String.format(Locale.ROOT, "%.3f", (double) nanos / TimeUnit.MILLISECONDS.toNanos(1));
+	}
+}
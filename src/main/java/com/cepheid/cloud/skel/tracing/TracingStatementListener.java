@@ -0,0 +1,55 @@
+package com.cepheid.cloud.skel.tracing;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.cepheid.cloud.skel.StatementListener;
+
+/***
+ * This is a TracingStatementListener class which records every SQL statement
+ * of a traced request as a span of the db layer, named after the kind of the
+ * statement, e.g. SELECT. The SQL is kept without its bind parameters, these
+ * may hold the data of the users.
+ * 
+ * @author Wei Wang
+ * @version 1.0
+ */
+public class TracingStatementListener implements StatementListener {
+
+	private final Tracer mTracer;
+
+	/**
+	 * Constructor for class TracingStatementListener with provided tracer.
+	 * 
+	 * @param tracer Tracer which records the spans.
+	 */
+	public TracingStatementListener(Tracer tracer) {
+		mTracer = tracer;
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return mTracer.current() != null;
+	}
+
+	@Override
+	public void statementExecuted(String sql, List<Object> parameters, int batchSize, long startNanos,
+			long durationNanos) {
+		Map<String, Object> attributes = new LinkedHashMap<>();
+		attributes.put("db.statement", sql);
+		if (batchSize > 0)
+			attributes.put("db.batch_size", batchSize);
+		mTracer.recordSpan(operation(sql), SpanKind.CLIENT, Span.LAYER_DB, startNanos, durationNanos, attributes);
+	}
+
+	private static String operation(String sql) {
+		if (sql == null)
+			return "SQL";
+		String trimmed = sql.trim();
+		int end = 0;
+		while (end < trimmed.length() && Character.isLetter(trimmed.charAt(end)))
+			end++;
+		return end == 0 ? "SQL" : trimmed.substring(0, end).toUpperCase();
+	}
+}
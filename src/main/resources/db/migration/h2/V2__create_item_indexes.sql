@@ -0,0 +1,5 @@
+-- Indexes for the item lookups by name and by state, and for the join from an
+-- item to its descriptions.
+CREATE INDEX IDX_Item_Name ON item (Name);
+CREATE INDEX IDX_Item_State ON item (State);
+CREATE INDEX IDX_Description_Item_Id ON description (Item_Id);
@@ -0,0 +1,17 @@
+-- The item and description tables as they were created by Hibernate before the
+-- schema was managed by versioned migrations. An existing database which was
+-- created by Hibernate is baselined at this version.
+CREATE TABLE item (
+	Id BIGINT NOT NULL AUTO_INCREMENT,
+	Name VARCHAR(255),
+	State VARCHAR(255),
+	PRIMARY KEY (Id)
+) ENGINE=InnoDB;
+
+CREATE TABLE description (
+	Id BIGINT NOT NULL AUTO_INCREMENT,
+	Content VARCHAR(255),
+	Item_Id BIGINT,
+	PRIMARY KEY (Id),
+	CONSTRAINT FK_Description_Item FOREIGN KEY (Item_Id) REFERENCES item (Id)
+) ENGINE=InnoDB;
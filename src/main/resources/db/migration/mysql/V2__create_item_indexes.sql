@@ -0,0 +1,6 @@
+-- Indexes for the item lookups by name and by state, and for the join from an
+-- item to its descriptions. The index InnoDB created implicitly for the foreign
+-- key on Item_Id is replaced by IDX_Description_Item_Id.
+CREATE INDEX IDX_Item_Name ON item (Name);
+CREATE INDEX IDX_Item_State ON item (State);
+CREATE INDEX IDX_Description_Item_Id ON description (Item_Id);
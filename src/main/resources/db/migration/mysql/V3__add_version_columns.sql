@@ -0,0 +1,4 @@
+-- The version of every item and description, used for the optimistic locking and
+-- as the ETag of an item.
+ALTER TABLE item ADD COLUMN Version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE description ADD COLUMN Version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,11 @@
+-- The sequences of the EntityIdGenerator, as tables with a single next_val row, since
+-- MySQL has no sequences. They continue after the ids which are already used.
+CREATE TABLE item_seq (
+	next_val BIGINT
+) ENGINE=InnoDB;
+INSERT INTO item_seq (next_val) SELECT COALESCE(MAX(Id), 0) + 1 FROM item;
+
+CREATE TABLE description_seq (
+	next_val BIGINT
+) ENGINE=InnoDB;
+INSERT INTO description_seq (next_val) SELECT COALESCE(MAX(Id), 0) + 1 FROM description;
@@ -0,0 +1,18 @@
+-- The outbox of the item changes, a row is inserted in the transaction of every
+-- change, and marked as delivered once the OutboxDispatcher has handed it to its
+-- sink. The undelivered rows are found by the index on Delivered_At.
+CREATE TABLE item_outbox (
+	Id BIGINT NOT NULL AUTO_INCREMENT,
+	Item_Id BIGINT NOT NULL,
+	Type VARCHAR(32) NOT NULL,
+	Created_At DATETIME(3) NOT NULL,
+	Delivered_At DATETIME(3) NULL,
+	PRIMARY KEY (Id)
+) ENGINE=InnoDB;
+CREATE INDEX IDX_Item_Outbox_Delivered_At ON item_outbox (Delivered_At, Id);
+
+-- The sequence of the EntityIdGenerator, see V4.
+CREATE TABLE item_outbox_seq (
+	next_val BIGINT
+) ENGINE=InnoDB;
+INSERT INTO item_outbox_seq (next_val) VALUES (1);
@@ -0,0 +1,96 @@
+package com.cepheid.cloud.skel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation.Builder;
+import javax.ws.rs.core.MediaType;
+
+import org.hibernate.SessionFactory;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.cepheid.cloud.skel.service.ItemJsonCache;
+
+// Switch the Hibernate statistics and the slow query log on through the
+// hibernate endpoint, and check what they report.
+@RunWith(SpringRunner.class)
+public class HibernateStatisticsEndpointTest extends TestBase {
+
+	@Autowired
+	private EntityManagerFactory mEntityManagerFactory;
+
+	@Autowired
+	private ItemJsonCache mItemJsonCache;
+
+	@Autowired
+	private DataSource mDataSource;
+
+	@Autowired
+	private HibernateStatisticsEndpoint mEndpoint;
+
+	@After
+	public void tearDown() {
+		mEndpoint.configure(false, false, 100L);
+		mEndpoint.reset();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testSlowStatementsAreReportedWithMaskedParametersAndCaller() throws Exception {
+		Map<String, Object> configured = endpoint().post(
+				Entity.json("{\"statistics\": true, \"slowQueries\": true, \"slowQueryThreshold\": 0}"), Map.class);
+		assertEquals(Boolean.TRUE, configured.get("enabled"));
+		endpoint().delete().close();
+
+		// Read from the database, not from the caches.
+		mEntityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+		mItemJsonCache.InvalidateAll();
+		Properties query_params = new Properties();
+		query_params.put("name", "Hobbit");
+		query_params.put("expand", "descriptions");
+		getQueryBuilder("/app/api/1.0/items/item", query_params).get().close();
+
+		Map<String, Object> statistics = endpoint().get(Map.class);
+		Map<String, Object> queries = (Map<String, Object>) statistics.get("queries");
+		assertTrue(((Number) queries.get("executionCount")).longValue() > 0);
+		Map<String, Object> entities = (Map<String, Object>) statistics.get("entities");
+		assertTrue(entities.containsKey("com.cepheid.cloud.skel.model.Item"));
+		Map<String, Object> slow_queries = (Map<String, Object>) statistics.get("slowQueries");
+		List<Map<String, Object>> statements = (List<Map<String, Object>>) slow_queries.get("statements");
+		assertTrue(statements.stream()
+				.anyMatch(statement -> "ItemService.FindItemByName".equals(statement.get("caller"))
+						&& ((List<Object>) statement.get("parameters")).contains("<String>")));
+		// The values of the users are not shown.
+		assertFalse(statements.stream()
+				.anyMatch(statement -> ((List<Object>) statement.get("parameters")).contains("Hobbit")));
+	}
+
+	@Test
+	public void testConnectionsAreOnlyWrappedWhileTheLogIsEnabled() throws Exception {
+		try (Connection connection = mDataSource.getConnection()) {
+			assertFalse(Proxy.isProxyClass(connection.getClass()));
+		}
+		mEndpoint.configure(null, true, null);
+		try (Connection connection = mDataSource.getConnection()) {
+			assertTrue(Proxy.isProxyClass(connection.getClass()));
+		}
+	}
+
+	private Builder endpoint() {
+		return mClient.target("http://localhost:" + mPort + "/actuator/hibernate").request(MediaType.APPLICATION_JSON);
+	}
+}
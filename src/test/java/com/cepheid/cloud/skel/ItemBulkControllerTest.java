@@ -0,0 +1,102 @@
+package com.cepheid.cloud.skel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.Response.Status;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.cepheid.cloud.skel.controller.ItemBulkController;
+import com.cepheid.cloud.skel.model.Description;
+import com.cepheid.cloud.skel.model.Item;
+import com.cepheid.cloud.skel.model.ItemState;
+import com.cepheid.cloud.skel.service.BulkItemResult;
+import com.cepheid.cloud.skel.service.BulkItemStatus;
+
+@RunWith(SpringRunner.class)
+public class ItemBulkControllerTest extends TestBase {
+
+	private static final GenericType<List<BulkItemResult>> RESULT_LIST = new GenericType<List<BulkItemResult>>() {
+	};
+
+	@Test
+	public void testBulkAddUpdateAndDeleteItems() throws Exception {
+		List<Item> items = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			Item item = new Item("Bulk Name " + i, ItemState.UNDEFINED);
+			item.addDescription(new Description("This is a bulk content " + i));
+			items.add(item);
+		}
+		var added = getBuilder("/app/api/1.0/items/bulk").post(Entity.json(items), RESULT_LIST);
+		List<Long> ids = added.stream().map(BulkItemResult::getId).collect(Collectors.toList());
+		try {
+			assertEquals(3, added.size());
+			for (int i = 0; i < 3; i++) {
+				assertEquals(i, added.get(i).getIndex());
+				assertEquals(BulkItemStatus.CREATED, added.get(i).getStatus());
+				assertNotNull(added.get(i).getId());
+			}
+			Item first_item = getBuilder("/app/api/1.0/items/item/" + ids.get(0)).get(Item.class);
+			assertEquals("Bulk Name 0", first_item.getName());
+			assertEquals(1, first_item.getDescriptions().size());
+
+			// Update as newline delimited json, with a current version, an outdated
+			// version and an unknown id.
+			String updates = "{\"id\":" + ids.get(0) + ",\"version\":" + added.get(0).getVersion()
+					+ ",\"name\":\"Bulk New Name 0\",\"state\":\"UNDEFINED\"}\n" + "{\"id\":" + ids.get(1)
+					+ ",\"version\":" + (added.get(1).getVersion() + 1) + ",\"name\":\"Bulk Lost Name 1\"}\n"
+					+ "{\"id\":100,\"name\":\"Bulk Unknown Name\"}\n";
+			var updated = getBuilder("/app/api/1.0/items/bulk")
+					.put(Entity.entity(updates, ItemBulkController.APPLICATION_NDJSON), RESULT_LIST);
+			assertEquals(3, updated.size());
+			assertEquals(BulkItemStatus.UPDATED, updated.get(0).getStatus());
+			assertEquals(BulkItemStatus.CONFLICT, updated.get(1).getStatus());
+			assertEquals(BulkItemStatus.NOT_FOUND, updated.get(2).getStatus());
+			assertEquals("Bulk New Name 0", getBuilder("/app/api/1.0/items/item/" + ids.get(0)).get(Item.class).getName());
+			assertEquals("Bulk Name 1", getBuilder("/app/api/1.0/items/item/" + ids.get(1)).get(Item.class).getName());
+		} finally {
+			String deletes = ids.stream().map(id -> "{\"id\":" + id + "}").collect(Collectors.joining(",", "[", "]"));
+			var deleted = getBuilder("/app/api/1.0/items/bulk/delete").post(Entity.json(deletes), RESULT_LIST);
+			deleted.forEach(result -> assertEquals(BulkItemStatus.DELETED, result.getStatus()));
+		}
+		assertEquals(Status.INTERNAL_SERVER_ERROR.getStatusCode(),
+				getBuilder("/app/api/1.0/items/item/" + ids.get(0)).get().getStatus());
+	}
+
+	@Test
+	public void testBulkAddReportsOnlyTheFailingItems() throws Exception {
+		// The name of the second item is too long for the name column, and the third
+		// item has an unknown state.
+		String too_long_name = "x".repeat(300);
+		String items = "[{\"name\":\"Bulk Good Name 0\",\"state\":\"UNDEFINED\"},"
+				+ "{\"name\":\"" + too_long_name + "\",\"state\":\"UNDEFINED\"},"
+				+ "{\"name\":\"Bulk Bad State\",\"state\":\"UNKNOWN\"},"
+				+ "{\"name\":\"Bulk Good Name 3\",\"state\":\"UNDEFINED\"}]";
+		var added = getBuilder("/app/api/1.0/items/bulk").post(Entity.json(items), RESULT_LIST);
+		try {
+			assertEquals(4, added.size());
+			assertEquals(BulkItemStatus.CREATED, added.get(0).getStatus());
+			assertEquals(BulkItemStatus.FAILED, added.get(1).getStatus());
+			assertNull(added.get(1).getId());
+			assertEquals(BulkItemStatus.INVALID, added.get(2).getStatus());
+			assertEquals(BulkItemStatus.CREATED, added.get(3).getStatus());
+			assertEquals("Bulk Good Name 3",
+					getBuilder("/app/api/1.0/items/item/" + added.get(3).getId()).get(Item.class).getName());
+		} finally {
+			String deletes = added.stream().filter(result -> result.getStatus() == BulkItemStatus.CREATED)
+					.map(result -> "{\"id\":" + result.getId() + "}").collect(Collectors.joining("\n"));
+			getBuilder("/app/api/1.0/items/bulk/delete")
+					.post(Entity.entity(deletes, ItemBulkController.APPLICATION_NDJSON), RESULT_LIST);
+		}
+	}
+}
@@ -0,0 +1,190 @@
+package com.cepheid.cloud.skel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response.Status;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.reactivestreams.Subscription;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.cepheid.cloud.skel.event.ItemChange;
+import com.cepheid.cloud.skel.event.ItemChangeType;
+import com.cepheid.cloud.skel.event.ItemChangedEvent;
+import com.cepheid.cloud.skel.model.Description;
+import com.cepheid.cloud.skel.model.Item;
+import com.cepheid.cloud.skel.model.ItemState;
+import com.cepheid.cloud.skel.service.ItemChangeFeed;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import reactor.core.publisher.BaseSubscriber;
+import reactor.netty.DisposableServer;
+
+// Follow the committed changes of the items through the change feed, and check
+// that a slow subscriber gets its changes coalesced, or a reset once it falls
+// behind the feed.
+@RunWith(SpringRunner.class)
+public class ItemChangeFeedTest extends ReactiveTestBase {
+
+	@Autowired
+	private ItemChangeFeed mItemChangeFeed;
+
+	@Autowired
+	private DisposableServer mItemReactiveServer;
+
+	@Autowired
+	private ObjectMapper mObjectMapper;
+
+	@Value("${skel.changes.capacity}")
+	private int mCapacity;
+
+	private final HttpClient mHttpClient = HttpClient.newHttpClient();
+
+	@Test
+	public void testChangesAreStreamedAsServerSentEvents() throws Exception {
+		long after = mItemChangeFeed.CurrentSequence();
+		Item item = new Item("Roverandom", ItemState.VALID);
+		Long id = getBuilder("/app/api/1.0/items").post(Entity.json(item), Item.class).getId();
+		getBuilder("/app/api/1.0/items/item/" + id + "/description").post(Entity.json(new Description("A dog.")));
+
+		// The changes made before the subscription are coalesced into the creation.
+		Stream<String> lines = subscribe("?after=" + after, null);
+		Iterator<String> events = lines.iterator();
+		Map<String, Object> created = nextChange(events, id);
+		assertEquals(ItemChangeType.ITEM_CREATED.name(), created.get("type"));
+		assertEquals(after + 2, ((Number) created.get("sequence")).longValue());
+
+		// A change made while subscribed is streamed right away.
+		getBuilder("/app/api/1.0/items/item/" + id).delete();
+		Map<String, Object> deleted = nextChange(events, id);
+		assertEquals(ItemChangeType.ITEM_DELETED.name(), deleted.get("type"));
+		lines.close();
+
+		// A reconnecting EventSource continues after its last event.
+		lines = subscribe("", created.get("sequence").toString());
+		assertEquals(deleted, nextChange(lines.iterator(), id));
+		lines.close();
+
+		// An unknown sequence gets a reset to the current sequence.
+		lines = subscribe("?after=0", null);
+		events = lines.iterator();
+		assertEquals("id: " + mItemChangeFeed.CurrentSequence(), events.next());
+		assertEquals("event: reset", events.next());
+		lines.close();
+		assertEquals(Status.BAD_REQUEST.getStatusCode(),
+				mHttpClient.send(request("?after=now", null), HttpResponse.BodyHandlers.ofString()).statusCode());
+	}
+
+	@Test
+	public void testSlowSubscriberIsCoalescedOrReset() throws Exception {
+		BlockingQueue<ItemChange> received = new LinkedBlockingQueue<>();
+		SlowSubscriber subscriber = new SlowSubscriber(received);
+		mItemChangeFeed.Subscribe(null).subscribe(subscriber);
+		try {
+			mItemChangeFeed.onItemChanged(new ItemChangedEvent(-1L, ItemChangeType.ITEM_CREATED));
+			assertEquals(ItemChangeType.ITEM_CREATED, poll(received).getType());
+
+			// Nothing is requested while the changes are made.
+			mItemChangeFeed.onItemChanged(new ItemChangedEvent(-1L, ItemChangeType.ITEM_UPDATED));
+			mItemChangeFeed.onItemChanged(new ItemChangedEvent(-2L, ItemChangeType.ITEM_CREATED));
+			mItemChangeFeed.onItemChanged(new ItemChangedEvent(-1L, ItemChangeType.DESCRIPTION_ADDED));
+			mItemChangeFeed.onItemChanged(new ItemChangedEvent(-2L, ItemChangeType.DESCRIPTION_ADDED));
+			long last_sequence = mItemChangeFeed.CurrentSequence();
+			subscriber.request(2);
+			ItemChange first = poll(received);
+			assertEquals(Long.valueOf(-1L), first.getItemId());
+			assertEquals(ItemChangeType.DESCRIPTION_ADDED, first.getType());
+			assertEquals(last_sequence - 1, first.getSequence());
+			ItemChange second = poll(received);
+			assertEquals(Long.valueOf(-2L), second.getItemId());
+			assertEquals(ItemChangeType.ITEM_CREATED, second.getType());
+			assertEquals(last_sequence, second.getSequence());
+
+			// The subscriber falls behind by more than the capacity.
+			for (int i = 0; i <= mCapacity; i++)
+				mItemChangeFeed.onItemChanged(new ItemChangedEvent(-3L - i, ItemChangeType.ITEM_UPDATED));
+			subscriber.request(1);
+			ItemChange reset = poll(received);
+			assertTrue(reset.isReset());
+			assertEquals(mItemChangeFeed.CurrentSequence(), reset.getSequence());
+		} finally {
+			subscriber.dispose();
+		}
+	}
+
+	private Stream<String> subscribe(String query, String last_event_id) throws Exception {
+		HttpResponse<Stream<String>> response = mHttpClient.send(request(query, last_event_id),
+				HttpResponse.BodyHandlers.ofLines());
+		assertEquals(Status.OK.getStatusCode(), response.statusCode());
+		assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith(MediaType.SERVER_SENT_EVENTS));
+		return response.body();
+	}
+
+	private HttpRequest request(String query, String last_event_id) {
+		URI uri = URI.create("http://localhost:" + mItemReactiveServer.port() + "/api/1.0/items/changes" + query);
+		HttpRequest.Builder builder = HttpRequest.newBuilder(uri).header("Accept", MediaType.SERVER_SENT_EVENTS);
+		if (last_event_id != null)
+			builder.header("Last-Event-ID", last_event_id);
+		return builder.build();
+	}
+
+	// Read the events up to the next change of the given item.
+	private Map<String, Object> nextChange(Iterator<String> events, Long id) throws Exception {
+		while (events.hasNext()) {
+			String line = events.next();
+			if (!line.startsWith("data: "))
+				continue;
+			Map<String, Object> change = mObjectMapper.readValue(line.substring("data: ".length()),
+					new TypeReference<Map<String, Object>>() {
+					});
+			if (id.equals(((Number) change.get("itemId")).longValue()))
+				return change;
+		}
+		throw new AssertionError("The change feed has ended");
+	}
+
+	private static ItemChange poll(BlockingQueue<ItemChange> received) throws InterruptedException {
+		ItemChange change = received.poll(10, TimeUnit.SECONDS);
+		assertNotNull(change);
+		return change;
+	}
+
+	// A subscriber which only requests one change to begin with.
+	private static class SlowSubscriber extends BaseSubscriber<ItemChange> {
+
+		private final BlockingQueue<ItemChange> mReceived;
+
+		SlowSubscriber(BlockingQueue<ItemChange> received) {
+			mReceived = received;
+		}
+
+		@Override
+		protected void hookOnSubscribe(Subscription subscription) {
+			subscription.request(1);
+		}
+
+		@Override
+		protected void hookOnNext(ItemChange change) {
+			mReceived.add(change);
+		}
+	}
+}
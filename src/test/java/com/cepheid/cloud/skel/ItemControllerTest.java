@@ -1,32 +1,62 @@
 package com.cepheid.cloud.skel;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
+import java.net.http.HttpResponse;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.Invocation.Builder;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.context.event.ApplicationEventMulticaster;
+import org.springframework.context.support.AbstractApplicationContext;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import com.cepheid.cloud.skel.controller.ItemController;
+import com.cepheid.cloud.skel.event.ItemChangeType;
+import com.cepheid.cloud.skel.event.ItemChangedEvent;
 import com.cepheid.cloud.skel.model.Description;
 import com.cepheid.cloud.skel.model.Item;
 import com.cepheid.cloud.skel.model.ItemState;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.Properties;
 
 @RunWith(SpringRunner.class)
 public class ItemControllerTest extends TestBase {
 
+	@Autowired
+	private ConfigurableApplicationContext mApplicationContext;
+
 	@Test
 	public void testGetItems() throws Exception {
-		Builder itemController = getBuilder("/app/api/1.0/items");
+		Properties queryParam = new Properties();
+		queryParam.setProperty("expand", "descriptions");
+		Builder itemController = getQueryBuilder("/app/api/1.0/items", queryParam);
 
 		var items = itemController.get(new GenericType<Collection<Item>>() {
 		});
@@ -50,6 +80,120 @@ public class ItemControllerTest extends TestBase {
 
 	}
 
+	@Test
+	public void testGetItemsWithLimitReturnsNextCursor() throws Exception {
+		Properties queryParam = new Properties();
+		queryParam.setProperty("limit", "2");
+		Builder itemController = getQueryBuilder("/app/api/1.0/items", queryParam);
+		Response response = itemController.get();
+		assertEquals(Status.OK.getStatusCode(), response.getStatus());
+		var first_page = response.readEntity(new GenericType<List<Item>>() {
+		});
+		// We should only get the first 2 items, and a cursor to the next page.
+		assertEquals(2, first_page.size());
+		String next_cursor = response.getHeaderString(ItemController.NEXT_CURSOR_HEADER);
+		assertEquals(first_page.get(1).getId().toString(), next_cursor);
+		assertNotNull(response.getLink("next"));
+
+		// The next page should start right after the cursor.
+		queryParam.setProperty("after", next_cursor);
+		itemController = getQueryBuilder("/app/api/1.0/items", queryParam);
+		var second_page = itemController.get(new GenericType<List<Item>>() {
+		});
+		assertFalse(second_page.isEmpty());
+		assertTrue(second_page.get(0).getId() > Long.valueOf(next_cursor));
+	}
+
+	@Test
+	public void testGetItemsAsStreamReturnsAllItems() throws Exception {
+		Properties queryParam = new Properties();
+		queryParam.setProperty("expand", "descriptions");
+		Builder itemController = getQueryBuilder("/app/api/1.0/items", queryParam);
+		var items = itemController.get(new GenericType<List<Item>>() {
+		});
+
+		queryParam.setProperty("stream", "true");
+		itemController = getQueryBuilder("/app/api/1.0/items", queryParam);
+		var streamed_items = itemController.get(new GenericType<List<Item>>() {
+		});
+		// The streamed list should be the same as the list of the first page.
+		assertEquals(items.size(), streamed_items.size());
+		for (int i = 0; i < items.size(); i++) {
+			assertEquals(items.get(i).getId(), streamed_items.get(i).getId());
+			assertEquals(items.get(i).getDescriptions().size(), streamed_items.get(i).getDescriptions().size());
+		}
+	}
+
+	@Test
+	public void testGetItemsWithoutExpandReturnsOnlyTheSelectedFields() throws Exception {
+		// Without expand the items are written without their descriptions.
+		Response response = getBuilder("/app/api/1.0/items").get();
+		assertEquals(Status.OK.getStatusCode(), response.getStatus());
+		var items = response.readEntity(new GenericType<List<Map<String, Object>>>() {
+		});
+		assertEquals(Set.of("id", "version", "name", "state", "descriptionCount"), items.get(0).keySet());
+		assertEquals(2, items.get(0).get("descriptionCount"));
+		EntityTag summary_etag = response.getEntityTag();
+
+		// The fields select the written fields, the id is always written.
+		Properties queryParam = new Properties();
+		queryParam.setProperty("fields", "name");
+		response = getQueryBuilder("/app/api/1.0/items", queryParam).get();
+		items = response.readEntity(new GenericType<List<Map<String, Object>>>() {
+		});
+		assertEquals(Set.of("id", "name"), items.get(0).keySet());
+		assertFalse(summary_etag.equals(response.getEntityTag()));
+
+		queryParam.setProperty("fields", "name,descriptions");
+		queryParam.setProperty("stream", "true");
+		items = getQueryBuilder("/app/api/1.0/items", queryParam).get(new GenericType<List<Map<String, Object>>>() {
+		});
+		assertEquals(Set.of("id", "name", "descriptions"), items.get(0).keySet());
+
+		queryParam.setProperty("fields", "name,price");
+		response = getQueryBuilder("/app/api/1.0/items", queryParam).get();
+		assertEquals(Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+	}
+
+	@Test
+	public void testGetDescriptionsReturnsThePagesOfTheDescriptions() throws Exception {
+		Item item = new Item("Description Page Name", ItemState.UNDEFINED);
+		for (int i = 0; i < 5; i++)
+			item.addDescription(new Description("This is description page content " + i + "."));
+		Long item_id = getBuilder("/app/api/1.0/items").post(Entity.json(item), Item.class).getId();
+		String item_path = "/app/api/1.0/items/item/" + item_id;
+		try {
+			Properties queryParam = new Properties();
+			queryParam.setProperty("limit", "3");
+			Response response = getQueryBuilder(item_path + "/descriptions", queryParam).get();
+			assertEquals(Status.OK.getStatusCode(), response.getStatus());
+			var first_page = response.readEntity(new GenericType<List<Description>>() {
+			});
+			assertEquals(3, first_page.size());
+			assertEquals("This is description page content 0.", first_page.get(0).getContent());
+			String next_cursor = response.getHeaderString(ItemController.NEXT_CURSOR_HEADER);
+			assertEquals(first_page.get(2).getId().toString(), next_cursor);
+			assertNotNull(response.getLink("next"));
+
+			// The unchanged page should not be sent again.
+			response = getQueryBuilder(item_path + "/descriptions", queryParam)
+					.header(HttpHeaders.IF_NONE_MATCH, response.getEntityTag()).get();
+			assertEquals(Status.NOT_MODIFIED.getStatusCode(), response.getStatus());
+
+			queryParam.setProperty("after", next_cursor);
+			response = getQueryBuilder(item_path + "/descriptions", queryParam).get();
+			var second_page = response.readEntity(new GenericType<List<Description>>() {
+			});
+			assertEquals(2, second_page.size());
+			assertEquals("This is description page content 4.", second_page.get(1).getContent());
+			assertNull(response.getHeaderString(ItemController.NEXT_CURSOR_HEADER));
+		} finally {
+			getBuilder(item_path).delete();
+		}
+		Response response = getBuilder(item_path + "/descriptions").get();
+		assertEquals(Status.INTERNAL_SERVER_ERROR.getStatusCode(), response.getStatus());
+	}
+
 	@Test
 	public void testGetItemById() throws Exception {
 		Builder itemController = getBuilder("/app/api/1.0/items/item/2");
@@ -80,6 +224,7 @@ public class ItemControllerTest extends TestBase {
 	public void testGetItemByName() throws Exception {
 		Properties queryParam = new Properties();
 		queryParam.setProperty("name", "Silmarillion");
+		queryParam.setProperty("expand", "descriptions");
 		Builder itemController = getQueryBuilder("/app/api/1.0/items/item", queryParam);
 
 		var items = itemController.get(new GenericType<Collection<Item>>() {
@@ -157,6 +302,47 @@ public class ItemControllerTest extends TestBase {
 		assertEquals(ItemState.VALID, item.getState());
 	}
 
+	@Test
+	public void testGetItemByNameContainsAndDescriptionContent() throws Exception {
+		Properties queryParam = new Properties();
+		queryParam.setProperty("nameContains", "HOBB");
+		queryParam.setProperty("content", "another test");
+		queryParam.setProperty("expand", "descriptions");
+		Builder itemController = getQueryBuilder("/app/api/1.0/items/item", queryParam);
+
+		var items = itemController.get(new GenericType<Collection<Item>>() {
+		});
+		assertNotNull(items);
+		// We should only have exactly 1 entry match the case.
+		assertEquals(1, items.size());
+
+		Item item = items.stream().findFirst().orElse(null);
+		assertNotNull(item);
+		assertEquals("Hobbit", item.getName());
+		// All the descriptions of the item should be returned, not only the matched one.
+		assertEquals(2, item.getDescriptions().size());
+
+		// Without expand only the number of the descriptions is returned.
+		queryParam.remove("expand");
+		var summaries = getQueryBuilder("/app/api/1.0/items/item", queryParam)
+				.get(new GenericType<List<Map<String, Object>>>() {
+				});
+		assertEquals(1, summaries.size());
+		assertEquals("Hobbit", summaries.get(0).get("name"));
+		assertEquals(2, summaries.get(0).get("descriptionCount"));
+		assertFalse(summaries.get(0).containsKey("descriptions"));
+	}
+
+	@Test(expected = Exception.class)
+	public void testGetItemByDescriptionContentWithNoMatchCauseException() throws Exception {
+		Properties queryParam = new Properties();
+		queryParam.setProperty("content", "Content does not exist");
+		Builder itemController = getQueryBuilder("/app/api/1.0/items/item", queryParam);
+
+		itemController.get(new GenericType<Collection<Item>>() {
+		});
+	}
+
 	@Test(expected = Exception.class)
 	public void testGetItemByNameAndStateWithNoMatchCauseException() throws Exception {
 		Properties queryParam = new Properties();
@@ -208,6 +394,37 @@ public class ItemControllerTest extends TestBase {
 		assertEquals(content, first_description.getContent());
 	}
 
+	@Test
+	public void testAddNewItemWithUnknownIdAndVersionStartsAtFirstVersion() throws Exception {
+		final Long unknown_id = 987654321L;
+		Item item = new Item("Versioned New Name", ItemState.VALID);
+		item.setId(unknown_id);
+		item.setVersion(7L);
+		item.addDescription(new Description("This is a versioned new content."));
+		Response response = getBuilder("/app/api/1.0/items").post(Entity.json(item));
+		assertEquals(Status.CREATED.getStatusCode(), response.getStatus());
+		Item return_item = response.readEntity(Item.class);
+		String item_path = "/app/api/1.0/items/item/" + return_item.getId();
+		try {
+			// The item gets a generated id and the first version, like any new item,
+			// the id and the version of the client are not kept.
+			assertFalse(unknown_id.equals(return_item.getId()));
+			assertEquals(Long.valueOf(0L), return_item.getVersion());
+			Item n_item = getBuilder(item_path).get(Item.class);
+			assertEquals(Long.valueOf(0L), n_item.getVersion());
+			assertEquals(1, n_item.getDescriptions().size());
+
+			// The item can be updated from its first version.
+			n_item.setName("Versioned Updated Name");
+			response = getBuilder(item_path).header(HttpHeaders.IF_MATCH, getBuilder(item_path).get().getEntityTag())
+					.put(Entity.json(n_item));
+			assertEquals(Status.ACCEPTED.getStatusCode(), response.getStatus());
+			assertEquals(Long.valueOf(1L), response.readEntity(Item.class).getVersion());
+		} finally {
+			getBuilder(item_path).delete();
+		}
+	}
+
 	@Test
 	public void testAddNewItemWithExistingIdCauseAnUpdate() throws Exception {
 		final String content = "This is a completely new content.";
@@ -353,6 +570,169 @@ public class ItemControllerTest extends TestBase {
 		assertNotNull(find_in_content.getId());
 	}
 	
+	@Test
+	public void testGetItemByIdAfterEveryChangeReturnsTheChangedItem() throws Exception {
+		Item item = new Item("Cached Name", ItemState.UNDEFINED);
+		item.addDescription(new Description("This is a cached content."));
+		Builder itemController = getBuilder("/app/api/1.0/items");
+		Long item_id = itemController.post(Entity.json(item), Item.class).getId();
+		String item_path = "/app/api/1.0/items/item/" + item_id;
+		try {
+			assertEquals(1, getBuilder(item_path).get(Item.class).getDescriptions().size());
+
+			// Every change of the item should be visible in the next read of it.
+			getBuilder(item_path + "/description").post(Entity.json(new Description("This is an added content.")),
+					Item.class);
+			Item n_item = getBuilder(item_path).get(Item.class);
+			assertEquals(2, n_item.getDescriptions().size());
+
+			Description added_description = n_item.getDescriptions().stream()
+					.filter(d -> d.getContent().equals("This is an added content.")).findFirst().get();
+			added_description.setContent("This is an updated content.");
+			getBuilder(item_path + "/description").put(Entity.json(added_description), Item.class);
+			n_item = getBuilder(item_path).get(Item.class);
+			assertTrue(n_item.getDescriptions().stream()
+					.anyMatch(d -> d.getContent().equals("This is an updated content.")));
+
+			Properties queryParam = new Properties();
+			queryParam.setProperty("descriptionId", added_description.getId().toString());
+			getQueryBuilder(item_path + "/description", queryParam).delete();
+			assertEquals(1, getBuilder(item_path).get(Item.class).getDescriptions().size());
+		} finally {
+			getBuilder(item_path).delete();
+		}
+		Response response = getBuilder(item_path).get();
+		assertEquals(Status.INTERNAL_SERVER_ERROR.getStatusCode(), response.getStatus());
+	}
+
+	@Test
+	public void testGetItemWithMatchingETagReturnsNotModified() throws Exception {
+		Response response = getBuilder("/app/api/1.0/items/item/1").get();
+		assertEquals(Status.OK.getStatusCode(), response.getStatus());
+		EntityTag etag = response.getEntityTag();
+		assertNotNull(etag);
+		assertFalse(etag.isWeak());
+
+		// The unchanged item should not be sent again.
+		response = getBuilder("/app/api/1.0/items/item/1").header(HttpHeaders.IF_NONE_MATCH, etag).get();
+		assertEquals(Status.NOT_MODIFIED.getStatusCode(), response.getStatus());
+		assertEquals(etag, response.getEntityTag());
+
+		// The same holds for a page of the item list.
+		Properties queryParam = new Properties();
+		queryParam.setProperty("limit", "2");
+		response = getQueryBuilder("/app/api/1.0/items", queryParam).get();
+		assertEquals(Status.OK.getStatusCode(), response.getStatus());
+		etag = response.getEntityTag();
+		response = getQueryBuilder("/app/api/1.0/items", queryParam).header(HttpHeaders.IF_NONE_MATCH, etag).get();
+		assertEquals(Status.NOT_MODIFIED.getStatusCode(), response.getStatus());
+		assertNotNull(response.getHeaderString(ItemController.NEXT_CURSOR_HEADER));
+	}
+
+	@Test
+	public void testConditionalWritesWithOutdatedETagAreRejected() throws Exception {
+		Item item = new Item("Conditional Name", ItemState.UNDEFINED);
+		item.addDescription(new Description("This is a conditional content."));
+		Long item_id = getBuilder("/app/api/1.0/items").post(Entity.json(item), Item.class).getId();
+		String item_path = "/app/api/1.0/items/item/" + item_id;
+		try {
+			EntityTag first_etag = getBuilder(item_path).get().getEntityTag();
+
+			// An update based on the current version should pass, and change the ETag.
+			Item n_item = getBuilder(item_path).get(Item.class);
+			n_item.setName("Conditional New Name");
+			Response response = getBuilder(item_path).header(HttpHeaders.IF_MATCH, first_etag)
+					.put(Entity.json(n_item));
+			assertEquals(Status.ACCEPTED.getStatusCode(), response.getStatus());
+			EntityTag second_etag = response.getEntityTag();
+			assertFalse(first_etag.equals(second_etag));
+			assertEquals(second_etag, getBuilder(item_path).get().getEntityTag());
+
+			// Another update based on the first version should be rejected.
+			n_item.setName("Conditional Lost Name");
+			response = getBuilder(item_path).header(HttpHeaders.IF_MATCH, first_etag).put(Entity.json(n_item));
+			assertEquals(Status.PRECONDITION_FAILED.getStatusCode(), response.getStatus());
+			assertEquals("Conditional New Name", getBuilder(item_path).get(Item.class).getName());
+
+			// A change of a description should change the ETag of the item too.
+			Description description = getBuilder(item_path).get(Item.class).getDescriptions().iterator().next();
+			description.setContent("This is a conditional new content.");
+			response = getBuilder(item_path + "/description").header(HttpHeaders.IF_MATCH, first_etag)
+					.put(Entity.json(description));
+			assertEquals(Status.PRECONDITION_FAILED.getStatusCode(), response.getStatus());
+			response = getBuilder(item_path + "/description").header(HttpHeaders.IF_MATCH, second_etag)
+					.put(Entity.json(description));
+			assertEquals(Status.ACCEPTED.getStatusCode(), response.getStatus());
+			EntityTag third_etag = response.getEntityTag();
+			assertFalse(second_etag.equals(third_etag));
+			assertEquals(third_etag, getBuilder(item_path).get().getEntityTag());
+
+			Properties queryParam = new Properties();
+			queryParam.setProperty("descriptionId", description.getId().toString());
+			response = getQueryBuilder(item_path + "/description", queryParam).header(HttpHeaders.IF_MATCH, second_etag)
+					.delete();
+			assertEquals(Status.PRECONDITION_FAILED.getStatusCode(), response.getStatus());
+			response = getQueryBuilder(item_path + "/description", queryParam).header(HttpHeaders.IF_MATCH, third_etag)
+					.delete();
+			assertEquals(Status.ACCEPTED.getStatusCode(), response.getStatus());
+			assertTrue(getBuilder(item_path).get(Item.class).getDescriptions().isEmpty());
+		} finally {
+			getBuilder(item_path).delete();
+		}
+	}
+
+	@Test
+	public void testRacingUpdatesWithoutIfMatchThenConflict() throws Exception {
+		Item item = new Item("Racing Name", ItemState.UNDEFINED);
+		Long item_id = getBuilder("/app/api/1.0/items").post(Entity.json(item), Item.class).getId();
+		String item_path = "/app/api/1.0/items/item/" + item_id;
+		// The first update is held after it has read and changed the item, until the
+		// second update of the same version is committed.
+		CountDownLatch first_changed = new CountDownLatch(1);
+		CountDownLatch second_committed = new CountDownLatch(1);
+		AtomicBoolean first_update = new AtomicBoolean(true);
+		ApplicationListener<ApplicationEvent> listener = event -> {
+			if (!(event instanceof PayloadApplicationEvent)
+					|| !(((PayloadApplicationEvent<?>) event).getPayload() instanceof ItemChangedEvent))
+				return;
+			ItemChangedEvent change = (ItemChangedEvent) ((PayloadApplicationEvent<?>) event).getPayload();
+			if (item_id.equals(change.getItemId()) && change.getType() == ItemChangeType.ITEM_UPDATED
+					&& first_update.getAndSet(false)) {
+				first_changed.countDown();
+				try {
+					second_committed.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+		mApplicationContext.addApplicationListener(listener);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Item first_item = getBuilder(item_path).get(Item.class);
+			first_item.setName("First Racing Name");
+			Future<Response> first_response = executor
+					.submit(() -> getBuilder(item_path).put(Entity.json(first_item)));
+			assertTrue(first_changed.await(10, TimeUnit.SECONDS));
+
+			// Neither update has an If-Match, so the lost one is a conflict, not a
+			// failed precondition.
+			Item second_item = getBuilder(item_path).get(Item.class);
+			second_item.setName("Second Racing Name");
+			assertEquals(Status.ACCEPTED.getStatusCode(),
+					getBuilder(item_path).put(Entity.json(second_item)).getStatus());
+			second_committed.countDown();
+			assertEquals(Status.CONFLICT.getStatusCode(), first_response.get(10, TimeUnit.SECONDS).getStatus());
+			assertEquals("Second Racing Name", getBuilder(item_path).get(Item.class).getName());
+		} finally {
+			second_committed.countDown();
+			executor.shutdownNow();
+			mApplicationContext.getBean(AbstractApplicationContext.APPLICATION_EVENT_MULTICASTER_BEAN_NAME,
+					ApplicationEventMulticaster.class).removeApplicationListener(listener);
+			getBuilder(item_path).delete();
+		}
+	}
+
 	@Test(expected = Exception.class)
 	public void testAddNewDescriptionToItemWithInvalidItemIdThrowException() throws Exception {
 		final Long item_id = 20L;
@@ -422,4 +802,75 @@ public class ItemControllerTest extends TestBase {
 		// error code.
 		assertEquals(Status.INTERNAL_SERVER_ERROR.getStatusCode(), response.getStatus());
 	}
+
+	@Test
+	public void testMergePatchItemChangesOnlyTheGivenFields() throws Exception {
+		Item item = new Item("Merge Patch Name", ItemState.UNDEFINED);
+		item.addDescription(new Description("This is a merge patch content."));
+		item.addDescription(new Description("This is another merge patch content."));
+		Long item_id = getBuilder("/app/api/1.0/items").post(Entity.json(item), Item.class).getId();
+		String item_path = "/app/api/1.0/items/item/" + item_id;
+		try {
+			Item n_item = getBuilder(item_path).get(Item.class);
+			String first_etag = getBuilder(item_path).get().getHeaderString(HttpHeaders.ETAG);
+			HttpResponse<String> response = patch(item_path, "application/merge-patch+json",
+					"{\"name\":\"Merge Patch New Name\"}", first_etag);
+			assertEquals(Status.ACCEPTED.getStatusCode(), response.statusCode());
+			Item p_item = new ObjectMapper().readValue(response.body(), Item.class);
+			assertEquals("Merge Patch New Name", p_item.getName());
+			assertEquals(ItemState.UNDEFINED, p_item.getState());
+			// The descriptions are kept as they were, with the same ids.
+			assertEquals(n_item.getDescriptions(), p_item.getDescriptions());
+			assertEquals(response.headers().firstValue(HttpHeaders.ETAG).get(),
+					getBuilder(item_path).get().getHeaderString(HttpHeaders.ETAG));
+
+			// The outdated ETag should be rejected.
+			response = patch(item_path, "application/merge-patch+json", "{\"state\":\"VALID\"}", first_etag);
+			assertEquals(Status.PRECONDITION_FAILED.getStatusCode(), response.statusCode());
+		} finally {
+			getBuilder(item_path).delete();
+		}
+	}
+
+	@Test
+	public void testJsonPatchItemDiffsTheDescriptionsById() throws Exception {
+		Item item = new Item("Json Patch Name", ItemState.UNDEFINED);
+		item.addDescription(new Description("This is a json patch content."));
+		item.addDescription(new Description("This is another json patch content."));
+		Long item_id = getBuilder("/app/api/1.0/items").post(Entity.json(item), Item.class).getId();
+		String item_path = "/app/api/1.0/items/item/" + item_id;
+		try {
+			Item n_item = getBuilder(item_path).get(Item.class);
+			Long kept_id = n_item.getDescriptions().get(1).getId();
+			HttpResponse<String> response = patch(item_path, "application/json-patch+json",
+					"[{\"op\":\"test\",\"path\":\"/name\",\"value\":\"Json Patch Name\"},"
+							+ "{\"op\":\"replace\",\"path\":\"/state\",\"value\":\"VALID\"},"
+							+ "{\"op\":\"remove\",\"path\":\"/descriptions/0\"},"
+							+ "{\"op\":\"add\",\"path\":\"/descriptions/-\","
+							+ "\"value\":{\"content\":\"This is an added json patch content.\"}}]", null);
+			assertEquals(Status.ACCEPTED.getStatusCode(), response.statusCode());
+
+			Item p_item = getBuilder(item_path).get(Item.class);
+			assertEquals(ItemState.VALID, p_item.getState());
+			assertEquals(2, p_item.getDescriptions().size());
+			// The untouched description should keep its id.
+			assertTrue(p_item.getDescriptions().stream().anyMatch(d -> kept_id.equals(d.getId())));
+			assertTrue(p_item.getDescriptions().stream()
+					.anyMatch(d -> d.getContent().equals("This is an added json patch content.")));
+
+			// A failed test should not change anything.
+			response = patch(item_path, "application/json-patch+json",
+					"[{\"op\":\"test\",\"path\":\"/name\",\"value\":\"Json Patch Other Name\"},"
+							+ "{\"op\":\"replace\",\"path\":\"/name\",\"value\":\"Json Patch Lost Name\"}]",
+					null);
+			assertEquals(Status.CONFLICT.getStatusCode(), response.statusCode());
+			assertEquals("Json Patch Name", getBuilder(item_path).get(Item.class).getName());
+
+			// A patch which is not an array of operations is not valid.
+			response = patch(item_path, "application/json-patch+json", "{\"name\":\"Json Patch\"}", null);
+			assertEquals(Status.BAD_REQUEST.getStatusCode(), response.statusCode());
+		} finally {
+			getBuilder(item_path).delete();
+		}
+	}
 }
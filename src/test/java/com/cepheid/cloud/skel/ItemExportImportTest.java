@@ -0,0 +1,223 @@
+package com.cepheid.cloud.skel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.GenericType;
+
+import org.glassfish.jersey.media.multipart.FormDataMultiPart;
+import org.glassfish.jersey.media.multipart.file.StreamDataBodyPart;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.cepheid.cloud.skel.controller.ItemBulkController;
+import com.cepheid.cloud.skel.model.Description;
+import com.cepheid.cloud.skel.model.Item;
+import com.cepheid.cloud.skel.model.ItemState;
+import com.cepheid.cloud.skel.service.ItemService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+
+// Check that the items are exported as ndjson and csv with gzip, and that an
+// import is saved while the file is still being uploaded.
+@RunWith(SpringRunner.class)
+public class ItemExportImportTest extends TestBase {
+
+	private static final GenericType<Map<String, Object>> IMPORT = new GenericType<Map<String, Object>>() {
+	};
+
+	@Autowired
+	private ItemService mItemService;
+
+	@Autowired
+	private ObjectMapper mObjectMapper;
+
+	@Test
+	public void testItemsAreExportedAsNdjsonAndCsv() throws Exception {
+		List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			Item item = new Item("Export, \"Name\" " + i, ItemState.VALID);
+			// Long enough for the server to compress the export.
+			item.addDescription(new Description("Export content " + i + " " + "x".repeat(200)));
+			item.addDescription(new Description("Export content [" + i + "] " + "y".repeat(200)));
+			item.addDescription(new Description("Export content \"" + i + "\" " + "z".repeat(200)));
+			ids.add(getBuilder("/app/api/1.0/items").post(Entity.json(item), Item.class).getId());
+		}
+		try {
+			List<Map<String, Object>> lines = new ArrayList<>();
+			for (String line : export("ndjson", ItemBulkController.APPLICATION_NDJSON).split("\n"))
+				lines.add(mObjectMapper.readValue(line, new TypeReference<Map<String, Object>>() {
+				}));
+			List<Map<String, Object>> exported = lines.stream()
+					.filter(line -> ids.contains(((Number) line.get("id")).longValue())).collect(Collectors.toList());
+			assertEquals(3, exported.size());
+			assertEquals("Export, \"Name\" 0", exported.get(0).get("name"));
+			assertEquals(3, ((List<?>) exported.get(0).get("descriptions")).size());
+
+			List<ObjectNode> rows = new CsvMapper().readerFor(ObjectNode.class)
+					.with(CsvSchema.emptySchema().withHeader()).<ObjectNode>readValues(export("csv", "text/csv"))
+					.readAll();
+			List<ObjectNode> exported_rows = rows.stream().filter(row -> ids.contains(row.get("id").asLong()))
+					.collect(Collectors.toList());
+			assertEquals(3, exported_rows.size());
+			assertEquals("Export, \"Name\" 1", exported_rows.get(1).get("name").asText());
+			assertEquals("VALID", exported_rows.get(1).get("state").asText());
+			assertEquals(List.of("Export content 1 " + "x".repeat(200), "Export content [1] " + "y".repeat(200),
+					"Export content \"1\" " + "z".repeat(200)),
+					mObjectMapper.readValue(exported_rows.get(1).get("descriptions").asText(), List.class));
+		} finally {
+			ids.forEach(id -> getBuilder("/app/api/1.0/items/item/" + id).delete());
+		}
+	}
+
+	@Test
+	public void testImportIsSavedWhileTheFileIsUploaded() throws Exception {
+		PipedOutputStream upload = new PipedOutputStream();
+		PipedInputStream body = new PipedInputStream(upload, 64 * 1024);
+		HttpRequest request = HttpRequest
+				.newBuilder(URI.create("http://localhost:" + mPort + "/app/api/1.0/items/import"))
+				.header("Content-Type", "multipart/form-data; boundary=import-boundary")
+				.POST(HttpRequest.BodyPublishers.ofInputStream(() -> body)).build();
+		CompletableFuture<HttpResponse<String>> response = HttpClient.newHttpClient().sendAsync(request,
+				HttpResponse.BodyHandlers.ofString());
+		try {
+			write(upload, "--import-boundary\r\nContent-Disposition: form-data; name=\"note\"\r\n\r\nignored\r\n"
+					+ "--import-boundary\r\n"
+					+ "Content-Disposition: form-data; name=\"file\"; filename=\"items.ndjson\"\r\n"
+					+ "Content-Type: application/x-ndjson\r\n\r\n");
+			// The ids of the descriptions of the exported items are ignored.
+			String line = "{\"name\":\"Import Stream Item\",\"state\":\"VALID\","
+					+ "\"descriptions\":[{\"id\":1,\"version\":0,\"content\":\"Import content\"}]}\n";
+			for (int i = 0; i < 900; i++)
+				write(upload, line);
+
+			// The first chunk of 500 items is saved before the upload is finished, the
+			// parser only reads a few kB ahead of the items which are imported.
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+			long imported = 0;
+			while (imported < 500 && System.nanoTime() < deadline) {
+				Thread.sleep(50);
+				Collection<Map<String, Object>> running = getBuilder("/app/api/1.0/items/import")
+						.get(new GenericType<List<Map<String, Object>>>() {
+						});
+				imported = running.stream().mapToLong(i -> ((Number) i.get("items")).longValue()).sum();
+			}
+			assertEquals(500, imported);
+			assertTrue(!response.isDone());
+
+			write(upload, "{\"name\":\"Import Stream Item\",\"state\":\"UNKNOWN\"}\n\r\n--import-boundary--\r\n");
+			upload.close();
+			HttpResponse<String> result = response.get(10, TimeUnit.SECONDS);
+			assertEquals(200, result.statusCode());
+			Map<String, Object> item_import = mObjectMapper.readValue(result.body(),
+					new TypeReference<Map<String, Object>>() {
+					});
+			assertEquals(901, item_import.get("items"));
+			assertEquals(Map.of("CREATED", 900, "INVALID", 1), item_import.get("counts"));
+			assertEquals(900, ((Map<?, ?>) ((List<?>) item_import.get("errors")).get(0)).get("index"));
+			assertTrue(getBuilder("/app/api/1.0/items/import").get(List.class).isEmpty());
+		} finally {
+			upload.close();
+			deleteItemsByName("Import Stream Item");
+		}
+	}
+
+	@Test
+	public void testGzipCsvIsImported() throws Exception {
+		Item item = new Item("Import Existing Name", ItemState.UNDEFINED);
+		item.addDescription(new Description("Import old content"));
+		Long id = getBuilder("/app/api/1.0/items").post(Entity.json(item), Item.class).getId();
+		try {
+			// The columns are read by their names, the version column is left out.
+			String csv = "name,id,descriptions,state\n" + "\"Import, \"\"Quoted\"\" Name\"," + id
+					+ ",\"[\"\"first\"\",\"\"second\"\"]\",VALID\n"
+					+ "Import New Name,999999999,[],INVALID\n" + "Import Bad Descriptions,,not an array,VALID\n";
+			ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+			try (OutputStream output = new GZIPOutputStream(gzipped)) {
+				output.write(csv.getBytes(StandardCharsets.UTF_8));
+			}
+			FormDataMultiPart multipart = new FormDataMultiPart();
+			multipart.bodyPart(new StreamDataBodyPart("file", new ByteArrayInputStream(gzipped.toByteArray()),
+					"items.csv.gz"));
+			Properties query = new Properties();
+			query.put("format", "csv");
+			Map<String, Object> item_import = getQueryBuilder("/app/api/1.0/items/import", query)
+					.post(Entity.entity(multipart, multipart.getMediaType()), IMPORT);
+
+			assertEquals(Map.of("CREATED", 1, "UPDATED", 1, "INVALID", 1), item_import.get("counts"));
+			assertEquals(2, ((Map<?, ?>) ((List<?>) item_import.get("errors")).get(0)).get("index"));
+			Item updated = getBuilder("/app/api/1.0/items/item/" + id).get(Item.class);
+			assertEquals("Import, \"Quoted\" Name", updated.getName());
+			assertEquals(ItemState.VALID, updated.getState());
+			assertEquals(List.of("first", "second"),
+					updated.getDescriptions().stream().map(Description::getContent).collect(Collectors.toList()));
+			Collection<Item> created = mItemService.FindItemByName("Import New Name");
+			assertEquals(1, created.size());
+			assertEquals(ItemState.INVALID, created.iterator().next().getState());
+		} finally {
+			getBuilder("/app/api/1.0/items/item/" + id).delete();
+			deleteItemsByName("Import New Name");
+		}
+	}
+
+	// Export the items with gzip, and return the uncompressed export.
+	private String export(String format, String media_type) throws IOException, InterruptedException {
+		HttpRequest request = HttpRequest
+				.newBuilder(URI.create("http://localhost:" + mPort + "/app/api/1.0/items/export?format=" + format))
+				.header("Accept-Encoding", "gzip").build();
+		HttpResponse<InputStream> response = HttpClient.newHttpClient().send(request,
+				HttpResponse.BodyHandlers.ofInputStream());
+		assertEquals(200, response.statusCode());
+		assertTrue(response.headers().firstValue("Content-Type").get().startsWith(media_type));
+		assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElse(null));
+		assertEquals("attachment; filename=\"items." + format + "\"",
+				response.headers().firstValue("Content-Disposition").get());
+		try (InputStream input = new GZIPInputStream(response.body())) {
+			return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	private void write(OutputStream output, String text) throws IOException {
+		output.write(text.getBytes(StandardCharsets.UTF_8));
+		output.flush();
+	}
+
+	private void deleteItemsByName(String name) {
+		Collection<Item> items = mItemService.FindItemByName(name);
+		if (items == null)
+			return;
+		String deletes = items.stream().map(item -> "{\"id\":" + item.getId() + "}")
+				.collect(Collectors.joining("\n"));
+		getBuilder("/app/api/1.0/items/bulk/delete")
+				.post(Entity.entity(deletes, ItemBulkController.APPLICATION_NDJSON));
+	}
+}
@@ -0,0 +1,171 @@
+package com.cepheid.cloud.skel;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Method;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.cepheid.cloud.skel.model.ItemState;
+import com.cepheid.cloud.skel.repository.DescriptionRepository;
+import com.cepheid.cloud.skel.repository.ItemRepository;
+import com.cepheid.cloud.skel.repository.ItemSpecifications;
+
+// Run every ItemRepository finder, the derived ones and the ones with a query,
+// catch the SQL Hibernate sends through the SlowQueryLog, and run EXPLAIN on
+// it. H2 may only scan a whole table when the finder has no condition at all.
+@RunWith(SpringRunner.class)
+public class ItemIndexTest extends TestBase {
+
+	private static final Pattern TABLE_SCAN = Pattern.compile("PUBLIC\\.(\\w+)\\.tableScan");
+
+	@Autowired
+	private EntityManagerFactory mEntityManagerFactory;
+
+	@Autowired
+	private JdbcTemplate mJdbcTemplate;
+
+	@Autowired
+	private SlowQueryLog mSlowQueryLog;
+
+	@Autowired
+	private ItemRepository mItemRepository;
+
+	@Autowired
+	private DescriptionRepository mDescriptionRepository;
+
+	@Autowired
+	private PlatformTransactionManager mTransactionManager;
+
+	@After
+	public void tearDown() {
+		mSlowQueryLog.setEnabled(false);
+		mSlowQueryLog.setThresholdMillis(100);
+	}
+
+	@Test
+	public void testItemRepositoryFindersUseIndexes() throws Exception {
+		int checked_finders = 0;
+		for (Method method : ItemRepository.class.getDeclaredMethods()) {
+			Query query = method.getAnnotation(Query.class);
+			boolean conditional = query == null ? method.getParameterCount() > 0 : query.value().contains(" where ");
+			assertUsesIndexes(method.getName(), conditional, () -> invoke(method));
+			checked_finders++;
+		}
+		assertFalse(checked_finders == 0);
+
+		// The finders of JpaRepository, and the descriptions of an item, which are
+		// joined on their item id.
+		assertUsesIndexes("findById", true, () -> mItemRepository.findById(1L)
+				.map(item -> item.getDescriptions().size()).orElse(null));
+		assertUsesIndexes("findPageByItemId", true,
+				() -> mDescriptionRepository.findPageByItemId(1L, 0L, PageRequest.of(0, 10)));
+	}
+
+	// Run a finder in its own transaction, on a connection taken while the slow
+	// query log keeps every statement, and check the plans of its statements.
+	private void assertUsesIndexes(String finder, boolean conditional, Supplier<Object> find) {
+		// Read from the database, not from the caches.
+		mEntityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+		mSlowQueryLog.setThresholdMillis(0);
+		mSlowQueryLog.setEnabled(true);
+		try {
+			new TransactionTemplate(mTransactionManager).execute(status -> {
+				Object result = find.get();
+				if (result instanceof Stream)
+					((Stream<?>) result).close();
+				return null;
+			});
+		} finally {
+			mSlowQueryLog.setEnabled(false);
+		}
+		List<String> statements = mSlowQueryLog.getStatements().stream().map(SlowQueryLog.SlowStatement::getSql)
+				.collect(Collectors.toList());
+		assertFalse(finder + " sent no statement", statements.isEmpty());
+		for (String sql : statements) {
+			Set<String> scanned_tables = findScannedTables(explain(sql));
+			// Without a condition, only the items themselves are read in full.
+			if (!conditional)
+				scanned_tables.remove("ITEM");
+			assertTrue(finder + " scans " + scanned_tables + ": " + sql, scanned_tables.isEmpty());
+		}
+	}
+
+	// Call a finder with an argument of every parameter type.
+	private Object invoke(Method method) {
+		Class<?>[] types = method.getParameterTypes();
+		Object[] args = new Object[types.length];
+		for (int i = 0; i < types.length; i++) {
+			if (types[i] == String.class)
+				args[i] = "Hobbit";
+			else if (types[i] == ItemState.class)
+				args[i] = ItemState.VALID;
+			else if (types[i] == Long.class)
+				args[i] = 1L;
+			else if (types[i] == Collection.class)
+				args[i] = List.of(1L, 2L);
+			else if (types[i] == Pageable.class)
+				args[i] = PageRequest.of(0, 10);
+			else if (types[i] == Specification.class)
+				args[i] = ItemSpecifications.hasName("Hobbit").and(ItemSpecifications.withDescriptions());
+			else
+				throw new IllegalArgumentException("No argument of " + types[i] + " for " + method.getName());
+		}
+		try {
+			return method.invoke(mItemRepository, args);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException(method.getName() + " failed", e);
+		}
+	}
+
+	private String explain(String sql) {
+		return mJdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+			try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+				// The plan does not depend on the values, H2 converts the text to the
+				// type of the compared column.
+				int parameter_count = statement.getParameterMetaData().getParameterCount();
+				for (int i = 1; i <= parameter_count; i++)
+					statement.setString(i, "1");
+				try (ResultSet result = statement.executeQuery()) {
+					result.next();
+					return result.getString(1);
+				}
+			}
+		});
+	}
+
+	private Set<String> findScannedTables(String plan) {
+		Set<String> tables = new TreeSet<>();
+		Matcher matcher = TABLE_SCAN.matcher(plan);
+		while (matcher.find())
+			tables.add(matcher.group(1));
+		return tables;
+	}
+}
@@ -0,0 +1,100 @@
+package com.cepheid.cloud.skel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.cepheid.cloud.skel.model.Item;
+import com.cepheid.cloud.skel.model.ItemState;
+import com.cepheid.cloud.skel.service.ItemJson;
+import com.cepheid.cloud.skel.service.ItemJsonCache;
+import com.cepheid.cloud.skel.service.ItemService;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+// Run the pool out of connections while a cache miss waits for one and a
+// committed change invalidates the same item. The miss must not keep the
+// change from releasing its connection.
+@RunWith(SpringRunner.class)
+public class ItemJsonCacheTest extends TestBase {
+
+	@Autowired
+	private ItemJsonCache mItemJsonCache;
+
+	@Autowired
+	private ItemService mItemService;
+
+	@Autowired
+	private PlatformTransactionManager mTransactionManager;
+
+	@Autowired
+	private DataSource mDataSource;
+
+	@Value("${spring.datasource.hikari.maximum-pool-size}")
+	private int mPoolSize;
+
+	@Test
+	public void testMissWaitingForConnectionDoesNotBlockInvalidation() throws Exception {
+		Long id = mItemService.AddItem(new Item("Farmer Giles of Ham", ItemState.VALID)).getId();
+		mItemJsonCache.InvalidateAll();
+		HikariPoolMXBean pool = mDataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		List<Connection> held_connections = new ArrayList<>();
+		try {
+			// Leave a single connection to the pool, it is taken by the change.
+			for (int i = 1; i < mPoolSize; i++)
+				held_connections.add(mDataSource.getConnection());
+			CountDownLatch change_started = new CountDownLatch(1);
+			Future<Item> change = executor.submit(() -> new TransactionTemplate(mTransactionManager).execute(status -> {
+				Item item = mItemService.FindItemById(id);
+				change_started.countDown();
+				awaitConnectionWaiter(pool);
+				item.setName("Farmer Giles of Tame");
+				return mItemService.UpdateItem(item);
+			}));
+			assertTrue(change_started.await(10, TimeUnit.SECONDS));
+			Future<ItemJson> miss = executor.submit(() -> mItemJsonCache.FindItemJsonById(id));
+
+			// The change is committed and invalidates the item while the miss still
+			// waits for a connection, then it gives its connection to the miss.
+			Item changed = change.get(10, TimeUnit.SECONDS);
+			ItemJson item_json = miss.get(10, TimeUnit.SECONDS);
+			assertNotNull(item_json);
+			assertEquals(changed.getVersion(), item_json.getVersion());
+		} finally {
+			for (Connection connection : held_connections)
+				connection.close();
+			executor.shutdownNow();
+			mItemService.DeleteItem(id);
+		}
+	}
+
+	// Wait until a thread waits for a connection of the pool.
+	private static void awaitConnectionWaiter(HikariPoolMXBean pool) {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (pool.getThreadsAwaitingConnection() == 0) {
+			if (System.nanoTime() > deadline)
+				throw new IllegalStateException("No thread waits for a connection");
+			Thread.onSpinWait();
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package com.cepheid.cloud.skel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Properties;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response.Status;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+// Check the timers and counters of the ItemService and the repositories, and
+// that they are published by the Prometheus endpoint.
+@RunWith(SpringRunner.class)
+public class ItemMetricsTest extends TestBase {
+
+	@Autowired
+	private MeterRegistry mMeterRegistry;
+
+	@Test
+	public void testItemServiceAndRepositoryCallsAreTimed() throws Exception {
+		Properties query_params = new Properties();
+		query_params.put("name", "Hobbit");
+		query_params.put("expand", "descriptions");
+		getQueryBuilder("/app/api/1.0/items/item", query_params).get().close();
+
+		Timer service_timer = mMeterRegistry.find(ItemMetricsAspect.SERVICE_TIMER).tag("method", "FindItems")
+				.tag("exception", "none").timer();
+		assertNotNull(service_timer);
+		assertTrue(service_timer.count() > 0);
+		Timer repository_timer = mMeterRegistry.find(ItemMetricsAspect.REPOSITORY_TIMER)
+				.tag("class", "ItemRepository").tag("method", "findAllBymName").timer();
+		assertNotNull(repository_timer);
+		assertTrue(repository_timer.count() > 0);
+	}
+
+	@Test
+	public void testItemNotFoundIsCounted() throws Exception {
+		double not_found = notFoundCount("FindItemById");
+		assertEquals(Status.INTERNAL_SERVER_ERROR.getStatusCode(),
+				getBuilder("/app/api/1.0/items/item/100000").get().getStatus());
+		assertEquals(not_found + 1, notFoundCount("FindItemById"), 0);
+	}
+
+	@Test
+	public void testMetricsArePublishedForPrometheus() throws Exception {
+		getBuilder("/app/api/1.0/items/item/100000").get().close();
+		String metrics = mClient.target("http://localhost:" + mPort + "/actuator/prometheus")
+				.request(MediaType.TEXT_PLAIN).get(String.class);
+		assertTrue(metrics.contains("skel_item_service_seconds_bucket{"));
+		assertTrue(metrics.contains("skel_item_repository_seconds{"));
+		assertTrue(metrics.contains("skel_item_not_found_total{"));
+		assertTrue(metrics.contains("skel_items "));
+		assertTrue(metrics.contains("skel_descriptions "));
+	}
+
+	private double notFoundCount(String method) {
+		Counter counter = mMeterRegistry.find(ItemMetricsAspect.NOT_FOUND_COUNTER).tag("method", method).counter();
+		return counter == null ? 0 : counter.count();
+	}
+}
@@ -0,0 +1,131 @@
+package com.cepheid.cloud.skel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.ws.rs.client.Entity;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.cepheid.cloud.skel.event.ItemChangeType;
+import com.cepheid.cloud.skel.model.Description;
+import com.cepheid.cloud.skel.model.Item;
+import com.cepheid.cloud.skel.model.ItemOutboxEntry;
+import com.cepheid.cloud.skel.model.ItemState;
+import com.cepheid.cloud.skel.outbox.FileOutboxSink;
+import com.cepheid.cloud.skel.outbox.OutboxDispatcher;
+import com.cepheid.cloud.skel.repository.ItemOutboxRepository;
+import com.cepheid.cloud.skel.service.ItemService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Check that every change of an item writes an outbox entry in its own
+// transaction, and that a dispatcher delivers the entries to its sink.
+@RunWith(SpringRunner.class)
+public class ItemOutboxTest extends TestBase {
+
+	@Autowired
+	private ItemOutboxRepository mItemOutboxRepository;
+
+	@Autowired
+	private ItemService mItemService;
+
+	@Autowired
+	private PlatformTransactionManager mTransactionManager;
+
+	@Autowired
+	private ObjectMapper mObjectMapper;
+
+	@Rule
+	public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testChangesAreWrittenToTheOutboxWithTheirTransaction() throws Exception {
+		Item item = new Item("Farmer Giles of Ham", ItemState.VALID);
+		Long id = getBuilder("/app/api/1.0/items").post(Entity.json(item), Item.class).getId();
+		getBuilder("/app/api/1.0/items/item/" + id).delete();
+		assertEquals(List.of(ItemChangeType.ITEM_CREATED, ItemChangeType.ITEM_DELETED),
+				mItemOutboxRepository.findAllByItemId(id).stream().map(ItemOutboxEntry::getType)
+						.collect(Collectors.toList()));
+
+		// A change which is rolled back leaves no entry behind.
+		Long rolled_back_id = new TransactionTemplate(mTransactionManager).execute(status -> {
+			Long added_id = mItemService.AddItem(new Item("Smith of Wootton Major", ItemState.VALID)).getId();
+			status.setRollbackOnly();
+			return added_id;
+		});
+		assertTrue(mItemOutboxRepository.findAllByItemId(rolled_back_id).isEmpty());
+	}
+
+	@Test
+	public void testEntriesAreDeliveredToTheSink() throws Exception {
+		// The entries of the other tests are removed, so the outbox only holds the
+		// entries of this test.
+		mItemOutboxRepository.deleteAllInBatch();
+		Item item = new Item("Leaf by Niggle", ItemState.VALID);
+		Long id = getBuilder("/app/api/1.0/items").post(Entity.json(item), Item.class).getId();
+		getBuilder("/app/api/1.0/items/item/" + id + "/description")
+				.post(Entity.json(new Description("The picture of a tree")), Item.class);
+		getBuilder("/app/api/1.0/items/item/" + id).delete();
+
+		Path file = mTemporaryFolder.getRoot().toPath().resolve("outbox/item-changes.json");
+		FileOutboxSink file_sink = new FileOutboxSink(file, mObjectMapper);
+		List<Integer> batch_sizes = Collections.synchronizedList(new ArrayList<>());
+		OutboxDispatcher dispatcher = new OutboxDispatcher(mItemOutboxRepository, entries -> {
+			batch_sizes.add(entries.size());
+			file_sink.send(entries);
+		}, 2, Duration.ofMillis(50), Duration.ofMinutes(60));
+		List<ItemOutboxEntry> entries;
+		try {
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+			do {
+				Thread.sleep(50);
+				entries = mItemOutboxRepository.findAllByItemId(id);
+			} while (entries.stream().anyMatch(entry -> entry.getDeliveredAt() == null)
+					&& System.nanoTime() < deadline);
+		} finally {
+			dispatcher.shutdown();
+		}
+		assertEquals(3, entries.size());
+		assertTrue(entries.stream().allMatch(entry -> entry.getDeliveredAt() != null));
+
+		// The three entries are delivered in batches of 2, in the order they were
+		// written.
+		assertEquals(List.of(2, 1), batch_sizes);
+		List<Map<String, Object>> lines = Files.readAllLines(file).stream().map(this::readLine)
+				.collect(Collectors.toList());
+		assertEquals(entries.stream().map(ItemOutboxEntry::getId).collect(Collectors.toList()),
+				lines.stream().map(line -> ((Number) line.get("id")).longValue()).collect(Collectors.toList()));
+		assertEquals(ItemChangeType.ITEM_CREATED.name(), lines.get(0).get("type"));
+		assertEquals(ItemChangeType.DESCRIPTION_ADDED.name(), lines.get(1).get("type"));
+		assertEquals(ItemChangeType.ITEM_DELETED.name(), lines.get(2).get("type"));
+		assertTrue(mItemOutboxRepository.findUndelivered(PageRequest.of(0, 1)).isEmpty());
+	}
+
+	private Map<String, Object> readLine(String line) {
+		try {
+			return mObjectMapper.readValue(line, new TypeReference<Map<String, Object>>() {
+			});
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,209 @@
+package com.cepheid.cloud.skel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import javax.persistence.EntityManagerFactory;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.Response.Status;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.cepheid.cloud.skel.model.Description;
+import com.cepheid.cloud.skel.model.Item;
+import com.cepheid.cloud.skel.model.ItemOutboxEntry;
+import com.cepheid.cloud.skel.model.ItemState;
+import com.cepheid.cloud.skel.repository.ItemRepository;
+import com.cepheid.cloud.skel.service.ItemJsonCache;
+
+// Count the SQL statements the read endpoints send to the database, the number
+// of statements should not depend on how many items there are.
+@RunWith(SpringRunner.class)
+public class ItemQueryCountTest extends TestBase {
+
+	private static final String ITEM_NAME = "Query count item";
+
+	@Autowired
+	private EntityManagerFactory mEntityManagerFactory;
+
+	@Autowired
+	private ItemRepository mItemRepository;
+
+	@Autowired
+	private ItemJsonCache mItemJsonCache;
+
+	private SessionFactory mSessionFactory;
+
+	private Statistics mStatistics;
+
+	private boolean mStatisticsEnabled;
+
+	@Before
+	public void setUp() {
+		mSessionFactory = mEntityManagerFactory.unwrap(SessionFactory.class);
+		mStatistics = mSessionFactory.getStatistics();
+		mStatisticsEnabled = mStatistics.isStatisticsEnabled();
+		mStatistics.setStatisticsEnabled(true);
+	}
+
+	@After
+	public void tearDown() {
+		mStatistics.setStatisticsEnabled(mStatisticsEnabled);
+	}
+
+	@Test
+	public void testStatementCountOfReadEndpointsDoesNotGrowWithData() throws Exception {
+		List<Item> created_items = new ArrayList<>(createItems(2));
+		try {
+			Map<String, Long> small_counts = countStatementsPerEndpoint();
+			created_items.addAll(createItems(20));
+			Map<String, Long> large_counts = countStatementsPerEndpoint();
+
+			// Ten times more items should not cause a single extra statement.
+			assertEquals(small_counts, large_counts);
+			// A page of item summaries is one statement, a page of items with their
+			// descriptions is one statement for the ids, and one for the items.
+			assertEquals(Long.valueOf(1), large_counts.get("items"));
+			assertEquals(Long.valueOf(2), large_counts.get("expanded"));
+			assertEquals(Long.valueOf(1), large_counts.get("descriptions"));
+			assertEquals(Long.valueOf(1), large_counts.get("stream"));
+			assertEquals(Long.valueOf(1), large_counts.get("name"));
+			assertEquals(Long.valueOf(1), large_counts.get("state"));
+			assertEquals(Long.valueOf(1), large_counts.get("id"));
+		} finally {
+			mItemRepository.deleteAll(created_items);
+		}
+	}
+
+	@Test
+	public void testCachedItemIsReadWithoutStatementsUntilItIsUpdated() throws Exception {
+		Item item = createItems(1).get(0);
+		try {
+			String path = "/app/api/1.0/items/item/" + item.getId();
+			getBuilder(path).get(Item.class);
+			// The item and its descriptions should now come from the second-level cache.
+			mStatistics.clear();
+			getBuilder(path).get(Item.class);
+			assertEquals(0, mStatistics.getPrepareStatementCount());
+
+			// An update must replace the cached item.
+			Item update = new Item("Updated query count item", ItemState.UNDEFINED);
+			update.addDescription(new Description("Updated query count content"));
+			getBuilder(path).put(Entity.json(update), Item.class);
+			Item n_item = getBuilder(path).get(Item.class);
+			assertEquals("Updated query count item", n_item.getName());
+			assertEquals(1, n_item.getDescriptions().size());
+			assertEquals("Updated query count content", n_item.getDescriptions().get(0).getContent());
+		} finally {
+			mItemRepository.deleteById(item.getId());
+		}
+	}
+
+	@Test
+	public void testInsertsOfItemsAndDescriptionsAreBatched() throws Exception {
+		mStatistics.clear();
+		List<Item> items = createItems(20);
+		try {
+			// 20 items and 60 descriptions should be inserted by one batch per table,
+			// plus the statements of the id generator.
+			long statement_count = mStatistics.getPrepareStatementCount();
+			assertTrue("Inserts took " + statement_count + " statements", statement_count <= 6);
+		} finally {
+			mItemRepository.deleteAll(items);
+		}
+	}
+
+	@Test
+	public void testRenameOfItemWithManyDescriptionsDoesNotWriteTheDescriptions() throws Exception {
+		Item item = new Item(ITEM_NAME, ItemState.UNDEFINED);
+		for (int i = 0; i < 100; i++)
+			item.addDescription(new Description("Query count content " + i));
+		item = mItemRepository.save(item);
+		try {
+			String path = "/app/api/1.0/items/item/" + item.getId();
+			mStatistics.clear();
+			HttpResponse<String> response = patch(path, "application/merge-patch+json",
+					"{\"name\":\"Renamed query count item\"}", null);
+			assertEquals(Status.ACCEPTED.getStatusCode(), response.statusCode());
+			// Only the name and the version of the item should be written.
+			EntityStatistics description_statistics = mStatistics.getEntityStatistics(Description.class.getName());
+			assertEquals(0, description_statistics.getInsertCount());
+			assertEquals(0, description_statistics.getUpdateCount());
+			assertEquals(0, description_statistics.getDeleteCount());
+			assertEquals(1, mStatistics.getEntityStatistics(Item.class.getName()).getUpdateCount());
+			// Plus the insert of the outbox entry of the change.
+			assertEquals(1, mStatistics.getEntityStatistics(ItemOutboxEntry.class.getName()).getInsertCount());
+			long statement_count = mStatistics.getPrepareStatementCount();
+			assertTrue("Rename took " + statement_count + " statements", statement_count <= 4);
+
+			// The same holds for a full update which leaves the descriptions as they are.
+			Item n_item = getBuilder(path).get(Item.class);
+			n_item.setName("Updated query count item");
+			mStatistics.clear();
+			getBuilder(path).put(Entity.json(n_item), Item.class);
+			description_statistics = mStatistics.getEntityStatistics(Description.class.getName());
+			assertEquals(0, description_statistics.getInsertCount());
+			assertEquals(0, description_statistics.getUpdateCount());
+			assertEquals(0, description_statistics.getDeleteCount());
+			assertEquals(100, getBuilder(path).get(Item.class).getDescriptions().size());
+		} finally {
+			mItemRepository.deleteById(item.getId());
+		}
+	}
+
+	// Create the given number of items, each has 3 descriptions.
+	private List<Item> createItems(int count) {
+		List<Item> items = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			Item item = new Item(ITEM_NAME, ItemState.UNDEFINED);
+			for (int j = 0; j < 3; j++)
+				item.addDescription(new Description("Query count content " + j));
+			items.add(item);
+		}
+		return mItemRepository.saveAll(items);
+	}
+
+	private Map<String, Long> countStatementsPerEndpoint() {
+		Map<String, Long> counts = new LinkedHashMap<>();
+		counts.put("items", countStatements("/app/api/1.0/items", new Properties()));
+		Properties expand = new Properties();
+		expand.setProperty("expand", "descriptions");
+		counts.put("expanded", countStatements("/app/api/1.0/items", expand));
+		counts.put("descriptions", countStatements("/app/api/1.0/items/item/2/descriptions", new Properties()));
+		Properties stream = new Properties();
+		stream.setProperty("stream", "true");
+		counts.put("stream", countStatements("/app/api/1.0/items", stream));
+		Properties name = new Properties();
+		name.setProperty("name", ITEM_NAME);
+		counts.put("name", countStatements("/app/api/1.0/items/item", name));
+		Properties state = new Properties();
+		state.setProperty("state", ItemState.UNDEFINED.name());
+		counts.put("state", countStatements("/app/api/1.0/items/item", state));
+		counts.put("id", countStatements("/app/api/1.0/items/item/2", new Properties()));
+		return counts;
+	}
+
+	private long countStatements(String path, Properties query_params) {
+		// Count the statements of a cold read, without any cache.
+		mSessionFactory.getCache().evictAllRegions();
+		mItemJsonCache.InvalidateAll();
+		mStatistics.clear();
+		getQueryBuilder(path, query_params).get(String.class);
+		return mStatistics.getPrepareStatementCount();
+	}
+}
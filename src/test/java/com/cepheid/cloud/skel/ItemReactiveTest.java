@@ -0,0 +1,103 @@
+package com.cepheid.cloud.skel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response.Status;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.cepheid.cloud.skel.controller.ItemReactiveController;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import reactor.netty.DisposableServer;
+
+// Read the items through the non-blocking item API, and check that the lists
+// are streamed as NDJSON or as Server-Sent Events.
+@RunWith(SpringRunner.class)
+public class ItemReactiveTest extends ReactiveTestBase {
+
+	private static final List<String> INITIAL_NAMES = List.of("Lord of the rings", "Hobbit", "Silmarillion",
+			"Unfinished Tales and The History of Middle-earth");
+
+	@Autowired
+	private DisposableServer mItemReactiveServer;
+
+	@Autowired
+	private ObjectMapper mObjectMapper;
+
+	private final HttpClient mHttpClient = HttpClient.newHttpClient();
+
+	@Test
+	public void testItemsAreStreamedAsNdjson() throws Exception {
+		HttpResponse<String> response = get("/api/1.0/items", ItemReactiveController.APPLICATION_NDJSON);
+		assertEquals(Status.OK.getStatusCode(), response.statusCode());
+		assertEquals(ItemReactiveController.APPLICATION_NDJSON,
+				response.headers().firstValue("Content-Type").orElse(null));
+		List<Map<String, Object>> items = new ArrayList<>();
+		for (String line : response.body().split("\n"))
+			items.add(mObjectMapper.readValue(line, new TypeReference<Map<String, Object>>() {
+			}));
+		assertTrue(names(items).containsAll(INITIAL_NAMES));
+		assertEquals(2, items.get(0).get("descriptionCount"));
+		// The items are ordered by id.
+		List<Long> ids = items.stream().map(item -> ((Number) item.get("id")).longValue())
+				.collect(Collectors.toList());
+		assertEquals(ids.stream().sorted().collect(Collectors.toList()), ids);
+	}
+
+	@Test
+	public void testItemsAreStreamedAsServerSentEvents() throws Exception {
+		HttpResponse<String> response = get("/api/1.0/items/item?name=Hobbit&state=VALID",
+				MediaType.SERVER_SENT_EVENTS);
+		assertEquals(Status.OK.getStatusCode(), response.statusCode());
+		assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith(MediaType.SERVER_SENT_EVENTS));
+		String[] lines = response.body().split("\n");
+		Map<String, Object> item = mObjectMapper.readValue(lines[2].substring("data: ".length()),
+				new TypeReference<Map<String, Object>>() {
+				});
+		assertEquals("id: " + item.get("id"), lines[0]);
+		assertEquals("event: item", lines[1]);
+		assertEquals("Hobbit", item.get("name"));
+		assertTrue(get("/api/1.0/items/item?name=Hobbit&state=INVALID", MediaType.SERVER_SENT_EVENTS).body().isEmpty());
+		assertEquals(Status.BAD_REQUEST.getStatusCode(),
+				get("/api/1.0/items/item?state=UNKNOWN", MediaType.SERVER_SENT_EVENTS).statusCode());
+	}
+
+	@Test
+	public void testItemIsReadWithItsDescriptions() throws Exception {
+		HttpResponse<String> response = get("/api/1.0/items/item/1", MediaType.APPLICATION_JSON);
+		assertEquals(Status.OK.getStatusCode(), response.statusCode());
+		Map<String, Object> item = mObjectMapper.readValue(response.body(), new TypeReference<Map<String, Object>>() {
+		});
+		assertEquals(getBuilder("/app/api/1.0/items/item/1").get(new GenericType<Map<String, Object>>() {
+		}), item);
+		assertEquals(Status.NOT_FOUND.getStatusCode(),
+				get("/api/1.0/items/item/" + Long.MAX_VALUE, MediaType.APPLICATION_JSON).statusCode());
+	}
+
+	private HttpResponse<String> get(String path, String accept) throws Exception {
+		URI uri = URI.create("http://localhost:" + mItemReactiveServer.port() + path);
+		HttpRequest request = HttpRequest.newBuilder(uri).header("Accept", accept).build();
+		return mHttpClient.send(request, HttpResponse.BodyHandlers.ofString());
+	}
+
+	private static List<String> names(List<Map<String, Object>> items) {
+		return items.stream().map(item -> (String) item.get("name")).collect(Collectors.toList());
+	}
+}
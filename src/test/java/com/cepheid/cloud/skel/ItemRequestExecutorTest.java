@@ -0,0 +1,132 @@
+package com.cepheid.cloud.skel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.TimeoutHandler;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.cepheid.cloud.skel.controller.ItemRequestExecutor;
+import com.cepheid.cloud.skel.tracing.Tracer;
+
+// Fill the ItemRequestExecutor with blocked work, and check that the item
+// requests are answered with 503 and a Retry-After header, like the requests
+// which time out. With virtual threads, check that the connection permits
+// throttle the work instead of the pool.
+@RunWith(SpringRunner.class)
+public class ItemRequestExecutorTest extends TestBase {
+
+	@Autowired
+	private ItemRequestExecutor mRequestExecutor;
+
+	@Value("${skel.async.threads}")
+	private int mThreads;
+
+	@Value("${skel.async.queue-size}")
+	private int mQueueSize;
+
+	@Value("${skel.async.timeout-ms}")
+	private long mTimeout;
+
+	@Autowired
+	private Tracer mTracer;
+
+	@Autowired
+	private Environment mEnvironment;
+
+	@Test
+	public void testRequestIsRejectedWhenTheExecutorIsFull() throws Exception {
+		CountDownLatch started = new CountDownLatch(mThreads);
+		CountDownLatch release = new CountDownLatch(1);
+		try {
+			// Block every thread, and fill the queue behind them.
+			for (int i = 0; i < mThreads + mQueueSize; i++) {
+				mRequestExecutor.submit(mock(AsyncResponse.class), "test", () -> {
+					started.countDown();
+					release.await();
+					return Response.ok().build();
+				});
+			}
+			assertTrue(started.await(10, TimeUnit.SECONDS));
+			Response response = getBuilder("/app/api/1.0/items/item/1").get();
+			assertEquals(Status.SERVICE_UNAVAILABLE.getStatusCode(), response.getStatus());
+			assertEquals("1", response.getHeaderString(HttpHeaders.RETRY_AFTER));
+		} finally {
+			release.countDown();
+		}
+		Response response = getBuilder("/app/api/1.0/items/item/1").get();
+		assertEquals(Status.OK.getStatusCode(), response.getStatus());
+	}
+
+	@Test
+	public void testRequestWhichTimesOutIsAnsweredWith503() throws Exception {
+		AsyncResponse async_response = mock(AsyncResponse.class);
+		mRequestExecutor.submit(async_response, "getItems", () -> Response.ok().build());
+		verify(async_response).setTimeout(mTimeout, TimeUnit.MILLISECONDS);
+		ArgumentCaptor<TimeoutHandler> timeout_handler = ArgumentCaptor.forClass(TimeoutHandler.class);
+		verify(async_response).setTimeoutHandler(timeout_handler.capture());
+
+		AsyncResponse timed_out = mock(AsyncResponse.class);
+		timeout_handler.getValue().handleTimeout(timed_out);
+		ArgumentCaptor<Response> response = ArgumentCaptor.forClass(Response.class);
+		verify(timed_out).resume(response.capture());
+		assertEquals(Status.SERVICE_UNAVAILABLE.getStatusCode(), response.getValue().getStatus());
+		assertEquals(1L, response.getValue().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+	}
+
+	@Test
+	public void testVirtualThreadsAreThrottledByTheConnectionPermits() throws Exception {
+		assumeTrue(VirtualThreads.isSupported());
+		int max_concurrency = 2;
+		int queue_size = 3;
+		ItemRequestExecutor executor = new ItemRequestExecutor(mTracer, mEnvironment, mThreads, queue_size, true,
+				max_concurrency, mTimeout, 1);
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger max_running = new AtomicInteger();
+		CountDownLatch started = new CountDownLatch(max_concurrency);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(max_concurrency + queue_size);
+		try {
+			for (int i = 0; i < max_concurrency + queue_size; i++) {
+				AsyncResponse async_response = mock(AsyncResponse.class);
+				executor.submit(async_response, "test", () -> {
+					max_running.accumulateAndGet(running.incrementAndGet(), Math::max);
+					started.countDown();
+					release.await();
+					running.decrementAndGet();
+					done.countDown();
+					return Response.ok().build();
+				});
+			}
+			assertTrue(started.await(10, TimeUnit.SECONDS));
+			// The next request does not fit into the queue.
+			AsyncResponse rejected = mock(AsyncResponse.class);
+			executor.submit(rejected, "test", () -> Response.ok().build());
+			ArgumentCaptor<Response> response = ArgumentCaptor.forClass(Response.class);
+			verify(rejected).resume(response.capture());
+			assertEquals(Status.SERVICE_UNAVAILABLE.getStatusCode(), response.getValue().getStatus());
+		} finally {
+			release.countDown();
+		}
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		assertEquals(max_concurrency, max_running.get());
+	}
+}
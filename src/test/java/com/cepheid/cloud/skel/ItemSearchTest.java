@@ -0,0 +1,114 @@
+package com.cepheid.cloud.skel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.cepheid.cloud.skel.model.Description;
+import com.cepheid.cloud.skel.model.Item;
+import com.cepheid.cloud.skel.model.ItemState;
+import com.cepheid.cloud.skel.service.ItemSearchIndex;
+
+// Search the items through the full-text index, and check that the index
+// follows the committed changes of the items.
+@RunWith(SpringRunner.class)
+public class ItemSearchTest extends TestBase {
+
+	@Autowired
+	private ItemSearchIndex mItemSearchIndex;
+
+	@Before
+	public void awaitIndexed() throws Exception {
+		assertTrue(mItemSearchIndex.AwaitIndexed(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testSearchFindsTheItemsByTheirTerms() throws Exception {
+		// A prefix matches the plural in the name.
+		assertEquals(List.of("Lord of the rings"), searchNames("ring*", null));
+		// The terms are matched ignoring case and punctuation.
+		assertEquals(List.of("Unfinished Tales and The History of Middle-earth"), searchNames("MIDDLE earth", null));
+		// All the terms have to match.
+		assertTrue(searchNames("hobbit tales", null).isEmpty());
+		assertEquals(2, searchNames("hobbit | tales", null).size());
+		// A quoted text matches a phrase of the descriptions.
+		assertTrue(searchNames("\"another test content\"", null).containsAll(List.of("Lord of the rings", "Hobbit",
+				"Silmarillion", "Unfinished Tales and The History of Middle-earth")));
+		assertTrue(searchNames("\"content another\"", null).isEmpty());
+	}
+
+	@Test
+	public void testSearchFollowsTheChangesOfTheItems() throws Exception {
+		Item named_item = new Item("Quenya grammar", ItemState.VALID);
+		named_item.addDescription(new Description("A grammar of Quenya."));
+		Item described_item = new Item("Elvish languages", ItemState.INVALID);
+		described_item.addDescription(new Description("Quenya and Sindarin."));
+		Long named_id = getBuilder("/app/api/1.0/items").post(Entity.json(named_item), Item.class).getId();
+		Long described_id = getBuilder("/app/api/1.0/items").post(Entity.json(described_item), Item.class).getId();
+		try {
+			awaitIndexed();
+			// The item which has the term in its name is ranked first.
+			List<Map<String, Object>> hits = search("quenya", null);
+			assertEquals(List.of("Quenya grammar", "Elvish languages"), names(hits));
+			assertTrue(((Number) hits.get(0).get("score")).floatValue() > ((Number) hits.get(1).get("score"))
+					.floatValue());
+			assertEquals(1, hits.get(0).get("descriptionCount"));
+			assertEquals(List.of("Elvish languages"), searchNames("quenya", ItemState.INVALID));
+
+			// An updated description is indexed again.
+			Item item = getBuilder("/app/api/1.0/items/item/" + described_id).get(Item.class);
+			Description description = item.getDescriptions().iterator().next();
+			description.setContent("Sindarin only.");
+			getBuilder("/app/api/1.0/items/item/" + described_id + "/description").put(Entity.json(description));
+			awaitIndexed();
+			assertEquals(List.of("Quenya grammar"), searchNames("quenya", null));
+			assertEquals(List.of("Elvish languages"), searchNames("sindarin", null));
+		} finally {
+			getBuilder("/app/api/1.0/items/item/" + named_id).delete();
+			getBuilder("/app/api/1.0/items/item/" + described_id).delete();
+		}
+		// The deleted items are removed from the index.
+		awaitIndexed();
+		assertTrue(searchNames("quenya | sindarin", null).isEmpty());
+	}
+
+	@Test
+	public void testSearchWithoutTextIsABadRequest() throws Exception {
+		Response response = getBuilder("/app/api/1.0/items/search").get();
+		assertEquals(Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+	}
+
+	private List<Map<String, Object>> search(String text, ItemState state) {
+		Properties queryParam = new Properties();
+		queryParam.setProperty("q", text);
+		if (state != null)
+			queryParam.setProperty("state", state.name());
+		return getQueryBuilder("/app/api/1.0/items/search", queryParam)
+				.get(new GenericType<List<Map<String, Object>>>() {
+				});
+	}
+
+	private List<String> searchNames(String text, ItemState state) {
+		return names(search(text, state));
+	}
+
+	private static List<String> names(List<Map<String, Object>> hits) {
+		return hits.stream().map(hit -> (String) hit.get("name")).collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,125 @@
+package com.cepheid.cloud.skel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation.Builder;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.cepheid.cloud.skel.controller.ItemWireFormats;
+import com.cepheid.cloud.skel.model.Description;
+import com.cepheid.cloud.skel.model.Item;
+import com.cepheid.cloud.skel.model.ItemState;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.jaxrs.cbor.JacksonCBORProvider;
+import com.fasterxml.jackson.jaxrs.smile.JacksonSmileProvider;
+
+// Check that the items are written and read as Smile and CBOR when the client
+// asks for them, with the same fields as json.
+@RunWith(SpringRunner.class)
+public class ItemWireFormatsTest extends TestBase {
+
+	@Autowired
+	private ItemWireFormats mWireFormats;
+
+	@Autowired
+	private ObjectMapper mObjectMapper;
+
+	@Test
+	public void testItemIsAddedAndReadInBinaryFormats() throws Exception {
+		for (MediaType media_type : List.of(MediaType.valueOf(ItemWireFormats.APPLICATION_SMILE),
+				MediaType.valueOf(ItemWireFormats.APPLICATION_CBOR))) {
+			Item item = new Item("Wire Format Item " + media_type.getSubtype(), ItemState.VALID);
+			item.addDescription(new Description("Wire format content 1"));
+			item.addDescription(new Description("Wire format content 2"));
+			Response created = binaryBuilder("/app/api/1.0/items", media_type).post(Entity.entity(item, media_type));
+			assertEquals(201, created.getStatus());
+			assertEquals(media_type, created.getMediaType());
+			Item saved = created.readEntity(Item.class);
+			try {
+				assertEquals(item.getName(), saved.getName());
+				assertEquals(2, saved.getDescriptions().size());
+
+				// The cached json of the item is copied into the binary format.
+				Response found = binaryBuilder("/app/api/1.0/items/item/" + saved.getId(), media_type).get();
+				assertEquals(200, found.getStatus());
+				assertEquals(media_type, found.getMediaType());
+				assertTrue(found.getHeaderString("Vary").contains("Accept"));
+				JsonNode binary = mWireFormats.mapper(media_type).readTree(found.readEntity(byte[].class));
+				Response json = getBuilder("/app/api/1.0/items/item/" + saved.getId()).get();
+				assertEquals(MediaType.APPLICATION_JSON_TYPE, json.getMediaType());
+				assertEquals(mObjectMapper.readTree(json.readEntity(String.class)), binary);
+
+				// Every format is another representation with its own strong ETag.
+				assertEquals(created.getEntityTag(), found.getEntityTag());
+				assertNotEquals(json.getEntityTag(), found.getEntityTag());
+				Response not_modified = binaryBuilder("/app/api/1.0/items/item/" + saved.getId(), media_type)
+						.header(HttpHeaders.IF_NONE_MATCH, found.getEntityTag()).get();
+				assertEquals(304, not_modified.getStatus());
+				assertEquals(found.getEntityTag(), not_modified.getEntityTag());
+				assertTrue(not_modified.getHeaderString("Vary").contains("Accept"));
+				Response other_format = getBuilder("/app/api/1.0/items/item/" + saved.getId())
+						.header(HttpHeaders.IF_NONE_MATCH, found.getEntityTag()).get();
+				assertEquals(200, other_format.getStatus());
+				other_format.close();
+
+				// The ETag of any format matches the current version on a write.
+				saved.setName(item.getName() + " updated");
+				Response updated = getBuilder("/app/api/1.0/items/item/" + saved.getId())
+						.header(HttpHeaders.IF_MATCH, found.getEntityTag()).put(Entity.json(saved));
+				assertEquals(202, updated.getStatus());
+				assertNotEquals(found.getEntityTag(), updated.getEntityTag());
+				updated.close();
+			} finally {
+				getBuilder("/app/api/1.0/items/item/" + saved.getId()).delete();
+			}
+		}
+	}
+
+	@Test
+	public void testItemListsAreWrittenInBinaryFormats() throws Exception {
+		Item item = new Item("Wire-Format-List-Item", ItemState.INVALID);
+		for (int i = 0; i < 20; i++)
+			item.addDescription(new Description("Wire format list content " + i));
+		Long id = getBuilder("/app/api/1.0/items").post(Entity.json(item), Item.class).getId();
+		try {
+			String path = "/app/api/1.0/items/item?nameContains=Wire-Format-List&expand=descriptions";
+			byte[] json = getBuilder(path).get(byte[].class);
+			MediaType cbor = MediaType.valueOf(ItemWireFormats.APPLICATION_CBOR);
+			Response found = binaryBuilder(path, cbor).get();
+			assertEquals(cbor, found.getMediaType());
+			byte[] binary = found.readEntity(byte[].class);
+			assertEquals(mObjectMapper.readTree(json), mWireFormats.getCborMapper().readTree(binary));
+			assertTrue(binary.length < json.length);
+
+			MediaType smile = MediaType.valueOf(ItemWireFormats.APPLICATION_SMILE);
+			Response streamed = binaryBuilder("/app/api/1.0/items?stream=true", smile).get();
+			assertEquals(smile, streamed.getMediaType());
+			boolean found_item = false;
+			for (JsonNode streamed_item : mWireFormats.getSmileMapper().readTree(streamed.readEntity(byte[].class)))
+				found_item |= id.equals(streamed_item.get("id").asLong());
+			assertTrue(found_item);
+		} finally {
+			getBuilder("/app/api/1.0/items/item/" + id).delete();
+		}
+	}
+
+	// Create a builder which accepts only the given binary format.
+	private Builder binaryBuilder(String path, MediaType media_type) {
+		return mClient.target("http://localhost:" + mPort + path)
+				.register(new JacksonSmileProvider(mWireFormats.getSmileMapper()))
+				.register(new JacksonCBORProvider(mWireFormats.getCborMapper())).request(media_type);
+	}
+}
@@ -0,0 +1,17 @@
+package com.cepheid.cloud.skel;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+// The reactive API is only started with the reactive profile, so its tests run
+// in an application of their own, next to the one of TestBase. It gets its own
+// ports and its own in-memory database, the items of the one would be counted
+// by the tests of the other.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, classes = {
+		SkelApplication.class }, properties = { "skel.outbox.dispatcher.enabled=false", "skel.reactive.port=0",
+				"spring.datasource.url=jdbc:h2:mem:reactivedb;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;"
+						+ "IGNORECASE=TRUE" })
+@ActiveProfiles("reactive")
+public class ReactiveTestBase extends TestBase {
+
+}
@@ -1,6 +1,10 @@
 package com.cepheid.cloud.skel;
 
+import java.io.IOException;
 import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 
 import javax.annotation.PostConstruct;
 import javax.ws.rs.client.Client;
@@ -16,13 +20,19 @@ import org.glassfish.jersey.media.multipart.MultiPartFeature;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT, classes = { SkelApplication.class })
+// The outbox entries are written, but the outbox dispatcher is not started, its
+// polls would be counted with the statements of the requests, ItemOutboxTest
+// runs its own dispatcher. The hibernate endpoint is exposed for
+// HibernateStatisticsEndpointTest.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT, classes = {
+		SkelApplication.class }, properties = { "skel.outbox.dispatcher.enabled=false",
+				"management.endpoints.web.exposure.include=health,info,metrics,prometheus,hibernate" })
 public class TestBase {
 	private String mServerUri;
 
 	protected Client mClient;
 
-	@Value("${server.port}")
+	@Value("${local.server.port}")
 	protected int mPort;
 
 	@PostConstruct
@@ -61,6 +71,17 @@ public class TestBase {
 		return builder;
 	}
 
+	// Send a PATCH request, the connector of the client does not support PATCH.
+	public HttpResponse<String> patch(String path, String media_type, String patch, String if_match)
+			throws IOException, InterruptedException {
+		HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(mServerUri + path))
+				.header("Content-Type", media_type).header("Accept", MediaType.APPLICATION_JSON)
+				.method("PATCH", HttpRequest.BodyPublishers.ofString(patch));
+		if (if_match != null)
+			builder.header("If-Match", if_match);
+		return HttpClient.newHttpClient().send(builder.build(), HttpResponse.BodyHandlers.ofString());
+	}
+
 	protected Client createClient() {
 		ClientBuilder clientBuilder = ClientBuilder.newBuilder();
 		return clientBuilder.build();
@@ -0,0 +1,119 @@
+package com.cepheid.cloud.skel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.persistence.EntityManagerFactory;
+import javax.ws.rs.core.Response;
+
+import org.hibernate.SessionFactory;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.cepheid.cloud.skel.tracing.BatchSpanProcessor;
+import com.cepheid.cloud.skel.tracing.FileSpanExporter;
+import com.cepheid.cloud.skel.tracing.OtlpJson;
+import com.cepheid.cloud.skel.tracing.Span;
+import com.cepheid.cloud.skel.tracing.SpanKind;
+import com.cepheid.cloud.skel.tracing.Tracer;
+import com.cepheid.cloud.skel.tracing.TracingFilter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Check that a request continues the trace of its traceparent header and is
+// answered with a Server-Timing header, and that the spans are exported as
+// OTLP JSON.
+@RunWith(SpringRunner.class)
+public class TracingTest extends TestBase {
+
+	private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+
+	private static final String PARENT_SPAN_ID = "00f067aa0ba902b7";
+
+	private static final Pattern STATEMENTS = Pattern.compile("db;dur=[0-9.]+;desc=\"(\\d+) statements\"");
+
+	@Rule
+	public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+	@Autowired
+	private EntityManagerFactory mEntityManagerFactory;
+
+	@Autowired
+	private ObjectMapper mObjectMapper;
+
+	@Test
+	public void testRequestContinuesTraceAndReportsServerTiming() throws Exception {
+		// Read from the database, not from the second-level cache.
+		mEntityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+		Properties query_params = new Properties();
+		query_params.put("name", "Hobbit");
+		Response response = getQueryBuilder("/app/api/1.0/items/item", query_params)
+				.header(TracingFilter.TRACEPARENT, "00-" + TRACE_ID + "-" + PARENT_SPAN_ID + "-01").get();
+		response.close();
+
+		String traceresponse = response.getHeaderString(TracingFilter.TRACERESPONSE);
+		assertTrue(traceresponse, traceresponse.matches("00-" + TRACE_ID + "-[0-9a-f]{16}-01"));
+		assertNotEquals("00-" + TRACE_ID + "-" + PARENT_SPAN_ID + "-01", traceresponse);
+		String server_timing = response.getHeaderString(TracingFilter.SERVER_TIMING);
+		assertTrue(server_timing, server_timing.startsWith("http;dur="));
+		assertTrue(server_timing, server_timing.contains("service;dur="));
+		assertTrue(server_timing, server_timing.contains("total;dur="));
+		Matcher statements = STATEMENTS.matcher(server_timing);
+		assertTrue(server_timing, statements.find());
+		assertTrue(server_timing, Integer.parseInt(statements.group(1)) > 0);
+	}
+
+	@Test
+	public void testInvalidTraceparentStartsNewTrace() throws Exception {
+		Response response = getBuilder("/app/api/1.0/items/item/1")
+				.header(TracingFilter.TRACEPARENT, "00-" + TRACE_ID + "-0000000000000000-01").get();
+		response.close();
+		String traceresponse = response.getHeaderString(TracingFilter.TRACERESPONSE);
+		assertTrue(traceresponse, traceresponse.matches("00-[0-9a-f]{32}-[0-9a-f]{16}-01"));
+		assertTrue(traceresponse, !traceresponse.contains(TRACE_ID));
+	}
+
+	@Test
+	public void testSpansAreExportedAsOtlpJson() throws Exception {
+		Path file = mTemporaryFolder.getRoot().toPath().resolve("traces/spans.json");
+		Tracer tracer = new Tracer(true, new BatchSpanProcessor(
+				new FileSpanExporter(file, new OtlpJson(mObjectMapper, "skel-test")), 16, Duration.ofMillis(10)));
+		Span root = tracer.startRootSpan("GET /items", null);
+		Span service = tracer.startSpan("ItemService.FetchAllItemList", SpanKind.INTERNAL, Span.LAYER_SERVICE);
+		tracer.recordSpan("SELECT", SpanKind.CLIENT, Span.LAYER_DB, System.nanoTime(), 1000,
+				Collections.singletonMap("db.statement", "select * from item"));
+		tracer.finish(service);
+		tracer.finish(root);
+		tracer.close();
+
+		assertEquals(null, tracer.current());
+		assertEquals(1, root.getStatementCount());
+		List<String> lines = Files.readAllLines(file);
+		int span_count = 0;
+		for (String line : lines) {
+			JsonNode resource_spans = mObjectMapper.readTree(line).get("resourceSpans").get(0);
+			assertEquals("skel-test", resource_spans.at("/resource/attributes/0/value/stringValue").asText());
+			for (JsonNode span : resource_spans.at("/scopeSpans/0/spans")) {
+				span_count++;
+				assertEquals(root.getTraceId(), span.get("traceId").asText());
+				if (span.get("spanId").asText().equals(service.getSpanId()))
+					assertEquals(root.getSpanId(), span.get("parentSpanId").asText());
+			}
+		}
+		assertEquals(3, span_count);
+	}
+}